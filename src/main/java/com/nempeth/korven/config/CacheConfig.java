@@ -1,6 +1,12 @@
 package com.nempeth.korven.config;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nempeth.korven.service.AnalyticsCacheService;
+import com.nempeth.korven.service.LiveEmployeeLeaderboardService;
+import com.nempeth.korven.service.ProductSnapshotCacheService;
+import com.nempeth.korven.service.SalesCubeService;
+import com.nempeth.korven.utils.SalesCube;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
@@ -14,11 +20,39 @@ import java.util.concurrent.TimeUnit;
 public class CacheConfig {
 
     @Bean
-    public CacheManager cacheManager() {
+    public CacheManager cacheManager(@Value("${app.analytics.cube.max-memory-mb:256}") long cubeMaxMemoryMb) {
         CaffeineCacheManager cacheManager = new CaffeineCacheManager("externalTokens");
         cacheManager.setCaffeine(Caffeine.newBuilder()
                 .expireAfterWrite(24, TimeUnit.HOURS)
                 .maximumSize(1000));
+        // Snapshots de productos por negocio para el alta de items. Cada cambio de productos/categorías
+        // sube la versión del catálogo y todas las instancias la comparan antes de usar la entrada;
+        // el TTL solo libera la memoria de negocios inactivos.
+        cacheManager.registerCustomCache(ProductSnapshotCacheService.CACHE_NAME, Caffeine.newBuilder()
+                .expireAfterWrite(5, TimeUnit.MINUTES)
+                .maximumSize(500)
+                .build());
+        // Resultados de analíticas por negocio, métrica y año. Los del año en curso llevan la versión de datos
+        // en la clave; el vencimiento libera las versiones viejas y acota un año cerrado desde otra instancia.
+        // recordStats publica aciertos y fallos en /actuator/metrics/cache.gets?tag=cache:analytics
+        cacheManager.registerCustomCache(AnalyticsCacheService.CACHE_NAME, Caffeine.newBuilder()
+                .expireAfterWrite(1, TimeUnit.HOURS)
+                .maximumSize(5000)
+                .recordStats()
+                .build());
+        // Cubos de ventas por negocio: se desalojan los menos usados cuando su tamaño estimado supera el presupuesto.
+        // Cada consulta verifica la versión de datos; el vencimiento solo acota lo que un cubo vive en memoria
+        cacheManager.registerCustomCache(SalesCubeService.CACHE_NAME, Caffeine.newBuilder()
+                .maximumWeight(cubeMaxMemoryMb * 1024 * 1024)
+                .expireAfterWrite(6, TimeUnit.HOURS)
+                .<Object, Object>weigher((businessId, cube) -> ((SalesCube) cube).estimatedBytes())
+                .recordStats()
+                .build());
+        // Rankings de empleados en vivo por negocio: pocos KB cada uno; se recargan si nadie los consulta
+        cacheManager.registerCustomCache(LiveEmployeeLeaderboardService.CACHE_NAME, Caffeine.newBuilder()
+                .expireAfterAccess(6, TimeUnit.HOURS)
+                .maximumSize(5000)
+                .build());
         return cacheManager;
     }
 }
@@ -0,0 +1,9 @@
+package com.nempeth.korven.constants;
+
+public enum AnalyticsMetric {
+    REVENUE_BY_CATEGORY,
+    PROFIT_BY_CATEGORY,
+    TOTAL_REVENUE,
+    TOTAL_PROFIT,
+    SUMMARY
+}
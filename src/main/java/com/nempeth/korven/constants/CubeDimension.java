@@ -0,0 +1,15 @@
+package com.nempeth.korven.constants;
+
+/**
+ * Dimensiones por las que se puede agrupar y filtrar el cubo de ventas (SalesCube).
+ * HOUR, WEEKDAY y DATE se toman en la zona del negocio.
+ */
+public enum CubeDimension {
+    CATEGORY,
+    PRODUCT,
+    EMPLOYEE,
+    TABLE,
+    HOUR,
+    WEEKDAY,
+    DATE
+}
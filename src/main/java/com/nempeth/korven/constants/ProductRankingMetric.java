@@ -0,0 +1,6 @@
+package com.nempeth.korven.constants;
+
+public enum ProductRankingMetric {
+    UNITS,
+    REVENUE
+}
@@ -0,0 +1,14 @@
+package com.nempeth.korven.event;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Se publica dentro de la transacción que cierra una o más ventas de un negocio
+ * (cierre manual o al liberar la mesa). Los listeners que escriben en la base
+ * deben usar @TransactionalEventListener para confirmar junto con el cierre.
+ * dataVersion es la versión de datos del negocio que dejó este cierre (BusinessDataVersionService).
+ */
+public record SaleClosedEvent(UUID businessId, List<UUID> saleIds, OffsetDateTime closedAt, long dataVersion) {
+}
@@ -0,0 +1,31 @@
+package com.nempeth.korven.persistence.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.UUID;
+
+/**
+ * Versión de los datos que muestran los reportes de un negocio (analíticas y metas) y versión de su
+ * catálogo de productos y categorías. La administra BusinessDataVersionService; no hay fila hasta el primer cambio.
+ */
+@Entity
+@Table(name = "business_data_version")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BusinessDataVersion {
+
+    @Id
+    @Column(name = "business_id", nullable = false, updatable = false)
+    private UUID businessId;
+
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    @Builder.Default
+    @Column(name = "catalog_version", nullable = false)
+    private Long catalogVersion = 0L;
+}
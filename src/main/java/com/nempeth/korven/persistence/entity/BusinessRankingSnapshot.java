@@ -0,0 +1,54 @@
+package com.nempeth.korven.persistence.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Posición de un negocio en el ranking de negocios de un mes, tal como quedó en el último refresco.
+ * La escribe BusinessRankingSnapshotService; el nombre se guarda para que el historial no cambie.
+ */
+@Entity
+@Table(name = "business_ranking_snapshot",
+       uniqueConstraints = @UniqueConstraint(name = "uq_business_ranking_snapshot_month_business",
+                                             columnNames = {"period_month", "business_id"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BusinessRankingSnapshot {
+    @Id
+    @Column(name = "id", nullable = false, updatable = false)
+    private UUID id;
+
+    /** Primer día del mes */
+    @Column(name = "period_month", nullable = false)
+    private LocalDate periodMonth;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "business_id", nullable = false,
+                foreignKey = @ForeignKey(name = "fk_business_ranking_snapshot_business"))
+    private Business business;
+
+    @Column(name = "business_name", nullable = false, columnDefinition = "text")
+    private String businessName;
+
+    @Column(name = "composite_score", nullable = false, precision = 5, scale = 2)
+    private BigDecimal compositeScore;
+
+    @Column(name = "ranking_position", nullable = false)
+    private Integer rankingPosition;
+
+    @Column(name = "computed_at", nullable = false)
+    private OffsetDateTime computedAt;
+
+    @PrePersist
+    public void prePersist() {
+        if (id == null) id = UUID.randomUUID();
+    }
+}
@@ -62,12 +62,12 @@ public class Goal {
         target.setGoal(null);
     }
 
-    public boolean isPeriodActive() {
-        LocalDate now = LocalDate.now();
-        return !now.isBefore(periodStart) && !now.isAfter(periodEnd);
+    // today es el día del negocio (BusinessTime.today()), no el del servidor
+    public boolean isPeriodActive(LocalDate today) {
+        return !today.isBefore(periodStart) && !today.isAfter(periodEnd);
     }
 
-    public boolean isPeriodFinished() {
-        return LocalDate.now().isAfter(periodEnd);
+    public boolean isPeriodFinished(LocalDate today) {
+        return today.isAfter(periodEnd);
     }
 }
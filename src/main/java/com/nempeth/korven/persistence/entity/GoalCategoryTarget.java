@@ -35,6 +35,10 @@ public class GoalCategoryTarget {
     @Column(name = "revenue_target", nullable = false, precision = 12, scale = 2)
     private BigDecimal revenueTarget;
 
+    // Lo mantiene la base (GoalProgressService); null hasta que se cuentan las ventas del período
+    @Column(name = "actual_revenue", precision = 14, scale = 2, insertable = false, updatable = false)
+    private BigDecimal actualRevenue;
+
     @PrePersist
     public void prePersist() {
         if (id == null) id = UUID.randomUUID();
@@ -0,0 +1,53 @@
+package com.nempeth.korven.persistence.entity;
+
+import com.nempeth.korven.constants.ProductRankingMetric;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Resumen serializado (SpaceSavingSketch) de los productos más vendidos de un negocio en un mes,
+ * en unidades o en centavos de ingresos. Lo mantiene ProductSalesSketchService.
+ */
+@Entity
+@Table(name = "product_sales_sketch",
+       uniqueConstraints = @UniqueConstraint(name = "uq_product_sales_sketch_business_month_metric",
+                                             columnNames = {"business_id", "period_month", "metric"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductSalesSketch {
+    @Id
+    @Column(name = "id", nullable = false, updatable = false)
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "business_id", nullable = false,
+                foreignKey = @ForeignKey(name = "fk_product_sales_sketch_business"))
+    private Business business;
+
+    /** Primer día del mes */
+    @Column(name = "period_month", nullable = false)
+    private LocalDate periodMonth;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "metric", nullable = false, columnDefinition = "text")
+    private ProductRankingMetric metric;
+
+    @Column(name = "sketch", nullable = false, columnDefinition = "bytea")
+    private byte[] sketch;
+
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+
+    @PrePersist
+    public void prePersist() {
+        if (id == null) id = UUID.randomUUID();
+        if (updatedAt == null) updatedAt = OffsetDateTime.now();
+    }
+}
@@ -0,0 +1,34 @@
+package com.nempeth.korven.persistence.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Avance de la carga inicial de una tabla de agregados a partir del historial de ventas.
+ * Las ventas cerradas antes de cutoff las carga el backfill; las posteriores las suma
+ * el listener del cierre. processedUntil es el límite (exclusivo) de lo ya cargado.
+ */
+@Entity
+@Table(name = "rollup_backfill_checkpoint")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RollupBackfillCheckpoint {
+
+    @Id
+    @Column(name = "job_name", nullable = false, updatable = false, columnDefinition = "text")
+    private String jobName;
+
+    @Column(name = "cutoff", nullable = false, updatable = false)
+    private OffsetDateTime cutoff;
+
+    @Column(name = "processed_until", nullable = false)
+    private OffsetDateTime processedUntil;
+
+    @Column(name = "completed_at")
+    private OffsetDateTime completedAt;
+}
@@ -10,8 +10,12 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "sale",
-       indexes = @Index(name = "ix_sale_business_time", 
-                       columnList = "business_id, occurred_at DESC"))
+       indexes = {
+               @Index(name = "ix_sale_business_time",
+                      columnList = "business_id, occurred_at DESC"),
+               @Index(name = "ix_sale_business_user_time",
+                      columnList = "business_id, created_by_user_id, occurred_at DESC")
+       })
 @Getter
 @Setter
 @NoArgsConstructor
@@ -0,0 +1,27 @@
+package com.nempeth.korven.persistence.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * Próximo número libre del código de venta (YYMMDD-N) para cada día.
+ * Lo administra SaleCodeAllocator reservando bloques de números.
+ */
+@Entity
+@Table(name = "sale_code_counter")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SaleCodeCounter {
+
+    @Id
+    @Column(name = "code_date", nullable = false, updatable = false)
+    private LocalDate codeDate;
+
+    @Column(name = "next_value", nullable = false)
+    private Long nextValue;
+}
@@ -0,0 +1,58 @@
+package com.nempeth.korven.persistence.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Totales de ventas cerradas por negocio, día (en la zona de BusinessTime) y categoría.
+ * Lo mantiene SaleDailyRollupService al cerrar cada venta; las ventas cerradas son inmutables,
+ * así que las filas solo se incrementan.
+ */
+@Entity
+@Table(name = "sale_daily_rollup",
+       uniqueConstraints = @UniqueConstraint(name = "uq_sale_daily_rollup_business_date_category",
+                                             columnNames = {"business_id", "sale_date", "category_name"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SaleDailyRollup {
+    @Id
+    @Column(name = "id", nullable = false, updatable = false)
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "business_id", nullable = false,
+                foreignKey = @ForeignKey(name = "fk_sale_daily_rollup_business"))
+    private Business business;
+
+    @Column(name = "sale_date", nullable = false)
+    private LocalDate saleDate;
+
+    @Column(name = "category_name", nullable = false, columnDefinition = "text")
+    private String categoryName;
+
+    @Column(name = "revenue", nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue;
+
+    @Column(name = "cost", nullable = false, precision = 14, scale = 2)
+    private BigDecimal cost;
+
+    /** Unidades vendidas (suma de cantidades) */
+    @Column(name = "item_count", nullable = false)
+    private Long itemCount;
+
+    /** Ventas que incluyeron al menos un item de la categoría */
+    @Column(name = "ticket_count", nullable = false)
+    private Long ticketCount;
+
+    @PrePersist
+    public void prePersist() {
+        if (id == null) id = UUID.randomUUID();
+    }
+}
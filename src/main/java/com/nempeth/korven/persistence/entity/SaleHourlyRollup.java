@@ -0,0 +1,50 @@
+package com.nempeth.korven.persistence.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Totales de ventas cerradas por negocio, día y hora (en la zona de BusinessTime).
+ * Lo mantiene SaleHourlyRollupService al cerrar cada venta; las filas solo se incrementan.
+ */
+@Entity
+@Table(name = "sale_hourly_rollup",
+       uniqueConstraints = @UniqueConstraint(name = "uq_sale_hourly_rollup_business_date_hour",
+                                             columnNames = {"business_id", "sale_date", "sale_hour"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SaleHourlyRollup {
+    @Id
+    @Column(name = "id", nullable = false, updatable = false)
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "business_id", nullable = false,
+                foreignKey = @ForeignKey(name = "fk_sale_hourly_rollup_business"))
+    private Business business;
+
+    @Column(name = "sale_date", nullable = false)
+    private LocalDate saleDate;
+
+    /** Hora del día, de 0 a 23 */
+    @Column(name = "sale_hour", nullable = false, columnDefinition = "smallint")
+    private Short saleHour;
+
+    @Column(name = "revenue", nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue;
+
+    @Column(name = "ticket_count", nullable = false)
+    private Long ticketCount;
+
+    @PrePersist
+    public void prePersist() {
+        if (id == null) id = UUID.randomUUID();
+    }
+}
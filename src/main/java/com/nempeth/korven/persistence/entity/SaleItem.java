@@ -7,7 +7,9 @@ import java.math.BigDecimal;
 import java.util.UUID;
 
 @Entity
-@Table(name = "sale_item")
+@Table(name = "sale_item",
+       uniqueConstraints = @UniqueConstraint(name = "uq_sale_item_sale_product",
+                                             columnNames = {"sale_id", "product_id"}))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -0,0 +1,43 @@
+package com.nempeth.korven.persistence.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Histograma serializado (LogLinearHistogram) de los montos de las ventas cerradas de un negocio en un mes.
+ * Lo mantiene TicketSizeHistogramService al cerrar cada venta; solo se le suman tickets.
+ */
+@Entity
+@Table(name = "ticket_size_histogram",
+       uniqueConstraints = @UniqueConstraint(name = "uq_ticket_size_histogram_business_month",
+                                             columnNames = {"business_id", "period_month"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TicketSizeHistogram {
+    @Id
+    @Column(name = "id", nullable = false, updatable = false)
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "business_id", nullable = false,
+                foreignKey = @ForeignKey(name = "fk_ticket_size_histogram_business"))
+    private Business business;
+
+    /** Primer día del mes */
+    @Column(name = "period_month", nullable = false)
+    private LocalDate periodMonth;
+
+    @Column(name = "histogram", nullable = false, columnDefinition = "bytea")
+    private byte[] histogram;
+
+    @PrePersist
+    public void prePersist() {
+        if (id == null) id = UUID.randomUUID();
+    }
+}
@@ -0,0 +1,19 @@
+package com.nempeth.korven.persistence.projection;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Lo que ScoreCalculator necesita de un negocio: cantidad, total y desvío estándar (poblacional)
+ * de los tickets del mes actual, y cantidad y total del mes anterior.
+ */
+public record BusinessScoreMetrics(
+        UUID businessId,
+        String businessName,
+        long currentCount,
+        BigDecimal currentRevenue,
+        double currentStdDev,
+        long previousCount,
+        BigDecimal previousRevenue
+) {
+}
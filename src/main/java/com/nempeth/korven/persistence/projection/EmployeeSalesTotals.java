@@ -0,0 +1,21 @@
+package com.nempeth.korven.persistence.projection;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Ventas cerradas de un miembro del negocio en un período; totalRevenue es cero si no tiene ventas.
+ */
+public record EmployeeSalesTotals(
+        UUID userId,
+        String name,
+        String lastName,
+        Long salesCount,
+        BigDecimal totalRevenue
+) {
+    public EmployeeSalesTotals {
+        if (totalRevenue == null) {
+            totalRevenue = BigDecimal.ZERO;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.nempeth.korven.persistence.projection;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Datos del producto que se copian en cada SaleItem al momento de la venta.
+ * Inmutable para poder compartirlo desde la caché entre requests.
+ */
+public record ProductSnapshot(
+        UUID id,
+        String name,
+        String categoryName,
+        BigDecimal price,
+        BigDecimal cost
+) {
+    public BigDecimal lineTotal(int quantity) {
+        return price.multiply(BigDecimal.valueOf(quantity));
+    }
+}
@@ -0,0 +1,20 @@
+package com.nempeth.korven.persistence.projection;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+/**
+ * Item de una venta cerrada tal como lo guarda el cubo de ventas.
+ * createdByUserName y tableCode pueden venir en null (usuario borrado, venta sin mesa).
+ */
+public record SaleCubeFact(
+        String categoryName,
+        String productName,
+        String createdByUserName,
+        String tableCode,
+        OffsetDateTime occurredAt,
+        BigDecimal lineTotal,
+        BigDecimal unitCost,
+        Integer quantity
+) {
+}
@@ -0,0 +1,28 @@
+package com.nempeth.korven.persistence.projection;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Fila plana venta + item usada por la exportación.
+ * Las ventas sin items vienen en una sola fila con los campos del item en null.
+ */
+public record SaleExportRow(
+        UUID saleId,
+        String saleCode,
+        OffsetDateTime occurredAt,
+        String createdByUserName,
+        String tableCode,
+        BigDecimal totalAmount,
+        String productName,
+        String categoryName,
+        Integer quantity,
+        BigDecimal unitPrice,
+        BigDecimal unitCost,
+        BigDecimal lineTotal
+) {
+    public boolean hasItem() {
+        return productName != null;
+    }
+}
@@ -0,0 +1,46 @@
+package com.nempeth.korven.persistence.repository;
+
+import com.nempeth.korven.persistence.entity.BusinessDataVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface BusinessDataVersionRepository extends JpaRepository<BusinessDataVersion, UUID> {
+
+    /**
+     * Sube la versión y devuelve la nueva. El lock de la fila dura hasta el commit,
+     * así que las versiones de un negocio se confirman en orden.
+     */
+    @Transactional
+    @Query(value = """
+        INSERT INTO business_data_version (business_id, version)
+        VALUES (:businessId, 1)
+        ON CONFLICT (business_id)
+        DO UPDATE SET version = business_data_version.version + 1
+        RETURNING version
+        """, nativeQuery = true)
+    Long increment(@Param("businessId") UUID businessId);
+
+    @Query("SELECT v.version FROM BusinessDataVersion v WHERE v.businessId = :businessId")
+    Optional<Long> findVersion(@Param("businessId") UUID businessId);
+
+    /**
+     * Sube la versión del catálogo y devuelve la nueva, con el mismo lock de fila que {@link #increment}.
+     */
+    @Transactional
+    @Query(value = """
+        INSERT INTO business_data_version (business_id, version, catalog_version)
+        VALUES (:businessId, 0, 1)
+        ON CONFLICT (business_id)
+        DO UPDATE SET catalog_version = business_data_version.catalog_version + 1
+        RETURNING catalog_version
+        """, nativeQuery = true)
+    Long incrementCatalog(@Param("businessId") UUID businessId);
+
+    @Query("SELECT v.catalogVersion FROM BusinessDataVersion v WHERE v.businessId = :businessId")
+    Optional<Long> findCatalogVersion(@Param("businessId") UUID businessId);
+}
@@ -0,0 +1,60 @@
+package com.nempeth.korven.persistence.repository;
+
+import com.nempeth.korven.persistence.entity.BusinessRankingSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface BusinessRankingSnapshotRepository extends JpaRepository<BusinessRankingSnapshot, UUID> {
+
+    /**
+     * Guarda la posición del negocio en el mes. Si otra instancia ya guardó un cálculo más nuevo
+     * no lo pisa, así dos refrescos simultáneos no dejan el mes mezclado.
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO business_ranking_snapshot
+            (id, period_month, business_id, business_name, composite_score, ranking_position, computed_at)
+        VALUES (gen_random_uuid(), :periodMonth, :businessId, :businessName, :compositeScore, :position, :computedAt)
+        ON CONFLICT (period_month, business_id) DO UPDATE
+        SET business_name = EXCLUDED.business_name,
+            composite_score = EXCLUDED.composite_score,
+            ranking_position = EXCLUDED.ranking_position,
+            computed_at = EXCLUDED.computed_at
+        WHERE business_ranking_snapshot.computed_at < EXCLUDED.computed_at
+        """, nativeQuery = true)
+    int upsert(@Param("periodMonth") LocalDate periodMonth,
+               @Param("businessId") UUID businessId,
+               @Param("businessName") String businessName,
+               @Param("compositeScore") BigDecimal compositeScore,
+               @Param("position") int position,
+               @Param("computedAt") OffsetDateTime computedAt);
+
+    /** Borra del mes los negocios que no entraron en el cálculo de computedAt (negocios dados de baja) */
+    @Modifying
+    @Query("""
+        DELETE FROM BusinessRankingSnapshot s
+        WHERE s.periodMonth = :periodMonth
+          AND s.computedAt < :computedAt
+        """)
+    int deleteComputedBefore(@Param("periodMonth") LocalDate periodMonth,
+                             @Param("computedAt") OffsetDateTime computedAt);
+
+    @Query("""
+        SELECT s FROM BusinessRankingSnapshot s
+        WHERE s.periodMonth = :periodMonth
+        ORDER BY s.rankingPosition
+        """)
+    List<BusinessRankingSnapshot> findByPeriodMonth(@Param("periodMonth") LocalDate periodMonth);
+
+    /** Momento del cálculo guardado para el mes, o null si no hay ranking de ese mes */
+    @Query("SELECT MIN(s.computedAt) FROM BusinessRankingSnapshot s WHERE s.periodMonth = :periodMonth")
+    OffsetDateTime findComputedAt(@Param("periodMonth") LocalDate periodMonth);
+}
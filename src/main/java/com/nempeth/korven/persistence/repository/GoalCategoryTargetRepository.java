@@ -7,6 +7,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -28,4 +30,74 @@ public interface GoalCategoryTargetRepository extends JpaRepository<GoalCategory
     @Modifying
     @Query("UPDATE GoalCategoryTarget gct SET gct.categoryName = :newName WHERE gct.categoryId = :categoryId")
     int updateCategoryNameByCategoryId(@Param("categoryId") UUID categoryId, @Param("newName") String newName);
+
+    @Query("SELECT DISTINCT gct.goal.id FROM GoalCategoryTarget gct WHERE gct.categoryId = :categoryId")
+    List<UUID> findGoalIdsByCategoryId(@Param("categoryId") UUID categoryId);
+
+    /**
+     * Suma las ventas cerradas indicadas a los objetivos de categoría de las metas que cubren su día
+     * (en la zona del negocio). Bloquea los objetivos en orden de id, igual que la conciliación,
+     * para que dos cierres simultáneos no se traben. Los objetivos todavía sin contar quedan en NULL.
+     */
+    @Modifying
+    @Query(value = """
+        WITH added AS (
+            SELECT g.id AS goal_id, si.category_name, SUM(si.line_total) AS revenue
+            FROM sale s
+            JOIN sale_item si ON si.sale_id = s.id
+            JOIN goal g ON g.business_id = s.business_id
+                       AND CAST(s.occurred_at AT TIME ZONE :zone AS date) BETWEEN g.period_start AND g.period_end
+            WHERE s.id IN (:saleIds)
+              AND s.occurred_at IS NOT NULL
+            GROUP BY g.id, si.category_name
+        ), locked AS (
+            SELECT t.id, added.revenue
+            FROM goal_category_target t
+            JOIN added ON added.goal_id = t.goal_id AND added.category_name = t.category_name
+            ORDER BY t.id
+            FOR UPDATE OF t
+        )
+        UPDATE goal_category_target t
+        SET actual_revenue = t.actual_revenue + locked.revenue
+        FROM locked
+        WHERE t.id = locked.id
+        """, nativeQuery = true)
+    int addClosedSales(@Param("saleIds") Collection<UUID> saleIds, @Param("zone") String zone);
+
+    /** Bloquea los objetivos de las metas en orden de id; lo usa la conciliación antes de recontar */
+    @Query(value = """
+        SELECT t.id
+        FROM goal_category_target t
+        WHERE t.goal_id IN (:goalIds)
+        ORDER BY t.id
+        FOR UPDATE
+        """, nativeQuery = true)
+    List<UUID> lockByGoalIds(@Param("goalIds") Collection<UUID> goalIds);
+
+    /**
+     * Recuenta desde las ventas los ingresos reales de los objetivos de las metas indicadas
+     * (días del período en la zona del negocio, ambos extremos incluidos)
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+        UPDATE goal_category_target t
+        SET actual_revenue = COALESCE((
+            SELECT SUM(si.line_total)
+            FROM goal g
+            JOIN sale s ON s.business_id = g.business_id
+                       AND s.occurred_at >= CAST(g.period_start AS timestamp) AT TIME ZONE :zone
+                       AND s.occurred_at < CAST(g.period_end + 1 AS timestamp) AT TIME ZONE :zone
+            JOIN sale_item si ON si.sale_id = s.id
+            WHERE g.id = t.goal_id
+              AND si.category_name = t.category_name), 0)
+        WHERE t.goal_id IN (:goalIds)
+        """, nativeQuery = true)
+    int recountActualRevenue(@Param("goalIds") Collection<UUID> goalIds, @Param("zone") String zone);
+
+    /** Metas a conciliar: las que siguen abiertas desde la fecha y las que tienen objetivos sin contar */
+    @Query("""
+        SELECT DISTINCT gct.goal.id FROM GoalCategoryTarget gct
+        WHERE gct.goal.periodEnd >= :since OR gct.actualRevenue IS NULL
+        """)
+    List<UUID> findGoalIdsToReconcile(@Param("since") LocalDate since);
 }
@@ -1,6 +1,7 @@
 package com.nempeth.korven.persistence.repository;
 
 import com.nempeth.korven.persistence.entity.Goal;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -14,6 +15,7 @@ import java.util.UUID;
 @Repository
 public interface GoalRepository extends JpaRepository<Goal, UUID> {
     
+    @EntityGraph(attributePaths = "categoryTargets")
     List<Goal> findByBusinessIdOrderByPeriodStartDesc(UUID businessId);
     
     Optional<Goal> findByIdAndBusinessId(UUID id, UUID businessId);
@@ -31,6 +33,7 @@ public interface GoalRepository extends JpaRepository<Goal, UUID> {
     Optional<Goal> findActiveGoalByDate(@Param("businessId") UUID businessId,
                                         @Param("date") LocalDate date);
     
+    @EntityGraph(attributePaths = "categoryTargets")
     @Query("SELECT g FROM Goal g WHERE g.business.id = :businessId " +
            "AND g.periodEnd < :date ORDER BY g.periodEnd DESC")
     List<Goal> findHistoricalGoals(@Param("businessId") UUID businessId,
@@ -1,8 +1,12 @@
 package com.nempeth.korven.persistence.repository;
 
 import com.nempeth.korven.persistence.entity.Product;
+import com.nempeth.korven.persistence.projection.ProductSnapshot;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -15,5 +19,21 @@ public interface ProductRepository extends JpaRepository<Product, UUID> {
 
     Optional<Product> findByIdAndBusinessId(UUID id, UUID businessId);
 
+    // Snapshots de precio/costo/nombre/categoría para la caché de productos (ver ProductSnapshotCacheService)
+    @Query("""
+        SELECT new com.nempeth.korven.persistence.projection.ProductSnapshot(p.id, p.name, c.name, p.price, p.cost)
+        FROM Product p JOIN p.category c
+        WHERE p.business.id = :businessId
+        """)
+    List<ProductSnapshot> findSnapshotsByBusinessId(@Param("businessId") UUID businessId);
+
+    @Query("""
+        SELECT new com.nempeth.korven.persistence.projection.ProductSnapshot(p.id, p.name, c.name, p.price, p.cost)
+        FROM Product p JOIN p.category c
+        WHERE p.business.id = :businessId AND p.id IN :ids
+        """)
+    List<ProductSnapshot> findSnapshotsByBusinessIdAndIdIn(@Param("businessId") UUID businessId,
+                                                           @Param("ids") Collection<UUID> ids);
+
     boolean existsByBusinessIdAndNameIgnoreCase(UUID businessId, String name);
 }
@@ -0,0 +1,75 @@
+package com.nempeth.korven.persistence.repository;
+
+import com.nempeth.korven.constants.ProductRankingMetric;
+import com.nempeth.korven.persistence.entity.ProductSalesSketch;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface ProductSalesSketchRepository extends JpaRepository<ProductSalesSketch, UUID> {
+
+    /** Crea la fila vacía del mes si no existe, para poder bloquearla antes de combinar */
+    @Modifying
+    @Query(value = """
+        INSERT INTO product_sales_sketch (id, business_id, period_month, metric, sketch, updated_at)
+        VALUES (gen_random_uuid(), :businessId, :periodMonth, :metric, :emptySketch, NOW())
+        ON CONFLICT (business_id, period_month, metric) DO NOTHING
+        """, nativeQuery = true)
+    int insertIfMissing(@Param("businessId") UUID businessId,
+                        @Param("periodMonth") LocalDate periodMonth,
+                        @Param("metric") String metric,
+                        @Param("emptySketch") byte[] emptySketch);
+
+    // Las instancias combinan sus acumulados sobre la misma fila de a una
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+        SELECT p FROM ProductSalesSketch p
+        WHERE p.business.id = :businessId
+          AND p.periodMonth = :periodMonth
+          AND p.metric = :metric
+        """)
+    Optional<ProductSalesSketch> findForUpdate(@Param("businessId") UUID businessId,
+                                               @Param("periodMonth") LocalDate periodMonth,
+                                               @Param("metric") ProductRankingMetric metric);
+
+    @Query("""
+        SELECT p FROM ProductSalesSketch p
+        WHERE p.business.id = :businessId
+          AND p.metric = :metric
+          AND p.periodMonth BETWEEN :fromMonth AND :toMonth
+        """)
+    List<ProductSalesSketch> findByBusinessAndMonths(@Param("businessId") UUID businessId,
+                                                     @Param("metric") ProductRankingMetric metric,
+                                                     @Param("fromMonth") LocalDate fromMonth,
+                                                     @Param("toMonth") LocalDate toMonth);
+
+    /**
+     * Unidades y centavos de ingresos por negocio, mes y producto de las ventas cerradas en [from, to);
+     * lo usa el backfill. Columnas: negocio, año, mes, producto, unidades, centavos.
+     */
+    @Query(value = """
+        SELECT s.business_id,
+               CAST(EXTRACT(YEAR FROM s.occurred_at AT TIME ZONE :zone) AS integer),
+               CAST(EXTRACT(MONTH FROM s.occurred_at AT TIME ZONE :zone) AS integer),
+               si.product_name_at_sale,
+               SUM(si.quantity),
+               CAST(SUM(si.line_total) * 100 AS bigint)
+        FROM sale_item si
+        JOIN sale s ON s.id = si.sale_id
+        WHERE s.occurred_at >= :from
+          AND s.occurred_at < :to
+        GROUP BY 1, 2, 3, 4
+        """, nativeQuery = true)
+    List<Object[]> findProductTotalsClosedBetween(@Param("from") OffsetDateTime from,
+                                                  @Param("to") OffsetDateTime to,
+                                                  @Param("zone") String zone);
+}
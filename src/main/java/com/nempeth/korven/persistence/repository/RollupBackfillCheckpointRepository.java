@@ -0,0 +1,20 @@
+package com.nempeth.korven.persistence.repository;
+
+import com.nempeth.korven.persistence.entity.RollupBackfillCheckpoint;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface RollupBackfillCheckpointRepository extends JpaRepository<RollupBackfillCheckpoint, String> {
+
+    // Evita que dos instancias carguen el mismo tramo a la vez
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM RollupBackfillCheckpoint c WHERE c.jobName = :jobName")
+    Optional<RollupBackfillCheckpoint> findByJobNameForUpdate(@Param("jobName") String jobName);
+
+    boolean existsByJobNameAndCompletedAtIsNotNull(String jobName);
+}
@@ -0,0 +1,29 @@
+package com.nempeth.korven.persistence.repository;
+
+import com.nempeth.korven.persistence.entity.SaleCodeCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+public interface SaleCodeCounterRepository extends JpaRepository<SaleCodeCounter, LocalDate> {
+
+    /**
+     * Reserva atómicamente un bloque de blockSize números para el día y devuelve el límite
+     * superior (exclusivo) del bloque: los números reservados son [resultado - blockSize, resultado).
+     * Corre en su propia transacción para que el lock de la fila dure solo el UPDATE
+     * y no toda la creación de la venta.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query(value = """
+        INSERT INTO sale_code_counter (code_date, next_value)
+        VALUES (:codeDate, 1 + :blockSize)
+        ON CONFLICT (code_date)
+        DO UPDATE SET next_value = sale_code_counter.next_value + :blockSize
+        RETURNING next_value
+        """, nativeQuery = true)
+    Long reserveBlock(@Param("codeDate") LocalDate codeDate, @Param("blockSize") int blockSize);
+}
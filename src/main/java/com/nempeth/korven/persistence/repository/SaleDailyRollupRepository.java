@@ -0,0 +1,148 @@
+package com.nempeth.korven.persistence.repository;
+
+import com.nempeth.korven.persistence.entity.SaleDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface SaleDailyRollupRepository extends JpaRepository<SaleDailyRollup, UUID> {
+
+    /**
+     * Suma las ventas cerradas indicadas a sus filas de día y categoría.
+     * El ORDER BY fija el orden en que se bloquean las filas para que dos cierres simultáneos no se traben.
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO sale_daily_rollup (id, business_id, sale_date, category_name,
+                                       revenue, cost, item_count, ticket_count)
+        SELECT gen_random_uuid(), s.business_id, CAST(s.occurred_at AT TIME ZONE :zone AS date), si.category_name,
+               SUM(si.line_total), SUM(si.unit_cost * si.quantity), SUM(si.quantity), COUNT(DISTINCT s.id)
+        FROM sale s
+        JOIN sale_item si ON si.sale_id = s.id
+        WHERE s.id IN (:saleIds)
+          AND s.occurred_at IS NOT NULL
+        GROUP BY 2, 3, 4
+        ORDER BY 2, 3, 4
+        ON CONFLICT (business_id, sale_date, category_name)
+        DO UPDATE SET revenue = sale_daily_rollup.revenue + EXCLUDED.revenue,
+                      cost = sale_daily_rollup.cost + EXCLUDED.cost,
+                      item_count = sale_daily_rollup.item_count + EXCLUDED.item_count,
+                      ticket_count = sale_daily_rollup.ticket_count + EXCLUDED.ticket_count
+        """, nativeQuery = true)
+    int addClosedSales(@Param("saleIds") Collection<UUID> saleIds, @Param("zone") String zone);
+
+    /** Igual que addClosedSales pero para todas las ventas cerradas en [from, to); lo usa el backfill */
+    @Modifying
+    @Query(value = """
+        INSERT INTO sale_daily_rollup (id, business_id, sale_date, category_name,
+                                       revenue, cost, item_count, ticket_count)
+        SELECT gen_random_uuid(), s.business_id, CAST(s.occurred_at AT TIME ZONE :zone AS date), si.category_name,
+               SUM(si.line_total), SUM(si.unit_cost * si.quantity), SUM(si.quantity), COUNT(DISTINCT s.id)
+        FROM sale s
+        JOIN sale_item si ON si.sale_id = s.id
+        WHERE s.occurred_at >= :from
+          AND s.occurred_at < :to
+        GROUP BY 2, 3, 4
+        ORDER BY 2, 3, 4
+        ON CONFLICT (business_id, sale_date, category_name)
+        DO UPDATE SET revenue = sale_daily_rollup.revenue + EXCLUDED.revenue,
+                      cost = sale_daily_rollup.cost + EXCLUDED.cost,
+                      item_count = sale_daily_rollup.item_count + EXCLUDED.item_count,
+                      ticket_count = sale_daily_rollup.ticket_count + EXCLUDED.ticket_count
+        """, nativeQuery = true)
+    int addSalesClosedBetween(@Param("from") OffsetDateTime from,
+                              @Param("to") OffsetDateTime to,
+                              @Param("zone") String zone);
+
+    // Mismas columnas que las consultas mensuales de SaleRepository, leyendo a lo sumo una fila por día y categoría
+
+    @Query("""
+        SELECT YEAR(r.saleDate), MONTH(r.saleDate), r.categoryName, SUM(r.revenue)
+        FROM SaleDailyRollup r
+        WHERE r.business.id = :businessId
+        AND r.saleDate BETWEEN :startDate AND :endDate
+        GROUP BY YEAR(r.saleDate), MONTH(r.saleDate), r.categoryName
+        ORDER BY YEAR(r.saleDate), MONTH(r.saleDate), r.categoryName
+        """)
+    List<Object[]> findMonthlyRevenueByCategory(@Param("businessId") UUID businessId,
+                                               @Param("startDate") LocalDate startDate,
+                                               @Param("endDate") LocalDate endDate);
+
+    @Query("""
+        SELECT YEAR(r.saleDate), MONTH(r.saleDate), r.categoryName, SUM(r.revenue) - SUM(r.cost)
+        FROM SaleDailyRollup r
+        WHERE r.business.id = :businessId
+        AND r.saleDate BETWEEN :startDate AND :endDate
+        GROUP BY YEAR(r.saleDate), MONTH(r.saleDate), r.categoryName
+        ORDER BY YEAR(r.saleDate), MONTH(r.saleDate), r.categoryName
+        """)
+    List<Object[]> findMonthlyProfitByCategory(@Param("businessId") UUID businessId,
+                                              @Param("startDate") LocalDate startDate,
+                                              @Param("endDate") LocalDate endDate);
+
+    @Query("""
+        SELECT YEAR(r.saleDate), MONTH(r.saleDate), SUM(r.revenue)
+        FROM SaleDailyRollup r
+        WHERE r.business.id = :businessId
+        AND r.saleDate BETWEEN :startDate AND :endDate
+        GROUP BY YEAR(r.saleDate), MONTH(r.saleDate)
+        ORDER BY YEAR(r.saleDate), MONTH(r.saleDate)
+        """)
+    List<Object[]> findMonthlyTotalRevenue(@Param("businessId") UUID businessId,
+                                          @Param("startDate") LocalDate startDate,
+                                          @Param("endDate") LocalDate endDate);
+
+    @Query("""
+        SELECT YEAR(r.saleDate), MONTH(r.saleDate), SUM(r.revenue) - SUM(r.cost)
+        FROM SaleDailyRollup r
+        WHERE r.business.id = :businessId
+        AND r.saleDate BETWEEN :startDate AND :endDate
+        GROUP BY YEAR(r.saleDate), MONTH(r.saleDate)
+        ORDER BY YEAR(r.saleDate), MONTH(r.saleDate)
+        """)
+    List<Object[]> findMonthlyTotalProfit(@Param("businessId") UUID businessId,
+                                         @Param("startDate") LocalDate startDate,
+                                         @Param("endDate") LocalDate endDate);
+
+    /** Igual que SaleRepository.findMonthlySummary, sobre los totales diarios */
+    @Query(value = """
+        WITH days AS (
+            SELECT CAST(EXTRACT(YEAR FROM r.sale_date) AS integer) AS sale_year,
+                   CAST(EXTRACT(MONTH FROM r.sale_date) AS integer) AS sale_month,
+                   r.category_name,
+                   r.revenue,
+                   r.cost
+            FROM sale_daily_rollup r
+            WHERE r.business_id = :businessId
+              AND r.sale_date BETWEEN :startDate AND :endDate
+        )
+        SELECT sale_year, sale_month, category_name,
+               SUM(revenue), SUM(revenue) - SUM(cost)
+        FROM days
+        GROUP BY GROUPING SETS ((sale_year, sale_month, category_name), (sale_year, sale_month))
+        ORDER BY sale_year, sale_month, category_name NULLS FIRST
+        """, nativeQuery = true)
+    List<Object[]> findMonthlySummary(@Param("businessId") UUID businessId,
+                                      @Param("startDate") LocalDate startDate,
+                                      @Param("endDate") LocalDate endDate);
+
+    /** Igual que SaleRepository.findGoalRevenueByCategory, sobre los totales diarios */
+    @Query(value = """
+        SELECT g.id, r.category_name, SUM(r.revenue)
+        FROM goal g
+        JOIN sale_daily_rollup r ON r.business_id = g.business_id
+                                AND r.sale_date BETWEEN g.period_start AND g.period_end
+        WHERE g.id IN (:goalIds)
+          AND EXISTS (SELECT 1 FROM goal_category_target t
+                      WHERE t.goal_id = g.id AND t.category_name = r.category_name)
+        GROUP BY g.id, r.category_name
+        """, nativeQuery = true)
+    List<Object[]> findGoalRevenueByCategory(@Param("goalIds") Collection<UUID> goalIds);
+}
@@ -0,0 +1,69 @@
+package com.nempeth.korven.persistence.repository;
+
+import com.nempeth.korven.persistence.entity.SaleHourlyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface SaleHourlyRollupRepository extends JpaRepository<SaleHourlyRollup, UUID> {
+
+    /** Suma las ventas cerradas indicadas a sus filas de día y hora; el ORDER BY fija el orden de bloqueo */
+    @Modifying
+    @Query(value = """
+        INSERT INTO sale_hourly_rollup (id, business_id, sale_date, sale_hour, revenue, ticket_count)
+        SELECT gen_random_uuid(), s.business_id, CAST(s.occurred_at AT TIME ZONE :zone AS date),
+               CAST(EXTRACT(HOUR FROM s.occurred_at AT TIME ZONE :zone) AS smallint),
+               SUM(s.total_amount), COUNT(*)
+        FROM sale s
+        WHERE s.id IN (:saleIds)
+          AND s.occurred_at IS NOT NULL
+        GROUP BY 2, 3, 4
+        ORDER BY 2, 3, 4
+        ON CONFLICT (business_id, sale_date, sale_hour)
+        DO UPDATE SET revenue = sale_hourly_rollup.revenue + EXCLUDED.revenue,
+                      ticket_count = sale_hourly_rollup.ticket_count + EXCLUDED.ticket_count
+        """, nativeQuery = true)
+    int addClosedSales(@Param("saleIds") Collection<UUID> saleIds, @Param("zone") String zone);
+
+    /** Igual que addClosedSales pero para todas las ventas cerradas en [from, to); lo usa el backfill */
+    @Modifying
+    @Query(value = """
+        INSERT INTO sale_hourly_rollup (id, business_id, sale_date, sale_hour, revenue, ticket_count)
+        SELECT gen_random_uuid(), s.business_id, CAST(s.occurred_at AT TIME ZONE :zone AS date),
+               CAST(EXTRACT(HOUR FROM s.occurred_at AT TIME ZONE :zone) AS smallint),
+               SUM(s.total_amount), COUNT(*)
+        FROM sale s
+        WHERE s.occurred_at >= :from
+          AND s.occurred_at < :to
+        GROUP BY 2, 3, 4
+        ORDER BY 2, 3, 4
+        ON CONFLICT (business_id, sale_date, sale_hour)
+        DO UPDATE SET revenue = sale_hourly_rollup.revenue + EXCLUDED.revenue,
+                      ticket_count = sale_hourly_rollup.ticket_count + EXCLUDED.ticket_count
+        """, nativeQuery = true)
+    int addSalesClosedBetween(@Param("from") OffsetDateTime from,
+                              @Param("to") OffsetDateTime to,
+                              @Param("zone") String zone);
+
+    /**
+     * Filas de día y hora del rango, con el día de la semana ISO (1 = lunes, 7 = domingo):
+     * día de semana, hora, ingresos, tickets. Mismas columnas que SaleRepository.findHourlyTotals.
+     */
+    @Query(value = """
+        SELECT CAST(EXTRACT(ISODOW FROM r.sale_date) AS integer), CAST(r.sale_hour AS integer),
+               r.revenue, r.ticket_count
+        FROM sale_hourly_rollup r
+        WHERE r.business_id = :businessId
+          AND r.sale_date BETWEEN :startDate AND :endDate
+        """, nativeQuery = true)
+    List<Object[]> findHourlyTotals(@Param("businessId") UUID businessId,
+                                    @Param("startDate") LocalDate startDate,
+                                    @Param("endDate") LocalDate endDate);
+}
@@ -1,16 +1,117 @@
 package com.nempeth.korven.persistence.repository;
 
 import com.nempeth.korven.persistence.entity.SaleItem;
+import com.nempeth.korven.persistence.projection.SaleCubeFact;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface SaleItemRepository extends JpaRepository<SaleItem, UUID> {
     List<SaleItem> findBySaleId(UUID saleId);
     
+    List<SaleItem> findBySaleIdIn(Collection<UUID> saleIds);
+    
     List<SaleItem> findByProductId(UUID productId);
     
     Optional<SaleItem> findBySaleIdAndProductId(UUID saleId, UUID productId);
-}
\ No newline at end of file
+
+    /**
+     * Crea o actualiza la línea del producto en la venta y ajusta sale.total_amount por la diferencia,
+     * todo en una sola sentencia. El llamador debe tener bloqueada la fila de la venta
+     * (SaleRepository.findByIdForUpdate) para que la lectura del total anterior no quede vieja.
+     * Devuelve el id del item (el existente si ya estaba en la venta).
+     */
+    @Transactional
+    @Query(value = """
+        WITH previous AS (
+            SELECT line_total FROM sale_item WHERE sale_id = :saleId AND product_id = :productId
+        ),
+        upserted AS (
+            INSERT INTO sale_item (id, sale_id, product_id, product_name_at_sale, category_name,
+                                   unit_price, unit_cost, quantity, line_total)
+            VALUES (:id, :saleId, :productId, :productName, :categoryName,
+                    :unitPrice, :unitCost, :quantity, :lineTotal)
+            ON CONFLICT (sale_id, product_id) DO UPDATE
+            SET unit_price = EXCLUDED.unit_price,
+                unit_cost = EXCLUDED.unit_cost,
+                quantity = EXCLUDED.quantity,
+                line_total = EXCLUDED.line_total
+            RETURNING id, line_total
+        ),
+        total AS (
+            UPDATE sale
+            SET total_amount = total_amount + (SELECT line_total FROM upserted)
+                                            - COALESCE((SELECT line_total FROM previous), 0)
+            WHERE id = :saleId
+        )
+        SELECT id FROM upserted
+        """, nativeQuery = true)
+    UUID upsertItem(@Param("id") UUID id,
+                    @Param("saleId") UUID saleId,
+                    @Param("productId") UUID productId,
+                    @Param("productName") String productName,
+                    @Param("categoryName") String categoryName,
+                    @Param("unitPrice") BigDecimal unitPrice,
+                    @Param("unitCost") BigDecimal unitCost,
+                    @Param("quantity") int quantity,
+                    @Param("lineTotal") BigDecimal lineTotal);
+
+    /**
+     * Elimina la línea del producto y descuenta su total de la venta en una sola sentencia.
+     * Vacío si el producto no estaba en la venta.
+     */
+    @Transactional
+    @Query(value = """
+        WITH deleted AS (
+            DELETE FROM sale_item
+            WHERE sale_id = :saleId AND product_id = :productId
+            RETURNING id, line_total
+        ),
+        total AS (
+            UPDATE sale
+            SET total_amount = total_amount - deleted.line_total
+            FROM deleted
+            WHERE sale.id = :saleId
+        )
+        SELECT id FROM deleted
+        """, nativeQuery = true)
+    Optional<UUID> deleteItemReturningId(@Param("saleId") UUID saleId, @Param("productId") UUID productId);
+
+    // Cubo de ventas: items de ventas cerradas como proyección plana, sin cargar entidades
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+        SELECT new com.nempeth.korven.persistence.projection.SaleCubeFact(
+            si.categoryName, si.productNameAtSale, s.createdByUserName, t.tableCode,
+            s.occurredAt, si.lineTotal, si.unitCost, si.quantity)
+        FROM SaleItem si
+        JOIN si.sale s
+        LEFT JOIN s.table t
+        WHERE s.business.id = :businessId
+          AND s.occurredAt IS NOT NULL
+        """)
+    Stream<SaleCubeFact> streamCubeFactsByBusinessId(@Param("businessId") UUID businessId);
+
+    @Query("""
+        SELECT new com.nempeth.korven.persistence.projection.SaleCubeFact(
+            si.categoryName, si.productNameAtSale, s.createdByUserName, t.tableCode,
+            s.occurredAt, si.lineTotal, si.unitCost, si.quantity)
+        FROM SaleItem si
+        JOIN si.sale s
+        LEFT JOIN s.table t
+        WHERE s.id IN :saleIds
+          AND s.occurredAt IS NOT NULL
+        """)
+    List<SaleCubeFact> findCubeFactsBySaleIds(@Param("saleIds") Collection<UUID> saleIds);
+}
@@ -1,21 +1,35 @@
 package com.nempeth.korven.persistence.repository;
 
 import com.nempeth.korven.persistence.entity.Sale;
+import com.nempeth.korven.persistence.projection.EmployeeSalesTotals;
+import com.nempeth.korven.persistence.projection.SaleExportRow;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.time.LocalDate;
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface SaleRepository extends JpaRepository<Sale, UUID> {
+    // Los listados traen la mesa en el mismo SELECT; los items se cargan aparte en lote (ver SaleItemRepository.findBySaleIdIn)
+    @EntityGraph(attributePaths = "table")
     List<Sale> findByBusinessIdOrderByOccurredAtDesc(UUID businessId);
     
+    @EntityGraph(attributePaths = "table")
     List<Sale> findByBusinessIdAndOccurredAtBetweenOrderByOccurredAtDesc(
         UUID businessId, 
         OffsetDateTime startDate, 
@@ -23,8 +37,10 @@ public interface SaleRepository extends JpaRepository<Sale, UUID> {
     );
     
     // Métodos para filtrar ventas por usuario creador
+    @EntityGraph(attributePaths = "table")
     List<Sale> findByBusinessIdAndCreatedByUserIdOrderByOccurredAtDesc(UUID businessId, UUID userId);
     
+    @EntityGraph(attributePaths = "table")
     List<Sale> findByBusinessIdAndCreatedByUserIdAndOccurredAtBetweenOrderByOccurredAtDesc(
         UUID businessId, 
         UUID userId,
@@ -32,99 +48,417 @@ public interface SaleRepository extends JpaRepository<Sale, UUID> {
         OffsetDateTime endDate
     );
     
+    // Exportación: mismo filtro que findBy...OccurredAtBetween pero como proyección plana venta + item,
+    // leída en bloques por cursor. No carga entidades, así la memoria no crece con el rango exportado.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+        SELECT new com.nempeth.korven.persistence.projection.SaleExportRow(
+            s.id, s.code, s.occurredAt, s.createdByUserName, t.tableCode, s.totalAmount,
+            si.productNameAtSale, si.categoryName, si.quantity, si.unitPrice, si.unitCost, si.lineTotal)
+        FROM Sale s
+        LEFT JOIN s.table t
+        LEFT JOIN SaleItem si ON si.sale = s
+        WHERE s.business.id = :businessId
+          AND s.occurredAt BETWEEN :startDate AND :endDate
+        ORDER BY s.occurredAt DESC, s.id
+        """)
+    Stream<SaleExportRow> streamExportRowsByBusinessIdAndOccurredAtBetween(
+        @Param("businessId") UUID businessId,
+        @Param("startDate") OffsetDateTime startDate,
+        @Param("endDate") OffsetDateTime endDate
+    );
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+        SELECT new com.nempeth.korven.persistence.projection.SaleExportRow(
+            s.id, s.code, s.occurredAt, s.createdByUserName, t.tableCode, s.totalAmount,
+            si.productNameAtSale, si.categoryName, si.quantity, si.unitPrice, si.unitCost, si.lineTotal)
+        FROM Sale s
+        LEFT JOIN s.table t
+        LEFT JOIN SaleItem si ON si.sale = s
+        WHERE s.business.id = :businessId
+          AND s.createdByUser.id = :userId
+          AND s.occurredAt BETWEEN :startDate AND :endDate
+        ORDER BY s.occurredAt DESC, s.id
+        """)
+    Stream<SaleExportRow> streamExportRowsByBusinessIdAndCreatedByUserIdAndOccurredAtBetween(
+        @Param("businessId") UUID businessId,
+        @Param("userId") UUID userId,
+        @Param("startDate") OffsetDateTime startDate,
+        @Param("endDate") OffsetDateTime endDate
+    );
+    
     // Métodos para filtrar ventas abiertas/cerradas
+    @EntityGraph(attributePaths = "table")
     List<Sale> findByBusinessIdAndOccurredAtIsNullOrderByIdDesc(UUID businessId);
     
+    @EntityGraph(attributePaths = "table")
     List<Sale> findByBusinessIdAndOccurredAtIsNotNullOrderByOccurredAtDesc(UUID businessId);
     
+    @EntityGraph(attributePaths = "table")
     List<Sale> findByBusinessIdAndCreatedByUserIdAndOccurredAtIsNullOrderByIdDesc(UUID businessId, UUID userId);
     
+    @EntityGraph(attributePaths = "table")
     List<Sale> findByBusinessIdAndCreatedByUserIdAndOccurredAtIsNotNullOrderByOccurredAtDesc(UUID businessId, UUID userId);
     
-    @Query("SELECT s FROM Sale s WHERE s.business.id = :businessId AND s.occurredAt >= :startDate ORDER BY s.occurredAt DESC")
-    List<Sale> findRecentSalesForBusiness(@Param("businessId") UUID businessId, @Param("startDate") OffsetDateTime startDate);
+    // Paginación por keyset: órdenes abiertas por id, cerradas por (occurred_at, id)
+    @EntityGraph(attributePaths = "table")
+    List<Sale> findByBusinessIdAndOccurredAtIsNullOrderByIdDesc(UUID businessId, Limit limit);
+
+    @EntityGraph(attributePaths = "table")
+    List<Sale> findByBusinessIdAndOccurredAtIsNullAndIdLessThanOrderByIdDesc(UUID businessId, UUID id, Limit limit);
+
+    @EntityGraph(attributePaths = "table")
+    List<Sale> findByBusinessIdAndCreatedByUserIdAndOccurredAtIsNullOrderByIdDesc(UUID businessId, UUID userId, Limit limit);
+
+    @EntityGraph(attributePaths = "table")
+    List<Sale> findByBusinessIdAndCreatedByUserIdAndOccurredAtIsNullAndIdLessThanOrderByIdDesc(
+        UUID businessId,
+        UUID userId,
+        UUID id,
+        Limit limit
+    );
+
+    @EntityGraph(attributePaths = "table")
+    List<Sale> findByBusinessIdAndOccurredAtIsNotNullOrderByOccurredAtDescIdDesc(UUID businessId, Limit limit);
+
+    @EntityGraph(attributePaths = "table")
+    List<Sale> findByBusinessIdAndCreatedByUserIdAndOccurredAtIsNotNullOrderByOccurredAtDescIdDesc(
+        UUID businessId,
+        UUID userId,
+        Limit limit
+    );
 
+    @EntityGraph(attributePaths = "table")
     @Query("""
-    SELECT YEAR(s.occurredAt), MONTH(s.occurredAt), si.categoryName, SUM(si.lineTotal)
-    FROM Sale s 
-    JOIN s.saleItems si 
-        WHERE s.business.id = :businessId 
-        AND s.occurredAt BETWEEN :startDate AND :endDate
-    GROUP BY YEAR(s.occurredAt), MONTH(s.occurredAt), si.categoryName
-    ORDER BY YEAR(s.occurredAt), MONTH(s.occurredAt), si.categoryName
+        SELECT s FROM Sale s
+        WHERE s.business.id = :businessId
+        AND s.occurredAt <= :occurredAt
+        AND (s.occurredAt < :occurredAt OR s.id < :id)
+        ORDER BY s.occurredAt DESC, s.id DESC
         """)
-    List<Object[]> findMonthlyRevenueByCategory(@Param("businessId") UUID businessId, 
-                                               @Param("startDate") OffsetDateTime startDate, 
-                                               @Param("endDate") OffsetDateTime endDate);
-    
+    List<Sale> findClosedPageAfter(@Param("businessId") UUID businessId,
+                                   @Param("occurredAt") OffsetDateTime occurredAt,
+                                   @Param("id") UUID id,
+                                   Limit limit);
+
+    @EntityGraph(attributePaths = "table")
     @Query("""
-        SELECT YEAR(s.occurredAt), MONTH(s.occurredAt), si.categoryName, 
-        SUM(si.lineTotal) - SUM(si.unitCost * si.quantity)
-        FROM Sale s 
-        JOIN s.saleItems si 
-        WHERE s.business.id = :businessId 
-        AND s.occurredAt BETWEEN :startDate AND :endDate
-        GROUP BY YEAR(s.occurredAt), MONTH(s.occurredAt), si.categoryName
-        ORDER BY YEAR(s.occurredAt), MONTH(s.occurredAt), si.categoryName
+        SELECT s FROM Sale s
+        WHERE s.business.id = :businessId
+        AND s.createdByUser.id = :userId
+        AND s.occurredAt <= :occurredAt
+        AND (s.occurredAt < :occurredAt OR s.id < :id)
+        ORDER BY s.occurredAt DESC, s.id DESC
         """)
-    List<Object[]> findMonthlyProfitByCategory(@Param("businessId") UUID businessId, 
-                                              @Param("startDate") OffsetDateTime startDate, 
-                                              @Param("endDate") OffsetDateTime endDate);
+    List<Sale> findClosedPageAfterByCreatedByUser(@Param("businessId") UUID businessId,
+                                                  @Param("userId") UUID userId,
+                                                  @Param("occurredAt") OffsetDateTime occurredAt,
+                                                  @Param("id") UUID id,
+                                                  Limit limit);
     
+    @Query("SELECT s FROM Sale s WHERE s.business.id = :businessId AND s.occurredAt >= :startDate ORDER BY s.occurredAt DESC")
+    List<Sale> findRecentSalesForBusiness(@Param("businessId") UUID businessId, @Param("startDate") OffsetDateTime startDate);
+
+    // Ventas cerradas en [from, to), filtrando occurred_at tal cual para que use ix_sale_business_time
     @Query("""
-        SELECT YEAR(s.occurredAt), MONTH(s.occurredAt), SUM(s.totalAmount)
-        FROM Sale s 
-        WHERE s.business.id = :businessId 
-        AND s.occurredAt BETWEEN :startDate AND :endDate
-        GROUP BY YEAR(s.occurredAt), MONTH(s.occurredAt)
-        ORDER BY YEAR(s.occurredAt), MONTH(s.occurredAt)
+        SELECT s FROM Sale s
+        WHERE s.business.id = :businessId
+          AND s.occurredAt >= :from
+          AND s.occurredAt < :to
+        ORDER BY s.occurredAt DESC
         """)
-    List<Object[]> findMonthlyTotalRevenue(@Param("businessId") UUID businessId, 
-                                          @Param("startDate") OffsetDateTime startDate, 
-                                          @Param("endDate") OffsetDateTime endDate);
-    
+    List<Sale> findClosedBetween(@Param("businessId") UUID businessId,
+                                 @Param("from") OffsetDateTime from,
+                                 @Param("to") OffsetDateTime to);
+
+    /**
+     * Métricas de ranking de los negocios en una sola pasada por las ventas de los dos meses:
+     * negocio, nombre, cantidad, total y desvío estándar poblacional de [currentFrom, currentTo),
+     * cantidad y total de [previousFrom, currentFrom). Los negocios sin ventas vienen en cero.
+     * Devuelve solo los negocios de la partición indicada (último byte del id módulo partitions),
+     * para repartir el cálculo en varias consultas; con partitions = 1 vienen todos.
+     */
+    @Query(value = """
+        SELECT b.id, b.name,
+               COUNT(s.id) FILTER (WHERE s.occurred_at >= :currentFrom),
+               COALESCE(SUM(s.total_amount) FILTER (WHERE s.occurred_at >= :currentFrom), 0),
+               COALESCE(STDDEV_POP(s.total_amount) FILTER (WHERE s.occurred_at >= :currentFrom), 0),
+               COUNT(s.id) FILTER (WHERE s.occurred_at < :currentFrom),
+               COALESCE(SUM(s.total_amount) FILTER (WHERE s.occurred_at < :currentFrom), 0)
+        FROM business b
+        LEFT JOIN sale s ON s.business_id = b.id
+                        AND s.occurred_at >= :previousFrom
+                        AND s.occurred_at < :currentTo
+        WHERE get_byte(uuid_send(b.id), 15) % :partitions = :partition
+        GROUP BY b.id, b.name
+        """, nativeQuery = true)
+    List<Object[]> findBusinessScoreMetrics(@Param("previousFrom") OffsetDateTime previousFrom,
+                                            @Param("currentFrom") OffsetDateTime currentFrom,
+                                            @Param("currentTo") OffsetDateTime currentTo,
+                                            @Param("partitions") int partitions,
+                                            @Param("partition") int partition);
+
+    /**
+     * Cantidad y total de ventas cerradas en [from, to) de cada miembro del negocio, en una sola consulta.
+     * Los miembros sin ventas vienen con cantidad 0; la suma de ventas se resuelve con ix_sale_business_closed.
+     */
     @Query("""
-        SELECT YEAR(s.occurredAt), MONTH(s.occurredAt), 
-               SUM(si.lineTotal) - SUM(si.unitCost * si.quantity)
-        FROM Sale s 
-        JOIN s.saleItems si 
-        WHERE s.business.id = :businessId 
-        AND s.occurredAt BETWEEN :startDate AND :endDate
-        GROUP BY YEAR(s.occurredAt), MONTH(s.occurredAt)
-        ORDER BY YEAR(s.occurredAt), MONTH(s.occurredAt)
+        SELECT new com.nempeth.korven.persistence.projection.EmployeeSalesTotals(
+            u.id, u.name, u.lastName, COUNT(s.id), SUM(s.totalAmount))
+        FROM BusinessMembership m
+        JOIN m.user u
+        LEFT JOIN Sale s ON s.business.id = m.business.id
+            AND s.createdByUser.id = u.id
+            AND s.occurredAt >= :from
+            AND s.occurredAt < :to
+        WHERE m.business.id = :businessId
+        GROUP BY u.id, u.name, u.lastName
         """)
-    List<Object[]> findMonthlyTotalProfit(@Param("businessId") UUID businessId, 
-                                         @Param("startDate") OffsetDateTime startDate, 
-                                         @Param("endDate") OffsetDateTime endDate);
+    List<EmployeeSalesTotals> findEmployeeSalesTotals(@Param("businessId") UUID businessId,
+                                                      @Param("from") OffsetDateTime from,
+                                                      @Param("to") OffsetDateTime to);
+
+    /**
+     * Igual que findEmployeeSalesTotals pero solo de las ventas indicadas (las de un cierre).
+     * Como allí, solo cuenta a quienes siguen siendo miembros del negocio de la venta.
+     */
+    @Query("""
+        SELECT new com.nempeth.korven.persistence.projection.EmployeeSalesTotals(
+            u.id, u.name, u.lastName, COUNT(s.id), SUM(s.totalAmount))
+        FROM Sale s
+        JOIN s.createdByUser u
+        JOIN BusinessMembership m ON m.business.id = s.business.id AND m.user.id = u.id
+        WHERE s.id IN :saleIds
+        GROUP BY u.id, u.name, u.lastName
+        """)
+    List<EmployeeSalesTotals> findEmployeeSalesTotalsBySaleIds(@Param("saleIds") Collection<UUID> saleIds);
+
+    // Consultas mensuales: el rango [from, to) y el mes de cada venta se toman en la zona indicada (ver BusinessTime)
+
+    @Query(value = """
+        SELECT CAST(EXTRACT(YEAR FROM s.occurred_at AT TIME ZONE :zone) AS integer),
+               CAST(EXTRACT(MONTH FROM s.occurred_at AT TIME ZONE :zone) AS integer),
+               si.category_name,
+               SUM(si.line_total)
+        FROM sale s
+        JOIN sale_item si ON si.sale_id = s.id
+        WHERE s.business_id = :businessId
+          AND s.occurred_at >= :from
+          AND s.occurred_at < :to
+        GROUP BY 1, 2, 3
+        ORDER BY 1, 2, 3
+        """, nativeQuery = true)
+    List<Object[]> findMonthlyRevenueByCategory(@Param("businessId") UUID businessId,
+                                               @Param("from") OffsetDateTime from,
+                                               @Param("to") OffsetDateTime to,
+                                               @Param("zone") String zone);
+
+    @Query(value = """
+        SELECT CAST(EXTRACT(YEAR FROM s.occurred_at AT TIME ZONE :zone) AS integer),
+               CAST(EXTRACT(MONTH FROM s.occurred_at AT TIME ZONE :zone) AS integer),
+               si.category_name,
+               SUM(si.line_total) - SUM(si.unit_cost * si.quantity)
+        FROM sale s
+        JOIN sale_item si ON si.sale_id = s.id
+        WHERE s.business_id = :businessId
+          AND s.occurred_at >= :from
+          AND s.occurred_at < :to
+        GROUP BY 1, 2, 3
+        ORDER BY 1, 2, 3
+        """, nativeQuery = true)
+    List<Object[]> findMonthlyProfitByCategory(@Param("businessId") UUID businessId,
+                                              @Param("from") OffsetDateTime from,
+                                              @Param("to") OffsetDateTime to,
+                                              @Param("zone") String zone);
+
+    @Query(value = """
+        SELECT CAST(EXTRACT(YEAR FROM s.occurred_at AT TIME ZONE :zone) AS integer),
+               CAST(EXTRACT(MONTH FROM s.occurred_at AT TIME ZONE :zone) AS integer),
+               SUM(s.total_amount)
+        FROM sale s
+        WHERE s.business_id = :businessId
+          AND s.occurred_at >= :from
+          AND s.occurred_at < :to
+        GROUP BY 1, 2
+        ORDER BY 1, 2
+        """, nativeQuery = true)
+    List<Object[]> findMonthlyTotalRevenue(@Param("businessId") UUID businessId,
+                                          @Param("from") OffsetDateTime from,
+                                          @Param("to") OffsetDateTime to,
+                                          @Param("zone") String zone);
+
+    @Query(value = """
+        SELECT CAST(EXTRACT(YEAR FROM s.occurred_at AT TIME ZONE :zone) AS integer),
+               CAST(EXTRACT(MONTH FROM s.occurred_at AT TIME ZONE :zone) AS integer),
+               SUM(si.line_total) - SUM(si.unit_cost * si.quantity)
+        FROM sale s
+        JOIN sale_item si ON si.sale_id = s.id
+        WHERE s.business_id = :businessId
+          AND s.occurred_at >= :from
+          AND s.occurred_at < :to
+        GROUP BY 1, 2
+        ORDER BY 1, 2
+        """, nativeQuery = true)
+    List<Object[]> findMonthlyTotalProfit(@Param("businessId") UUID businessId,
+                                         @Param("from") OffsetDateTime from,
+                                         @Param("to") OffsetDateTime to,
+                                         @Param("zone") String zone);
+
+    /**
+     * Ingresos y ganancia por mes y categoría, y los totales por mes, recorriendo las ventas una sola vez.
+     * Columnas: año, mes, categoría (null en las filas de total), ingresos, ganancia.
+     */
+    @Query(value = """
+        WITH items AS (
+            SELECT CAST(EXTRACT(YEAR FROM s.occurred_at AT TIME ZONE :zone) AS integer) AS sale_year,
+                   CAST(EXTRACT(MONTH FROM s.occurred_at AT TIME ZONE :zone) AS integer) AS sale_month,
+                   si.category_name,
+                   si.line_total,
+                   si.unit_cost * si.quantity AS line_cost
+            FROM sale s
+            JOIN sale_item si ON si.sale_id = s.id
+            WHERE s.business_id = :businessId
+              AND s.occurred_at >= :from
+              AND s.occurred_at < :to
+        )
+        SELECT sale_year, sale_month, category_name,
+               SUM(line_total), SUM(line_total) - SUM(line_cost)
+        FROM items
+        GROUP BY GROUPING SETS ((sale_year, sale_month, category_name), (sale_year, sale_month))
+        ORDER BY sale_year, sale_month, category_name NULLS FIRST
+        """, nativeQuery = true)
+    List<Object[]> findMonthlySummary(@Param("businessId") UUID businessId,
+                                      @Param("from") OffsetDateTime from,
+                                      @Param("to") OffsetDateTime to,
+                                      @Param("zone") String zone);
+
+    /**
+     * Ingresos y tickets por día de la semana ISO (1 = lunes) y hora.
+     * Mismas columnas que SaleHourlyRollupRepository.findHourlyTotals: día de semana, hora, ingresos, tickets.
+     */
+    @Query(value = """
+        SELECT CAST(EXTRACT(ISODOW FROM s.occurred_at AT TIME ZONE :zone) AS integer),
+               CAST(EXTRACT(HOUR FROM s.occurred_at AT TIME ZONE :zone) AS integer),
+               SUM(s.total_amount), COUNT(*)
+        FROM sale s
+        WHERE s.business_id = :businessId
+          AND s.occurred_at >= :from
+          AND s.occurred_at < :to
+        GROUP BY 1, 2
+        """, nativeQuery = true)
+    List<Object[]> findHourlyTotals(@Param("businessId") UUID businessId,
+                                    @Param("from") OffsetDateTime from,
+                                    @Param("to") OffsetDateTime to,
+                                    @Param("zone") String zone);
+
+    /** Unidades e ingresos por producto de las ventas cerradas en [from, to): producto, unidades, ingresos */
+    @Query(value = """
+        SELECT si.product_name_at_sale, SUM(si.quantity), SUM(si.line_total)
+        FROM sale_item si
+        JOIN sale s ON s.id = si.sale_id
+        WHERE s.business_id = :businessId
+          AND s.occurred_at >= :from
+          AND s.occurred_at < :to
+        GROUP BY 1
+        """, nativeQuery = true)
+    List<Object[]> findProductTotals(@Param("businessId") UUID businessId,
+                                     @Param("from") OffsetDateTime from,
+                                     @Param("to") OffsetDateTime to);
+
+    /** Montos en centavos de las ventas cerradas en [from, to) con su cantidad de tickets: centavos, cantidad */
+    @Query(value = """
+        SELECT CAST(s.total_amount * 100 AS bigint), COUNT(*)
+        FROM sale s
+        WHERE s.business_id = :businessId
+          AND s.occurred_at >= :from
+          AND s.occurred_at < :to
+        GROUP BY 1
+        """, nativeQuery = true)
+    List<Object[]> findTicketAmounts(@Param("businessId") UUID businessId,
+                                     @Param("from") OffsetDateTime from,
+                                     @Param("to") OffsetDateTime to);
     
+    /**
+     * Ingresos de las metas indicadas por categoría objetivo, en una sola consulta: meta, categoría y total.
+     * Cada meta cuenta las ventas de sus días en la zona del negocio (ambos extremos incluidos);
+     * las categorías sin ventas no vienen.
+     */
     @Query(value = """
-        SELECT COALESCE(SUM(si.line_total), 0)
-        FROM sale s 
+        SELECT g.id, si.category_name, SUM(si.line_total)
+        FROM goal g
+        JOIN sale s ON s.business_id = g.business_id
+                   AND s.occurred_at >= CAST(g.period_start AS timestamp) AT TIME ZONE :zone
+                   AND s.occurred_at < CAST(g.period_end + 1 AS timestamp) AT TIME ZONE :zone
         JOIN sale_item si ON si.sale_id = s.id
-        WHERE s.business_id = :businessId 
-        AND si.category_name = :categoryName
-        AND s.occurred_at::date BETWEEN :startDate AND :endDate
+        WHERE g.id IN (:goalIds)
+          AND EXISTS (SELECT 1 FROM goal_category_target t
+                      WHERE t.goal_id = g.id AND t.category_name = si.category_name)
+        GROUP BY g.id, si.category_name
         """, nativeQuery = true)
-    Optional<BigDecimal> calculateRevenueByCategoryAndDateRange(
-        @Param("businessId") UUID businessId,
-        @Param("categoryName") String categoryName,
-        @Param("startDate") LocalDate startDate,
-        @Param("endDate") LocalDate endDate
-    );
+    List<Object[]> findGoalRevenueByCategory(@Param("goalIds") Collection<UUID> goalIds,
+                                             @Param("zone") String zone);
     
     // Métodos para mesas
     List<Sale> findByTableIdAndOccurredAtIsNull(UUID tableId);
     
     List<Sale> findByBusinessIdAndTableIdAndOccurredAtIsNull(UUID businessId, UUID tableId);
 
+    // Serializa los cambios de items de una misma orden (ver SaleItemRepository.upsertItem)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM Sale s WHERE s.id = :saleId")
+    Optional<Sale> findByIdForUpdate(@Param("saleId") UUID saleId);
+
+    /**
+     * Crea la orden abierta de la mesa o devuelve la que ya existe, en una sola sentencia.
+     * ux_sale_open_table garantiza una única orden abierta por mesa aunque dos mozos la abran a la vez.
+     * Si la orden ya existía, el código reservado para la nueva queda sin usar.
+     */
+    @Transactional
     @Query(value = """
-        SELECT COALESCE(MAX(
-            CAST(SPLIT_PART(s.code, '-', 2) AS INTEGER)
-        ), 0) + 1
-        FROM sale s
-        WHERE s.code LIKE :datePrefix || '-%'
+        INSERT INTO sale (id, business_id, table_id, created_by_user_id, created_by_user_name,
+                          occurred_at, total_amount, code)
+        VALUES (:id, :businessId, :tableId, :createdByUserId, :createdByUserName, NULL, 0, :code)
+        ON CONFLICT (table_id) WHERE occurred_at IS NULL
+        DO UPDATE SET table_id = EXCLUDED.table_id
+        RETURNING id
+        """, nativeQuery = true)
+    UUID insertOpenSaleForTableOrGetExisting(@Param("id") UUID id,
+                                             @Param("businessId") UUID businessId,
+                                             @Param("tableId") UUID tableId,
+                                             @Param("createdByUserId") UUID createdByUserId,
+                                             @Param("createdByUserName") String createdByUserName,
+                                             @Param("code") String code);
+
+    // El total de la venta se mantiene con deltas en cada cambio de item, sin releer sale_item
+    @Modifying
+    @Query("UPDATE Sale s SET s.totalAmount = s.totalAmount + :delta WHERE s.id = :saleId")
+    int incrementTotalAmount(@Param("saleId") UUID saleId, @Param("delta") BigDecimal delta);
+
+    @Modifying
+    @Query("UPDATE Sale s SET s.occurredAt = :occurredAt WHERE s.id = :saleId AND s.occurredAt IS NULL")
+    int closeOpenSale(@Param("saleId") UUID saleId, @Param("occurredAt") OffsetDateTime occurredAt);
+
+    /**
+     * Cierra las órdenes abiertas de la mesa y devuelve los ids de las que cerró esta sentencia,
+     * para que el cierre se registre una sola vez aunque dos procesos liberen la mesa a la vez.
+     */
+    @Transactional
+    @Query(value = """
+        UPDATE sale SET occurred_at = :occurredAt
+        WHERE business_id = :businessId
+          AND table_id = :tableId
+          AND occurred_at IS NULL
+        RETURNING id
         """, nativeQuery = true)
-    Long findNextSequenceForDate(@Param("datePrefix") String datePrefix);
+    List<UUID> closeOpenSalesByTable(@Param("businessId") UUID businessId,
+                                     @Param("tableId") UUID tableId,
+                                     @Param("occurredAt") OffsetDateTime occurredAt);
+
+    // Próxima venta cerrada en [from, to); la usa el backfill de agregados para saltear días sin ventas
+    @Query("SELECT MIN(s.occurredAt) FROM Sale s WHERE s.occurredAt >= :from AND s.occurredAt < :to")
+    OffsetDateTime findFirstOccurredAtBetween(@Param("from") OffsetDateTime from,
+                                              @Param("to") OffsetDateTime to);
 
     boolean existsByCreatedByUserIdAndOccurredAtIsNull(UUID userId);
 
@@ -0,0 +1,81 @@
+package com.nempeth.korven.persistence.repository;
+
+import com.nempeth.korven.persistence.entity.TicketSizeHistogram;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface TicketSizeHistogramRepository extends JpaRepository<TicketSizeHistogram, UUID> {
+
+    /** Crea la fila vacía del mes si no existe, para poder bloquearla antes de sumar */
+    @Modifying
+    @Query(value = """
+        INSERT INTO ticket_size_histogram (id, business_id, period_month, histogram)
+        VALUES (gen_random_uuid(), :businessId, :periodMonth, :emptyHistogram)
+        ON CONFLICT (business_id, period_month) DO NOTHING
+        """, nativeQuery = true)
+    int insertIfMissing(@Param("businessId") UUID businessId,
+                        @Param("periodMonth") LocalDate periodMonth,
+                        @Param("emptyHistogram") byte[] emptyHistogram);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+        SELECT h FROM TicketSizeHistogram h
+        WHERE h.business.id = :businessId
+          AND h.periodMonth = :periodMonth
+        """)
+    Optional<TicketSizeHistogram> findForUpdate(@Param("businessId") UUID businessId,
+                                                @Param("periodMonth") LocalDate periodMonth);
+
+    @Query("""
+        SELECT h FROM TicketSizeHistogram h
+        WHERE h.business.id = :businessId
+          AND h.periodMonth BETWEEN :fromMonth AND :toMonth
+        """)
+    List<TicketSizeHistogram> findByBusinessAndMonths(@Param("businessId") UUID businessId,
+                                                      @Param("fromMonth") LocalDate fromMonth,
+                                                      @Param("toMonth") LocalDate toMonth);
+
+    /**
+     * Montos en centavos de las ventas cerradas indicadas, agrupados:
+     * negocio, año, mes, centavos, cantidad de tickets.
+     */
+    @Query(value = """
+        SELECT s.business_id,
+               CAST(EXTRACT(YEAR FROM s.occurred_at AT TIME ZONE :zone) AS integer),
+               CAST(EXTRACT(MONTH FROM s.occurred_at AT TIME ZONE :zone) AS integer),
+               CAST(s.total_amount * 100 AS bigint),
+               COUNT(*)
+        FROM sale s
+        WHERE s.id IN (:saleIds)
+          AND s.occurred_at IS NOT NULL
+        GROUP BY 1, 2, 3, 4
+        """, nativeQuery = true)
+    List<Object[]> findTicketAmounts(@Param("saleIds") Collection<UUID> saleIds, @Param("zone") String zone);
+
+    /** Igual que findTicketAmounts pero para todas las ventas cerradas en [from, to); lo usa el backfill */
+    @Query(value = """
+        SELECT s.business_id,
+               CAST(EXTRACT(YEAR FROM s.occurred_at AT TIME ZONE :zone) AS integer),
+               CAST(EXTRACT(MONTH FROM s.occurred_at AT TIME ZONE :zone) AS integer),
+               CAST(s.total_amount * 100 AS bigint),
+               COUNT(*)
+        FROM sale s
+        WHERE s.occurred_at >= :from
+          AND s.occurred_at < :to
+        GROUP BY 1, 2, 3, 4
+        """, nativeQuery = true)
+    List<Object[]> findTicketAmountsClosedBetween(@Param("from") OffsetDateTime from,
+                                                  @Param("to") OffsetDateTime to,
+                                                  @Param("zone") String zone);
+}
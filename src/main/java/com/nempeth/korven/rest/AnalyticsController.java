@@ -1,12 +1,18 @@
 package com.nempeth.korven.rest;
 
+import com.nempeth.korven.constants.AnalyticsMetric;
 import com.nempeth.korven.rest.dto.*;
 import com.nempeth.korven.service.AnalyticsService;
+import com.nempeth.korven.service.SalesCubeService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.UUID;
 
@@ -16,52 +22,131 @@ import java.util.UUID;
 public class AnalyticsController {
 
     private final AnalyticsService analyticsService;
+    private final SalesCubeService salesCubeService;
 
     @GetMapping("/revenue/by-category")
     public ResponseEntity<List<MonthlyCategoryRevenueResponse>> getMonthlyRevenueByCategory(
             @PathVariable UUID businessId,
             @RequestParam(required = false, defaultValue = "#{T(java.time.Year).now().getValue()}") Integer year,
-            Authentication auth) {
+            Authentication auth,
+            WebRequest request) {
         
         String userEmail = auth.getName();
-        List<MonthlyCategoryRevenueResponse> revenue = analyticsService.getMonthlyRevenueByCategory(
-                userEmail, businessId, year);
-        return ResponseEntity.ok(revenue);
+        return ConditionalResponses.of(
+                analyticsService.getReportVersion(userEmail, businessId, AnalyticsMetric.REVENUE_BY_CATEGORY, year),
+                request,
+                () -> analyticsService.getMonthlyRevenueByCategory(userEmail, businessId, year));
     }
 
     @GetMapping("/profit/by-category")
     public ResponseEntity<List<MonthlyCategoryProfitResponse>> getMonthlyProfitByCategory(
             @PathVariable UUID businessId,
             @RequestParam(required = false, defaultValue = "#{T(java.time.Year).now().getValue()}") Integer year,
-            Authentication auth) {
+            Authentication auth,
+            WebRequest request) {
         
         String userEmail = auth.getName();
-        List<MonthlyCategoryProfitResponse> profit = analyticsService.getMonthlyProfitByCategory(
-                userEmail, businessId, year);
-        return ResponseEntity.ok(profit);
+        return ConditionalResponses.of(
+                analyticsService.getReportVersion(userEmail, businessId, AnalyticsMetric.PROFIT_BY_CATEGORY, year),
+                request,
+                () -> analyticsService.getMonthlyProfitByCategory(userEmail, businessId, year));
     }
 
     @GetMapping("/revenue/total")
     public ResponseEntity<List<MonthlyRevenueResponse>> getMonthlyTotalRevenue(
             @PathVariable UUID businessId,
             @RequestParam(required = false, defaultValue = "#{T(java.time.Year).now().getValue()}") Integer year,
-            Authentication auth) {
+            Authentication auth,
+            WebRequest request) {
         
         String userEmail = auth.getName();
-        List<MonthlyRevenueResponse> revenue = analyticsService.getMonthlyTotalRevenue(
-                userEmail, businessId, year);
-        return ResponseEntity.ok(revenue);
+        return ConditionalResponses.of(
+                analyticsService.getReportVersion(userEmail, businessId, AnalyticsMetric.TOTAL_REVENUE, year),
+                request,
+                () -> analyticsService.getMonthlyTotalRevenue(userEmail, businessId, year));
     }
 
     @GetMapping("/profit/total")
     public ResponseEntity<List<MonthlyProfitResponse>> getMonthlyTotalProfit(
             @PathVariable UUID businessId,
             @RequestParam(required = false, defaultValue = "#{T(java.time.Year).now().getValue()}") Integer year,
+            Authentication auth,
+            WebRequest request) {
+        
+        String userEmail = auth.getName();
+        return ConditionalResponses.of(
+                analyticsService.getReportVersion(userEmail, businessId, AnalyticsMetric.TOTAL_PROFIT, year),
+                request,
+                () -> analyticsService.getMonthlyTotalProfit(userEmail, businessId, year));
+    }
+
+    @GetMapping("/summary")
+    public ResponseEntity<AnalyticsSummaryResponse> getSummary(
+            @PathVariable UUID businessId,
+            @RequestParam(required = false, defaultValue = "#{T(java.time.Year).now().getValue()}") Integer year,
+            Authentication auth,
+            WebRequest request) {
+        
+        String userEmail = auth.getName();
+        return ConditionalResponses.of(
+                analyticsService.getReportVersion(userEmail, businessId, AnalyticsMetric.SUMMARY, year),
+                request,
+                () -> analyticsService.getSummary(userEmail, businessId, year));
+    }
+
+    @GetMapping("/heatmap")
+    public ResponseEntity<RevenueHeatmapResponse> getRevenueHeatmap(
+            @PathVariable UUID businessId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            Authentication auth,
+            WebRequest request) {
+        
+        String userEmail = auth.getName();
+        return ConditionalResponses.of(
+                analyticsService.getHeatmapReportVersion(userEmail, businessId, from, to),
+                request,
+                () -> analyticsService.getRevenueHeatmap(userEmail, businessId, from, to));
+    }
+
+    @GetMapping("/ticket-sizes")
+    public ResponseEntity<TicketSizeDistributionResponse> getTicketSizeDistribution(
+            @PathVariable UUID businessId,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth to,
+            @RequestParam(defaultValue = "20") int bins,
+            Authentication auth,
+            WebRequest request) {
+
+        String userEmail = auth.getName();
+        return ConditionalResponses.of(
+                analyticsService.getTicketSizeReportVersion(userEmail, businessId, from, to),
+                request,
+                () -> analyticsService.getTicketSizeDistribution(userEmail, businessId, from, to, bins));
+    }
+
+    /**
+     * Sin ETag: los rankings aproximados incluyen lo que cada instancia todavía no guardó
+     */
+    @GetMapping("/top-products")
+    public ResponseEntity<TopProductsResponse> getTopProducts(
+            @PathVariable UUID businessId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "10") int limit,
+            Authentication auth) {
+
+        String userEmail = auth.getName();
+        return ResponseEntity.ok(analyticsService.getTopProducts(userEmail, businessId, from, to, limit));
+    }
+
+    @PostMapping("/cube")
+    public ResponseEntity<CubeQueryResponse> queryCube(
+            @PathVariable UUID businessId,
+            @RequestBody CubeQueryRequest cubeQuery,
             Authentication auth) {
         
         String userEmail = auth.getName();
-        List<MonthlyProfitResponse> profit = analyticsService.getMonthlyTotalProfit(
-                userEmail, businessId, year);
-        return ResponseEntity.ok(profit);
+        return ResponseEntity.ok(salesCubeService.query(userEmail, businessId, cubeQuery));
     }
-}
\ No newline at end of file
+}
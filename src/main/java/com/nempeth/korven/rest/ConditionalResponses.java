@@ -0,0 +1,38 @@
+package com.nempeth.korven.rest;
+
+import com.nempeth.korven.utils.ReportVersion;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Respuestas GET con ETag para los reportes. Si el If-None-Match coincide se devuelve 304
+ * sin llamar a body, que es donde se arma el reporte.
+ * Son datos de un usuario autenticado: se cachean solo en el navegador (private), nunca en proxies compartidos.
+ */
+final class ConditionalResponses {
+
+    private static final CacheControl CLOSED_PERIOD = CacheControl.maxAge(Duration.ofDays(1)).cachePrivate();
+    private static final CacheControl OPEN_PERIOD = CacheControl.noCache().cachePrivate();
+
+    private ConditionalResponses() {
+    }
+
+    static <T> ResponseEntity<T> of(ReportVersion version, WebRequest request, Supplier<T> body) {
+        CacheControl cacheControl = version.closed() ? CLOSED_PERIOD : OPEN_PERIOD;
+        if (request.checkNotModified(version.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(version.etag())
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(version.etag())
+                .cacheControl(cacheControl)
+                .body(body.get());
+    }
+}
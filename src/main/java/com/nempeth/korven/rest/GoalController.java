@@ -8,6 +8,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
@@ -39,10 +40,13 @@ public class GoalController {
 
     @GetMapping("/historical")
     public ResponseEntity<List<GoalReportResponse>> getHistoricalReport(@PathVariable UUID businessId,
-                                                                        Authentication auth) {
+                                                                        Authentication auth,
+                                                                        WebRequest request) {
         String userEmail = auth.getName();
-        List<GoalReportResponse> report = goalService.getHistoricalReport(userEmail, businessId);
-        return ResponseEntity.ok(report);
+        return ConditionalResponses.of(
+                goalService.getHistoricalReportVersion(userEmail, businessId),
+                request,
+                () -> goalService.getHistoricalReport(userEmail, businessId));
     }
 
     @GetMapping("/summary")
@@ -56,10 +60,13 @@ public class GoalController {
     @GetMapping("/{goalId}/report")
     public ResponseEntity<GoalReportResponse> getGoalReport(@PathVariable UUID businessId,
                                                            @PathVariable UUID goalId,
-                                                           Authentication auth) {
+                                                           Authentication auth,
+                                                           WebRequest request) {
         String userEmail = auth.getName();
-        GoalReportResponse report = goalService.getGoalReport(userEmail, businessId, goalId);
-        return ResponseEntity.ok(report);
+        return ConditionalResponses.of(
+                goalService.getGoalReportVersion(userEmail, businessId, goalId),
+                request,
+                () -> goalService.getGoalReport(userEmail, businessId, goalId));
     }
 
     @PostMapping
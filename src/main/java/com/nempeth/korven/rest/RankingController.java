@@ -2,15 +2,20 @@ package com.nempeth.korven.rest;
 
 import com.nempeth.korven.rest.dto.BusinessRankingResponse;
 import com.nempeth.korven.rest.dto.EmployeeRankingResponse;
+import com.nempeth.korven.rest.dto.LiveEmployeeLeaderboardResponse;
+import com.nempeth.korven.service.LiveEmployeeLeaderboardService;
 import com.nempeth.korven.service.RankingService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.YearMonth;
 import java.util.List;
 import java.util.UUID;
 
@@ -24,6 +29,7 @@ import java.util.UUID;
 public class RankingController {
 
     private final RankingService rankingService;
+    private final LiveEmployeeLeaderboardService liveEmployeeLeaderboardService;
 
     /**
      * Get employee rankings for a business based on current month sales
@@ -42,6 +48,24 @@ public class RankingController {
         return ResponseEntity.ok(rankings);
     }
 
+    /**
+     * Get the live employee leaderboard of the current month
+     * Served from memory and updated as sales close, so it can be polled frequently
+     *
+     * @param businessId The business ID
+     * @param limit Number of top employees to return (1-100)
+     * @param auth The authenticated user
+     * @return Top employees and the position of the requesting user
+     */
+    @GetMapping("/employees/live")
+    public ResponseEntity<LiveEmployeeLeaderboardResponse> getLiveEmployeeLeaderboard(
+            @PathVariable UUID businessId,
+            @RequestParam(defaultValue = "10") int limit,
+            Authentication auth) {
+        String userEmail = auth.getName();
+        return ResponseEntity.ok(liveEmployeeLeaderboardService.getLeaderboard(userEmail, businessId, limit));
+    }
+
     /**
      * Get business rankings based on composite performance score
      * Returns a list of all businesses ranked by their composite score which considers:
@@ -63,4 +87,23 @@ public class RankingController {
         List<BusinessRankingResponse> rankings = rankingService.getBusinessRankings(userEmail);
         return ResponseEntity.ok(rankings);
     }
+
+    /**
+     * Get business rankings of a given month as stored by the ranking snapshot job
+     * Past months show the ranking as it stood when the month closed
+     *
+     * @param businessId The business ID (used for path consistency, but rankings show all businesses)
+     * @param month The month (yyyy-MM)
+     * @param auth The authenticated user
+     * @return List of business rankings sorted by position, empty if that month was never computed
+     */
+    @GetMapping("/businesses/history")
+    public ResponseEntity<List<BusinessRankingResponse>> getBusinessRankingHistory(
+            @PathVariable UUID businessId,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth month,
+            Authentication auth) {
+        String userEmail = auth.getName();
+        List<BusinessRankingResponse> rankings = rankingService.getBusinessRankingHistory(userEmail, month);
+        return ResponseEntity.ok(rankings);
+    }
 }
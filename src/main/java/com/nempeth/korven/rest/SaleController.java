@@ -1,14 +1,19 @@
 package com.nempeth.korven.rest;
 
+import com.nempeth.korven.constants.SaleExportFormat;
 import com.nempeth.korven.rest.dto.CreateSaleRequest;
+import com.nempeth.korven.rest.dto.SalePageResponse;
 import com.nempeth.korven.rest.dto.SaleResponse;
+import com.nempeth.korven.service.SaleExportService;
 import com.nempeth.korven.service.SaleService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.OffsetDateTime;
 import java.util.List;
@@ -21,6 +26,7 @@ import java.util.UUID;
 public class SaleController {
 
     private final SaleService saleService;
+    private final SaleExportService saleExportService;
 
     @PostMapping
     public ResponseEntity<?> createSale(@PathVariable UUID businessId,
@@ -38,29 +44,71 @@ public class SaleController {
         ));
     }
 
+    /**
+     * Lista las ventas del negocio.
+     * Si se envía limit o cursor la respuesta es paginada por keyset ({@link SalePageResponse});
+     * sin ellos se mantiene el listado completo para los clientes existentes.
+     * El filtro por rango de fechas no se pagina, así que no admite limit ni cursor.
+     */
     @GetMapping
-    public ResponseEntity<List<SaleResponse>> getSales(@PathVariable UUID businessId,
-                                                      @RequestParam(required = false) 
-                                                      @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
-                                                      OffsetDateTime startDate,
-                                                      @RequestParam(required = false)
-                                                      @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
-                                                      OffsetDateTime endDate,
-                                                      @RequestParam(required = false)
-                                                      Boolean open,
-                                                      Authentication auth) {
+    public ResponseEntity<?> getSales(@PathVariable UUID businessId,
+                                      @RequestParam(required = false) 
+                                      @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                      OffsetDateTime startDate,
+                                      @RequestParam(required = false)
+                                      @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                      OffsetDateTime endDate,
+                                      @RequestParam(required = false)
+                                      Boolean open,
+                                      @RequestParam(required = false)
+                                      Integer limit,
+                                      @RequestParam(required = false)
+                                      String cursor,
+                                      Authentication auth) {
         String userEmail = auth.getName();
-        List<SaleResponse> sales;
         
         if (startDate != null && endDate != null) {
-            sales = saleService.getSalesByBusinessAndDateRange(userEmail, businessId, startDate, endDate);
-        } else {
-            sales = saleService.getSalesByBusiness(userEmail, businessId, open);
+            if (limit != null || cursor != null) {
+                throw new IllegalArgumentException("El rango de fechas no admite limit ni cursor");
+            }
+            List<SaleResponse> sales = saleService.getSalesByBusinessAndDateRange(userEmail, businessId, startDate, endDate);
+            return ResponseEntity.ok(sales);
+        }
+
+        if (limit != null || cursor != null) {
+            SalePageResponse page = saleService.getSalesPage(userEmail, businessId, open, limit, cursor);
+            return ResponseEntity.ok(page);
         }
         
+        List<SaleResponse> sales = saleService.getSalesByBusiness(userEmail, businessId, open);
         return ResponseEntity.ok(sales);
     }
 
+    /**
+     * Exporta las ventas cerradas del rango con sus items. La respuesta se escribe a medida que
+     * se leen las filas, por lo que sirve para rangos grandes (por ejemplo un año completo).
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportSales(@PathVariable UUID businessId,
+                                                             @RequestParam
+                                                             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                             OffsetDateTime startDate,
+                                                             @RequestParam
+                                                             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                             OffsetDateTime endDate,
+                                                             @RequestParam(defaultValue = "csv")
+                                                             String format,
+                                                             Authentication auth) {
+        SaleExportFormat exportFormat = SaleExportFormat.fromParameter(format);
+        StreamingResponseBody body = saleExportService.exportSales(auth.getName(), businessId, startDate, endDate, exportFormat);
+
+        String filename = "ventas-" + startDate.toLocalDate() + "-" + endDate.toLocalDate() + "." + exportFormat.getExtension();
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+
     @PostMapping("/{saleId}/close")
     public ResponseEntity<?> closeSale(@PathVariable UUID businessId,
                                       @PathVariable UUID saleId,
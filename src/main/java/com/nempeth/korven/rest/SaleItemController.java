@@ -1,6 +1,7 @@
 package com.nempeth.korven.rest;
 
 import com.nempeth.korven.rest.dto.CreateSaleItemRequest;
+import com.nempeth.korven.rest.dto.CreateSaleItemsBatchRequest;
 import com.nempeth.korven.rest.dto.SaleItemResponse;
 import com.nempeth.korven.service.SaleItemService;
 import jakarta.validation.Valid;
@@ -34,6 +35,20 @@ public class SaleItemController {
         ));
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<?> addItemsToSale(@PathVariable UUID businessId,
+                                            @PathVariable UUID saleId,
+                                            @Valid @RequestBody CreateSaleItemsBatchRequest request,
+                                            Authentication auth) {
+        String userEmail = auth.getName();
+        List<UUID> itemIds = saleItemService.addItemsToSale(userEmail, businessId, saleId, request.items());
+        
+        return ResponseEntity.ok(Map.of(
+                "message", "Items agregados exitosamente",
+                "itemIds", itemIds.stream().map(UUID::toString).toList()
+        ));
+    }
+
     @GetMapping
     public ResponseEntity<List<SaleItemResponse>> getSaleItems(@PathVariable UUID businessId,
                                                               @PathVariable UUID saleId,
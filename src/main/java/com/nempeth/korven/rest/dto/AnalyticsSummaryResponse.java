@@ -0,0 +1,14 @@
+package com.nempeth.korven.rest.dto;
+
+import lombok.Builder;
+
+import java.util.List;
+
+@Builder
+public record AnalyticsSummaryResponse(
+        List<MonthlyCategoryRevenueResponse> revenueByCategory,
+        List<MonthlyCategoryProfitResponse> profitByCategory,
+        List<MonthlyRevenueResponse> totalRevenue,
+        List<MonthlyProfitResponse> totalProfit
+) {
+}
@@ -0,0 +1,15 @@
+package com.nempeth.korven.rest.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record CreateSaleItemsBatchRequest(
+        @NotEmpty(message = "Debe enviar al menos un item")
+        @Size(max = 100, message = "No se pueden enviar más de 100 items por solicitud")
+        @Valid
+        List<CreateSaleItemRequest> items
+) {
+}
@@ -0,0 +1,23 @@
+package com.nempeth.korven.rest.dto;
+
+import com.nempeth.korven.constants.CubeDimension;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * groupBy vacío devuelve un solo total. Los filtros admiten, por dimensión, cualquiera de los valores
+ * (HOUR de 0 a 23, WEEKDAY como MONDAY..SUNDAY); las fechas se acotan con from y to, ambos inclusivos.
+ */
+public record CubeQueryRequest(
+        List<CubeDimension> groupBy,
+        Map<CubeDimension, List<String>> filters,
+        LocalDate from,
+        LocalDate to
+) {
+    public CubeQueryRequest {
+        groupBy = groupBy == null ? List.of() : groupBy;
+        filters = filters == null ? Map.of() : filters;
+    }
+}
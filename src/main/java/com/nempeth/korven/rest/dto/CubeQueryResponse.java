@@ -0,0 +1,11 @@
+package com.nempeth.korven.rest.dto;
+
+import lombok.Builder;
+
+import java.util.List;
+
+@Builder
+public record CubeQueryResponse(
+        List<CubeRowResponse> rows
+) {
+}
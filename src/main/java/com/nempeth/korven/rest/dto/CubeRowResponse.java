@@ -0,0 +1,16 @@
+package com.nempeth.korven.rest.dto;
+
+import com.nempeth.korven.constants.CubeDimension;
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+@Builder
+public record CubeRowResponse(
+        Map<CubeDimension, String> key,
+        BigDecimal revenue,
+        BigDecimal profit,
+        long units
+) {
+}
@@ -0,0 +1,19 @@
+package com.nempeth.korven.rest.dto;
+
+import lombok.Builder;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Ranking de empleados del mes en curso al momento de la consulta: los primeros y la posición
+ * del usuario que consulta (null si no vende en este negocio).
+ */
+@Builder
+public record LiveEmployeeLeaderboardResponse(
+        YearMonth month,
+        int employeeCount,
+        List<EmployeeRankingResponse> top,
+        EmployeeRankingResponse currentUser
+) {
+}
@@ -0,0 +1,18 @@
+package com.nempeth.korven.rest.dto;
+
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Matriz de 7 × 24: filas de lunes (0) a domingo (6) y columnas de 0 a 23 hs, en la zona del negocio.
+ */
+@Builder
+public record RevenueHeatmapResponse(
+        LocalDate from,
+        LocalDate to,
+        BigDecimal[][] revenue,
+        long[][] ticketCount
+) {
+}
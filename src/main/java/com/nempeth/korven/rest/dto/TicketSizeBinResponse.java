@@ -0,0 +1,13 @@
+package com.nempeth.korven.rest.dto;
+
+import lombok.Builder;
+
+import java.math.BigDecimal;
+
+@Builder
+public record TicketSizeBinResponse(
+        BigDecimal from,
+        BigDecimal to,
+        long ticketCount
+) {
+}
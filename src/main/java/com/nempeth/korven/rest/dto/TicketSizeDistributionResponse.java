@@ -0,0 +1,26 @@
+package com.nempeth.korven.rest.dto;
+
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Distribución de montos de tickets de los meses [from, to]. Los percentiles tienen un error
+ * relativo menor al 1%; promedio, mínimo y máximo son exactos.
+ */
+@Builder
+public record TicketSizeDistributionResponse(
+        YearMonth from,
+        YearMonth to,
+        long ticketCount,
+        BigDecimal average,
+        BigDecimal min,
+        BigDecimal p50,
+        BigDecimal p90,
+        BigDecimal p99,
+        BigDecimal max,
+        List<TicketSizeBinResponse> histogram
+) {
+}
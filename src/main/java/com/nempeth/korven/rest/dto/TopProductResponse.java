@@ -0,0 +1,17 @@
+package com.nempeth.korven.rest.dto;
+
+import lombok.Builder;
+
+import java.math.BigDecimal;
+
+/**
+ * amount son unidades o ingresos según el ranking. En un ranking aproximado amount puede
+ * sobreestimar el total real hasta en maxError; en uno exacto maxError es cero.
+ */
+@Builder
+public record TopProductResponse(
+        String productName,
+        BigDecimal amount,
+        BigDecimal maxError
+) {
+}
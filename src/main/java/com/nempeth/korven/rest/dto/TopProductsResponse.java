@@ -0,0 +1,20 @@
+package com.nempeth.korven.rest.dto;
+
+import lombok.Builder;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Los rankings aproximados se calculan por meses completos: from y to indican el período
+ * realmente cubierto, que puede ser más amplio que el pedido.
+ */
+@Builder
+public record TopProductsResponse(
+        LocalDate from,
+        LocalDate to,
+        boolean approximate,
+        List<TopProductResponse> byUnits,
+        List<TopProductResponse> byRevenue
+) {
+}
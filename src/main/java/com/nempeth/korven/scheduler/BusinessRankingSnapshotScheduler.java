@@ -0,0 +1,28 @@
+package com.nempeth.korven.scheduler;
+
+import com.nempeth.korven.service.BusinessRankingSnapshotService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recalcula el ranking de negocios antes de que venza, así las consultas casi nunca lo encuentran viejo.
+ * El cálculo corre en el hilo del servicio y no se superpone con un refresco pedido por una consulta.
+ * Se apaga con app.ranking.snapshot-scheduler.enabled=false (los tests, cuya base H2 no tiene get_byte).
+ */
+@Component
+@ConditionalOnProperty(name = "app.ranking.snapshot-scheduler.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class BusinessRankingSnapshotScheduler {
+
+    private final BusinessRankingSnapshotService snapshotService;
+
+    @Scheduled(fixedDelayString = "${app.ranking.snapshot-max-age-seconds:300}", initialDelay = 10,
+               timeUnit = TimeUnit.SECONDS)
+    public void refresh() {
+        snapshotService.refreshInBackground();
+    }
+}
@@ -0,0 +1,29 @@
+package com.nempeth.korven.scheduler;
+
+import com.nempeth.korven.service.GoalProgressService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recuenta de noche, en la zona del negocio, el progreso de las metas abiertas
+ * contra las ventas, corrigiendo lo que no se haya sumado al cerrar.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class GoalProgressReconcileScheduler {
+
+    private final GoalProgressService goalProgressService;
+
+    @Scheduled(cron = "${app.goals.reconcile-cron:0 30 4 * * *}", zone = "${app.business.zone:America/Argentina/Buenos_Aires}")
+    public void reconcile() {
+        try {
+            int goals = goalProgressService.reconcileOpenGoals();
+            log.info("Progreso de metas conciliado: {} metas", goals);
+        } catch (RuntimeException e) {
+            log.warn("Conciliación del progreso de metas interrumpida, se reintentará mañana: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.nempeth.korven.scheduler;
+
+import com.nempeth.korven.service.ProductSalesSketchService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Guarda los rankings de productos acumulados en memoria; el historial lo carga RollupBackfillScheduler.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ProductSalesSketchScheduler {
+
+    private final ProductSalesSketchService sketchService;
+
+    @Scheduled(fixedDelay = 60000, initialDelay = 60000)
+    public void flush() {
+        try {
+            int flushed = sketchService.flush();
+            if (flushed > 0) {
+                log.debug("Rankings de productos: {} resúmenes guardados", flushed);
+            }
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron guardar los rankings de productos, se reintentará: {}", e.getMessage());
+        }
+    }
+}
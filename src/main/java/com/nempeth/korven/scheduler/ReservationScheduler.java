@@ -152,7 +152,7 @@ public class ReservationScheduler {
                 
                 // Si estaba OCCUPIED, cerrar la orden antes de pasar a RESERVED
                 if (table.getStatus() == TableStatus.OCCUPIED) {
-                    saleService.closeSalesByTable(table.getId());
+                    saleService.closeSalesByTable(table.getBusiness().getId(), table.getId());
                 }
                 
                 table.setStatus(TableStatus.RESERVED);
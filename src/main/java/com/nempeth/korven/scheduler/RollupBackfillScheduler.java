@@ -0,0 +1,46 @@
+package com.nempeth.korven.scheduler;
+
+import com.nempeth.korven.service.RollupBackfillJob;
+import com.nempeth.korven.service.RollupBackfillService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Carga el historial de ventas anterior a cada agregado. Cada tramo se confirma por separado, así que
+ * un reinicio retoma donde quedó. Los agregados se cargan de a uno para no recorrer las mismas ventas a la vez.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class RollupBackfillScheduler {
+
+    private final RollupBackfillService backfillService;
+    private final List<RollupBackfillJob> jobs;
+
+    /**
+     * Se ejecuta cada minuto hasta completar las cargas; después solo verifica el flag en memoria
+     */
+    @Scheduled(fixedDelay = 60000, initialDelay = 30000)
+    public void backfill() {
+        for (RollupBackfillJob job : jobs) {
+            if (backfillService.isComplete(job.backfillJobName())) {
+                continue;
+            }
+            try {
+                int chunks = 0;
+                while (backfillService.backfillNextChunk(job)) {
+                    chunks++;
+                }
+                if (chunks > 0) {
+                    log.info("Carga de {}: {} tramos procesados", job.backfillJobName(), chunks);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Carga de {} interrumpida, se reintentará: {}", job.backfillJobName(), e.getMessage());
+            }
+        }
+    }
+}
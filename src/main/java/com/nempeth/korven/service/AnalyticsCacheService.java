@@ -0,0 +1,70 @@
+package com.nempeth.korven.service;
+
+import com.nempeth.korven.constants.AnalyticsMetric;
+import com.nempeth.korven.event.SaleClosedEvent;
+import com.nempeth.korven.utils.BusinessTime;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Caché de los resultados de AnalyticsService por negocio, métrica y año.
+ * Solo cambian cuando se cierra una venta del negocio en ese año. Los del año en curso llevan en la clave
+ * la versión de datos del negocio, así un cierre en cualquier instancia los deja sin uso en la próxima
+ * consulta; un año ya terminado no recibe más cierres y vale para cualquier versión. Las ventas abiertas
+ * no cuentan en las analíticas, por lo que borrarlas no invalida nada.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AnalyticsCacheService {
+
+    public static final String CACHE_NAME = "analytics";
+
+    // Versión en la clave de los años ya terminados
+    private static final long CLOSED_YEAR = -1L;
+
+    private final CacheManager cacheManager;
+    private final BusinessTime businessTime;
+    private final BusinessDataVersionService dataVersionService;
+
+    public record Key(UUID businessId, AnalyticsMetric metric, int year, long dataVersion) {
+    }
+
+    public <T> T get(UUID businessId, AnalyticsMetric metric, int year, Supplier<T> loader) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null) {
+            return loader.get();
+        }
+        return cache.get(new Key(businessId, metric, year, versionOf(businessId, year)), loader::get);
+    }
+
+    public void evict(UUID businessId, int year) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null) {
+            return;
+        }
+        for (AnalyticsMetric metric : AnalyticsMetric.values()) {
+            cache.evict(new Key(businessId, metric, year, CLOSED_YEAR));
+        }
+        log.debug("Caché de analíticas invalidada para negocio {} y año {}", businessId, year);
+    }
+
+    // Después del commit, para que una consulta concurrente no vuelva a guardar los totales anteriores al cierre.
+    // Solo hace falta para un cierre del 31/12 confirmado ya en el año nuevo; el vencimiento cubre las demás instancias
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onSaleClosed(SaleClosedEvent event) {
+        evict(event.businessId(), event.closedAt().atZoneSameInstant(businessTime.zone()).getYear());
+    }
+
+    private long versionOf(UUID businessId, int year) {
+        return year < businessTime.today().getYear() ? CLOSED_YEAR : dataVersionService.current(businessId);
+    }
+}
@@ -1,41 +1,323 @@
 package com.nempeth.korven.service;
 
+import com.nempeth.korven.constants.AnalyticsMetric;
 import com.nempeth.korven.constants.MembershipStatus;
+import com.nempeth.korven.constants.ProductRankingMetric;
 import com.nempeth.korven.persistence.entity.BusinessMembership;
 import com.nempeth.korven.persistence.entity.User;
 import com.nempeth.korven.persistence.repository.BusinessMembershipRepository;
+import com.nempeth.korven.persistence.repository.SaleDailyRollupRepository;
+import com.nempeth.korven.persistence.repository.SaleHourlyRollupRepository;
 import com.nempeth.korven.persistence.repository.SaleRepository;
 import com.nempeth.korven.persistence.repository.UserRepository;
 import com.nempeth.korven.rest.dto.*;
+import com.nempeth.korven.utils.BusinessTime;
+import com.nempeth.korven.utils.LogLinearHistogram;
+import com.nempeth.korven.utils.ReportVersion;
+import com.nempeth.korven.utils.SpaceSavingSketch;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.time.OffsetDateTime;
+import java.math.RoundingMode;
+import java.time.LocalDate;
 import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Function;
 
+/**
+ * Las consultas mensuales leen sale_daily_rollup una vez terminada su carga inicial;
+ * hasta entonces se calculan sobre las ventas. Los resultados quedan en AnalyticsCacheService
+ * hasta que se cierre otra venta del negocio en el mismo año.
+ * El mapa de calor por día de semana y hora sigue el mismo criterio con sale_hourly_rollup.
+ * Los productos más vendidos se calculan exactos en rangos cortos y con los resúmenes
+ * mensuales de ProductSalesSketchService en los largos.
+ * La distribución de montos de tickets suma los histogramas mensuales de TicketSizeHistogramService.
+ */
 @Service
 @RequiredArgsConstructor
 public class AnalyticsService {
 
+    private static final int DAYS_PER_WEEK = 7;
+    private static final int HOURS_PER_DAY = 24;
+    private static final int EXACT_TOP_PRODUCTS_MAX_DAYS = 31;
+    private static final int MAX_TOP_PRODUCTS = 100;
+    private static final int MAX_TICKET_SIZE_BINS = 100;
+
     private final SaleRepository saleRepository;
     private final UserRepository userRepository;
     private final BusinessMembershipRepository membershipRepository;
+    private final SaleDailyRollupRepository rollupRepository;
+    private final SaleDailyRollupService rollupService;
+    private final SaleHourlyRollupRepository hourlyRollupRepository;
+    private final SaleHourlyRollupService hourlyRollupService;
+    private final BusinessTime businessTime;
+    private final AnalyticsCacheService analyticsCacheService;
+    private final BusinessDataVersionService dataVersionService;
+    private final ProductSalesSketchService productSalesSketchService;
+    private final TicketSizeHistogramService ticketSizeHistogramService;
+
+    /**
+     * Versión del reporte para el ETag: valida el acceso pero no calcula nada.
+     * Los años anteriores al actual ya no reciben ventas, así que su versión no cambia.
+     */
+    @Transactional(readOnly = true)
+    public ReportVersion getReportVersion(String userEmail, UUID businessId, AnalyticsMetric metric, Integer year) {
+        validateUserBusinessAccess(userEmail, businessId);
+
+        if (year < businessTime.today().getYear()) {
+            return ReportVersion.closed(metric, businessId, year);
+        }
+        return ReportVersion.open(dataVersionService.current(businessId), metric, businessId, year);
+    }
 
     @Transactional(readOnly = true)
     public List<MonthlyCategoryRevenueResponse> getMonthlyRevenueByCategory(String userEmail, UUID businessId, 
                                                                            Integer year) {
         validateUserBusinessAccess(userEmail, businessId);
-        
-        OffsetDateTime startOfYear = OffsetDateTime.of(year, 1, 1, 0, 0, 0, 0, 
-                OffsetDateTime.now().getOffset());
-        OffsetDateTime endOfYear = OffsetDateTime.of(year, 12, 31, 23, 59, 59, 999999999, 
-                OffsetDateTime.now().getOffset());
-        
-        List<Object[]> results = saleRepository.findMonthlyRevenueByCategory(businessId, startOfYear, endOfYear);
+
+        return analyticsCacheService.get(businessId, AnalyticsMetric.REVENUE_BY_CATEGORY, year,
+                () -> loadMonthlyRevenueByCategory(businessId, year));
+    }
+
+    @Transactional(readOnly = true)
+    public List<MonthlyCategoryProfitResponse> getMonthlyProfitByCategory(String userEmail, UUID businessId, 
+                                                                         Integer year) {
+        validateUserBusinessAccess(userEmail, businessId);
+
+        return analyticsCacheService.get(businessId, AnalyticsMetric.PROFIT_BY_CATEGORY, year,
+                () -> loadMonthlyProfitByCategory(businessId, year));
+    }
+
+    @Transactional(readOnly = true)
+    public List<MonthlyRevenueResponse> getMonthlyTotalRevenue(String userEmail, UUID businessId, Integer year) {
+        validateUserBusinessAccess(userEmail, businessId);
+
+        return analyticsCacheService.get(businessId, AnalyticsMetric.TOTAL_REVENUE, year,
+                () -> loadMonthlyTotalRevenue(businessId, year));
+    }
+
+    @Transactional(readOnly = true)
+    public List<MonthlyProfitResponse> getMonthlyTotalProfit(String userEmail, UUID businessId, Integer year) {
+        validateUserBusinessAccess(userEmail, businessId);
+
+        return analyticsCacheService.get(businessId, AnalyticsMetric.TOTAL_PROFIT, year,
+                () -> loadMonthlyTotalProfit(businessId, year));
+    }
+
+    /**
+     * Las cuatro series del tablero en una sola consulta agrupada:
+     * las filas con categoría alimentan las series por categoría y las filas sin categoría, los totales.
+     */
+    @Transactional(readOnly = true)
+    public AnalyticsSummaryResponse getSummary(String userEmail, UUID businessId, Integer year) {
+        validateUserBusinessAccess(userEmail, businessId);
+
+        return analyticsCacheService.get(businessId, AnalyticsMetric.SUMMARY, year,
+                () -> loadSummary(businessId, year));
+    }
+
+    @Transactional(readOnly = true)
+    public ReportVersion getHeatmapReportVersion(String userEmail, UUID businessId, LocalDate from, LocalDate to) {
+        validateUserBusinessAccess(userEmail, businessId);
+        validateDateRange(from, to);
+
+        if (to.isBefore(businessTime.today())) {
+            return ReportVersion.closed("heatmap", businessId, from, to);
+        }
+        return ReportVersion.open(dataVersionService.current(businessId), "heatmap", businessId, from, to);
+    }
+
+    /**
+     * Ingresos y tickets por día de la semana y hora para [from, to] (días en la zona del negocio).
+     * Lee a lo sumo una fila por día y hora del agregado y las suma en memoria, en centavos.
+     */
+    @Transactional(readOnly = true)
+    public RevenueHeatmapResponse getRevenueHeatmap(String userEmail, UUID businessId, LocalDate from, LocalDate to) {
+        validateUserBusinessAccess(userEmail, businessId);
+        validateDateRange(from, to);
+
+        List<Object[]> results;
+        if (hourlyRollupService.isBackfillComplete()) {
+            results = hourlyRollupRepository.findHourlyTotals(businessId, from, to);
+        } else {
+            results = saleRepository.findHourlyTotals(businessId,
+                    businessTime.startOf(from), businessTime.endOf(to), businessTime.zone().getId());
+        }
+
+        long[] revenueCents = new long[DAYS_PER_WEEK * HOURS_PER_DAY];
+        long[] tickets = new long[DAYS_PER_WEEK * HOURS_PER_DAY];
+        for (Object[] result : results) {
+            int cell = (((Number) result[0]).intValue() - 1) * HOURS_PER_DAY + ((Number) result[1]).intValue();
+            revenueCents[cell] += ((BigDecimal) result[2]).movePointRight(2).longValueExact();
+            tickets[cell] += ((Number) result[3]).longValue();
+        }
+
+        BigDecimal[][] revenue = new BigDecimal[DAYS_PER_WEEK][HOURS_PER_DAY];
+        long[][] ticketCount = new long[DAYS_PER_WEEK][HOURS_PER_DAY];
+        for (int day = 0; day < DAYS_PER_WEEK; day++) {
+            for (int hour = 0; hour < HOURS_PER_DAY; hour++) {
+                int cell = day * HOURS_PER_DAY + hour;
+                revenue[day][hour] = BigDecimal.valueOf(revenueCents[cell], 2);
+                ticketCount[day][hour] = tickets[cell];
+            }
+        }
+
+        return RevenueHeatmapResponse.builder()
+                .from(from)
+                .to(to)
+                .revenue(revenue)
+                .ticketCount(ticketCount)
+                .build();
+    }
+
+    /**
+     * Los limit productos con más unidades y con más ingresos en [from, to].
+     * Hasta EXACT_TOP_PRODUCTS_MAX_DAYS días se suman las ventas; en rangos más largos se combinan
+     * los resúmenes de los meses que tocan, sin importar cuántas ventas tengan.
+     */
+    @Transactional(readOnly = true)
+    public TopProductsResponse getTopProducts(String userEmail, UUID businessId, LocalDate from, LocalDate to, int limit) {
+        validateUserBusinessAccess(userEmail, businessId);
+        validateDateRange(from, to);
+        if (limit < 1 || limit > MAX_TOP_PRODUCTS) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y " + MAX_TOP_PRODUCTS);
+        }
+
+        if (ChronoUnit.DAYS.between(from, to) < EXACT_TOP_PRODUCTS_MAX_DAYS
+                || !productSalesSketchService.isBackfillComplete()) {
+            return loadExactTopProducts(businessId, from, to, limit);
+        }
+
+        YearMonth fromMonth = YearMonth.from(from);
+        YearMonth toMonth = YearMonth.from(to);
+        return TopProductsResponse.builder()
+                .from(fromMonth.atDay(1))
+                .to(toMonth.atEndOfMonth())
+                .approximate(true)
+                .byUnits(productSalesSketchService.top(businessId, fromMonth, toMonth, ProductRankingMetric.UNITS, limit)
+                        .stream()
+                        .map(entry -> toTopProduct(entry, 0))
+                        .toList())
+                .byRevenue(productSalesSketchService.top(businessId, fromMonth, toMonth, ProductRankingMetric.REVENUE, limit)
+                        .stream()
+                        .map(entry -> toTopProduct(entry, 2))
+                        .toList())
+                .build();
+    }
+
+    private record ProductTotals(String productName, BigDecimal units, BigDecimal revenue) {
+    }
+
+    private TopProductsResponse loadExactTopProducts(UUID businessId, LocalDate from, LocalDate to, int limit) {
+        List<ProductTotals> products = saleRepository.findProductTotals(businessId,
+                        businessTime.startOf(from), businessTime.endOf(to))
+                .stream()
+                .map(result -> new ProductTotals((String) result[0],
+                        BigDecimal.valueOf(((Number) result[1]).longValue()), (BigDecimal) result[2]))
+                .toList();
+
+        return TopProductsResponse.builder()
+                .from(from)
+                .to(to)
+                .approximate(false)
+                .byUnits(topExact(products, ProductTotals::units, limit))
+                .byRevenue(topExact(products, ProductTotals::revenue, limit))
+                .build();
+    }
+
+    private List<TopProductResponse> topExact(List<ProductTotals> products,
+                                              Function<ProductTotals, BigDecimal> amount, int limit) {
+        return products.stream()
+                .sorted(Comparator.comparing(amount).reversed().thenComparing(ProductTotals::productName))
+                .limit(limit)
+                .map(product -> TopProductResponse.builder()
+                        .productName(product.productName())
+                        .amount(amount.apply(product))
+                        .maxError(BigDecimal.ZERO)
+                        .build())
+                .toList();
+    }
+
+    private TopProductResponse toTopProduct(SpaceSavingSketch.Entry entry, int scale) {
+        return TopProductResponse.builder()
+                .productName(entry.item())
+                .amount(BigDecimal.valueOf(entry.count(), scale))
+                .maxError(BigDecimal.valueOf(entry.error(), scale))
+                .build();
+    }
+
+    @Transactional(readOnly = true)
+    public ReportVersion getTicketSizeReportVersion(String userEmail, UUID businessId, YearMonth from, YearMonth to) {
+        validateUserBusinessAccess(userEmail, businessId);
+        validateMonthRange(from, to);
+
+        if (to.isBefore(businessTime.currentMonth())) {
+            return ReportVersion.closed("ticket-sizes", businessId, from, to);
+        }
+        return ReportVersion.open(dataVersionService.current(businessId), "ticket-sizes", businessId, from, to);
+    }
+
+    /**
+     * Percentiles e histograma de montos de tickets de los meses [from, to]: se suman a lo sumo
+     * un histograma por mes; mientras se cargan se arma el histograma con los montos de las ventas.
+     */
+    @Transactional(readOnly = true)
+    public TicketSizeDistributionResponse getTicketSizeDistribution(String userEmail, UUID businessId,
+                                                                   YearMonth from, YearMonth to, int bins) {
+        validateUserBusinessAccess(userEmail, businessId);
+        validateMonthRange(from, to);
+        if (bins < 1 || bins > MAX_TICKET_SIZE_BINS) {
+            throw new IllegalArgumentException("La cantidad de intervalos debe estar entre 1 y " + MAX_TICKET_SIZE_BINS);
+        }
+
+        LogLinearHistogram histogram;
+        if (ticketSizeHistogramService.isBackfillComplete()) {
+            histogram = ticketSizeHistogramService.getHistogram(businessId, from, to);
+        } else {
+            histogram = new LogLinearHistogram();
+            for (Object[] result : saleRepository.findTicketAmounts(businessId,
+                    businessTime.startOf(from), businessTime.endOf(to))) {
+                histogram.record(((Number) result[0]).longValue(), ((Number) result[1]).longValue());
+            }
+        }
+
+        long count = histogram.totalCount();
+        return TicketSizeDistributionResponse.builder()
+                .from(from)
+                .to(to)
+                .ticketCount(count)
+                .average(count == 0 ? BigDecimal.ZERO
+                        : BigDecimal.valueOf(histogram.sumCents(), 2).divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP))
+                .min(BigDecimal.valueOf(histogram.minCents(), 2))
+                .p50(BigDecimal.valueOf(histogram.valueAtQuantile(0.50), 2))
+                .p90(BigDecimal.valueOf(histogram.valueAtQuantile(0.90), 2))
+                .p99(BigDecimal.valueOf(histogram.valueAtQuantile(0.99), 2))
+                .max(BigDecimal.valueOf(histogram.maxCents(), 2))
+                .histogram(Arrays.stream(histogram.bins(bins))
+                        .map(bin -> TicketSizeBinResponse.builder()
+                                .from(BigDecimal.valueOf(bin.fromCents(), 2))
+                                .to(BigDecimal.valueOf(bin.toCents(), 2))
+                                .ticketCount(bin.count())
+                                .build())
+                        .toList())
+                .build();
+    }
+
+    private List<MonthlyCategoryRevenueResponse> loadMonthlyRevenueByCategory(UUID businessId, int year) {
+        List<Object[]> results;
+        if (rollupService.isBackfillComplete()) {
+            results = rollupRepository.findMonthlyRevenueByCategory(businessId, LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31));
+        } else {
+            results = saleRepository.findMonthlyRevenueByCategory(businessId,
+                    businessTime.startOfYear(year), businessTime.endOfYear(year), businessTime.zone().getId());
+        }
         
         return results.stream()
                 .map(result -> MonthlyCategoryRevenueResponse.builder()
@@ -46,17 +328,14 @@ public class AnalyticsService {
                 .toList();
     }
 
-    @Transactional(readOnly = true)
-    public List<MonthlyCategoryProfitResponse> getMonthlyProfitByCategory(String userEmail, UUID businessId, 
-                                                                         Integer year) {
-        validateUserBusinessAccess(userEmail, businessId);
-        
-        OffsetDateTime startOfYear = OffsetDateTime.of(year, 1, 1, 0, 0, 0, 0, 
-                OffsetDateTime.now().getOffset());
-        OffsetDateTime endOfYear = OffsetDateTime.of(year, 12, 31, 23, 59, 59, 999999999, 
-                OffsetDateTime.now().getOffset());
-        
-        List<Object[]> results = saleRepository.findMonthlyProfitByCategory(businessId, startOfYear, endOfYear);
+    private List<MonthlyCategoryProfitResponse> loadMonthlyProfitByCategory(UUID businessId, int year) {
+        List<Object[]> results;
+        if (rollupService.isBackfillComplete()) {
+            results = rollupRepository.findMonthlyProfitByCategory(businessId, LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31));
+        } else {
+            results = saleRepository.findMonthlyProfitByCategory(businessId,
+                    businessTime.startOfYear(year), businessTime.endOfYear(year), businessTime.zone().getId());
+        }
         
         return results.stream()
                 .map(result -> MonthlyCategoryProfitResponse.builder()
@@ -67,16 +346,14 @@ public class AnalyticsService {
                 .toList();
     }
 
-    @Transactional(readOnly = true)
-    public List<MonthlyRevenueResponse> getMonthlyTotalRevenue(String userEmail, UUID businessId, Integer year) {
-        validateUserBusinessAccess(userEmail, businessId);
-        
-        OffsetDateTime startOfYear = OffsetDateTime.of(year, 1, 1, 0, 0, 0, 0, 
-                OffsetDateTime.now().getOffset());
-        OffsetDateTime endOfYear = OffsetDateTime.of(year, 12, 31, 23, 59, 59, 999999999, 
-                OffsetDateTime.now().getOffset());
-        
-        List<Object[]> results = saleRepository.findMonthlyTotalRevenue(businessId, startOfYear, endOfYear);
+    private List<MonthlyRevenueResponse> loadMonthlyTotalRevenue(UUID businessId, int year) {
+        List<Object[]> results;
+        if (rollupService.isBackfillComplete()) {
+            results = rollupRepository.findMonthlyTotalRevenue(businessId, LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31));
+        } else {
+            results = saleRepository.findMonthlyTotalRevenue(businessId,
+                    businessTime.startOfYear(year), businessTime.endOfYear(year), businessTime.zone().getId());
+        }
         
         return results.stream()
                 .map(result -> MonthlyRevenueResponse.builder()
@@ -86,16 +363,14 @@ public class AnalyticsService {
                 .toList();
     }
 
-    @Transactional(readOnly = true)
-    public List<MonthlyProfitResponse> getMonthlyTotalProfit(String userEmail, UUID businessId, Integer year) {
-        validateUserBusinessAccess(userEmail, businessId);
-        
-        OffsetDateTime startOfYear = OffsetDateTime.of(year, 1, 1, 0, 0, 0, 0, 
-                OffsetDateTime.now().getOffset());
-        OffsetDateTime endOfYear = OffsetDateTime.of(year, 12, 31, 23, 59, 59, 999999999, 
-                OffsetDateTime.now().getOffset());
-        
-        List<Object[]> results = saleRepository.findMonthlyTotalProfit(businessId, startOfYear, endOfYear);
+    private List<MonthlyProfitResponse> loadMonthlyTotalProfit(UUID businessId, int year) {
+        List<Object[]> results;
+        if (rollupService.isBackfillComplete()) {
+            results = rollupRepository.findMonthlyTotalProfit(businessId, LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31));
+        } else {
+            results = saleRepository.findMonthlyTotalProfit(businessId,
+                    businessTime.startOfYear(year), businessTime.endOfYear(year), businessTime.zone().getId());
+        }
         
         return results.stream()
                 .map(result -> MonthlyProfitResponse.builder()
@@ -105,6 +380,63 @@ public class AnalyticsService {
                 .toList();
     }
 
+    private AnalyticsSummaryResponse loadSummary(UUID businessId, int year) {
+        List<Object[]> results;
+        if (rollupService.isBackfillComplete()) {
+            results = rollupRepository.findMonthlySummary(businessId, LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31));
+        } else {
+            results = saleRepository.findMonthlySummary(businessId,
+                    businessTime.startOfYear(year), businessTime.endOfYear(year), businessTime.zone().getId());
+        }
+
+        List<MonthlyCategoryRevenueResponse> revenueByCategory = new ArrayList<>();
+        List<MonthlyCategoryProfitResponse> profitByCategory = new ArrayList<>();
+        List<MonthlyRevenueResponse> totalRevenue = new ArrayList<>();
+        List<MonthlyProfitResponse> totalProfit = new ArrayList<>();
+
+        for (Object[] result : results) {
+            YearMonth month = YearMonth.of(((Number) result[0]).intValue(), ((Number) result[1]).intValue());
+            String categoryName = (String) result[2];
+            BigDecimal revenue = (BigDecimal) result[3];
+            BigDecimal profit = (BigDecimal) result[4];
+
+            if (categoryName == null) {
+                totalRevenue.add(MonthlyRevenueResponse.builder().month(month).revenue(revenue).build());
+                totalProfit.add(MonthlyProfitResponse.builder().month(month).profit(profit).build());
+            } else {
+                revenueByCategory.add(MonthlyCategoryRevenueResponse.builder()
+                        .month(month)
+                        .categoryName(categoryName)
+                        .revenue(revenue)
+                        .build());
+                profitByCategory.add(MonthlyCategoryProfitResponse.builder()
+                        .month(month)
+                        .categoryName(categoryName)
+                        .profit(profit)
+                        .build());
+            }
+        }
+
+        return AnalyticsSummaryResponse.builder()
+                .revenueByCategory(revenueByCategory)
+                .profitByCategory(profitByCategory)
+                .totalRevenue(totalRevenue)
+                .totalProfit(totalProfit)
+                .build();
+    }
+
+    private void validateDateRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("La fecha de inicio debe ser anterior a la fecha de fin");
+        }
+    }
+
+    private void validateMonthRange(YearMonth from, YearMonth to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("El mes de inicio debe ser anterior al mes de fin");
+        }
+    }
+
     private void validateUserBusinessAccess(String userEmail, UUID businessId) {
         User user = userRepository.findByEmailIgnoreCase(userEmail)
                 .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado"));
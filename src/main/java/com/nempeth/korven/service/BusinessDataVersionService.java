@@ -0,0 +1,42 @@
+package com.nempeth.korven.service;
+
+import com.nempeth.korven.persistence.repository.BusinessDataVersionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+
+/**
+ * Versión de los datos de reportes de cada negocio. Sube en la misma transacción que el cambio
+ * (cierre de ventas, alta, edición o baja de metas), así que una versión leída siempre corresponde
+ * a datos ya confirmados. SaleService la sube al cerrar y la informa en SaleClosedEvent.
+ * La versión del catálogo sube con cada cambio de productos o categorías y la usa
+ * ProductSnapshotCacheService para descartar su caché en todas las instancias.
+ */
+@Service
+@RequiredArgsConstructor
+public class BusinessDataVersionService {
+
+    private final BusinessDataVersionRepository versionRepository;
+
+    @Transactional(readOnly = true)
+    public long current(UUID businessId) {
+        return versionRepository.findVersion(businessId).orElse(0L);
+    }
+
+    @Transactional
+    public long increment(UUID businessId) {
+        return versionRepository.increment(businessId);
+    }
+
+    @Transactional(readOnly = true)
+    public long catalogVersion(UUID businessId) {
+        return versionRepository.findCatalogVersion(businessId).orElse(0L);
+    }
+
+    @Transactional
+    public long incrementCatalog(UUID businessId) {
+        return versionRepository.incrementCatalog(businessId);
+    }
+}
@@ -0,0 +1,359 @@
+package com.nempeth.korven.service;
+
+import com.nempeth.korven.persistence.entity.BusinessRankingSnapshot;
+import com.nempeth.korven.persistence.projection.BusinessScoreMetrics;
+import com.nempeth.korven.persistence.repository.BusinessRankingSnapshotRepository;
+import com.nempeth.korven.persistence.repository.SaleRepository;
+import com.nempeth.korven.utils.BusinessTime;
+import com.nempeth.korven.utils.ScoreCalculator;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Ranking de negocios precalculado. Es el mismo para todos los usuarios (solo cambia isOwnBusiness),
+ * así que se calcula una vez por refresco y se sirve desde memoria. Cada cálculo se guarda además en
+ * business_ranking_snapshot, que deja el historial por mes y le da a una instancia recién levantada
+ * algo para servir sin esperar.
+ * Si el ranking en memoria tiene más de app.ranking.snapshot-max-age-seconds (o es de otro mes) se
+ * devuelve igual y se recalcula en segundo plano: ninguna consulta espera el cálculo, salvo las primeras
+ * cuando la tabla todavía está vacía, que esperan juntas un único cálculo.
+ */
+@Slf4j
+@Service
+public class BusinessRankingSnapshotService {
+
+    private final SaleRepository saleRepository;
+    private final BusinessRankingSnapshotRepository snapshotRepository;
+    private final BusinessTime businessTime;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration maxAge;
+    private final Executor refreshExecutor;
+    private final int partitions;
+    // Conexiones que los cálculos pueden ocupar a la vez, sumando refrescos superpuestos
+    private final Semaphore connectionSlots;
+    private final ExecutorService fanOutExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final AtomicReference<Leaderboard> current = new AtomicReference<>();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    // Primer cálculo con la tabla vacía: las consultas que llegan mientras corre lo esperan
+    private final AtomicReference<CompletableFuture<Leaderboard>> firstComputation = new AtomicReference<>();
+
+    public record Entry(UUID businessId, String businessName, BigDecimal compositeScore, int position) {
+    }
+
+    public record Leaderboard(YearMonth month, OffsetDateTime computedAt, List<Entry> entries) {
+    }
+
+    @Autowired
+    public BusinessRankingSnapshotService(SaleRepository saleRepository,
+                                          BusinessRankingSnapshotRepository snapshotRepository,
+                                          BusinessTime businessTime,
+                                          PlatformTransactionManager transactionManager,
+                                          @Value("${app.ranking.snapshot-max-age-seconds:300}") long maxAgeSeconds,
+                                          @Value("${app.ranking.compute-parallelism:4}") int computeParallelism,
+                                          @Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize) {
+        this(saleRepository, snapshotRepository, businessTime, transactionManager, maxAgeSeconds,
+                computeParallelism, connectionPoolSize,
+                Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "business-ranking-refresh");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+    }
+
+    BusinessRankingSnapshotService(SaleRepository saleRepository,
+                                   BusinessRankingSnapshotRepository snapshotRepository,
+                                   BusinessTime businessTime,
+                                   PlatformTransactionManager transactionManager,
+                                   long maxAgeSeconds,
+                                   int computeParallelism,
+                                   int connectionPoolSize,
+                                   Executor refreshExecutor) {
+        if (maxAgeSeconds < 1) {
+            throw new IllegalArgumentException("La antigüedad máxima del ranking debe ser de al menos un segundo");
+        }
+        if (computeParallelism < 1) {
+            throw new IllegalArgumentException("El paralelismo del ranking debe ser de al menos una consulta");
+        }
+        this.saleRepository = saleRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.businessTime = businessTime;
+        // Transacción propia: el primer cálculo puede pedirse desde una consulta de solo lectura
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxAge = Duration.ofSeconds(maxAgeSeconds);
+        // Nunca todo el pool: siempre queda al menos una conexión para el resto de la API
+        this.partitions = Math.max(1, Math.min(computeParallelism, connectionPoolSize - 1));
+        if (partitions < computeParallelism) {
+            log.warn("Paralelismo del ranking reducido de {} a {} por el tamaño del pool de conexiones",
+                    computeParallelism, partitions);
+        }
+        this.connectionSlots = new Semaphore(partitions);
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    /**
+     * Ranking del mes en curso tal como está en memoria; si está viejo dispara un refresco en segundo plano
+     */
+    public Leaderboard current() {
+        Leaderboard leaderboard = current.get();
+        if (leaderboard == null) {
+            Leaderboard stored = loadStored(businessTime.currentMonth());
+            if (stored == null) {
+                // Tabla vacía (primer arranque): no hay nada viejo para devolver
+                return computeFirst();
+            }
+            current.compareAndSet(null, stored);
+            leaderboard = current.get();
+        }
+        if (isStale(leaderboard)) {
+            refreshInBackground();
+        }
+        return leaderboard;
+    }
+
+    /**
+     * Un solo cálculo para todas las consultas que encuentran la tabla vacía; si falla, la próxima
+     * consulta lo vuelve a intentar
+     */
+    private Leaderboard computeFirst() {
+        CompletableFuture<Leaderboard> ours = new CompletableFuture<>();
+        CompletableFuture<Leaderboard> inFlight = firstComputation.compareAndExchange(null, ours);
+        if (inFlight == null) {
+            try {
+                // Otro primer cálculo pudo terminar entre la lectura de la tabla y este punto
+                Leaderboard published = current.get();
+                ours.complete(published != null ? published : refresh());
+            } catch (RuntimeException e) {
+                ours.completeExceptionally(e);
+            } finally {
+                firstComputation.compareAndSet(ours, null);
+            }
+            inFlight = ours;
+        }
+        try {
+            return inFlight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Ranking guardado de un mes, ordenado por posición; vacío si no se calculó ese mes
+     */
+    public List<Entry> getStored(YearMonth month) {
+        Leaderboard stored = loadStored(month);
+        return stored != null ? stored.entries() : List.of();
+    }
+
+    /**
+     * Recalcula el ranking del mes en curso, lo publica en memoria y lo guarda. Si el mes anterior
+     * quedó guardado con un cálculo previo a su cierre, lo recalcula completo para el historial.
+     */
+    public Leaderboard refresh() {
+        YearMonth month = businessTime.currentMonth();
+        Leaderboard leaderboard = compute(month);
+        current.accumulateAndGet(leaderboard, (previous, computed) ->
+                previous == null || !previous.computedAt().isAfter(computed.computedAt()) ? computed : previous);
+        transactionTemplate.executeWithoutResult(status -> store(leaderboard));
+
+        YearMonth previousMonth = month.minusMonths(1);
+        OffsetDateTime storedAt = snapshotRepository.findComputedAt(previousMonth.atDay(1));
+        if (storedAt != null && storedAt.isBefore(businessTime.endOf(previousMonth))) {
+            Leaderboard closing = compute(previousMonth);
+            transactionTemplate.executeWithoutResult(status -> store(closing));
+            log.info("Ranking de negocios de {} cerrado", previousMonth);
+        }
+        return leaderboard;
+    }
+
+    /**
+     * Un solo refresco en segundo plano a la vez; los pedidos que llegan mientras tanto siguen con el actual
+     */
+    public void refreshInBackground() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    refresh();
+                } catch (RuntimeException e) {
+                    log.warn("No se pudo refrescar el ranking de negocios: {}", e.getMessage());
+                } finally {
+                    refreshing.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            refreshing.set(false);
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (refreshExecutor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+        fanOutExecutor.shutdownNow();
+    }
+
+    private boolean isStale(Leaderboard leaderboard) {
+        return !leaderboard.month().equals(businessTime.currentMonth())
+                || leaderboard.computedAt().plus(maxAge).isBefore(OffsetDateTime.now());
+    }
+
+    /**
+     * Puntaje compuesto de todos los negocios para el mes, con los máximos del propio mes.
+     * Solo calcula: no publica en memoria ni guarda.
+     */
+    public Leaderboard compute(YearMonth month) {
+        OffsetDateTime computedAt = OffsetDateTime.now();
+        List<BusinessScoreMetrics> metricsList = fetchScoreMetrics(month).stream()
+                .map(BusinessRankingSnapshotService::toScoreMetrics)
+                .toList();
+
+        double maxRevenue = 0.0;
+        double maxAvgTicket = 0.0;
+        double maxTransactionCount = 0.0;
+        for (BusinessScoreMetrics metrics : metricsList) {
+            BigDecimal avgTicket = ScoreCalculator.calculateAverageTicket(metrics.currentRevenue(), metrics.currentCount());
+            maxRevenue = Math.max(maxRevenue, metrics.currentRevenue().doubleValue());
+            maxAvgTicket = Math.max(maxAvgTicket, avgTicket.doubleValue());
+            maxTransactionCount = Math.max(maxTransactionCount, metrics.currentCount());
+        }
+
+        List<Entry> scored = new ArrayList<>(metricsList.size());
+        for (BusinessScoreMetrics metrics : metricsList) {
+            scored.add(new Entry(metrics.businessId(), metrics.businessName(),
+                    ScoreCalculator.calculateCompositeScore(metrics, maxRevenue, maxAvgTicket, maxTransactionCount),
+                    0));
+        }
+        // Desempate fijo para que dos refrescos con los mismos datos den las mismas posiciones
+        scored.sort(Comparator
+                .comparing(Entry::compositeScore, Comparator.reverseOrder())
+                .thenComparing(Entry::businessId));
+
+        List<Entry> entries = new ArrayList<>(scored.size());
+        for (Entry entry : scored) {
+            entries.add(new Entry(entry.businessId(), entry.businessName(), entry.compositeScore(), entries.size() + 1));
+        }
+        return new Leaderboard(month, computedAt, List.copyOf(entries));
+    }
+
+    /**
+     * Las métricas de los negocios, repartidas en una consulta por partición que corren a la vez en
+     * hilos virtuales. El semáforo deja siempre conexiones libres en el pool para el resto de la API.
+     */
+    private List<Object[]> fetchScoreMetrics(YearMonth month) {
+        OffsetDateTime previousFrom = businessTime.startOf(month.minusMonths(1));
+        OffsetDateTime currentFrom = businessTime.startOf(month);
+        OffsetDateTime currentTo = businessTime.endOf(month);
+
+        List<Future<List<Object[]>>> futures = new ArrayList<>(partitions);
+        for (int partition = 0; partition < partitions; partition++) {
+            int index = partition;
+            futures.add(fanOutExecutor.submit(() -> withConnectionSlot(() -> saleRepository.findBusinessScoreMetrics(
+                    previousFrom, currentFrom, currentTo, partitions, index))));
+        }
+
+        List<Object[]> rows = new ArrayList<>();
+        try {
+            for (Future<List<Object[]>> future : futures) {
+                rows.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Cálculo del ranking de negocios interrumpido", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("No se pudo calcular el ranking de negocios", e.getCause());
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+        return rows;
+    }
+
+    private <T> T withConnectionSlot(Supplier<T> query) throws InterruptedException {
+        connectionSlots.acquire();
+        try {
+            return query.get();
+        } finally {
+            connectionSlots.release();
+        }
+    }
+
+    private void store(Leaderboard leaderboard) {
+        // Filas en orden de negocio para no cruzarse con el refresco de otra instancia
+        List<Entry> byBusiness = new ArrayList<>(leaderboard.entries());
+        byBusiness.sort(Comparator.comparing(Entry::businessId));
+        for (Entry entry : byBusiness) {
+            snapshotRepository.upsert(leaderboard.month().atDay(1), entry.businessId(), entry.businessName(),
+                    entry.compositeScore(), entry.position(), leaderboard.computedAt());
+        }
+        snapshotRepository.deleteComputedBefore(leaderboard.month().atDay(1), leaderboard.computedAt());
+    }
+
+    private Leaderboard loadStored(YearMonth month) {
+        List<BusinessRankingSnapshot> rows = snapshotRepository.findByPeriodMonth(month.atDay(1));
+        if (rows.isEmpty()) {
+            return null;
+        }
+        OffsetDateTime computedAt = rows.get(0).getComputedAt();
+        List<Entry> entries = new ArrayList<>(rows.size());
+        for (BusinessRankingSnapshot row : rows) {
+            if (row.getComputedAt().isBefore(computedAt)) {
+                computedAt = row.getComputedAt();
+            }
+            entries.add(new Entry(row.getBusiness().getId(), row.getBusinessName(),
+                    row.getCompositeScore(), row.getRankingPosition()));
+        }
+        return new Leaderboard(month, computedAt, List.copyOf(entries));
+    }
+
+    /**
+     * Fila de SaleRepository.findBusinessScoreMetrics
+     */
+    private static BusinessScoreMetrics toScoreMetrics(Object[] row) {
+        return new BusinessScoreMetrics(
+                (UUID) row[0],
+                (String) row[1],
+                ((Number) row[2]).longValue(),
+                (BigDecimal) row[3],
+                ((Number) row[4]).doubleValue(),
+                ((Number) row[5]).longValue(),
+                (BigDecimal) row[6]
+        );
+    }
+}
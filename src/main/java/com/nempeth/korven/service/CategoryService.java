@@ -31,6 +31,9 @@ public class CategoryService {
     private final BusinessMembershipRepository membershipRepository;
     private final UserRepository userRepository;
     private final GoalCategoryTargetRepository goalCategoryTargetRepository;
+    private final ProductSnapshotCacheService productSnapshotCacheService;
+    private final BusinessDataVersionService dataVersionService;
+    private final GoalProgressService goalProgressService;
 
     @Transactional(readOnly = true)
     public List<CategoryResponse> getCategoriesByBusiness(String userEmail, UUID businessId) {
@@ -90,6 +93,7 @@ public class CategoryService {
         }
         
         categoryRepository.delete(category);
+        productSnapshotCacheService.evict(businessId);
     }
 
     @Transactional
@@ -130,6 +134,12 @@ public class CategoryService {
         // Update category name in goal_category_target if name changed
         if (!originalName.equals(category.getName())) {
             goalCategoryTargetRepository.updateCategoryNameByCategoryId(categoryId, category.getName());
+            // El progreso de las metas se cuenta por nombre de categoría: se recuenta con el nuevo
+            goalProgressService.reconcile(goalCategoryTargetRepository.findGoalIdsByCategoryId(categoryId));
+            productSnapshotCacheService.evict(businessId);
+            // Cambian el nombre y el progreso de los objetivos de metas: se invalida el ETag de sus reportes.
+            // sale_item guarda el nombre de cada venta, así que cubos y analíticas no cambian
+            dataVersionService.increment(businessId);
         }
         
         return mapToResponse(category);
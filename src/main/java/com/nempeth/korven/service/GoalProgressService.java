@@ -0,0 +1,88 @@
+package com.nempeth.korven.service;
+
+import com.nempeth.korven.event.SaleClosedEvent;
+import com.nempeth.korven.persistence.repository.GoalCategoryTargetRepository;
+import com.nempeth.korven.utils.BusinessTime;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Mantiene goal_category_target.actual_revenue: suma cada venta al cerrarse, dentro de la misma
+ * transacción del cierre, a los objetivos de las metas que cubren su día. Así el resumen de metas
+ * lee el progreso junto con la meta, sin agregar sale_item en cada consulta.
+ * La conciliación recuenta desde las ventas las metas abiertas (y las que quedaron sin contar),
+ * por si algún cierre no llegó a sumarse, por ejemplo mientras se editaba la meta.
+ */
+@Slf4j
+@Service
+public class GoalProgressService {
+
+    private final GoalCategoryTargetRepository targetRepository;
+    private final BusinessTime businessTime;
+    private final TransactionTemplate transactionTemplate;
+    private final int reconcileBatchSize;
+
+    @Autowired
+    public GoalProgressService(GoalCategoryTargetRepository targetRepository,
+                               BusinessTime businessTime,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.goals.reconcile-batch-size:100}") int reconcileBatchSize) {
+        if (reconcileBatchSize < 1) {
+            throw new IllegalArgumentException("El lote de conciliación de metas debe tener al menos una meta");
+        }
+        this.targetRepository = targetRepository;
+        this.businessTime = businessTime;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reconcileBatchSize = reconcileBatchSize;
+    }
+
+    // BEFORE_COMMIT: si falla la suma se revierte también el cierre, como en sale_daily_rollup
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onSaleClosed(SaleClosedEvent event) {
+        if (event.saleIds().isEmpty()) {
+            return;
+        }
+        targetRepository.addClosedSales(event.saleIds(), businessTime.zone().getId());
+    }
+
+    /**
+     * Recuenta desde las ventas el progreso de las metas indicadas. Primero bloquea sus objetivos:
+     * los cierres que ya los sumaron terminan antes del recuento (y quedan contados en él) y los que
+     * llegan después esperan y suman sobre el valor recontado.
+     */
+    @Transactional
+    public void reconcile(Collection<UUID> goalIds) {
+        if (goalIds.isEmpty()) {
+            return;
+        }
+        targetRepository.lockByGoalIds(goalIds);
+        targetRepository.recountActualRevenue(goalIds, businessTime.zone().getId());
+    }
+
+    /**
+     * Concilia las metas abiertas desde ayer (la que terminó ayer queda cerrada con su valor final)
+     * y las que todavía no se contaron, en lotes con transacción propia para no bloquear todos los
+     * objetivos a la vez.
+     *
+     * @return cantidad de metas conciliadas
+     */
+    public int reconcileOpenGoals() {
+        List<UUID> goalIds = targetRepository.findGoalIdsToReconcile(businessTime.today().minusDays(1));
+        for (int from = 0; from < goalIds.size(); from += reconcileBatchSize) {
+            List<UUID> batch = goalIds.subList(from, Math.min(from + reconcileBatchSize, goalIds.size()));
+            transactionTemplate.executeWithoutResult(status -> reconcile(batch));
+        }
+        return goalIds.size();
+    }
+}
@@ -4,6 +4,8 @@ import com.nempeth.korven.constants.MembershipStatus;
 import com.nempeth.korven.persistence.entity.*;
 import com.nempeth.korven.persistence.repository.*;
 import com.nempeth.korven.rest.dto.*;
+import com.nempeth.korven.utils.BusinessTime;
+import com.nempeth.korven.utils.ReportVersion;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -24,14 +26,20 @@ public class GoalService {
     private final BusinessMembershipRepository membershipRepository;
     private final UserRepository userRepository;
     private final SaleRepository saleRepository;
+    private final BusinessTime businessTime;
+    private final BusinessDataVersionService dataVersionService;
+    private final SaleDailyRollupRepository rollupRepository;
+    private final SaleDailyRollupService rollupService;
+    private final GoalProgressService goalProgressService;
 
     @Transactional(readOnly = true)
     public List<GoalResponse> getAllGoalsByBusiness(String userEmail, UUID businessId) {
         validateUserBusinessAccess(userEmail, businessId);
         
         List<Goal> goals = goalRepository.findByBusinessIdOrderByPeriodStartDesc(businessId);
+        Map<UUID, Map<String, BigDecimal>> revenueByGoal = loadActualRevenue(goals);
         return goals.stream()
-                .map(this::mapToResponse)
+                .map(goal -> mapToResponse(goal, revenueByGoal))
                 .toList();
     }
 
@@ -42,17 +50,18 @@ public class GoalService {
         Goal goal = goalRepository.findByIdAndBusinessId(goalId, businessId)
                 .orElseThrow(() -> new IllegalArgumentException("Meta no encontrada"));
         
-        return mapToResponse(goal);
+        return mapToResponse(goal, loadActualRevenue(List.of(goal)));
     }
 
     @Transactional(readOnly = true)
     public List<GoalReportResponse> getHistoricalReport(String userEmail, UUID businessId) {
         validateUserBusinessAccess(userEmail, businessId);
         
-        List<Goal> historicalGoals = goalRepository.findHistoricalGoals(businessId, LocalDate.now());
+        List<Goal> historicalGoals = goalRepository.findHistoricalGoals(businessId, businessTime.today());
         
+        Map<UUID, Map<String, BigDecimal>> revenueByGoal = loadActualRevenue(historicalGoals);
         return historicalGoals.stream()
-                .map(this::mapToReportResponse)
+                .map(goal -> mapToReportResponse(goal, revenueByGoal))
                 .toList();
     }
 
@@ -61,10 +70,11 @@ public class GoalService {
         validateUserBusinessAccess(userEmail, businessId);
         
         List<Goal> goals = goalRepository.findByBusinessIdOrderByPeriodStartDesc(businessId);
-        LocalDate today = LocalDate.now();
+        LocalDate today = businessTime.today();
+        Map<UUID, Map<String, BigDecimal>> revenueByGoal = loadCountedRevenue(goals);
         
         return goals.stream()
-                .map(goal -> mapToActiveGoalSummary(goal, today))
+                .map(goal -> mapToActiveGoalSummary(goal, today, revenueByGoal))
                 .toList();
     }
 
@@ -75,7 +85,31 @@ public class GoalService {
         Goal goal = goalRepository.findByIdAndBusinessId(goalId, businessId)
                 .orElseThrow(() -> new IllegalArgumentException("Meta no encontrada"));
         
-        return mapToReportResponse(goal);
+        return mapToReportResponse(goal, loadActualRevenue(List.of(goal)));
+    }
+
+    /**
+     * Versión del reporte de una meta para el ETag, sin calcular ingresos.
+     * Aunque la meta haya terminado, renombrar una categoría renombra y recuenta sus objetivos,
+     * así que el ETag siempre lleva la versión de datos del negocio.
+     */
+    @Transactional(readOnly = true)
+    public ReportVersion getGoalReportVersion(String userEmail, UUID businessId, UUID goalId) {
+        validateUserBusinessAccess(userEmail, businessId);
+        
+        Goal goal = goalRepository.findByIdAndBusinessId(goalId, businessId)
+                .orElseThrow(() -> new IllegalArgumentException("Meta no encontrada"));
+        
+        return ReportVersion.open(dataVersionService.current(businessId), "goal-report", businessId, goalId);
+    }
+
+    // El historial suma metas a medida que terminan, así que también depende del día
+    @Transactional(readOnly = true)
+    public ReportVersion getHistoricalReportVersion(String userEmail, UUID businessId) {
+        validateUserBusinessAccess(userEmail, businessId);
+        
+        return ReportVersion.open(dataVersionService.current(businessId),
+                "goal-historical", businessId, businessTime.today());
     }
 
     @Transactional
@@ -116,8 +150,11 @@ public class GoalService {
         }
         
         goal = goalRepository.save(goal);
+        // Los objetivos nuevos arrancan sin contar: se cuentan ahora para el resumen de metas
+        goalProgressService.reconcile(List.of(goal.getId()));
+        dataVersionService.increment(businessId);
         
-        return mapToResponse(goal);
+        return mapToResponse(goal, loadActualRevenue(List.of(goal)));
     }
 
     @Transactional
@@ -127,7 +164,7 @@ public class GoalService {
         Goal goal = goalRepository.findByIdAndBusinessId(goalId, businessId)
                 .orElseThrow(() -> new IllegalArgumentException("Meta no encontrada"));
 
-        if (goal.isPeriodFinished()) {
+        if (goal.isPeriodFinished(businessTime.today())) {
             throw new IllegalStateException("No se puede editar una meta que ya finalizó");
         }
         
@@ -162,8 +199,11 @@ public class GoalService {
         }
         
         goal = goalRepository.save(goal);
+        // Los objetivos nuevos arrancan sin contar: se cuentan ahora para el resumen de metas
+        goalProgressService.reconcile(List.of(goal.getId()));
+        dataVersionService.increment(businessId);
         
-        return mapToResponse(goal);
+        return mapToResponse(goal, loadActualRevenue(List.of(goal)));
     }
 
     @Transactional
@@ -175,6 +215,7 @@ public class GoalService {
         
         // Se puede eliminar cualquier meta, incluso las terminadas
         goalRepository.delete(goal);
+        dataVersionService.increment(businessId);
     }
 
     private void validateUserBusinessAccess(String userEmail, UUID businessId) {
@@ -232,10 +273,60 @@ public class GoalService {
                 .collect(Collectors.toMap(Category::getId, c -> c));
     }
 
-    private GoalResponse mapToResponse(Goal goal) {
-        List<GoalCategoryTargetResponse> targetResponses = goal.getCategoryTargets().stream()
-                .map(this::mapTargetToResponse)
+    /**
+     * Ingresos reales de las metas por categoría objetivo, con una sola consulta para todas.
+     * Lee los totales diarios cuando ya están completos; si no, las ventas.
+     */
+    private Map<UUID, Map<String, BigDecimal>> loadActualRevenue(Collection<Goal> goals) {
+        List<UUID> goalIds = goals.stream()
+                .filter(goal -> !goal.getCategoryTargets().isEmpty())
+                .map(Goal::getId)
                 .toList();
+        if (goalIds.isEmpty()) {
+            return Map.of();
+        }
+        
+        List<Object[]> results;
+        if (rollupService.isBackfillComplete()) {
+            results = rollupRepository.findGoalRevenueByCategory(goalIds);
+        } else {
+            results = saleRepository.findGoalRevenueByCategory(goalIds, businessTime.zone().getId());
+        }
+        
+        Map<UUID, Map<String, BigDecimal>> revenueByGoal = new HashMap<>();
+        for (Object[] row : results) {
+            revenueByGoal.computeIfAbsent((UUID) row[0], id -> new HashMap<>())
+                    .put((String) row[1], (BigDecimal) row[2]);
+        }
+        return revenueByGoal;
+    }
+
+    /**
+     * Ingresos reales ya contados en los objetivos (actual_revenue); solo las metas con algún objetivo
+     * todavía sin contar se calculan desde las ventas.
+     */
+    private Map<UUID, Map<String, BigDecimal>> loadCountedRevenue(List<Goal> goals) {
+        Map<UUID, Map<String, BigDecimal>> revenueByGoal = new HashMap<>();
+        List<Goal> uncounted = new ArrayList<>();
+        for (Goal goal : goals) {
+            boolean counted = goal.getCategoryTargets().stream()
+                    .allMatch(target -> target.getActualRevenue() != null);
+            if (!counted) {
+                uncounted.add(goal);
+                continue;
+            }
+            Map<String, BigDecimal> revenueByCategory = new HashMap<>();
+            for (GoalCategoryTarget target : goal.getCategoryTargets()) {
+                revenueByCategory.put(target.getCategoryName(), target.getActualRevenue());
+            }
+            revenueByGoal.put(goal.getId(), revenueByCategory);
+        }
+        revenueByGoal.putAll(loadActualRevenue(uncounted));
+        return revenueByGoal;
+    }
+
+    private GoalResponse mapToResponse(Goal goal, Map<UUID, Map<String, BigDecimal>> revenueByGoal) {
+        List<GoalCategoryTargetResponse> targetResponses = mapTargetsToResponse(goal, revenueByGoal);
         
         return new GoalResponse(
                 goal.getId(),
@@ -244,20 +335,21 @@ public class GoalService {
                 goal.getPeriodStart(),
                 goal.getPeriodEnd(),
                 goal.getIsLocked(),
-                goal.isPeriodFinished(),
+                goal.isPeriodFinished(businessTime.today()),
                 targetResponses
         );
     }
 
-    private GoalCategoryTargetResponse mapTargetToResponse(GoalCategoryTarget target) {
-        // Calcular ingresos reales para la categoría en el período
-        BigDecimal actualRevenue = calculateActualRevenue(
-                target.getGoal().getBusiness().getId(),
-                target.getCategoryName(),
-                target.getGoal().getPeriodStart(),
-                target.getGoal().getPeriodEnd()
-        );
-        
+    private List<GoalCategoryTargetResponse> mapTargetsToResponse(Goal goal,
+                                                                  Map<UUID, Map<String, BigDecimal>> revenueByGoal) {
+        Map<String, BigDecimal> revenueByCategory = revenueByGoal.getOrDefault(goal.getId(), Map.of());
+        return goal.getCategoryTargets().stream()
+                .map(target -> mapTargetToResponse(target,
+                        revenueByCategory.getOrDefault(target.getCategoryName(), BigDecimal.ZERO)))
+                .toList();
+    }
+
+    private GoalCategoryTargetResponse mapTargetToResponse(GoalCategoryTarget target, BigDecimal actualRevenue) {        
         // Calcular porcentaje de logro
         BigDecimal achievement = BigDecimal.ZERO;
         if (target.getRevenueTarget().compareTo(BigDecimal.ZERO) > 0) {
@@ -277,10 +369,8 @@ public class GoalService {
         );
     }
 
-    private GoalReportResponse mapToReportResponse(Goal goal) {
-        List<GoalCategoryTargetResponse> targetResponses = goal.getCategoryTargets().stream()
-                .map(this::mapTargetToResponse)
-                .toList();
+    private GoalReportResponse mapToReportResponse(Goal goal, Map<UUID, Map<String, BigDecimal>> revenueByGoal) {
+        List<GoalCategoryTargetResponse> targetResponses = mapTargetsToResponse(goal, revenueByGoal);
         
         // Calcular totales
         BigDecimal totalActualRevenue = targetResponses.stream()
@@ -307,18 +397,9 @@ public class GoalService {
         );
     }
 
-    private BigDecimal calculateActualRevenue(UUID businessId, String categoryName, 
-                                             LocalDate startDate, LocalDate endDate) {
-        // Calcular los ingresos reales de ventas en el período para la categoría
-        return saleRepository.calculateRevenueByCategoryAndDateRange(
-                businessId, categoryName, startDate, endDate
-        ).orElse(BigDecimal.ZERO);
-    }
-
-    private ActiveGoalSummaryResponse mapToActiveGoalSummary(Goal goal, LocalDate today) {
-        List<GoalCategoryTargetResponse> targetResponses = goal.getCategoryTargets().stream()
-                .map(this::mapTargetToResponse)
-                .toList();
+    private ActiveGoalSummaryResponse mapToActiveGoalSummary(Goal goal, LocalDate today,
+                                                             Map<UUID, Map<String, BigDecimal>> revenueByGoal) {
+        List<GoalCategoryTargetResponse> targetResponses = mapTargetsToResponse(goal, revenueByGoal);
         
         // Calcular días restantes o estado
         String daysRemaining;
@@ -0,0 +1,180 @@
+package com.nempeth.korven.service;
+
+import com.nempeth.korven.event.SaleClosedEvent;
+import com.nempeth.korven.persistence.entity.User;
+import com.nempeth.korven.persistence.projection.EmployeeSalesTotals;
+import com.nempeth.korven.persistence.repository.BusinessMembershipRepository;
+import com.nempeth.korven.persistence.repository.SaleRepository;
+import com.nempeth.korven.persistence.repository.UserRepository;
+import com.nempeth.korven.rest.dto.EmployeeRankingResponse;
+import com.nempeth.korven.rest.dto.LiveEmployeeLeaderboardResponse;
+import com.nempeth.korven.utils.BusinessTime;
+import com.nempeth.korven.utils.SalesLeaderboard;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Ranking de empleados del mes en curso en memoria, un SalesLeaderboard por negocio.
+ * Se carga de la base en la primera consulta (o al cambiar de mes) y cada cierre de ventas le suma
+ * las ventas de sus empleados, así consultar el top y la posición propia no vuelve a agregar el mes.
+ * Como el cubo de ventas, recuerda la versión de datos del negocio: si un cierre llega salteando
+ * una versión se descarta y se recarga en la próxima consulta. Cada consulta compara además esa
+ * versión con la de la base, para ver los cierres hechos en otra instancia.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LiveEmployeeLeaderboardService {
+
+    public static final String CACHE_NAME = "employeeLeaderboard";
+
+    private final CacheManager cacheManager;
+    private final SaleRepository saleRepository;
+    private final BusinessDataVersionService dataVersionService;
+    private final UserRepository userRepository;
+    private final BusinessMembershipRepository membershipRepository;
+    private final BusinessTime businessTime;
+    private final PlatformTransactionManager transactionManager;
+
+    public LiveEmployeeLeaderboardResponse getLeaderboard(String userEmail, UUID businessId, int limit) {
+        if (limit < 1 || limit > 100) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y 100");
+        }
+        User user = userRepository.findByEmailIgnoreCase(userEmail)
+                .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado"));
+        if (!membershipRepository.existsByBusinessIdAndUserId(businessId, user.getId())) {
+            throw new AccessDeniedException("No tienes acceso a este negocio");
+        }
+
+        SalesLeaderboard board = getBoard(businessId);
+        List<SalesLeaderboard.Standing> top;
+        SalesLeaderboard.Standing own;
+        int employeeCount;
+        synchronized (board) {
+            top = board.top(limit);
+            own = board.standingOf(user.getId());
+            employeeCount = board.size();
+        }
+
+        return LiveEmployeeLeaderboardResponse.builder()
+                .month(board.month())
+                .employeeCount(employeeCount)
+                .top(top.stream()
+                        .map(standing -> toResponse(standing, user.getId()))
+                        .toList())
+                .currentUser(own != null ? toResponse(own, user.getId()) : null)
+                .build();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onSaleClosed(SaleClosedEvent event) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null) {
+            return;
+        }
+        SalesLeaderboard board = cache.get(event.businessId(), SalesLeaderboard.class);
+        if (board == null) {
+            return;
+        }
+        long boardVersion;
+        synchronized (board) {
+            boardVersion = board.dataVersion();
+        }
+        if (event.dataVersion() <= boardVersion) {
+            return;
+        }
+        YearMonth closedMonth = YearMonth.from(event.closedAt().atZoneSameInstant(businessTime.zone()));
+        if (event.dataVersion() == boardVersion + 1 && closedMonth.equals(board.month())) {
+            List<EmployeeSalesTotals> totals = saleRepository.findEmployeeSalesTotalsBySaleIds(event.saleIds());
+            synchronized (board) {
+                if (event.dataVersion() <= board.dataVersion()) {
+                    return;
+                }
+                if (event.dataVersion() == board.dataVersion() + 1) {
+                    for (EmployeeSalesTotals employee : totals) {
+                        board.add(employee.userId(), nullToEmpty(employee.name()), nullToEmpty(employee.lastName()),
+                                employee.salesCount(), toCents(employee.totalRevenue()));
+                    }
+                    board.advanceTo(event.dataVersion());
+                    return;
+                }
+            }
+        }
+        cache.evict(event.businessId());
+        log.debug("Ranking de empleados del negocio {} descartado en la versión {}", event.businessId(), event.dataVersion());
+    }
+
+    SalesLeaderboard getBoard(UUID businessId) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null) {
+            return load(businessId);
+        }
+        // Se lee antes de tomar el ranking: uno recién cargado nunca queda detrás de esta versión
+        long currentVersion = dataVersionService.current(businessId);
+        SalesLeaderboard board = cache.get(businessId, () -> load(businessId));
+        long boardVersion;
+        synchronized (board) {
+            boardVersion = board.dataVersion();
+        }
+        // Cambió el mes (el ranking arranca de nuevo) u otra instancia cerró ventas
+        if (!board.month().equals(businessTime.currentMonth()) || boardVersion < currentVersion) {
+            cache.evict(businessId);
+            board = cache.get(businessId, () -> load(businessId));
+        }
+        return board;
+    }
+
+    /**
+     * Lee la versión y los totales en la misma foto de la base (REPEATABLE READ), así el ranking
+     * contiene exactamente los cierres hasta esa versión.
+     */
+    private SalesLeaderboard load(UUID businessId) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+
+        YearMonth month = businessTime.currentMonth();
+        return transactionTemplate.execute(status -> {
+            SalesLeaderboard board = new SalesLeaderboard(month, dataVersionService.current(businessId));
+            for (EmployeeSalesTotals employee : saleRepository.findEmployeeSalesTotals(
+                    businessId, businessTime.startOf(month), businessTime.endOf(month))) {
+                board.add(employee.userId(), nullToEmpty(employee.name()), nullToEmpty(employee.lastName()),
+                        employee.salesCount(), toCents(employee.totalRevenue()));
+            }
+            return board;
+        });
+    }
+
+    private static EmployeeRankingResponse toResponse(SalesLeaderboard.Standing standing, UUID currentUserId) {
+        return new EmployeeRankingResponse(
+                standing.name(),
+                standing.lastName(),
+                standing.salesCount(),
+                BigDecimal.valueOf(standing.revenueCents(), 2),
+                standing.position(),
+                standing.userId().equals(currentUserId)
+        );
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).longValueExact();
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+}
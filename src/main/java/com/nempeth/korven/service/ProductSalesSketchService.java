@@ -0,0 +1,186 @@
+package com.nempeth.korven.service;
+
+import com.nempeth.korven.constants.ProductRankingMetric;
+import com.nempeth.korven.event.SaleClosedEvent;
+import com.nempeth.korven.persistence.entity.ProductSalesSketch;
+import com.nempeth.korven.persistence.projection.SaleCubeFact;
+import com.nempeth.korven.persistence.repository.ProductSalesSketchRepository;
+import com.nempeth.korven.persistence.repository.SaleItemRepository;
+import com.nempeth.korven.utils.BusinessTime;
+import com.nempeth.korven.utils.SpaceSavingSketch;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Productos más vendidos por negocio y mes, en unidades y en ingresos, como resúmenes Space-Saving
+ * de SKETCH_CAPACITY contadores. Cada cierre suma sus items a un resumen en memoria y flush() los
+ * combina periódicamente con el guardado en product_sales_sketch, así varias instancias pueden
+ * acumular a la vez. Lo que no llegó a guardarse se pierde si la instancia se cae; es un ranking
+ * aproximado, para cifras exactas están las consultas sobre las ventas.
+ * El historial anterior a la tabla lo carga RollupBackfillService, como el de los agregados diarios.
+ */
+@Slf4j
+@Service
+public class ProductSalesSketchService implements RollupBackfillJob {
+
+    public static final String BACKFILL_JOB = "product_sales_sketch";
+    static final int SKETCH_CAPACITY = 256;
+
+    private static final byte[] EMPTY_SKETCH = new SpaceSavingSketch(SKETCH_CAPACITY).toBytes();
+
+    private final ProductSalesSketchRepository sketchRepository;
+    private final SaleItemRepository saleItemRepository;
+    private final RollupBackfillService backfillService;
+    private final BusinessTime businessTime;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ConcurrentMap<SketchKey, SpaceSavingSketch> pending = new ConcurrentHashMap<>();
+
+    record SketchKey(UUID businessId, YearMonth month, ProductRankingMetric metric) {
+    }
+
+    public ProductSalesSketchService(ProductSalesSketchRepository sketchRepository,
+                                     SaleItemRepository saleItemRepository,
+                                     RollupBackfillService backfillService,
+                                     BusinessTime businessTime,
+                                     PlatformTransactionManager transactionManager) {
+        this.sketchRepository = sketchRepository;
+        this.saleItemRepository = saleItemRepository;
+        this.backfillService = backfillService;
+        this.businessTime = businessTime;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onSaleClosed(SaleClosedEvent event) {
+        if (event.saleIds().isEmpty()) {
+            return;
+        }
+        for (SaleCubeFact fact : saleItemRepository.findCubeFactsBySaleIds(event.saleIds())) {
+            YearMonth month = YearMonth.from(fact.occurredAt().atZoneSameInstant(businessTime.zone()));
+            offer(new SketchKey(event.businessId(), month, ProductRankingMetric.UNITS),
+                    fact.productName(), fact.quantity());
+            offer(new SketchKey(event.businessId(), month, ProductRankingMetric.REVENUE),
+                    fact.productName(), fact.lineTotal().movePointRight(2).longValueExact());
+        }
+    }
+
+    /**
+     * Los limit productos con mayor total estimado en los meses [from, to], combinando lo guardado
+     * con lo que esta instancia todavía no guardó. Los totales de revenue están en centavos.
+     */
+    @Transactional(readOnly = true)
+    public List<SpaceSavingSketch.Entry> top(UUID businessId, YearMonth from, YearMonth to,
+                                             ProductRankingMetric metric, int limit) {
+        SpaceSavingSketch combined = new SpaceSavingSketch(SKETCH_CAPACITY);
+        for (ProductSalesSketch stored : sketchRepository.findByBusinessAndMonths(
+                businessId, metric, from.atDay(1), to.atDay(1))) {
+            combined = SpaceSavingSketch.merge(combined, SpaceSavingSketch.fromBytes(stored.getSketch()));
+        }
+        for (SketchKey key : pending.keySet()) {
+            if (!key.businessId().equals(businessId) || key.metric() != metric
+                    || key.month().isBefore(from) || key.month().isAfter(to)) {
+                continue;
+            }
+            SpaceSavingSketch[] snapshot = new SpaceSavingSketch[1];
+            pending.computeIfPresent(key, (k, sketch) -> {
+                snapshot[0] = sketch.copy();
+                return sketch;
+            });
+            if (snapshot[0] != null) {
+                combined = SpaceSavingSketch.merge(combined, snapshot[0]);
+            }
+        }
+        return combined.top(limit);
+    }
+
+    /**
+     * Combina lo acumulado en memoria con las filas guardadas, en una transacción por negocio, mes y métrica.
+     * Si una falla, su acumulado vuelve a la cola para el próximo intento.
+     *
+     * @return cantidad de resúmenes guardados
+     */
+    public int flush() {
+        int flushed = 0;
+        for (SketchKey key : pending.keySet()) {
+            SpaceSavingSketch delta = pending.remove(key);
+            if (delta == null) {
+                continue;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> mergeIntoStored(key, delta));
+                flushed++;
+            } catch (RuntimeException e) {
+                pending.merge(key, delta, SpaceSavingSketch::merge);
+                throw e;
+            }
+        }
+        return flushed;
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron guardar los rankings de productos pendientes: {}", e.getMessage());
+        }
+    }
+
+    public boolean isBackfillComplete() {
+        return backfillService.isComplete(BACKFILL_JOB);
+    }
+
+    @Override
+    public String backfillJobName() {
+        return BACKFILL_JOB;
+    }
+
+    @Override
+    public void backfillChunk(OffsetDateTime from, OffsetDateTime to) {
+        // Orden fijo de las filas a bloquear
+        Map<SketchKey, SpaceSavingSketch> chunk = new TreeMap<>(Comparator
+                .comparing(SketchKey::businessId)
+                .thenComparing(SketchKey::month)
+                .thenComparing(SketchKey::metric));
+        for (Object[] row : sketchRepository.findProductTotalsClosedBetween(from, to, businessTime.zone().getId())) {
+            UUID businessId = (UUID) row[0];
+            YearMonth month = YearMonth.of(((Number) row[1]).intValue(), ((Number) row[2]).intValue());
+            String productName = (String) row[3];
+            chunk.computeIfAbsent(new SketchKey(businessId, month, ProductRankingMetric.UNITS),
+                    key -> new SpaceSavingSketch(SKETCH_CAPACITY)).offer(productName, ((Number) row[4]).longValue());
+            chunk.computeIfAbsent(new SketchKey(businessId, month, ProductRankingMetric.REVENUE),
+                    key -> new SpaceSavingSketch(SKETCH_CAPACITY)).offer(productName, ((Number) row[5]).longValue());
+        }
+        chunk.forEach(this::mergeIntoStored);
+    }
+
+    private void offer(SketchKey key, String productName, long weight) {
+        pending.compute(key, (k, sketch) -> {
+            SpaceSavingSketch target = sketch != null ? sketch : new SpaceSavingSketch(SKETCH_CAPACITY);
+            target.offer(productName, weight);
+            return target;
+        });
+    }
+
+    private void mergeIntoStored(SketchKey key, SpaceSavingSketch delta) {
+        sketchRepository.insertIfMissing(key.businessId(), key.month().atDay(1), key.metric().name(), EMPTY_SKETCH);
+        ProductSalesSketch stored = sketchRepository.findForUpdate(key.businessId(), key.month().atDay(1), key.metric())
+                .orElseThrow(() -> new IllegalStateException("Resumen de productos no encontrado"));
+        SpaceSavingSketch merged = SpaceSavingSketch.merge(SpaceSavingSketch.fromBytes(stored.getSketch()), delta);
+        stored.setSketch(merged.toBytes());
+        stored.setUpdatedAt(OffsetDateTime.now());
+    }
+}
@@ -30,6 +30,7 @@ public class ProductService {
     private final BusinessRepository businessRepository;
     private final BusinessMembershipRepository membershipRepository;
     private final UserRepository userRepository;
+    private final ProductSnapshotCacheService productSnapshotCacheService;
 
     @Transactional
     public UUID create(String userEmail, UUID businessId, ProductUpsertRequest req) {
@@ -59,6 +60,7 @@ public class ProductService {
                 .build();
         
         product = productRepository.save(product);
+        productSnapshotCacheService.evict(businessId);
         return product.getId();
     }
 
@@ -101,6 +103,7 @@ public class ProductService {
         product.setCategory(category);
         
         productRepository.save(product);
+        productSnapshotCacheService.evict(businessId);
     }
 
     @Transactional
@@ -111,6 +114,7 @@ public class ProductService {
                 .orElseThrow(() -> new IllegalArgumentException("Producto no encontrado en este negocio"));
         
         productRepository.delete(product);
+        productSnapshotCacheService.evict(businessId);
     }
 
     private void validateUserBusinessAccess(String userEmail, UUID businessId) {
@@ -0,0 +1,113 @@
+package com.nempeth.korven.service;
+
+import com.nempeth.korven.persistence.projection.ProductSnapshot;
+import com.nempeth.korven.persistence.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Caché por negocio de los datos de producto que se copian al agregar items a una venta,
+ * para no consultar products/categories en cada item. Cada entrada guarda la versión del catálogo con la que
+ * se cargó y se descarta si la del negocio es mayor, así los cambios hechos en otra instancia se ven enseguida.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSnapshotCacheService {
+
+    public static final String CACHE_NAME = "productSnapshots";
+
+    private final CacheManager cacheManager;
+    private final ProductRepository productRepository;
+    private final BusinessDataVersionService dataVersionService;
+
+    /**
+     * Busca el producto del negocio. Si no está en la caché (por ejemplo, se creó en otra instancia)
+     * se consulta la base y se invalida la entrada para que la próxima carga lo incluya.
+     */
+    public Optional<ProductSnapshot> find(UUID businessId, UUID productId) {
+        ProductSnapshot snapshot = getSnapshots(businessId).get(productId);
+        if (snapshot != null) {
+            return Optional.of(snapshot);
+        }
+        return findAll(businessId, List.of(productId)).values().stream().findFirst();
+    }
+
+    /**
+     * Igual que {@link #find} para varios productos. Los que no existen en el negocio no aparecen en el resultado.
+     */
+    public Map<UUID, ProductSnapshot> findAll(UUID businessId, Collection<UUID> productIds) {
+        Map<UUID, ProductSnapshot> cached = getSnapshots(businessId);
+        Map<UUID, ProductSnapshot> result = new HashMap<>();
+        List<UUID> missing = new ArrayList<>();
+        for (UUID productId : productIds) {
+            ProductSnapshot snapshot = cached.get(productId);
+            if (snapshot != null) {
+                result.put(productId, snapshot);
+            } else {
+                missing.add(productId);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            List<ProductSnapshot> loaded = productRepository.findSnapshotsByBusinessIdAndIdIn(businessId, missing);
+            if (!loaded.isEmpty()) {
+                evictLocal(businessId);
+            }
+            loaded.forEach(snapshot -> result.put(snapshot.id(), snapshot));
+        }
+        return result;
+    }
+
+    /**
+     * Invalida los productos del negocio en todas las instancias: sube la versión del catálogo en la transacción
+     * del cambio, así ninguna instancia vuelve a usar su copia una vez confirmado.
+     */
+    public void evict(UUID businessId) {
+        dataVersionService.incrementCatalog(businessId);
+        evictLocal(businessId);
+        log.debug("Caché de productos invalidada para negocio: {}", businessId);
+    }
+
+    private void evictLocal(UUID businessId) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache != null) {
+            cache.evict(businessId);
+        }
+    }
+
+    private Map<UUID, ProductSnapshot> getSnapshots(UUID businessId) {
+        long catalogVersion = dataVersionService.catalogVersion(businessId);
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null) {
+            return loadSnapshots(businessId, catalogVersion).products();
+        }
+        CatalogSnapshot cached = cache.get(businessId, CatalogSnapshot.class);
+        if (cached != null && cached.catalogVersion() >= catalogVersion) {
+            return cached.products();
+        }
+        CatalogSnapshot loaded = loadSnapshots(businessId, catalogVersion);
+        cache.put(businessId, loaded);
+        return loaded.products();
+    }
+
+    /**
+     * La versión se lee antes que los productos: si el catálogo cambia en el medio, la entrada queda
+     * con una versión vieja y se recarga en la próxima consulta.
+     */
+    private CatalogSnapshot loadSnapshots(UUID businessId, long catalogVersion) {
+        Map<UUID, ProductSnapshot> products = productRepository.findSnapshotsByBusinessId(businessId).stream()
+                .collect(Collectors.toUnmodifiableMap(ProductSnapshot::id, Function.identity()));
+        return new CatalogSnapshot(catalogVersion, products);
+    }
+
+    private record CatalogSnapshot(long catalogVersion, Map<UUID, ProductSnapshot> products) {
+    }
+}
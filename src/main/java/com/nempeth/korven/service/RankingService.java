@@ -2,15 +2,14 @@ package com.nempeth.korven.service;
 
 import com.nempeth.korven.persistence.entity.BusinessMembership;
 import com.nempeth.korven.persistence.entity.User;
+import com.nempeth.korven.persistence.projection.EmployeeSalesTotals;
 import com.nempeth.korven.persistence.repository.BusinessMembershipRepository;
 import com.nempeth.korven.persistence.repository.BusinessRepository;
 import com.nempeth.korven.persistence.repository.SaleRepository;
 import com.nempeth.korven.persistence.repository.UserRepository;
-import com.nempeth.korven.persistence.entity.Business;
-import com.nempeth.korven.persistence.entity.Sale;
 import com.nempeth.korven.rest.dto.BusinessRankingResponse;
 import com.nempeth.korven.rest.dto.EmployeeRankingResponse;
-import com.nempeth.korven.utils.ScoreCalculator;
+import com.nempeth.korven.utils.BusinessTime;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
@@ -22,6 +21,7 @@ import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -33,6 +33,8 @@ public class RankingService {
     private final BusinessRepository businessRepository;
     private final BusinessMembershipRepository businessMembershipRepository;
     private final SaleRepository saleRepository;
+    private final BusinessTime businessTime;
+    private final BusinessRankingSnapshotService businessRankingSnapshotService;
 
     /**
      * Get employee rankings for a specific business based on current month sales
@@ -60,44 +62,20 @@ public class RankingService {
         }
 
         // Calculate current month date range
-        YearMonth currentMonth = YearMonth.now();
-        OffsetDateTime startOfMonth = currentMonth.atDay(1).atStartOfDay().atOffset(OffsetDateTime.now().getOffset());
-        OffsetDateTime endOfMonth = currentMonth.atEndOfMonth().atTime(23, 59, 59).atOffset(OffsetDateTime.now().getOffset());
+        YearMonth currentMonth = businessTime.currentMonth();
+        OffsetDateTime startOfMonth = businessTime.startOf(currentMonth);
+        OffsetDateTime endOfMonth = businessTime.endOf(currentMonth);
 
-        // Get all business members
-        List<BusinessMembership> memberships = businessMembershipRepository
-                .findByBusinessId(businessId);
-
-        // Calculate rankings
+        // Sales count and revenue of every member in a single grouped query
         List<EmployeeRankingData> rankingData = new ArrayList<>();
-        
-        for (BusinessMembership membership : memberships) {
-            User employee = membership.getUser();
-            
-            // Get sales made by this employee in the current month
-            var salesInMonth = saleRepository
-                    .findByBusinessIdAndCreatedByUserIdAndOccurredAtBetweenOrderByOccurredAtDesc(
-                            businessId, 
-                            employee.getId(),
-                            startOfMonth,
-                            endOfMonth
-                    );
-            
-            // Count sales made by this employee in the current month
-            long salesCount = salesInMonth.size();
-            
-            // Calculate total revenue from sales made by this employee in the current month
-            BigDecimal totalRevenue = salesInMonth
-                    .stream()
-                    .map(sale -> sale.getTotalAmount())
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-            
+
+        for (EmployeeSalesTotals totals : saleRepository.findEmployeeSalesTotals(businessId, startOfMonth, endOfMonth)) {
             rankingData.add(new EmployeeRankingData(
-                    employee.getId(),
-                    employee.getName() != null ? employee.getName() : "",
-                    employee.getLastName() != null ? employee.getLastName() : "",
-                    salesCount,
-                    totalRevenue
+                    totals.userId(),
+                    totals.name() != null ? totals.name() : "",
+                    totals.lastName() != null ? totals.lastName() : "",
+                    totals.salesCount(),
+                    totals.totalRevenue()
             ));
         }
 
@@ -156,102 +134,64 @@ public class RankingService {
         }
 
         // Get IDs of businesses user has access to
-        List<UUID> accessibleBusinessIds = userMemberships.stream()
+        Set<UUID> accessibleBusinessIds = userMemberships.stream()
                 .map(m -> m.getBusiness().getId())
-                .collect(Collectors.toList());
-
-        // Get all businesses
-        List<Business> allBusinesses = businessRepository.findAll();
-
-        // Calculate current and previous month date ranges
-        YearMonth currentMonth = YearMonth.now();
-        YearMonth previousMonth = currentMonth.minusMonths(1);
-
-        OffsetDateTime currentStart = currentMonth.atDay(1).atStartOfDay().atOffset(OffsetDateTime.now().getOffset());
-        OffsetDateTime currentEnd = currentMonth.atEndOfMonth().atTime(23, 59, 59).atOffset(OffsetDateTime.now().getOffset());
-
-        OffsetDateTime previousStart = previousMonth.atDay(1).atStartOfDay().atOffset(OffsetDateTime.now().getOffset());
-        OffsetDateTime previousEnd = previousMonth.atEndOfMonth().atTime(23, 59, 59).atOffset(OffsetDateTime.now().getOffset());
-
-        // First pass: Calculate metrics for all businesses to find dynamic maximums
-        double maxRevenue = 0.0;
-        double maxAvgTicket = 0.0;
-        double maxTransactionCount = 0.0;
-
-        List<BusinessMetrics> businessMetricsList = new ArrayList<>();
+                .collect(Collectors.toSet());
 
-        for (Business business : allBusinesses) {
-            List<Sale> currentMonthSales = saleRepository
-                    .findByBusinessIdAndOccurredAtBetweenOrderByOccurredAtDesc(
-                            business.getId(),
-                            currentStart,
-                            currentEnd
-                    );
-
-            List<Sale> previousMonthSales = saleRepository
-                    .findByBusinessIdAndOccurredAtBetweenOrderByOccurredAtDesc(
-                            business.getId(),
-                            previousStart,
-                            previousEnd
-                    );
-
-            // Calculate metrics to find maximums
-            BigDecimal totalRevenue = ScoreCalculator.calculateTotalRevenue(currentMonthSales);
-            long transactionCount = currentMonthSales.size();
-            BigDecimal avgTicket = ScoreCalculator.calculateAverageTicket(totalRevenue, transactionCount);
+        // The leaderboard is the same for every user: serve the precomputed snapshot
+        return toResponses(businessRankingSnapshotService.current().entries(), accessibleBusinessIds);
+    }
 
-            // Track maximums across all businesses
-            maxRevenue = Math.max(maxRevenue, totalRevenue.doubleValue());
-            maxAvgTicket = Math.max(maxAvgTicket, avgTicket.doubleValue());
-            maxTransactionCount = Math.max(maxTransactionCount, transactionCount);
+    /**
+     * Get the business rankings as they stood at the end of a past month
+     * (or the live snapshot for the current month)
+     *
+     * @param userEmail Email of the requesting user
+     * @param month Month to retrieve
+     * @return List of business rankings sorted by position, empty if that month was never computed
+     */
+    @Transactional(readOnly = true)
+    public List<BusinessRankingResponse> getBusinessRankingHistory(String userEmail, YearMonth month) {
+        User requestingUser = userRepository.findByEmailIgnoreCase(userEmail)
+                .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado"));
 
-            businessMetricsList.add(new BusinessMetrics(
-                    business,
-                    currentMonthSales,
-                    previousMonthSales
-            ));
+        YearMonth currentMonth = businessTime.currentMonth();
+        if (month.isAfter(currentMonth)) {
+            throw new IllegalArgumentException("El mes no puede ser posterior al actual");
         }
 
-        // Second pass: Calculate composite scores using dynamic maximums
-        List<BusinessRankingData> rankingData = new ArrayList<>();
-
-        for (BusinessMetrics metrics : businessMetricsList) {
-            BigDecimal compositeScore = ScoreCalculator.calculateCompositeScore(
-                    metrics.currentMonthSales(),
-                    metrics.previousMonthSales(),
-                    maxRevenue,
-                    maxAvgTicket,
-                    maxTransactionCount
-            );
+        List<BusinessMembership> userMemberships = businessMembershipRepository
+                .findByUserId(requestingUser.getId());
 
-            rankingData.add(new BusinessRankingData(
-                    metrics.business().getId(),
-                    metrics.business().getName(),
-                    compositeScore
-            ));
+        if (userMemberships.isEmpty()) {
+            return List.of();
         }
 
-        // Sort by composite score (descending)
-        rankingData.sort(Comparator
-                .comparing(BusinessRankingData::compositeScore, Comparator.reverseOrder())
-        );
+        Set<UUID> accessibleBusinessIds = userMemberships.stream()
+                .map(m -> m.getBusiness().getId())
+                .collect(Collectors.toSet());
 
-        // Build response with positions
-        List<BusinessRankingResponse> rankings = new ArrayList<>();
-        int position = 1;
+        List<BusinessRankingSnapshotService.Entry> entries = month.equals(currentMonth)
+                ? businessRankingSnapshotService.current().entries()
+                : businessRankingSnapshotService.getStored(month);
+        return toResponses(entries, accessibleBusinessIds);
+    }
 
-        for (BusinessRankingData data : rankingData) {
-            boolean isOwnBusiness = accessibleBusinessIds.contains(data.businessId());
+    /**
+     * Apply the per-user isOwnBusiness flag to a leaderboard
+     */
+    private List<BusinessRankingResponse> toResponses(List<BusinessRankingSnapshotService.Entry> entries,
+                                                      Set<UUID> accessibleBusinessIds) {
+        List<BusinessRankingResponse> rankings = new ArrayList<>(entries.size());
 
+        for (BusinessRankingSnapshotService.Entry entry : entries) {
             rankings.add(new BusinessRankingResponse(
-                    data.businessId(),
-                    data.businessName(),
-                    data.compositeScore(),
-                    position,
-                    isOwnBusiness
+                    entry.businessId(),
+                    entry.businessName(),
+                    entry.compositeScore(),
+                    entry.position(),
+                    accessibleBusinessIds.contains(entry.businessId())
             ));
-
-            position++;
         }
 
         return rankings;
@@ -268,24 +208,4 @@ public class RankingService {
             BigDecimal totalRevenue
     ) {
     }
-
-    /**
-     * Internal record to hold business metrics during calculation
-     */
-    private record BusinessMetrics(
-            Business business,
-            List<Sale> currentMonthSales,
-            List<Sale> previousMonthSales
-    ) {
-    }
-
-    /**
-     * Internal record to hold business ranking data before creating response
-     */
-    private record BusinessRankingData(
-            UUID businessId,
-            String businessName,
-            BigDecimal compositeScore
-    ) {
-    }
 }
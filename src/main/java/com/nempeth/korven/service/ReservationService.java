@@ -417,7 +417,7 @@ public class ReservationService {
             table.setStatus(TableStatus.FREE);
             tableRepository.save(table);
             // Cerrar orden automáticamente para cada mesa
-            saleService.closeSalesByTable(table.getId());
+            saleService.closeSalesByTable(businessId, table.getId());
         }
 
         reservationRepository.save(reservation);
@@ -454,7 +454,7 @@ public class ReservationService {
             if (table.getStatus() == TableStatus.RESERVED || table.getStatus() == TableStatus.OCCUPIED) {
                 // Si estaba OCCUPIED, cerrar la orden
                 if (table.getStatus() == TableStatus.OCCUPIED) {
-                    saleService.closeSalesByTable(table.getId());
+                    saleService.closeSalesByTable(businessId, table.getId());
                 }
                 table.setStatus(TableStatus.FREE);
                 tableRepository.save(table);
@@ -0,0 +1,16 @@
+package com.nempeth.korven.service;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Agregado que se mantiene al cerrar ventas y cuyo historial anterior carga RollupBackfillService
+ * de a tramos. Cada uno tiene su propia fila en rollup_backfill_checkpoint.
+ */
+public interface RollupBackfillJob {
+
+    /** Nombre de la fila de rollup_backfill_checkpoint del agregado */
+    String backfillJobName();
+
+    /** Suma al agregado las ventas cerradas en [from, to); corre en la transacción que guarda el avance */
+    void backfillChunk(OffsetDateTime from, OffsetDateTime to);
+}
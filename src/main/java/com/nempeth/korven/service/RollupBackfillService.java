@@ -0,0 +1,85 @@
+package com.nempeth.korven.service;
+
+import com.nempeth.korven.persistence.entity.RollupBackfillCheckpoint;
+import com.nempeth.korven.persistence.repository.RollupBackfillCheckpointRepository;
+import com.nempeth.korven.persistence.repository.SaleRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Carga de a tramos las ventas cerradas antes de que existiera cada agregado ({@link RollupBackfillJob}),
+ * con el avance guardado en rollup_backfill_checkpoint. Mientras la carga de un agregado no termine,
+ * AnalyticsService sigue leyendo las ventas directamente.
+ */
+@Slf4j
+@Service
+public class RollupBackfillService {
+
+    private final RollupBackfillCheckpointRepository checkpointRepository;
+    private final SaleRepository saleRepository;
+    private final Duration backfillChunk;
+
+    // Una vez terminada la carga no vuelve atrás, así que no hace falta consultarla de nuevo
+    private final Set<String> completedJobs = ConcurrentHashMap.newKeySet();
+
+    public RollupBackfillService(RollupBackfillCheckpointRepository checkpointRepository,
+                                 SaleRepository saleRepository,
+                                 @Value("${app.analytics.rollup-backfill-chunk-days:7}") int backfillChunkDays) {
+        if (backfillChunkDays < 1) {
+            throw new IllegalArgumentException("El tramo de carga de agregados debe ser de al menos un día");
+        }
+        this.checkpointRepository = checkpointRepository;
+        this.saleRepository = saleRepository;
+        this.backfillChunk = Duration.ofDays(backfillChunkDays);
+    }
+
+    public boolean isComplete(String jobName) {
+        if (completedJobs.contains(jobName)) {
+            return true;
+        }
+        if (checkpointRepository.existsByJobNameAndCompletedAtIsNotNull(jobName)) {
+            completedJobs.add(jobName);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Carga el siguiente tramo de ventas cerradas antes del corte y guarda el avance, todo en una
+     * transacción: si se interrumpe, el próximo intento retoma desde el último tramo confirmado.
+     *
+     * @return true si queda historial por cargar
+     */
+    @Transactional
+    public boolean backfillNextChunk(RollupBackfillJob job) {
+        RollupBackfillCheckpoint checkpoint = checkpointRepository.findByJobNameForUpdate(job.backfillJobName())
+                .orElse(null);
+        if (checkpoint == null || checkpoint.getCompletedAt() != null) {
+            return false;
+        }
+
+        OffsetDateTime cutoff = checkpoint.getCutoff();
+        OffsetDateTime next = saleRepository.findFirstOccurredAtBetween(checkpoint.getProcessedUntil(), cutoff);
+        if (next == null) {
+            checkpoint.setProcessedUntil(cutoff);
+            checkpoint.setCompletedAt(OffsetDateTime.now());
+            log.info("Carga inicial de {} completada", job.backfillJobName());
+            return false;
+        }
+
+        OffsetDateTime to = next.plus(backfillChunk);
+        if (to.isAfter(cutoff)) {
+            to = cutoff;
+        }
+        job.backfillChunk(next, to);
+        checkpoint.setProcessedUntil(to);
+        return true;
+    }
+}
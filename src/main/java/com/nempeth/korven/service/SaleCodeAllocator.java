@@ -0,0 +1,54 @@
+package com.nempeth.korven.service;
+
+import com.nempeth.korven.persistence.repository.SaleCodeCounterRepository;
+import com.nempeth.korven.utils.BusinessTime;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Genera códigos de venta YYMMDD-N sin recorrer las ventas del día.
+ * Cada instancia reserva bloques de números en sale_code_counter (hi-lo) y los entrega desde memoria,
+ * así que solo va a la base una vez cada blockSize ventas.
+ * Los códigos son únicos entre instancias; puede haber huecos si una instancia se reinicia
+ * sin agotar su bloque. El día del prefijo es el del negocio ({@link BusinessTime}), no el del servidor.
+ */
+@Service
+public class SaleCodeAllocator {
+
+    private static final DateTimeFormatter DATE_PREFIX = DateTimeFormatter.ofPattern("yyMMdd");
+
+    private final SaleCodeCounterRepository counterRepository;
+    private final BusinessTime businessTime;
+    private final int blockSize;
+
+    private LocalDate currentDate;
+    private long nextValue;
+    private long blockEnd;
+
+    public SaleCodeAllocator(SaleCodeCounterRepository counterRepository,
+                             BusinessTime businessTime,
+                             @Value("${app.sales.code-block-size:10}") int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("El tamaño de bloque de códigos debe ser mayor a 0");
+        }
+        this.counterRepository = counterRepository;
+        this.businessTime = businessTime;
+        this.blockSize = blockSize;
+    }
+
+    public String nextCode() {
+        return nextCode(businessTime.today());
+    }
+
+    synchronized String nextCode(LocalDate date) {
+        if (!date.equals(currentDate) || nextValue >= blockEnd) {
+            blockEnd = counterRepository.reserveBlock(date, blockSize);
+            nextValue = blockEnd - blockSize;
+            currentDate = date;
+        }
+        return date.format(DATE_PREFIX) + "-" + nextValue++;
+    }
+}
@@ -0,0 +1,50 @@
+package com.nempeth.korven.service;
+
+import com.nempeth.korven.event.SaleClosedEvent;
+import com.nempeth.korven.persistence.repository.SaleDailyRollupRepository;
+import com.nempeth.korven.utils.BusinessTime;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Mantiene sale_daily_rollup: suma cada venta al cerrarse, dentro de la misma transacción del cierre.
+ * Las ventas cerradas antes de que existiera la tabla las carga RollupBackfillService de a tramos;
+ * mientras esa carga no termine, AnalyticsService sigue leyendo las ventas directamente.
+ */
+@Service
+@RequiredArgsConstructor
+public class SaleDailyRollupService implements RollupBackfillJob {
+
+    public static final String BACKFILL_JOB = "sale_daily_rollup";
+
+    private final SaleDailyRollupRepository rollupRepository;
+    private final RollupBackfillService backfillService;
+    private final BusinessTime businessTime;
+
+    // BEFORE_COMMIT: si falla la suma se revierte también el cierre, y el agregado nunca queda desfasado
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onSaleClosed(SaleClosedEvent event) {
+        if (event.saleIds().isEmpty()) {
+            return;
+        }
+        rollupRepository.addClosedSales(event.saleIds(), businessTime.zone().getId());
+    }
+
+    public boolean isBackfillComplete() {
+        return backfillService.isComplete(BACKFILL_JOB);
+    }
+
+    @Override
+    public String backfillJobName() {
+        return BACKFILL_JOB;
+    }
+
+    @Override
+    public void backfillChunk(OffsetDateTime from, OffsetDateTime to) {
+        rollupRepository.addSalesClosedBetween(from, to, businessTime.zone().getId());
+    }
+}
@@ -0,0 +1,194 @@
+package com.nempeth.korven.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nempeth.korven.constants.MembershipRole;
+import com.nempeth.korven.constants.MembershipStatus;
+import com.nempeth.korven.constants.SaleExportFormat;
+import com.nempeth.korven.persistence.entity.BusinessMembership;
+import com.nempeth.korven.persistence.entity.User;
+import com.nempeth.korven.persistence.projection.SaleExportRow;
+import com.nempeth.korven.persistence.repository.BusinessMembershipRepository;
+import com.nempeth.korven.persistence.repository.SaleRepository;
+import com.nempeth.korven.persistence.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Exporta ventas cerradas y sus items en CSV o NDJSON.
+ * Las filas se leen con un cursor de base de datos y se escriben directo a la respuesta,
+ * sin materializar el listado completo en memoria.
+ */
+@Service
+@RequiredArgsConstructor
+public class SaleExportService {
+
+    static final String CSV_HEADER = "sale_id,sale_code,occurred_at,created_by,table_code,total_amount,"
+            + "product_name,category_name,quantity,unit_price,unit_cost,line_total";
+
+    private final SaleRepository saleRepository;
+    private final BusinessMembershipRepository membershipRepository;
+    private final UserRepository userRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Valida el acceso antes de devolver el cuerpo, así los errores siguen respondiendo 400.
+     * La consulta se ejecuta recién cuando Spring escribe la respuesta, dentro de una transacción
+     * de solo lectura que mantiene abierto el cursor mientras dura la descarga.
+     */
+    public StreamingResponseBody exportSales(String userEmail, UUID businessId,
+                                             OffsetDateTime startDate, OffsetDateTime endDate,
+                                             SaleExportFormat format) {
+        if (startDate == null || endDate == null) {
+            throw new IllegalArgumentException("Debe indicar fecha de inicio y fin para exportar");
+        }
+        if (startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("La fecha de inicio no puede ser posterior a la fecha de fin");
+        }
+
+        BusinessMembership membership = validateUserBusinessAccessAndGetMembership(userEmail, businessId);
+        UUID userId = membership.getRole() == MembershipRole.OWNER ? null : membership.getUser().getId();
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+
+        return outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<SaleExportRow> rows = streamRows(businessId, userId, startDate, endDate)) {
+                    if (format == SaleExportFormat.CSV) {
+                        writeCsv(rows, writer);
+                    } else {
+                        writeNdjson(rows, writer);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+        };
+    }
+
+    private Stream<SaleExportRow> streamRows(UUID businessId, UUID userId,
+                                             OffsetDateTime startDate, OffsetDateTime endDate) {
+        if (userId == null) {
+            return saleRepository.streamExportRowsByBusinessIdAndOccurredAtBetween(businessId, startDate, endDate);
+        }
+        return saleRepository.streamExportRowsByBusinessIdAndCreatedByUserIdAndOccurredAtBetween(
+                businessId, userId, startDate, endDate);
+    }
+
+    private void writeCsv(Stream<SaleExportRow> rows, Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        for (SaleExportRow row : (Iterable<SaleExportRow>) rows::iterator) {
+            writer.write(String.join(",",
+                    csv(row.saleId()),
+                    csv(row.saleCode()),
+                    csv(row.occurredAt()),
+                    csv(row.createdByUserName()),
+                    csv(row.tableCode()),
+                    csv(row.totalAmount()),
+                    csv(row.productName()),
+                    csv(row.categoryName()),
+                    csv(row.quantity()),
+                    csv(row.unitPrice()),
+                    csv(row.unitCost()),
+                    csv(row.lineTotal())));
+            writer.write('\n');
+        }
+    }
+
+    /**
+     * Una línea JSON por venta con sus items anidados. Las filas llegan ordenadas por venta,
+     * así que basta con acumular los items de la venta actual.
+     */
+    private void writeNdjson(Stream<SaleExportRow> rows, Writer writer) throws IOException {
+        SaleExportRow current = null;
+        List<Map<String, Object>> items = new ArrayList<>();
+
+        for (SaleExportRow row : (Iterable<SaleExportRow>) rows::iterator) {
+            if (current != null && !current.saleId().equals(row.saleId())) {
+                writeSaleLine(current, items, writer);
+                items = new ArrayList<>();
+            }
+            current = row;
+            if (row.hasItem()) {
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("productName", row.productName());
+                item.put("categoryName", row.categoryName());
+                item.put("quantity", row.quantity());
+                item.put("unitPrice", row.unitPrice());
+                item.put("unitCost", row.unitCost());
+                item.put("lineTotal", row.lineTotal());
+                items.add(item);
+            }
+        }
+        if (current != null) {
+            writeSaleLine(current, items, writer);
+        }
+    }
+
+    private void writeSaleLine(SaleExportRow sale, List<Map<String, Object>> items, Writer writer) throws IOException {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("id", sale.saleId());
+        line.put("code", sale.saleCode());
+        line.put("occurredAt", sale.occurredAt());
+        line.put("createdByUserName", sale.createdByUserName());
+        line.put("tableCode", sale.tableCode());
+        line.put("totalAmount", sale.totalAmount());
+        line.put("items", items);
+        writer.write(objectMapper.writeValueAsString(line));
+        writer.write('\n');
+    }
+
+    /**
+     * Los textos cargados por usuarios (nombres, mesas) que empiezan con =, +, -, @, tabulación o retorno
+     * se prefijan con ' para que una planilla no los ejecute como fórmula. Los números no se tocan.
+     */
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString();
+        if (value instanceof String && !text.isEmpty() && "=+-@\t\r".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.contains(",") || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+
+    private BusinessMembership validateUserBusinessAccessAndGetMembership(String userEmail, UUID businessId) {
+        User user = userRepository.findByEmailIgnoreCase(userEmail)
+                .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado"));
+
+        BusinessMembership membership = membershipRepository.findByBusinessIdAndUserId(businessId, user.getId())
+                .orElseThrow(() -> new IllegalArgumentException("No tienes acceso a este negocio"));
+
+        if (membership.getStatus() != MembershipStatus.ACTIVE) {
+            throw new IllegalArgumentException("Tu membresía en este negocio no está activa");
+        }
+
+        return membership;
+    }
+}
@@ -0,0 +1,48 @@
+package com.nempeth.korven.service;
+
+import com.nempeth.korven.event.SaleClosedEvent;
+import com.nempeth.korven.persistence.repository.SaleHourlyRollupRepository;
+import com.nempeth.korven.utils.BusinessTime;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Mantiene sale_hourly_rollup: suma cada venta al cerrarse en el día y la hora (del negocio) en que ocurrió.
+ * El historial anterior a la tabla lo carga RollupBackfillService con su propio checkpoint.
+ */
+@Service
+@RequiredArgsConstructor
+public class SaleHourlyRollupService implements RollupBackfillJob {
+
+    public static final String BACKFILL_JOB = "sale_hourly_rollup";
+
+    private final SaleHourlyRollupRepository rollupRepository;
+    private final RollupBackfillService backfillService;
+    private final BusinessTime businessTime;
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onSaleClosed(SaleClosedEvent event) {
+        if (event.saleIds().isEmpty()) {
+            return;
+        }
+        rollupRepository.addClosedSales(event.saleIds(), businessTime.zone().getId());
+    }
+
+    public boolean isBackfillComplete() {
+        return backfillService.isComplete(BACKFILL_JOB);
+    }
+
+    @Override
+    public String backfillJobName() {
+        return BACKFILL_JOB;
+    }
+
+    @Override
+    public void backfillChunk(OffsetDateTime from, OffsetDateTime to) {
+        rollupRepository.addSalesClosedBetween(from, to, businessTime.zone().getId());
+    }
+}
@@ -2,6 +2,7 @@ package com.nempeth.korven.service;
 
 import com.nempeth.korven.constants.MembershipStatus;
 import com.nempeth.korven.persistence.entity.*;
+import com.nempeth.korven.persistence.projection.ProductSnapshot;
 import com.nempeth.korven.persistence.repository.*;
 import com.nempeth.korven.rest.dto.CreateSaleItemRequest;
 import com.nempeth.korven.rest.dto.SaleItemResponse;
@@ -10,8 +11,14 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -22,69 +29,119 @@ public class SaleItemService {
     private final ProductRepository productRepository;
     private final BusinessMembershipRepository membershipRepository;
     private final UserRepository userRepository;
+    private final ProductSnapshotCacheService productSnapshotCacheService;
 
     @Transactional
     public UUID addItemToSale(String userEmail, UUID businessId, UUID saleId, CreateSaleItemRequest request) {
         // Validar acceso del usuario al negocio
         validateUserBusinessAccess(userEmail, businessId);
         
-        // Validar que la venta pertenece al negocio
-        Sale sale = saleRepository.findById(saleId)
-                .orElseThrow(() -> new IllegalArgumentException("Venta no encontrada"));
-        
-        if (!sale.getBusiness().getId().equals(businessId)) {
-            throw new IllegalArgumentException("La venta no pertenece a este negocio");
-        }
+        // Bloquear la venta: los cambios de items de una misma orden se aplican de a uno
+        lockSaleOfBusiness(saleId, businessId);
         
-        // Obtener el producto
-        Product product = productRepository.findByIdAndBusinessId(request.productId(), businessId)
+        // Obtener el producto desde la caché de snapshots
+        ProductSnapshot product = productSnapshotCacheService.find(businessId, request.productId())
                 .orElseThrow(() -> new IllegalArgumentException("Producto no encontrado en este negocio"));
         
-        // Verificar si el producto ya existe en la venta
-        var existingItem = saleItemRepository.findBySaleIdAndProductId(saleId, request.productId());
-        
         // Si la cantidad es 0, eliminar el item si existe
         if (request.quantity() == 0) {
-            if (existingItem.isPresent()) {
-                saleItemRepository.delete(existingItem.get());
-                return existingItem.get().getId();
-            } else {
-                throw new IllegalArgumentException("No se puede establecer cantidad 0 para un producto que no está en la venta");
+            return saleItemRepository.deleteItemReturningId(saleId, product.id())
+                    .orElseThrow(() -> new IllegalArgumentException("No se puede establecer cantidad 0 para un producto que no está en la venta"));
+        }
+        
+        // Crear o actualizar el item y ajustar el total de la venta en una sola sentencia
+        return saleItemRepository.upsertItem(
+                UUID.randomUUID(),
+                saleId,
+                product.id(),
+                product.name(),
+                product.categoryName(),
+                product.price(),
+                product.cost(),
+                request.quantity(),
+                product.lineTotal(request.quantity())
+        );
+    }
+
+    /**
+     * Aplica varios items a la venta en una sola transacción, con la misma semántica que
+     * {@link #addItemToSale} para cada uno (la cantidad reemplaza a la actual y 0 elimina el item).
+     * Valida el acceso y bloquea la venta una vez, toma los productos de la caché de snapshots,
+     * trae los items actuales con una sola consulta, escribe los cambios en lotes JDBC y ajusta el total con un único UPDATE.
+     * Devuelve los ids de los items en el orden de la solicitud.
+     */
+    @Transactional
+    public List<UUID> addItemsToSale(String userEmail, UUID businessId, UUID saleId, List<CreateSaleItemRequest> requests) {
+        validateUserBusinessAccess(userEmail, businessId);
+        Sale sale = lockSaleOfBusiness(saleId, businessId);
+        
+        Set<UUID> productIds = new HashSet<>();
+        for (CreateSaleItemRequest request : requests) {
+            if (!productIds.add(request.productId())) {
+                throw new IllegalArgumentException("El producto " + request.productId() + " está repetido en la solicitud");
             }
         }
         
-        SaleItem saleItem;
-        BigDecimal oldLineTotal = BigDecimal.ZERO;
+        Map<UUID, ProductSnapshot> products = productSnapshotCacheService.findAll(businessId, productIds);
+        if (products.size() != productIds.size()) {
+            throw new IllegalArgumentException("Producto no encontrado en este negocio");
+        }
+        
+        Map<UUID, SaleItem> existingByProduct = saleItemRepository.findBySaleId(saleId).stream()
+                .collect(Collectors.toMap(item -> item.getProduct().getId(), Function.identity()));
         
-        if (existingItem.isPresent()) {
-            // Actualizar item existente
-            saleItem = existingItem.get();
-            oldLineTotal = saleItem.getLineTotal();
+        List<SaleItem> resultItems = new ArrayList<>(requests.size());
+        List<SaleItem> toInsert = new ArrayList<>();
+        List<SaleItem> toDelete = new ArrayList<>();
+        BigDecimal delta = BigDecimal.ZERO;
+        
+        for (CreateSaleItemRequest request : requests) {
+            ProductSnapshot product = products.get(request.productId());
+            SaleItem existing = existingByProduct.get(request.productId());
             
-            // Actualizar los valores
-            saleItem.setQuantity(request.quantity());
-            saleItem.setUnitPrice(product.getPrice());
-            saleItem.setUnitCost(product.getCost());
-            saleItem.setLineTotal(product.getPrice().multiply(BigDecimal.valueOf(request.quantity())));
-        } else {
-            // Crear nuevo item
-            BigDecimal lineTotal = product.getPrice().multiply(BigDecimal.valueOf(request.quantity()));
+            if (request.quantity() == 0) {
+                if (existing == null) {
+                    throw new IllegalArgumentException("No se puede establecer cantidad 0 para un producto que no está en la venta");
+                }
+                toDelete.add(existing);
+                resultItems.add(existing);
+                delta = delta.subtract(existing.getLineTotal());
+                continue;
+            }
             
-            saleItem = SaleItem.builder()
-                    .sale(sale)
-                    .product(product)
-                    .productNameAtSale(product.getName())
-                    .categoryName(product.getCategory().getName())
-                    .unitPrice(product.getPrice())
-                    .unitCost(product.getCost())
-                    .quantity(request.quantity())
-                    .lineTotal(lineTotal)
-                    .build();
+            BigDecimal lineTotal = product.lineTotal(request.quantity());
+            if (existing != null) {
+                // Se actualiza por dirty checking al hacer flush
+                delta = delta.add(lineTotal.subtract(existing.getLineTotal()));
+                existing.setQuantity(request.quantity());
+                existing.setUnitPrice(product.price());
+                existing.setUnitCost(product.cost());
+                existing.setLineTotal(lineTotal);
+                resultItems.add(existing);
+            } else {
+                SaleItem item = SaleItem.builder()
+                        .sale(sale)
+                        .product(productRepository.getReferenceById(product.id()))
+                        .productNameAtSale(product.name())
+                        .categoryName(product.categoryName())
+                        .unitPrice(product.price())
+                        .unitCost(product.cost())
+                        .quantity(request.quantity())
+                        .lineTotal(lineTotal)
+                        .build();
+                toInsert.add(item);
+                resultItems.add(item);
+                delta = delta.add(lineTotal);
+            }
         }
         
-        saleItem = saleItemRepository.save(saleItem);
+        saleItemRepository.deleteAll(toDelete);
+        saleItemRepository.saveAll(toInsert);
+        if (delta.signum() != 0) {
+            saleRepository.incrementTotalAmount(saleId, delta);
+        }
         
-        return saleItem.getId();
+        return resultItems.stream().map(SaleItem::getId).toList();
     }
 
     @Transactional(readOnly = true)
@@ -114,6 +171,21 @@ public class SaleItemService {
                 .toList();
     }
 
+    private Sale lockSaleOfBusiness(UUID saleId, UUID businessId) {
+        Sale sale = saleRepository.findByIdForUpdate(saleId)
+                .orElseThrow(() -> new IllegalArgumentException("Venta no encontrada"));
+        
+        if (!sale.getBusiness().getId().equals(businessId)) {
+            throw new IllegalArgumentException("La venta no pertenece a este negocio");
+        }
+        
+        // Los agregados (rollups, cubo, rankings, progreso de metas) suman cada venta una sola vez al cerrarla
+        if (sale.getOccurredAt() != null) {
+            throw new IllegalArgumentException("La venta ya está cerrada");
+        }
+        return sale;
+    }
+
     private void validateUserBusinessAccess(String userEmail, UUID businessId) {
         User user = userRepository.findByEmailIgnoreCase(userEmail)
                 .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado"));
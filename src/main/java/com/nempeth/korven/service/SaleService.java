@@ -2,30 +2,43 @@ package com.nempeth.korven.service;
 
 import com.nempeth.korven.constants.MembershipRole;
 import com.nempeth.korven.constants.MembershipStatus;
+import com.nempeth.korven.event.SaleClosedEvent;
 import com.nempeth.korven.persistence.entity.*;
 import com.nempeth.korven.persistence.repository.*;
 import com.nempeth.korven.rest.dto.*;
+import com.nempeth.korven.utils.SaleCursor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.time.LocalDate;
 import java.time.OffsetDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 public class SaleService {
 
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+    // Ids por consulta de items: un rango de fechas grande no debe pasar el límite de parámetros del driver
+    static final int ITEM_LOOKUP_BATCH_SIZE = 1000;
+
     private final SaleRepository saleRepository;
     private final SaleItemRepository saleItemRepository;
     private final BusinessRepository businessRepository;
     private final BusinessMembershipRepository membershipRepository;
     private final UserRepository userRepository;
     private final TableRepository tableRepository;
+    private final SaleCodeAllocator saleCodeAllocator;
+    private final BusinessDataVersionService dataVersionService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public UUID createSale(String userEmail, UUID businessId) {
@@ -41,7 +54,7 @@ public class SaleService {
         }
 
         // Generar código único
-        String code = generateSaleCode();
+        String code = saleCodeAllocator.nextCode();
 
         // Crear la venta vacía
         Sale sale = Sale.builder()
@@ -67,50 +80,28 @@ public class SaleService {
             throw new IllegalArgumentException("La mesa no pertenece a este negocio");
         }
 
-        // Verificar si ya existe una orden abierta para esta mesa
-        List<Sale> existingOpenSales = saleRepository.findByBusinessIdAndTableIdAndOccurredAtIsNull(businessId, tableId);
-        if (!existingOpenSales.isEmpty()) {
-            // Ya existe una orden abierta, retornar su ID
-            return existingOpenSales.get(0).getId();
-        }
-
-        Business business = table.getBusiness();
         User createdByUser = userRepository.findById(createdByUserId)
                 .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado"));
 
-        // Generar código único
-        String code = generateSaleCode();
-
-        // Crear la venta asociada a la mesa con el usuario que la creó
-        Sale sale = Sale.builder()
-                .business(business)
-                .table(table)
-                .createdByUser(createdByUser)
-                .createdByUserName(createdByUserName)
-                .occurredAt(null)
-                .totalAmount(BigDecimal.ZERO)
-                .code(code)
-                .build();
-
-        sale = saleRepository.save(sale);
-
-        return sale.getId();
+        // Crea la orden o devuelve la abierta que ya tenga la mesa; la base garantiza que haya una sola
+        return saleRepository.insertOpenSaleForTableOrGetExisting(
+                UUID.randomUUID(),
+                businessId,
+                tableId,
+                createdByUser.getId(),
+                createdByUserName,
+                saleCodeAllocator.nextCode()
+        );
     }
 
     @Transactional
-    public void closeSalesByTable(UUID tableId) {
-        List<Sale> openSales = saleRepository.findByTableIdAndOccurredAtIsNull(tableId);
-        
-        for (Sale sale : openSales) {
-            // Recalcular el total desde los items
-            List<SaleItem> items = saleItemRepository.findBySaleId(sale.getId());
-            BigDecimal totalAmount = items.stream()
-                    .map(SaleItem::getLineTotal)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-            
-            sale.setOccurredAt(OffsetDateTime.now());
-            sale.setTotalAmount(totalAmount);
-            saleRepository.save(sale);
+    public void closeSalesByTable(UUID businessId, UUID tableId) {
+        // El total ya está al día (SaleItemService lo actualiza con cada item), solo se marca el cierre
+        OffsetDateTime closedAt = OffsetDateTime.now();
+        List<UUID> closedSaleIds = saleRepository.closeOpenSalesByTable(businessId, tableId, closedAt);
+        if (!closedSaleIds.isEmpty()) {
+            long dataVersion = dataVersionService.increment(businessId);
+            eventPublisher.publishEvent(new SaleClosedEvent(businessId, closedSaleIds, closedAt, dataVersion));
         }
     }
 
@@ -137,9 +128,7 @@ public class SaleService {
             }
         }
         
-        return sales.stream()
-                .map(this::mapToResponse)
-                .toList();
+        return mapToResponses(sales);
     }
 
     @Transactional(readOnly = true)
@@ -148,16 +137,63 @@ public class SaleService {
         BusinessMembership membership = validateUserBusinessAccessAndGetMembership(userEmail, businessId);
         
         if (membership.getRole() == MembershipRole.OWNER) {
-            return saleRepository.findByBusinessIdAndOccurredAtBetweenOrderByOccurredAtDesc(businessId, startDate, endDate).stream()
-                    .map(this::mapToResponse)
-                    .toList();
+            return mapToResponses(saleRepository.findByBusinessIdAndOccurredAtBetweenOrderByOccurredAtDesc(businessId, startDate, endDate));
         } else {
-            return saleRepository.findByBusinessIdAndCreatedByUserIdAndOccurredAtBetweenOrderByOccurredAtDesc(businessId, membership.getUser().getId(), startDate, endDate).stream()
-                    .map(this::mapToResponse)
-                    .toList();
+            return mapToResponses(saleRepository.findByBusinessIdAndCreatedByUserIdAndOccurredAtBetweenOrderByOccurredAtDesc(businessId, membership.getUser().getId(), startDate, endDate));
         }
     }
 
+    /**
+     * Devuelve una página del historial de ventas usando paginación por keyset sobre (occurred_at, id).
+     * Con open == null se recorren primero las órdenes abiertas y luego las cerradas, igual que el listado completo.
+     * Cada página cuesta lo mismo sin importar su profundidad.
+     */
+    @Transactional(readOnly = true)
+    public SalePageResponse getSalesPage(String userEmail, UUID businessId, Boolean open,
+                                         Integer limit, String cursor) {
+        BusinessMembership membership = validateUserBusinessAccessAndGetMembership(userEmail, businessId);
+
+        int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y " + MAX_PAGE_SIZE);
+        }
+
+        SaleCursor after = cursor != null ? SaleCursor.decode(cursor) : null;
+        if (after != null && open != null && open != after.isOpen()) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+
+        // Los empleados solo ven sus propias ventas
+        UUID userId = membership.getRole() == MembershipRole.OWNER ? null : membership.getUser().getId();
+
+        // Se pide un elemento extra para saber si hay una página siguiente
+        List<Sale> sales = new ArrayList<>();
+        boolean includeOpen = open == null || open;
+        boolean includeClosed = open == null || !open;
+
+        if (includeOpen && (after == null || after.isOpen())) {
+            sales.addAll(findOpenPage(businessId, userId, after, pageSize + 1));
+        }
+        if (includeClosed && sales.size() <= pageSize) {
+            SaleCursor closedAfter = after != null && !after.isOpen() ? after : null;
+            sales.addAll(findClosedPage(businessId, userId, closedAfter, pageSize + 1 - sales.size()));
+        }
+
+        boolean hasMore = sales.size() > pageSize;
+        List<Sale> page = hasMore ? sales.subList(0, pageSize) : sales;
+
+        String nextCursor = null;
+        if (hasMore) {
+            Sale last = page.get(page.size() - 1);
+            nextCursor = new SaleCursor(last.getOccurredAt(), last.getId()).encode();
+        }
+
+        return SalePageResponse.builder()
+                .items(mapToResponses(page))
+                .nextCursor(nextCursor)
+                .build();
+    }
+
     @Transactional(readOnly = true)
     public SaleResponse getSaleById(String userEmail, UUID businessId, UUID saleId) {
         BusinessMembership membership = validateUserBusinessAccessAndGetMembership(userEmail, businessId);
@@ -201,15 +237,14 @@ public class SaleService {
             );
         }
         
-        // Recalcular el total desde los items
-        List<SaleItem> items = saleItemRepository.findBySaleId(saleId);
-        BigDecimal totalAmount = items.stream()
-                .map(SaleItem::getLineTotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        sale.setOccurredAt(OffsetDateTime.now());
-        sale.setTotalAmount(totalAmount);
-        saleRepository.save(sale);
+        // El total ya está al día (SaleItemService lo actualiza con cada item), solo se marca el cierre.
+        // El UPDATE condicional evita cerrar dos veces si otra petición la cerró en paralelo.
+        OffsetDateTime closedAt = OffsetDateTime.now();
+        if (saleRepository.closeOpenSale(saleId, closedAt) == 0) {
+            throw new IllegalArgumentException("La venta ya está cerrada");
+        }
+        long dataVersion = dataVersionService.increment(businessId);
+        eventPublisher.publishEvent(new SaleClosedEvent(businessId, List.of(saleId), closedAt, dataVersion));
     }
 
     @Transactional
@@ -237,6 +272,32 @@ public class SaleService {
         saleRepository.delete(sale);
     }
 
+    private List<Sale> findOpenPage(UUID businessId, UUID userId, SaleCursor after, int size) {
+        Limit limit = Limit.of(size);
+        if (userId == null) {
+            return after == null
+                    ? saleRepository.findByBusinessIdAndOccurredAtIsNullOrderByIdDesc(businessId, limit)
+                    : saleRepository.findByBusinessIdAndOccurredAtIsNullAndIdLessThanOrderByIdDesc(businessId, after.id(), limit);
+        }
+        return after == null
+                ? saleRepository.findByBusinessIdAndCreatedByUserIdAndOccurredAtIsNullOrderByIdDesc(businessId, userId, limit)
+                : saleRepository.findByBusinessIdAndCreatedByUserIdAndOccurredAtIsNullAndIdLessThanOrderByIdDesc(
+                        businessId, userId, after.id(), limit);
+    }
+
+    private List<Sale> findClosedPage(UUID businessId, UUID userId, SaleCursor after, int size) {
+        Limit limit = Limit.of(size);
+        if (userId == null) {
+            return after == null
+                    ? saleRepository.findByBusinessIdAndOccurredAtIsNotNullOrderByOccurredAtDescIdDesc(businessId, limit)
+                    : saleRepository.findClosedPageAfter(businessId, after.occurredAt(), after.id(), limit);
+        }
+        return after == null
+                ? saleRepository.findByBusinessIdAndCreatedByUserIdAndOccurredAtIsNotNullOrderByOccurredAtDescIdDesc(
+                        businessId, userId, limit)
+                : saleRepository.findClosedPageAfterByCreatedByUser(businessId, userId, after.occurredAt(), after.id(), limit);
+    }
+
     private User validateUserBusinessAccess(String userEmail, UUID businessId) {
         User user = userRepository.findByEmailIgnoreCase(userEmail)
                 .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado"));
@@ -265,8 +326,38 @@ public class SaleService {
         return membership;
     }
 
+    /**
+     * Mapea un listado de ventas cargando los items de todas ellas en una sola consulta,
+     * en lugar de una consulta por venta.
+     */
+    private List<SaleResponse> mapToResponses(List<Sale> sales) {
+        if (sales.isEmpty()) {
+            return List.of();
+        }
+
+        List<UUID> saleIds = sales.stream()
+                .map(Sale::getId)
+                .toList();
+
+        Map<UUID, List<SaleItem>> itemsBySale = new HashMap<>();
+        for (int from = 0; from < saleIds.size(); from += ITEM_LOOKUP_BATCH_SIZE) {
+            List<UUID> batch = saleIds.subList(from, Math.min(from + ITEM_LOOKUP_BATCH_SIZE, saleIds.size()));
+            for (SaleItem item : saleItemRepository.findBySaleIdIn(batch)) {
+                itemsBySale.computeIfAbsent(item.getSale().getId(), id -> new ArrayList<>()).add(item);
+            }
+        }
+
+        return sales.stream()
+                .map(sale -> mapToResponse(sale, itemsBySale.getOrDefault(sale.getId(), List.of())))
+                .toList();
+    }
+
     private SaleResponse mapToResponse(Sale sale) {
-        List<SaleItemResponse> items = saleItemRepository.findBySaleId(sale.getId()).stream()
+        return mapToResponse(sale, saleItemRepository.findBySaleId(sale.getId()));
+    }
+
+    private SaleResponse mapToResponse(Sale sale, List<SaleItem> saleItems) {
+        List<SaleItemResponse> items = saleItems.stream()
                 .map(item -> SaleItemResponse.builder()
                         .id(item.getId())
                         .categoryName(item.getCategoryName())
@@ -302,10 +393,4 @@ public class SaleService {
                 .items(items)
                 .build();
     }
-
-    private String generateSaleCode() {
-        String datePrefix = LocalDate.now().format(DateTimeFormatter.ofPattern("yyMMdd"));
-        Long nextSeq = saleRepository.findNextSequenceForDate(datePrefix);
-        return datePrefix + "-" + nextSeq;
-    }
 }
\ No newline at end of file
@@ -0,0 +1,158 @@
+package com.nempeth.korven.service;
+
+import com.nempeth.korven.constants.CubeDimension;
+import com.nempeth.korven.constants.MembershipStatus;
+import com.nempeth.korven.event.SaleClosedEvent;
+import com.nempeth.korven.persistence.entity.BusinessMembership;
+import com.nempeth.korven.persistence.entity.User;
+import com.nempeth.korven.persistence.projection.SaleCubeFact;
+import com.nempeth.korven.persistence.repository.BusinessMembershipRepository;
+import com.nempeth.korven.persistence.repository.SaleItemRepository;
+import com.nempeth.korven.persistence.repository.UserRepository;
+import com.nempeth.korven.rest.dto.CubeQueryRequest;
+import com.nempeth.korven.rest.dto.CubeQueryResponse;
+import com.nempeth.korven.rest.dto.CubeRowResponse;
+import com.nempeth.korven.utils.BusinessTime;
+import com.nempeth.korven.utils.SalesCube;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Un SalesCube por negocio para consultas ad hoc sin ir a la base.
+ * Se carga en la primera consulta y se le agregan los items de cada cierre de ventas; la caché
+ * lo desaloja por presupuesto de memoria (app.analytics.cube.max-memory-mb).
+ * El cubo recuerda la versión de datos del negocio que refleja: si un cierre llega salteando
+ * una versión (cierres confirmados fuera de orden, cambios de metas) se descarta y se recarga.
+ * Cada consulta compara además esa versión con la de la base, así los cierres hechos en otra
+ * instancia (que no llegan a este listener) también se ven.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SalesCubeService {
+
+    public static final String CACHE_NAME = "salesCube";
+
+    private final CacheManager cacheManager;
+    private final SaleItemRepository saleItemRepository;
+    private final BusinessDataVersionService dataVersionService;
+    private final UserRepository userRepository;
+    private final BusinessMembershipRepository membershipRepository;
+    private final BusinessTime businessTime;
+    private final PlatformTransactionManager transactionManager;
+
+    public CubeQueryResponse query(String userEmail, UUID businessId, CubeQueryRequest request) {
+        validateUserBusinessAccess(userEmail, businessId);
+        if (request.from() != null && request.to() != null && request.from().isAfter(request.to())) {
+            throw new IllegalArgumentException("La fecha de inicio debe ser anterior a la fecha de fin");
+        }
+
+        SalesCube cube = getCube(businessId);
+        List<SalesCube.Row> rows = cube.query(new SalesCube.Query(
+                request.groupBy(), request.filters(), request.from(), request.to()));
+
+        return CubeQueryResponse.builder()
+                .rows(rows.stream()
+                        .map(row -> toResponse(request, row))
+                        .toList())
+                .build();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onSaleClosed(SaleClosedEvent event) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null) {
+            return;
+        }
+        SalesCube cube = cache.get(event.businessId(), SalesCube.class);
+        if (cube == null || event.dataVersion() <= cube.dataVersion()) {
+            return;
+        }
+        if (event.dataVersion() == cube.dataVersion() + 1) {
+            List<SaleCubeFact> facts = saleItemRepository.findCubeFactsBySaleIds(event.saleIds());
+            if (cube.append(event.dataVersion(), facts)) {
+                // Volver a guardarlo recalcula su peso para el presupuesto de memoria
+                cache.put(event.businessId(), cube);
+                return;
+            }
+        }
+        cache.evict(event.businessId());
+        log.debug("Cubo de ventas del negocio {} descartado: se salteó la versión {}", event.businessId(), event.dataVersion());
+    }
+
+    SalesCube getCube(UUID businessId) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null) {
+            return load(businessId);
+        }
+        // Se lee antes de tomar el cubo: uno recién cargado nunca queda detrás de esta versión
+        long currentVersion = dataVersionService.current(businessId);
+        SalesCube cube = cache.get(businessId, () -> load(businessId));
+        if (cube.dataVersion() < currentVersion) {
+            cache.evict(businessId);
+            cube = cache.get(businessId, () -> load(businessId));
+            log.debug("Cubo de ventas del negocio {} recargado: estaba en la versión anterior a {}", businessId, currentVersion);
+        }
+        return cube;
+    }
+
+    /**
+     * Lee la versión y los items en la misma foto de la base (REPEATABLE READ), así el cubo
+     * contiene exactamente los cierres hasta esa versión.
+     */
+    private SalesCube load(UUID businessId) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+
+        SalesCube cube = transactionTemplate.execute(status -> {
+            SalesCube loaded = new SalesCube(businessTime.zone(), dataVersionService.current(businessId));
+            try (Stream<SaleCubeFact> facts = saleItemRepository.streamCubeFactsByBusinessId(businessId)) {
+                facts.forEach(loaded::add);
+            }
+            return loaded;
+        });
+        log.debug("Cubo de ventas del negocio {} cargado: {} items", businessId, cube.size());
+        return cube;
+    }
+
+    private CubeRowResponse toResponse(CubeQueryRequest request, SalesCube.Row row) {
+        Map<CubeDimension, String> key = new EnumMap<>(CubeDimension.class);
+        for (int i = 0; i < row.key().size(); i++) {
+            key.put(request.groupBy().get(i), row.key().get(i));
+        }
+        return CubeRowResponse.builder()
+                .key(key)
+                .revenue(BigDecimal.valueOf(row.revenueCents(), 2))
+                .profit(BigDecimal.valueOf(row.revenueCents() - row.costCents(), 2))
+                .units(row.units())
+                .build();
+    }
+
+    private void validateUserBusinessAccess(String userEmail, UUID businessId) {
+        User user = userRepository.findByEmailIgnoreCase(userEmail)
+                .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado"));
+        
+        BusinessMembership membership = membershipRepository.findByBusinessIdAndUserId(businessId, user.getId())
+                .orElseThrow(() -> new IllegalArgumentException("No tienes acceso a este negocio"));
+        
+        if (membership.getStatus() != MembershipStatus.ACTIVE) {
+            throw new IllegalArgumentException("Tu membresía en este negocio no está activa");
+        }
+    }
+}
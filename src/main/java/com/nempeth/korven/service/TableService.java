@@ -175,7 +175,7 @@ public class TableService {
             saleService.createSaleForTable(tableId, businessId, user.getId(), userName);
         } else if (previousStatus == TableStatus.OCCUPIED && newStatus != TableStatus.OCCUPIED) {
             // La mesa salió de OCCUPIED, cerrar orden asociada
-            saleService.closeSalesByTable(tableId);
+            saleService.closeSalesByTable(businessId, tableId);
         }
 
         // Procesar reservas de esta mesa si hay alguna próxima
@@ -0,0 +1,95 @@
+package com.nempeth.korven.service;
+
+import com.nempeth.korven.event.SaleClosedEvent;
+import com.nempeth.korven.persistence.entity.TicketSizeHistogram;
+import com.nempeth.korven.persistence.repository.TicketSizeHistogramRepository;
+import com.nempeth.korven.utils.BusinessTime;
+import com.nempeth.korven.utils.LogLinearHistogram;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.util.*;
+
+/**
+ * Mantiene ticket_size_histogram: suma cada venta al histograma de su mes al cerrarse, y el historial
+ * anterior a la tabla lo carga RollupBackfillService. Los percentiles de un rango de meses salen de
+ * sumar sus histogramas.
+ */
+@Service
+@RequiredArgsConstructor
+public class TicketSizeHistogramService implements RollupBackfillJob {
+
+    public static final String BACKFILL_JOB = "ticket_size_histogram";
+
+    private static final byte[] EMPTY_HISTOGRAM = new LogLinearHistogram().toBytes();
+
+    private final TicketSizeHistogramRepository histogramRepository;
+    private final RollupBackfillService backfillService;
+    private final BusinessTime businessTime;
+
+    private record MonthKey(UUID businessId, YearMonth month) {
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onSaleClosed(SaleClosedEvent event) {
+        if (event.saleIds().isEmpty()) {
+            return;
+        }
+        addToStored(histogramRepository.findTicketAmounts(event.saleIds(), businessTime.zone().getId()));
+    }
+
+    /** Histograma de los tickets de los meses [from, to], sumando los guardados */
+    @Transactional(readOnly = true)
+    public LogLinearHistogram getHistogram(UUID businessId, YearMonth from, YearMonth to) {
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        for (TicketSizeHistogram stored : histogramRepository.findByBusinessAndMonths(
+                businessId, from.atDay(1), to.atDay(1))) {
+            histogram.add(LogLinearHistogram.fromBytes(stored.getHistogram()));
+        }
+        return histogram;
+    }
+
+    public boolean isBackfillComplete() {
+        return backfillService.isComplete(BACKFILL_JOB);
+    }
+
+    @Override
+    public String backfillJobName() {
+        return BACKFILL_JOB;
+    }
+
+    @Override
+    public void backfillChunk(OffsetDateTime from, OffsetDateTime to) {
+        addToStored(histogramRepository.findTicketAmountsClosedBetween(from, to, businessTime.zone().getId()));
+    }
+
+    /**
+     * Suma las filas (negocio, año, mes, centavos, cantidad) al histograma guardado de cada mes.
+     * Las filas se bloquean en orden de negocio y mes para no cruzarse con otro cierre.
+     */
+    private void addToStored(List<Object[]> amounts) {
+        Map<MonthKey, LogLinearHistogram> byMonth = new TreeMap<>(Comparator
+                .comparing(MonthKey::businessId)
+                .thenComparing(MonthKey::month));
+        for (Object[] row : amounts) {
+            MonthKey key = new MonthKey((UUID) row[0],
+                    YearMonth.of(((Number) row[1]).intValue(), ((Number) row[2]).intValue()));
+            byMonth.computeIfAbsent(key, k -> new LogLinearHistogram())
+                    .record(((Number) row[3]).longValue(), ((Number) row[4]).longValue());
+        }
+
+        byMonth.forEach((key, delta) -> {
+            histogramRepository.insertIfMissing(key.businessId(), key.month().atDay(1), EMPTY_HISTOGRAM);
+            TicketSizeHistogram stored = histogramRepository.findForUpdate(key.businessId(), key.month().atDay(1))
+                    .orElseThrow(() -> new IllegalStateException("Histograma de tickets no encontrado"));
+            LogLinearHistogram histogram = LogLinearHistogram.fromBytes(stored.getHistogram());
+            histogram.add(delta);
+            stored.setHistogram(histogram.toBytes());
+        });
+    }
+}
@@ -0,0 +1,62 @@
+package com.nempeth.korven.utils;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+
+/**
+ * Zona horaria en la que se cuentan los días, meses y años de las ventas.
+ * Los períodos se traducen a rangos semiabiertos [desde, hasta) de timestamptz para que
+ * las consultas filtren occurred_at directamente por índice, sin convertirlo a fecha.
+ */
+@Component
+public class BusinessTime {
+
+    private final ZoneId zone;
+
+    public BusinessTime(@Value("${app.business.zone:America/Argentina/Buenos_Aires}") String zone) {
+        this.zone = ZoneId.of(zone);
+    }
+
+    public ZoneId zone() {
+        return zone;
+    }
+
+    public LocalDate today() {
+        return LocalDate.now(zone);
+    }
+
+    public YearMonth currentMonth() {
+        return YearMonth.now(zone);
+    }
+
+    /** Primer instante del día; con cambios de horario puede no ser las 00:00 */
+    public OffsetDateTime startOf(LocalDate date) {
+        return date.atStartOfDay(zone).toOffsetDateTime();
+    }
+
+    /** Fin exclusivo del día: el comienzo del siguiente */
+    public OffsetDateTime endOf(LocalDate date) {
+        return startOf(date.plusDays(1));
+    }
+
+    public OffsetDateTime startOf(YearMonth month) {
+        return startOf(month.atDay(1));
+    }
+
+    public OffsetDateTime endOf(YearMonth month) {
+        return startOf(month.plusMonths(1));
+    }
+
+    public OffsetDateTime startOfYear(int year) {
+        return startOf(LocalDate.of(year, 1, 1));
+    }
+
+    public OffsetDateTime endOfYear(int year) {
+        return startOf(LocalDate.of(year + 1, 1, 1));
+    }
+}
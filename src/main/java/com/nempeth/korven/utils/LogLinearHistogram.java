@@ -0,0 +1,237 @@
+package com.nempeth.korven.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Histograma de montos en centavos (tickets de venta) con cubetas log-lineales (al estilo HdrHistogram):
+ * hasta 127 centavos cada cubeta es un valor exacto y desde ahí cada potencia de 2 se divide
+ * en SUB_BUCKETS cubetas, así que un percentil se ubica con error relativo menor al 1%.
+ * Dos histogramas se combinan sumando cubetas, sin perder precisión, y se serializan solo
+ * las cubetas con tickets. No es thread-safe.
+ */
+public final class LogLinearHistogram {
+
+    private static final int FORMAT_VERSION = 1;
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int EXACT_LIMIT = 2 * SUB_BUCKETS;
+
+    private long[] counts = new long[EXACT_LIMIT];
+    private long totalCount;
+    private long sumCents;
+    private long minCents = Long.MAX_VALUE;
+    private long maxCents;
+
+    public record Bin(long fromCents, long toCents, long count) {
+    }
+
+    public void record(long cents) {
+        record(cents, 1);
+    }
+
+    public void record(long cents, long count) {
+        if (cents < 0) {
+            throw new IllegalArgumentException("El monto de un ticket no puede ser negativo");
+        }
+        if (count <= 0) {
+            return;
+        }
+        int index = bucketIndex(cents);
+        ensureCapacity(index + 1);
+        counts[index] += count;
+        totalCount += count;
+        sumCents += cents * count;
+        minCents = Math.min(minCents, cents);
+        maxCents = Math.max(maxCents, cents);
+    }
+
+    public void add(LogLinearHistogram other) {
+        if (other.totalCount == 0) {
+            return;
+        }
+        ensureCapacity(other.counts.length);
+        for (int i = 0; i < other.counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        sumCents += other.sumCents;
+        minCents = Math.min(minCents, other.minCents);
+        maxCents = Math.max(maxCents, other.maxCents);
+    }
+
+    public long totalCount() {
+        return totalCount;
+    }
+
+    public long sumCents() {
+        return sumCents;
+    }
+
+    public long minCents() {
+        return totalCount == 0 ? 0 : minCents;
+    }
+
+    public long maxCents() {
+        return maxCents;
+    }
+
+    /**
+     * Monto en centavos que deja al menos la fracción quantile de los tickets por debajo o igual.
+     * Devuelve el punto medio de la cubeta, acotado al mínimo y al máximo registrados.
+     */
+    public long valueAtQuantile(double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("El percentil debe estar entre 0 y 1");
+        }
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * totalCount));
+        if (rank == totalCount) {
+            return maxCents;
+        }
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                long lower = lowerBound(i);
+                long middle = lower + (upperBound(i) - lower) / 2;
+                return Math.min(Math.max(middle, minCents), maxCents);
+            }
+        }
+        return maxCents;
+    }
+
+    /**
+     * Reparte los tickets en binCount intervalos de igual ancho entre el mínimo y el máximo.
+     * Cada cubeta cuenta en el intervalo de su punto medio.
+     */
+    public Bin[] bins(int binCount) {
+        if (binCount < 1) {
+            throw new IllegalArgumentException("La cantidad de intervalos debe ser al menos 1");
+        }
+        if (totalCount == 0) {
+            return new Bin[0];
+        }
+        long min = minCents();
+        long width = Math.max(1, (maxCents - min + binCount) / binCount);
+        long[] binCounts = new long[binCount];
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                continue;
+            }
+            long lower = lowerBound(i);
+            long middle = Math.min(Math.max(lower + (upperBound(i) - lower) / 2, min), maxCents);
+            int bin = (int) Math.min(binCount - 1, (middle - min) / width);
+            binCounts[bin] += counts[i];
+        }
+        Bin[] bins = new Bin[binCount];
+        for (int bin = 0; bin < binCount; bin++) {
+            long from = min + bin * width;
+            bins[bin] = new Bin(from, from + width - 1, binCounts[bin]);
+        }
+        return bins;
+    }
+
+    // ==================== Serialización ====================
+
+    /**
+     * Versión, totales y las cubetas con tickets como pares (distancia a la anterior, cantidad) en varint
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        writeVarLong(out, FORMAT_VERSION);
+        writeVarLong(out, totalCount);
+        writeVarLong(out, sumCents);
+        writeVarLong(out, minCents());
+        writeVarLong(out, maxCents);
+        int previous = -1;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                writeVarLong(out, i - previous);
+                writeVarLong(out, counts[i]);
+                previous = i;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    public static LogLinearHistogram fromBytes(byte[] bytes) {
+        int[] position = {0};
+        long formatVersion = readVarLong(bytes, position);
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IllegalStateException("Formato de histograma desconocido: " + formatVersion);
+        }
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        histogram.totalCount = readVarLong(bytes, position);
+        histogram.sumCents = readVarLong(bytes, position);
+        long minCents = readVarLong(bytes, position);
+        histogram.minCents = histogram.totalCount == 0 ? Long.MAX_VALUE : minCents;
+        histogram.maxCents = readVarLong(bytes, position);
+        int index = -1;
+        while (position[0] < bytes.length) {
+            index += (int) readVarLong(bytes, position);
+            histogram.ensureCapacity(index + 1);
+            histogram.counts[index] = readVarLong(bytes, position);
+        }
+        return histogram;
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(byte[] bytes, int[] position) {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            if (position[0] >= bytes.length || shift > 63) {
+                throw new IllegalStateException("Histograma serializado incompleto");
+            }
+            byte b = bytes[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+        }
+    }
+
+    // ==================== Cubetas ====================
+
+    static int bucketIndex(long cents) {
+        if (cents < EXACT_LIMIT) {
+            return (int) cents;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(cents) - SUB_BUCKET_BITS;
+        int subBucket = (int) (cents >>> shift) - SUB_BUCKETS;
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long lowerBound(int index) {
+        if (index < EXACT_LIMIT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        return (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+    }
+
+    static long upperBound(int index) {
+        if (index < EXACT_LIMIT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        return ((long) (SUB_BUCKETS + index % SUB_BUCKETS + 1) << shift) - 1;
+    }
+
+    private void ensureCapacity(int length) {
+        if (counts.length < length) {
+            counts = Arrays.copyOf(counts, Math.max(length, counts.length * 2));
+        }
+    }
+}
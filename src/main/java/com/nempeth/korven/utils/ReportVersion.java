@@ -0,0 +1,28 @@
+package com.nempeth.korven.utils;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Versión de un reporte para responder con ETag / If-None-Match sin recalcularlo.
+ * Un período cerrado ya no recibe ventas, así que su ETag no depende de la versión de datos
+ * del negocio y la respuesta se puede cachear por tiempo; la de un período abierto se revalida siempre.
+ */
+public record ReportVersion(String etag, boolean closed) {
+
+    private static final String SEPARATOR = ":";
+
+    public static ReportVersion closed(Object... parts) {
+        return new ReportVersion(etagOf(parts), true);
+    }
+
+    public static ReportVersion open(long dataVersion, Object... parts) {
+        return new ReportVersion(etagOf(parts) + SEPARATOR + "v" + dataVersion, false);
+    }
+
+    private static String etagOf(Object... parts) {
+        return Arrays.stream(parts)
+                .map(String::valueOf)
+                .collect(Collectors.joining(SEPARATOR));
+    }
+}
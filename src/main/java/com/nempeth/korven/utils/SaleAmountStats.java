@@ -0,0 +1,66 @@
+package com.nempeth.korven.utils;
+
+/**
+ * Cantidad, suma y varianza de montos de venta en centavos, acumuladas en una sola pasada
+ * (algoritmo de Welford) sin BigDecimal ni listas de entidades. La suma es exacta en long;
+ * media y varianza son double, suficientes para los puntajes de ScoreCalculator.
+ * No es thread-safe.
+ */
+public final class SaleAmountStats {
+
+    private long count;
+    private long sumCents;
+    private double meanCents;
+    private double m2;
+
+    public static SaleAmountStats of(long[] cents) {
+        SaleAmountStats stats = new SaleAmountStats();
+        for (long value : cents) {
+            stats.add(value);
+        }
+        return stats;
+    }
+
+    /**
+     * Estadísticas ya resumidas (por ejemplo, calculadas por la base): cantidad, suma y desvío
+     * estándar poblacional en centavos
+     */
+    public static SaleAmountStats ofSummary(long count, long sumCents, double populationStdDevCents) {
+        if (count < 0) {
+            throw new IllegalArgumentException("La cantidad de ventas no puede ser negativa");
+        }
+        SaleAmountStats stats = new SaleAmountStats();
+        if (count > 0) {
+            stats.count = count;
+            stats.sumCents = sumCents;
+            stats.meanCents = (double) sumCents / count;
+            stats.m2 = populationStdDevCents * populationStdDevCents * count;
+        }
+        return stats;
+    }
+
+    public void add(long cents) {
+        count++;
+        sumCents = Math.addExact(sumCents, cents);
+        double delta = cents - meanCents;
+        meanCents += delta / count;
+        m2 += delta * (cents - meanCents);
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long sumCents() {
+        return sumCents;
+    }
+
+    public double meanCents() {
+        return meanCents;
+    }
+
+    /** Varianza poblacional alrededor de la media exacta, en centavos al cuadrado */
+    public double populationVarianceCents() {
+        return count == 0 ? 0.0 : m2 / count;
+    }
+}
@@ -0,0 +1,50 @@
+package com.nempeth.korven.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Posición de keyset para paginar el historial de ventas por (occurred_at, id).
+ * Las órdenes abiertas (occurredAt null) se ordenan solo por id y van antes que las cerradas,
+ * igual que el ORDER BY occurred_at DESC de PostgreSQL.
+ * Se expone al cliente como un token opaco en Base64 URL-safe.
+ */
+public record SaleCursor(OffsetDateTime occurredAt, UUID id) {
+
+    private static final String OPEN_PREFIX = "o";
+    private static final String CLOSED_PREFIX = "c";
+    private static final String SEPARATOR = "|";
+
+    public boolean isOpen() {
+        return occurredAt == null;
+    }
+
+    public String encode() {
+        String raw = isOpen()
+                ? OPEN_PREFIX + SEPARATOR + id
+                : CLOSED_PREFIX + SEPARATOR + occurredAt.toInstant() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SaleCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+
+            if (parts.length == 2 && OPEN_PREFIX.equals(parts[0])) {
+                return new SaleCursor(null, UUID.fromString(parts[1]));
+            }
+            if (parts.length == 3 && CLOSED_PREFIX.equals(parts[0])) {
+                OffsetDateTime occurredAt = Instant.parse(parts[1]).atOffset(ZoneOffset.UTC);
+                return new SaleCursor(occurredAt, UUID.fromString(parts[2]));
+            }
+        } catch (RuntimeException ignored) {
+            // Se informa abajo como cursor inválido
+        }
+        throw new IllegalArgumentException("Cursor inválido");
+    }
+}
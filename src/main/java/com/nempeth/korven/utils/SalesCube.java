@@ -0,0 +1,457 @@
+package com.nempeth.korven.utils;
+
+import com.nempeth.korven.constants.CubeDimension;
+import com.nempeth.korven.persistence.projection.SaleCubeFact;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * Cubo columnar en memoria con los items de las ventas cerradas de un negocio.
+ * Cada item es una fila y cada dimensión una columna int: los textos se guardan como código de
+ * diccionario y los importes como centavos en long. Las consultas recorren las columnas sin ir
+ * a la base; con muchas filas el recorrido se reparte en tramos paralelos.
+ * Las consultas comparten el read lock; los agregados de ventas cerradas toman el write lock.
+ */
+public final class SalesCube {
+
+    private static final int DIMENSIONS = CubeDimension.values().length;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int PARALLEL_THRESHOLD = 1 << 18;
+    // Hasta esta cantidad de grupos posibles se acumula en arrays indexados por clave en vez de un mapa
+    private static final int DENSE_GROUP_LIMIT = 1 << 16;
+    private static final int HOURS_PER_DAY = 24;
+    private static final int DAYS_PER_WEEK = 7;
+    // Una columna int por dimensión, ingresos y costo en long y la cantidad
+    private static final int BYTES_PER_ROW = DIMENSIONS * Integer.BYTES + 2 * Long.BYTES + Integer.BYTES;
+    // Estimación de String + entrada del HashMap por valor de diccionario
+    private static final int BYTES_PER_DICTIONARY_VALUE = 96;
+
+    private static final EnumSet<CubeDimension> TEXT_DIMENSIONS = EnumSet.of(
+            CubeDimension.CATEGORY, CubeDimension.PRODUCT, CubeDimension.EMPLOYEE, CubeDimension.TABLE);
+
+    private final ZoneId zone;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Dictionary[] dictionaries = new Dictionary[DIMENSIONS];
+    private final int[][] columns = new int[DIMENSIONS][];
+    private long[] revenueCents;
+    private long[] costCents;
+    private int[] quantities;
+    private int size;
+    private int minEpochDay = Integer.MAX_VALUE;
+    private int maxEpochDay = Integer.MIN_VALUE;
+    private volatile long dataVersion;
+
+    /**
+     * @param dataVersion versión de datos del negocio (BusinessDataVersionService) que refleja la carga inicial
+     */
+    public SalesCube(ZoneId zone, long dataVersion) {
+        this.zone = zone;
+        this.dataVersion = dataVersion;
+        for (CubeDimension dimension : TEXT_DIMENSIONS) {
+            dictionaries[dimension.ordinal()] = new Dictionary();
+        }
+        for (int i = 0; i < DIMENSIONS; i++) {
+            columns[i] = new int[INITIAL_CAPACITY];
+        }
+        revenueCents = new long[INITIAL_CAPACITY];
+        costCents = new long[INITIAL_CAPACITY];
+        quantities = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Consulta sobre el cubo. from y to (inclusivos, opcionales) acotan por día;
+     * los filtros admiten, por dimensión, cualquiera de los valores indicados.
+     */
+    public record Query(List<CubeDimension> groupBy,
+                        Map<CubeDimension, ? extends Collection<String>> filters,
+                        LocalDate from,
+                        LocalDate to) {
+    }
+
+    /** Un grupo del resultado: key tiene un valor por cada dimensión de groupBy, en el mismo orden */
+    public record Row(List<String> key, long revenueCents, long costCents, long units) {
+    }
+
+    public long dataVersion() {
+        return dataVersion;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int estimatedBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = (long) revenueCents.length * BYTES_PER_ROW;
+            for (CubeDimension dimension : TEXT_DIMENSIONS) {
+                bytes += (long) dictionaries[dimension.ordinal()].size() * BYTES_PER_DICTIONARY_VALUE;
+            }
+            return (int) Math.min(bytes, Integer.MAX_VALUE);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void add(SaleCubeFact fact) {
+        lock.writeLock().lock();
+        try {
+            addRow(fact);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Agrega los items de un cierre de ventas que dejó el negocio en la versión version.
+     * Si el cierre ya estaba incluido no hace nada; si el cubo se salteó una versión
+     * devuelve false y hay que volver a cargarlo.
+     */
+    public boolean append(long version, List<SaleCubeFact> facts) {
+        lock.writeLock().lock();
+        try {
+            if (version <= dataVersion) {
+                return true;
+            }
+            if (version != dataVersion + 1) {
+                return false;
+            }
+            for (SaleCubeFact fact : facts) {
+                addRow(fact);
+            }
+            dataVersion = version;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Grupos que tienen al menos un item, ordenados por ingresos de mayor a menor */
+    public List<Row> query(Query query) {
+        lock.readLock().lock();
+        try {
+            if (size == 0) {
+                return List.of();
+            }
+            Plan plan = plan(query);
+            int rows = size;
+            Accumulator accumulator;
+            if (rows < PARALLEL_THRESHOLD) {
+                accumulator = scan(plan, 0, rows);
+            } else {
+                // Un tramo por hilo del pool: cada uno acumula por su cuenta y al final se combinan
+                int chunks = Math.max(1, ForkJoinPool.getCommonPoolParallelism());
+                int chunkSize = (rows + chunks - 1) / chunks;
+                accumulator = IntStream.range(0, chunks)
+                        .parallel()
+                        .mapToObj(chunk -> scan(plan, chunk * chunkSize, Math.min(rows, (chunk + 1) * chunkSize)))
+                        .reduce(Accumulator::merge)
+                        .orElseThrow();
+            }
+            return toRows(plan, accumulator);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void addRow(SaleCubeFact fact) {
+        ensureCapacity(size + 1);
+        ZonedDateTime local = fact.occurredAt().atZoneSameInstant(zone);
+        int epochDay = Math.toIntExact(local.toLocalDate().toEpochDay());
+
+        columns[CubeDimension.CATEGORY.ordinal()][size] = encode(CubeDimension.CATEGORY, fact.categoryName());
+        columns[CubeDimension.PRODUCT.ordinal()][size] = encode(CubeDimension.PRODUCT, fact.productName());
+        columns[CubeDimension.EMPLOYEE.ordinal()][size] = encode(CubeDimension.EMPLOYEE, fact.createdByUserName());
+        columns[CubeDimension.TABLE.ordinal()][size] = encode(CubeDimension.TABLE, fact.tableCode());
+        columns[CubeDimension.HOUR.ordinal()][size] = local.getHour();
+        columns[CubeDimension.WEEKDAY.ordinal()][size] = local.getDayOfWeek().getValue() - 1;
+        columns[CubeDimension.DATE.ordinal()][size] = epochDay;
+        revenueCents[size] = toCents(fact.lineTotal());
+        costCents[size] = toCents(fact.unitCost()) * fact.quantity();
+        quantities[size] = fact.quantity();
+
+        minEpochDay = Math.min(minEpochDay, epochDay);
+        maxEpochDay = Math.max(maxEpochDay, epochDay);
+        size++;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= revenueCents.length) {
+            return;
+        }
+        int capacity = Math.max(required, revenueCents.length + (revenueCents.length >> 1));
+        for (int i = 0; i < DIMENSIONS; i++) {
+            columns[i] = Arrays.copyOf(columns[i], capacity);
+        }
+        revenueCents = Arrays.copyOf(revenueCents, capacity);
+        costCents = Arrays.copyOf(costCents, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+    }
+
+    private int encode(CubeDimension dimension, String value) {
+        return dictionaries[dimension.ordinal()].encode(value);
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    // ==================== Consulta ====================
+
+    /** Columnas a recorrer y cómo armar la clave de grupo, resuelto una vez por consulta */
+    private record Plan(int fromDay,
+                        int toDay,
+                        int[][] filterColumns,
+                        boolean[][] filterMasks,
+                        List<CubeDimension> groupBy,
+                        int[][] groupColumns,
+                        int[] groupOffsets,
+                        long[] groupRadix,
+                        int[] groupCardinality,
+                        long keySpace) {
+    }
+
+    private Plan plan(Query query) {
+        int fromDay = query.from() == null ? Integer.MIN_VALUE : Math.toIntExact(query.from().toEpochDay());
+        int toDay = query.to() == null ? Integer.MAX_VALUE : Math.toIntExact(query.to().toEpochDay());
+
+        Map<CubeDimension, ? extends Collection<String>> filters = query.filters() == null ? Map.of() : query.filters();
+        int[][] filterColumns = new int[filters.size()][];
+        boolean[][] filterMasks = new boolean[filters.size()][];
+        int f = 0;
+        for (Map.Entry<CubeDimension, ? extends Collection<String>> filter : filters.entrySet()) {
+            filterColumns[f] = columns[filter.getKey().ordinal()];
+            filterMasks[f] = mask(filter.getKey(), filter.getValue());
+            f++;
+        }
+
+        // Clave de grupo en base mixta: la última dimensión de groupBy es la menos significativa
+        List<CubeDimension> groupBy = query.groupBy() == null ? List.of() : List.copyOf(query.groupBy());
+        int groups = groupBy.size();
+        int[][] groupColumns = new int[groups][];
+        int[] groupOffsets = new int[groups];
+        long[] groupRadix = new long[groups];
+        int[] groupCardinality = new int[groups];
+        long keySpace = 1;
+        for (int g = groups - 1; g >= 0; g--) {
+            CubeDimension dimension = groupBy.get(g);
+            groupColumns[g] = columns[dimension.ordinal()];
+            groupOffsets[g] = dimension == CubeDimension.DATE ? minEpochDay : 0;
+            groupCardinality[g] = cardinality(dimension);
+            groupRadix[g] = keySpace;
+            try {
+                keySpace = Math.multiplyExact(keySpace, groupCardinality[g]);
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Demasiadas combinaciones de dimensiones para agrupar");
+            }
+        }
+
+        return new Plan(fromDay, toDay, filterColumns, filterMasks,
+                groupBy, groupColumns, groupOffsets, groupRadix, groupCardinality, keySpace);
+    }
+
+    private Accumulator scan(Plan plan, int start, int end) {
+        Accumulator accumulator = new Accumulator(plan.keySpace());
+        int[] days = columns[CubeDimension.DATE.ordinal()];
+        int[][] filterColumns = plan.filterColumns();
+        boolean[][] filterMasks = plan.filterMasks();
+        int[][] groupColumns = plan.groupColumns();
+        int[] groupOffsets = plan.groupOffsets();
+        long[] groupRadix = plan.groupRadix();
+
+        rows:
+        for (int row = start; row < end; row++) {
+            int day = days[row];
+            if (day < plan.fromDay() || day > plan.toDay()) {
+                continue;
+            }
+            for (int f = 0; f < filterColumns.length; f++) {
+                if (!filterMasks[f][filterColumns[f][row]]) {
+                    continue rows;
+                }
+            }
+            long key = 0;
+            for (int g = 0; g < groupColumns.length; g++) {
+                key += (groupColumns[g][row] - groupOffsets[g]) * groupRadix[g];
+            }
+            accumulator.add(key, revenueCents[row], costCents[row], quantities[row]);
+        }
+        return accumulator;
+    }
+
+    private List<Row> toRows(Plan plan, Accumulator accumulator) {
+        List<Row> rows = new ArrayList<>();
+        accumulator.forEach((key, revenue, cost, units) -> {
+            List<String> values = new ArrayList<>(plan.groupBy().size());
+            for (int g = 0; g < plan.groupBy().size(); g++) {
+                int code = (int) (key / plan.groupRadix()[g] % plan.groupCardinality()[g]) + plan.groupOffsets()[g];
+                values.add(decode(plan.groupBy().get(g), code));
+            }
+            rows.add(new Row(Collections.unmodifiableList(values), revenue, cost, units));
+        });
+        rows.sort(Comparator.comparingLong(Row::revenueCents).reversed());
+        return rows;
+    }
+
+    private boolean[] mask(CubeDimension dimension, Collection<String> values) {
+        boolean[] mask = new boolean[cardinality(dimension)];
+        if (values == null) {
+            return mask;
+        }
+        for (String value : values) {
+            int code = filterCode(dimension, value);
+            if (code >= 0) {
+                mask[code] = true;
+            }
+        }
+        return mask;
+    }
+
+    private int filterCode(CubeDimension dimension, String value) {
+        return switch (dimension) {
+            case CATEGORY, PRODUCT, EMPLOYEE, TABLE -> dictionaries[dimension.ordinal()].find(value);
+            case HOUR -> {
+                try {
+                    int hour = Integer.parseInt(value);
+                    if (hour < 0 || hour >= HOURS_PER_DAY) {
+                        throw new IllegalArgumentException("Hora inválida: " + value);
+                    }
+                    yield hour;
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Hora inválida: " + value);
+                }
+            }
+            case WEEKDAY -> {
+                try {
+                    yield DayOfWeek.valueOf(value.toUpperCase(Locale.ROOT)).getValue() - 1;
+                } catch (IllegalArgumentException | NullPointerException e) {
+                    throw new IllegalArgumentException("Día de la semana inválido: " + value);
+                }
+            }
+            case DATE -> throw new IllegalArgumentException("Para filtrar por fecha use from y to");
+        };
+    }
+
+    private int cardinality(CubeDimension dimension) {
+        return switch (dimension) {
+            case CATEGORY, PRODUCT, EMPLOYEE, TABLE -> dictionaries[dimension.ordinal()].size();
+            case HOUR -> HOURS_PER_DAY;
+            case WEEKDAY -> DAYS_PER_WEEK;
+            case DATE -> maxEpochDay - minEpochDay + 1;
+        };
+    }
+
+    private String decode(CubeDimension dimension, int code) {
+        return switch (dimension) {
+            case CATEGORY, PRODUCT, EMPLOYEE, TABLE -> dictionaries[dimension.ordinal()].value(code);
+            case HOUR -> String.valueOf(code);
+            case WEEKDAY -> DayOfWeek.of(code + 1).name();
+            case DATE -> LocalDate.ofEpochDay(code).toString();
+        };
+    }
+
+    /** Códigos densos para los textos de una dimensión; null es un valor más (venta sin mesa, usuario borrado) */
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int encode(String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        int find(String value) {
+            return codes.getOrDefault(value, -1);
+        }
+
+        String value(int code) {
+            return values.get(code);
+        }
+
+        int size() {
+            return values.size();
+        }
+    }
+
+    @FunctionalInterface
+    private interface GroupConsumer {
+        void accept(long key, long revenueCents, long costCents, long units);
+    }
+
+    /** Totales por clave de grupo: arrays si las claves posibles son pocas, mapa si no */
+    private static final class Accumulator {
+        private final long[] revenue;
+        private final long[] cost;
+        private final long[] units;
+        private final boolean[] present;
+        private final Map<Long, long[]> sparse;
+
+        Accumulator(long keySpace) {
+            if (keySpace <= DENSE_GROUP_LIMIT) {
+                int length = (int) keySpace;
+                revenue = new long[length];
+                cost = new long[length];
+                units = new long[length];
+                present = new boolean[length];
+                sparse = null;
+            } else {
+                revenue = null;
+                cost = null;
+                units = null;
+                present = null;
+                sparse = new HashMap<>();
+            }
+        }
+
+        void add(long key, long revenueCents, long costCents, long quantity) {
+            if (sparse == null) {
+                int index = (int) key;
+                revenue[index] += revenueCents;
+                cost[index] += costCents;
+                units[index] += quantity;
+                present[index] = true;
+            } else {
+                long[] totals = sparse.computeIfAbsent(key, k -> new long[3]);
+                totals[0] += revenueCents;
+                totals[1] += costCents;
+                totals[2] += quantity;
+            }
+        }
+
+        Accumulator merge(Accumulator other) {
+            other.forEach(this::add);
+            return this;
+        }
+
+        void forEach(GroupConsumer consumer) {
+            if (sparse == null) {
+                for (int key = 0; key < present.length; key++) {
+                    if (present[key]) {
+                        consumer.accept(key, revenue[key], cost[key], units[key]);
+                    }
+                }
+            } else {
+                sparse.forEach((key, totals) -> consumer.accept(key, totals[0], totals[1], totals[2]));
+            }
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.nempeth.korven.utils;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Ranking de empleados de un negocio en un mes, ordenado por facturación, cantidad de ventas
+ * y usuario. Es una skip list con el ancho de cada salto (como los sorted sets de Redis):
+ * sumar una venta, el top N y la posición de un empleado cuestan O(log n) sin reordenar nada.
+ * Recuerda la versión de datos del negocio que refleja, como SalesCube. No es thread-safe.
+ */
+public final class SalesLeaderboard {
+
+    private static final int MAX_LEVEL = 16;
+
+    private final YearMonth month;
+    private long dataVersion;
+
+    private final Node head = new Node(null, MAX_LEVEL);
+    private final Map<UUID, Node> byUser = new HashMap<>();
+    private int level = 1;
+
+    public record Standing(UUID userId, String name, String lastName, long salesCount, long revenueCents,
+                           int position) {
+    }
+
+    private static final class Node {
+        final UUID userId;
+        String name;
+        String lastName;
+        long salesCount;
+        long revenueCents;
+        final Node[] next;
+        final int[] span;
+
+        Node(UUID userId, int level) {
+            this.userId = userId;
+            this.next = new Node[level];
+            this.span = new int[level];
+        }
+    }
+
+    public SalesLeaderboard(YearMonth month, long dataVersion) {
+        this.month = month;
+        this.dataVersion = dataVersion;
+    }
+
+    public YearMonth month() {
+        return month;
+    }
+
+    public long dataVersion() {
+        return dataVersion;
+    }
+
+    public int size() {
+        return byUser.size();
+    }
+
+    /**
+     * Suma ventas al empleado (lo agrega si no estaba) y lo mueve a su nueva posición
+     */
+    public void add(UUID userId, String name, String lastName, long salesCount, long revenueCents) {
+        Node node = byUser.get(userId);
+        if (node == null) {
+            node = new Node(userId, randomLevel());
+            byUser.put(userId, node);
+        } else {
+            unlink(node);
+        }
+        node.name = name;
+        node.lastName = lastName;
+        node.salesCount += salesCount;
+        node.revenueCents += revenueCents;
+        link(node);
+    }
+
+    /**
+     * Marca que el ranking ya incluye los cierres hasta la versión indicada
+     */
+    public void advanceTo(long dataVersion) {
+        if (dataVersion < this.dataVersion) {
+            throw new IllegalArgumentException("La versión de datos no puede retroceder");
+        }
+        this.dataVersion = dataVersion;
+    }
+
+    /** Los primeros limit empleados, en orden */
+    public List<Standing> top(int limit) {
+        List<Standing> top = new ArrayList<>(Math.min(limit, size()));
+        Node node = head.next[0];
+        while (node != null && top.size() < limit) {
+            top.add(toStanding(node, top.size() + 1));
+            node = node.next[0];
+        }
+        return top;
+    }
+
+    /** Posición del empleado, o null si no está en el ranking */
+    public Standing standingOf(UUID userId) {
+        Node node = byUser.get(userId);
+        return node != null ? toStanding(node, rankOf(node)) : null;
+    }
+
+    // ==================== Skip list ====================
+
+    /** true si a va antes que b: más facturación, más ventas y, en empate, menor userId */
+    private static boolean precedes(Node a, Node b) {
+        if (a.revenueCents != b.revenueCents) {
+            return a.revenueCents > b.revenueCents;
+        }
+        if (a.salesCount != b.salesCount) {
+            return a.salesCount > b.salesCount;
+        }
+        return a.userId.compareTo(b.userId) < 0;
+    }
+
+    private void link(Node node) {
+        Node[] update = new Node[MAX_LEVEL];
+        int[] rank = new int[MAX_LEVEL];
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            rank[i] = i == level - 1 ? 0 : rank[i + 1];
+            while (x.next[i] != null && precedes(x.next[i], node)) {
+                rank[i] += x.span[i];
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+
+        int nodeLevel = node.next.length;
+        if (nodeLevel > level) {
+            // size() ya cuenta este nodo: los niveles nuevos saltan desde la cabeza hasta el final
+            for (int i = level; i < nodeLevel; i++) {
+                rank[i] = 0;
+                update[i] = head;
+                head.span[i] = size() - 1;
+            }
+            level = nodeLevel;
+        }
+
+        for (int i = 0; i < nodeLevel; i++) {
+            node.next[i] = update[i].next[i];
+            update[i].next[i] = node;
+            node.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+            update[i].span[i] = rank[0] - rank[i] + 1;
+        }
+        for (int i = nodeLevel; i < level; i++) {
+            update[i].span[i]++;
+        }
+    }
+
+    private void unlink(Node node) {
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && x.next[i] != node && precedes(x.next[i], node)) {
+                x = x.next[i];
+            }
+            if (x.next[i] == node) {
+                x.span[i] += node.span[i] - 1;
+                x.next[i] = node.next[i];
+                node.next[i] = null;
+                node.span[i] = 0;
+            } else {
+                x.span[i]--;
+            }
+        }
+        while (level > 1 && head.next[level - 1] == null) {
+            level--;
+        }
+    }
+
+    private int rankOf(Node node) {
+        int rank = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && (x.next[i] == node || precedes(x.next[i], node))) {
+                rank += x.span[i];
+                x = x.next[i];
+            }
+            if (x == node) {
+                return rank;
+            }
+        }
+        throw new IllegalStateException("Empleado fuera del ranking");
+    }
+
+    private static int randomLevel() {
+        int level = 1;
+        while (level < MAX_LEVEL && ThreadLocalRandom.current().nextInt(4) == 0) {
+            level++;
+        }
+        return level;
+    }
+
+    private static Standing toStanding(Node node, int position) {
+        return new Standing(node.userId, node.name, node.lastName, node.salesCount, node.revenueCents, position);
+    }
+}
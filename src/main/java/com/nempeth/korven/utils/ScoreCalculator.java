@@ -1,6 +1,7 @@
 package com.nempeth.korven.utils;
 
 import com.nempeth.korven.persistence.entity.Sale;
+import com.nempeth.korven.persistence.projection.BusinessScoreMetrics;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -46,12 +47,69 @@ public class ScoreCalculator {
             return BigDecimal.ZERO;
         }
 
-        // Calculate all metrics
-        BigDecimal totalRevenue = calculateTotalRevenue(currentMonthSales);
-        long transactionCount = currentMonthSales.size();
-        BigDecimal avgTicket = calculateAverageTicket(totalRevenue, transactionCount);
-        BigDecimal consistencyScore = calculateConsistencyScore(currentMonthSales, avgTicket);
-        BigDecimal growthScore = calculateGrowthScore(currentMonthSales, previousMonthSales);
+        return calculateCompositeScore(statsOf(currentMonthSales), statsOf(previousMonthSales),
+                maxRevenue, maxAvgTicket, maxTransactionCount);
+    }
+
+    /**
+     * Calculate composite score from summary statistics of each month.
+     * Every other overload ends up here: one pass over the amounts, and BigDecimal only
+     * for the handful of per-business values.
+     *
+     * @param currentMonth Count, sum and variance of the current month sales
+     * @param previousMonth Count and sum of the previous month sales (for growth calculation)
+     * @return Composite score from 0 to 100
+     */
+    public static BigDecimal calculateCompositeScore(
+            SaleAmountStats currentMonth,
+            SaleAmountStats previousMonth,
+            double maxRevenue,
+            double maxAvgTicket,
+            double maxTransactionCount) {
+
+        if (currentMonth.count() == 0) {
+            return BigDecimal.ZERO;
+        }
+
+        BigDecimal totalRevenue = BigDecimal.valueOf(currentMonth.sumCents(), 2);
+        BigDecimal avgTicket = calculateAverageTicket(totalRevenue, currentMonth.count());
+        BigDecimal consistencyScore = calculateConsistencyScore(currentMonth, avgTicket);
+        BigDecimal growthScore = calculateGrowthScore(
+                totalRevenue, previousMonth.count(), BigDecimal.valueOf(previousMonth.sumCents(), 2));
+
+        return combineScores(totalRevenue, avgTicket, consistencyScore, currentMonth.count(), growthScore,
+                maxRevenue, maxAvgTicket, maxTransactionCount);
+    }
+
+    /**
+     * Calculate composite score from metrics already aggregated (e.g. by the database)
+     * instead of sale lists
+     *
+     * @param metrics Current month count, revenue and standard deviation, previous month count and revenue
+     * @return Composite score from 0 to 100
+     */
+    public static BigDecimal calculateCompositeScore(
+            BusinessScoreMetrics metrics,
+            double maxRevenue,
+            double maxAvgTicket,
+            double maxTransactionCount) {
+
+        return calculateCompositeScore(
+                SaleAmountStats.ofSummary(metrics.currentCount(), toCents(metrics.currentRevenue()),
+                        metrics.currentStdDev() * 100),
+                SaleAmountStats.ofSummary(metrics.previousCount(), toCents(metrics.previousRevenue()), 0),
+                maxRevenue, maxAvgTicket, maxTransactionCount);
+    }
+
+    private static BigDecimal combineScores(
+            BigDecimal totalRevenue,
+            BigDecimal avgTicket,
+            BigDecimal consistencyScore,
+            long transactionCount,
+            BigDecimal growthScore,
+            double maxRevenue,
+            double maxAvgTicket,
+            double maxTransactionCount) {
 
         // Normalize each metric to 0-100 scale using dynamic maximums
         double normalizedRevenue = normalizeValue(totalRevenue.doubleValue(), 0, maxRevenue);
@@ -71,15 +129,6 @@ public class ScoreCalculator {
         return BigDecimal.valueOf(finalScore).setScale(2, RoundingMode.HALF_UP);
     }
 
-    /**
-     * Calculate total revenue from sales
-     */
-    public static BigDecimal calculateTotalRevenue(List<Sale> sales) {
-        return sales.stream()
-                .map(Sale::getTotalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-    }
-
     /**
      * Calculate average ticket (revenue per transaction)
      */
@@ -95,25 +144,25 @@ public class ScoreCalculator {
     }
 
     /**
-     * Calculate consistency score based on standard deviation
-     * Higher score = more consistent sales amounts
-     * Score ranges from 0 to 100
+     * Calculate consistency score from summary statistics.
+     * Higher score = more consistent sales amounts, from 0 to 100.
+     * The deviation is measured around the (rounded) average ticket:
+     * variance around avgTicket = variance around the exact mean + (mean - avgTicket)^2
      */
-    public static BigDecimal calculateConsistencyScore(List<Sale> sales, BigDecimal avgTicket) {
-        if (sales.size() < 2) {
-            return BigDecimal.valueOf(100); // Maximum consistency with few sales
-        }
+    public static BigDecimal calculateConsistencyScore(SaleAmountStats stats, BigDecimal avgTicket) {
+        double offsetCents = stats.meanCents() - avgTicket.movePointRight(2).doubleValue();
+        double stdDev = Math.sqrt(stats.populationVarianceCents() + offsetCents * offsetCents) / 100;
 
-        // Calculate variance
-        double variance = sales.stream()
-                .mapToDouble(sale -> {
-                    double diff = sale.getTotalAmount().subtract(avgTicket).doubleValue();
-                    return diff * diff;
-                })
-                .average()
-                .orElse(0.0);
+        return calculateConsistencyScore(stats.count(), stdDev, avgTicket);
+    }
 
-        double stdDev = Math.sqrt(variance);
+    /**
+     * Calculate consistency score from the number of sales and their standard deviation
+     */
+    public static BigDecimal calculateConsistencyScore(long transactionCount, double stdDev, BigDecimal avgTicket) {
+        if (transactionCount < 2) {
+            return BigDecimal.valueOf(100); // Maximum consistency with few sales
+        }
 
         // Calculate coefficient of variation (CV)
         double cv = (avgTicket.doubleValue() != 0) ? (stdDev / avgTicket.doubleValue()) : 0;
@@ -126,21 +175,19 @@ public class ScoreCalculator {
     }
 
     /**
-     * Calculate growth score by comparing current vs previous period
+     * Calculate growth score from current and previous month totals
      * Positive growth increases score, negative growth decreases it
      * Score ranges from 0 to 100
      */
     public static BigDecimal calculateGrowthScore(
-            List<Sale> currentMonthSales,
-            List<Sale> previousMonthSales) {
+            BigDecimal currentRevenue,
+            long previousTransactionCount,
+            BigDecimal previousRevenue) {
 
-        if (previousMonthSales.isEmpty()) {
+        if (previousTransactionCount == 0) {
             return BigDecimal.valueOf(50); // Neutral score if no previous data
         }
 
-        BigDecimal currentRevenue = calculateTotalRevenue(currentMonthSales);
-        BigDecimal previousRevenue = calculateTotalRevenue(previousMonthSales);
-
         if (previousRevenue.compareTo(BigDecimal.ZERO) == 0) {
             return BigDecimal.valueOf(100); // Maximum growth from zero
         }
@@ -163,6 +210,21 @@ public class ScoreCalculator {
                 .setScale(2, RoundingMode.HALF_UP);
     }
 
+    /**
+     * Single pass over the sales, converting each amount to cents
+     */
+    private static SaleAmountStats statsOf(List<Sale> sales) {
+        SaleAmountStats stats = new SaleAmountStats();
+        for (Sale sale : sales) {
+            stats.add(toCents(sale.getTotalAmount()));
+        }
+        return stats;
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
     /**
      * Normalize a value to 0-100 scale based on min and max bounds
      */
@@ -0,0 +1,225 @@
+package com.nempeth.korven.utils;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Resumen Space-Saving de los ítems más frecuentes (o de mayor peso) de un flujo, con a lo sumo
+ * capacity contadores. Cada contador sobreestima el total real del ítem en no más de su error,
+ * y cualquier ítem con total mayor al mínimo de los contadores está en el resumen.
+ * Los contadores forman un min-heap indexado: agregar cuesta O(log capacity) sin importar
+ * cuántas ventas haya. No es thread-safe.
+ */
+public final class SpaceSavingSketch {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final int capacity;
+    private final String[] items;
+    private final long[] counts;
+    private final long[] errors;
+    private final Map<String, Integer> positions;
+    private int size;
+
+    public record Entry(String item, long count, long error) {
+    }
+
+    public SpaceSavingSketch(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("La capacidad del resumen debe ser de al menos un contador");
+        }
+        this.capacity = capacity;
+        this.items = new String[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+        this.positions = new HashMap<>(capacity * 2);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Suma weight al ítem. Si no está y el resumen está lleno, reemplaza al contador mínimo
+     * y hereda su total como error.
+     */
+    public void offer(String item, long weight) {
+        if (weight <= 0) {
+            return;
+        }
+        Integer position = positions.get(item);
+        if (position != null) {
+            counts[position] += weight;
+            siftDown(position);
+            return;
+        }
+        if (size < capacity) {
+            addCounter(item, weight, 0);
+            return;
+        }
+        long min = counts[0];
+        positions.remove(items[0]);
+        items[0] = item;
+        counts[0] = min + weight;
+        errors[0] = min;
+        positions.put(item, 0);
+        siftDown(0);
+    }
+
+    private void addCounter(String item, long count, long error) {
+        items[size] = item;
+        counts[size] = count;
+        errors[size] = error;
+        positions.put(item, size);
+        siftUp(size);
+        size++;
+    }
+
+    /** Total mínimo que puede tener un ítem que no está en el resumen */
+    public long minCount() {
+        return size < capacity ? 0 : counts[0];
+    }
+
+    /** Los n ítems con mayor total estimado, de mayor a menor */
+    public List<Entry> top(int n) {
+        List<Entry> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            entries.add(new Entry(items[i], counts[i], errors[i]));
+        }
+        entries.sort(Comparator.comparingLong(Entry::count).reversed().thenComparing(Entry::item));
+        return entries.subList(0, Math.min(n, entries.size()));
+    }
+
+    public SpaceSavingSketch copy() {
+        SpaceSavingSketch copy = new SpaceSavingSketch(capacity);
+        System.arraycopy(items, 0, copy.items, 0, size);
+        System.arraycopy(counts, 0, copy.counts, 0, size);
+        System.arraycopy(errors, 0, copy.errors, 0, size);
+        copy.positions.putAll(positions);
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * Combina dos resúmenes en uno de la mayor de las dos capacidades. A un ítem que falta en un
+     * resumen lleno se le suma el mínimo de ese resumen como total y como error, así el resultado
+     * sigue sobreestimando y conserva los ítems frecuentes de ambos.
+     */
+    public static SpaceSavingSketch merge(SpaceSavingSketch a, SpaceSavingSketch b) {
+        long minA = a.minCount();
+        long minB = b.minCount();
+        Map<String, long[]> combined = new HashMap<>((a.size + b.size) * 2);
+        a.forEachCounter((item, count, error) -> combined.put(item, new long[]{count + minB, error + minB}));
+        b.forEachCounter((item, count, error) -> combined.merge(item, new long[]{count + minA, error + minA},
+                (fromA, fromB) -> new long[]{fromA[0] - minB + fromB[0] - minA, fromA[1] - minB + fromB[1] - minA}));
+
+        SpaceSavingSketch merged = new SpaceSavingSketch(Math.max(a.capacity, b.capacity));
+        combined.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, long[]> entry) -> entry.getValue()[0]).reversed())
+                .limit(merged.capacity)
+                .forEach(entry -> merged.addCounter(entry.getKey(), entry.getValue()[0], entry.getValue()[1]));
+        return merged;
+    }
+
+    public byte[] toBytes() {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(16 + size * 32);
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(capacity);
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                out.writeUTF(items[i]);
+                out.writeLong(counts[i]);
+                out.writeLong(errors[i]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    public static SpaceSavingSketch fromBytes(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            int formatVersion = in.readInt();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IllegalStateException("Formato de resumen desconocido: " + formatVersion);
+            }
+            SpaceSavingSketch sketch = new SpaceSavingSketch(in.readInt());
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                String item = in.readUTF();
+                long count = in.readLong();
+                long error = in.readLong();
+                sketch.addCounter(item, count, error);
+            }
+            return sketch;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface CounterConsumer {
+        void accept(String item, long count, long error);
+    }
+
+    private void forEachCounter(CounterConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            consumer.accept(items[i], counts[i], errors[i]);
+        }
+    }
+
+    // ==================== Min-heap por total ====================
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (counts[parent] <= counts[position]) {
+                return;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int left = 2 * position + 1;
+            if (left >= size) {
+                return;
+            }
+            int smallest = left;
+            int right = left + 1;
+            if (right < size && counts[right] < counts[left]) {
+                smallest = right;
+            }
+            if (counts[position] <= counts[smallest]) {
+                return;
+            }
+            swap(position, smallest);
+            position = smallest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        String item = items[i];
+        items[i] = items[j];
+        items[j] = item;
+        long count = counts[i];
+        counts[i] = counts[j];
+        counts[j] = count;
+        long error = errors[i];
+        errors[i] = errors[j];
+        errors[j] = error;
+        positions.put(items[i], i);
+        positions.put(items[j], j);
+    }
+}
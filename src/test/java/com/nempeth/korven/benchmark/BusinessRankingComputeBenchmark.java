@@ -0,0 +1,99 @@
+package com.nempeth.korven.benchmark;
+
+import com.nempeth.korven.persistence.repository.SaleRepository;
+import com.nempeth.korven.service.BusinessRankingSnapshotService;
+import com.nempeth.korven.utils.BusinessTime;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Cálculo completo del ranking de negocios con una sola consulta contra el mismo cálculo repartido
+ * en varias particiones concurrentes. La base se simula con un SaleRepository que tarda un tiempo fijo
+ * por consulta más un tiempo por negocio agregado, así se mide cuánto del cálculo se solapa.
+ * Es una simulación: los tiempos están fijos y no mide la consulta real de PostgreSQL ni la contención del pool.
+ * No corre con los tests; se lanza como ScoreCalculatorBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BusinessRankingComputeBenchmark {
+
+    private static final BusinessTime BUSINESS_TIME = new BusinessTime("America/Argentina/Buenos_Aires");
+    private static final int CONNECTION_POOL_SIZE = 10;
+    private static final long QUERY_OVERHEAD_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+    private static final long NANOS_PER_BUSINESS = TimeUnit.MICROSECONDS.toNanos(20);
+
+    @Param({"100", "1000"})
+    public int businesses;
+
+    @Param({"1", "4", "8"})
+    public int parallelism;
+
+    private BusinessRankingSnapshotService snapshotService;
+    private YearMonth month;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<Object[]> rows = new ArrayList<>(businesses);
+        for (int i = 0; i < businesses; i++) {
+            long count = random.nextInt(500);
+            rows.add(new Object[]{new UUID(random.nextLong(), random.nextLong()), "Business " + i, count,
+                    BigDecimal.valueOf(count * (500 + random.nextInt(20_000)), 2),
+                    random.nextDouble() * 5_000, (long) random.nextInt(500),
+                    BigDecimal.valueOf(random.nextInt(5_000_000), 2)});
+        }
+        snapshotService = new BusinessRankingSnapshotService(simulatedRepository(rows), null, BUSINESS_TIME,
+                null, 300, parallelism, CONNECTION_POOL_SIZE);
+        month = BUSINESS_TIME.currentMonth();
+    }
+
+    @Benchmark
+    public BusinessRankingSnapshotService.Leaderboard compute() {
+        return snapshotService.compute(month);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BusinessRankingComputeBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    /**
+     * findBusinessScoreMetrics filtrando por el último byte del id como la consulta real
+     */
+    private static SaleRepository simulatedRepository(List<Object[]> rows) {
+        return (SaleRepository) Proxy.newProxyInstance(SaleRepository.class.getClassLoader(),
+                new Class<?>[]{SaleRepository.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("findBusinessScoreMetrics")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    int partitions = (int) args[3];
+                    int partition = (int) args[4];
+                    List<Object[]> result = new ArrayList<>();
+                    for (Object[] row : rows) {
+                        UUID businessId = (UUID) row[0];
+                        if ((businessId.getLeastSignificantBits() & 0xFF) % partitions == partition) {
+                            result.add(row);
+                        }
+                    }
+                    LockSupport.parkNanos(QUERY_OVERHEAD_NANOS + NANOS_PER_BUSINESS * result.size());
+                    return result;
+                });
+    }
+}
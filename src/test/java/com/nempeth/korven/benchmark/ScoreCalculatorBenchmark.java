@@ -0,0 +1,151 @@
+package com.nempeth.korven.benchmark;
+
+import com.nempeth.korven.persistence.entity.Sale;
+import com.nempeth.korven.utils.SaleAmountStats;
+import com.nempeth.korven.utils.ScoreCalculator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara el puntaje compuesto anterior (varias pasadas con streams y BigDecimal sobre List&lt;Sale&gt;)
+ * con el actual en una pasada con centavos en long, sobre listas de ventas y sobre arreglos de centavos.
+ * No corre con los tests; se lanza con el main desde el IDE o con
+ * {@code mvn test-compile} y {@code java -cp target/test-classes:<classpath de test> ...ScoreCalculatorBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScoreCalculatorBenchmark {
+
+    private static final double MAX_REVENUE = 5_000_000.0;
+    private static final double MAX_AVG_TICKET = 20_000.0;
+    private static final double MAX_TRANSACTION_COUNT = 1_000_000.0;
+
+    @Param({"1000", "100000", "1000000"})
+    public int sales;
+
+    private List<Sale> currentSales;
+    private List<Sale> previousSales;
+    private long[] currentCents;
+    private long[] previousCents;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        currentCents = randomCents(random, sales);
+        previousCents = randomCents(random, sales * 9 / 10);
+        currentSales = toSales(currentCents);
+        previousSales = toSales(previousCents);
+    }
+
+    @Benchmark
+    public BigDecimal baselineFromSales() {
+        return Baseline.calculateCompositeScore(currentSales, previousSales,
+                MAX_REVENUE, MAX_AVG_TICKET, MAX_TRANSACTION_COUNT);
+    }
+
+    @Benchmark
+    public BigDecimal singlePassFromSales() {
+        return ScoreCalculator.calculateCompositeScore(currentSales, previousSales,
+                MAX_REVENUE, MAX_AVG_TICKET, MAX_TRANSACTION_COUNT);
+    }
+
+    @Benchmark
+    public BigDecimal singlePassFromCents() {
+        return ScoreCalculator.calculateCompositeScore(
+                SaleAmountStats.of(currentCents), SaleAmountStats.of(previousCents),
+                MAX_REVENUE, MAX_AVG_TICKET, MAX_TRANSACTION_COUNT);
+    }
+
+    @Benchmark
+    public BigDecimal fromSummaryStats() {
+        return ScoreCalculator.calculateCompositeScore(
+                SaleAmountStats.ofSummary(currentCents.length, 1_000_000_00L, 12_345.0),
+                SaleAmountStats.ofSummary(previousCents.length, 900_000_00L, 0),
+                MAX_REVENUE, MAX_AVG_TICKET, MAX_TRANSACTION_COUNT);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ScoreCalculatorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    private static long[] randomCents(Random random, int count) {
+        long[] cents = new long[count];
+        for (int i = 0; i < count; i++) {
+            cents[i] = 500 + random.nextInt(2_000_000);
+        }
+        return cents;
+    }
+
+    private static List<Sale> toSales(long[] cents) {
+        List<Sale> sales = new ArrayList<>(cents.length);
+        for (long value : cents) {
+            sales.add(Sale.builder().totalAmount(BigDecimal.valueOf(value, 2)).build());
+        }
+        return sales;
+    }
+
+    /**
+     * ScoreCalculator antes del cálculo en una pasada, como referencia
+     */
+    private static final class Baseline {
+
+        static BigDecimal calculateCompositeScore(List<Sale> currentMonthSales, List<Sale> previousMonthSales,
+                                                  double maxRevenue, double maxAvgTicket, double maxTransactionCount) {
+            if (currentMonthSales.isEmpty()) {
+                return BigDecimal.ZERO;
+            }
+            BigDecimal totalRevenue = totalRevenue(currentMonthSales);
+            long transactionCount = currentMonthSales.size();
+            BigDecimal avgTicket = ScoreCalculator.calculateAverageTicket(totalRevenue, transactionCount);
+
+            double variance = currentMonthSales.stream()
+                    .mapToDouble(sale -> {
+                        double diff = sale.getTotalAmount().subtract(avgTicket).doubleValue();
+                        return diff * diff;
+                    })
+                    .average()
+                    .orElse(0.0);
+            BigDecimal consistencyScore = ScoreCalculator.calculateConsistencyScore(
+                    transactionCount, Math.sqrt(variance), avgTicket);
+
+            BigDecimal growthScore = ScoreCalculator.calculateGrowthScore(
+                    totalRevenue(currentMonthSales), previousMonthSales.size(), totalRevenue(previousMonthSales));
+
+            double finalScore =
+                    normalize(totalRevenue.doubleValue(), maxRevenue) * 0.30 +
+                    normalize(avgTicket.doubleValue(), maxAvgTicket) * 0.25 +
+                    consistencyScore.doubleValue() * 0.20 +
+                    normalize(transactionCount, maxTransactionCount) * 0.15 +
+                    growthScore.doubleValue() * 0.10;
+            return BigDecimal.valueOf(finalScore).setScale(2, RoundingMode.HALF_UP);
+        }
+
+        private static BigDecimal totalRevenue(List<Sale> sales) {
+            return sales.stream()
+                    .map(Sale::getTotalAmount)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+        }
+
+        private static double normalize(double value, double max) {
+            if (max <= 0) return 0.0;
+            if (value >= max) return 100.0;
+            if (value <= 0) return 0.0;
+            return value / max * 100.0;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.nempeth.korven.service;
+
+import com.nempeth.korven.constants.AnalyticsMetric;
+import com.nempeth.korven.event.SaleClosedEvent;
+import com.nempeth.korven.utils.BusinessTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class AnalyticsCacheServiceTest {
+
+    private static final BusinessTime BUSINESS_TIME = new BusinessTime("America/Argentina/Buenos_Aires");
+
+    private AnalyticsCacheService analyticsCacheService;
+    private BusinessDataVersionService dataVersionService;
+    private UUID businessId;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        dataVersionService = mock(BusinessDataVersionService.class);
+        analyticsCacheService = new AnalyticsCacheService(
+                new ConcurrentMapCacheManager(AnalyticsCacheService.CACHE_NAME), BUSINESS_TIME, dataVersionService);
+        businessId = UUID.randomUUID();
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void get_shouldLoadOnlyOnce_forSameBusinessMetricAndYear() {
+        // When
+        load(AnalyticsMetric.TOTAL_REVENUE, 2025);
+        load(AnalyticsMetric.TOTAL_REVENUE, 2025);
+        load(AnalyticsMetric.TOTAL_PROFIT, 2025);
+        load(AnalyticsMetric.TOTAL_REVENUE, 2024);
+
+        // Then
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void onSaleClosed_shouldEvictOnlyTheYearOfTheSale() {
+        // Given
+        load(AnalyticsMetric.SUMMARY, 2025);
+        load(AnalyticsMetric.SUMMARY, 2026);
+        load(AnalyticsMetric.TOTAL_REVENUE, 2025);
+
+        // When: 01:00 UTC del 1 de enero todavía es 31 de diciembre en Buenos Aires
+        OffsetDateTime closedAt = OffsetDateTime.of(2026, 1, 1, 1, 0, 0, 0, ZoneOffset.UTC);
+        analyticsCacheService.onSaleClosed(new SaleClosedEvent(businessId, List.of(UUID.randomUUID()), closedAt, 1L));
+        load(AnalyticsMetric.SUMMARY, 2025);
+        load(AnalyticsMetric.TOTAL_REVENUE, 2025);
+        load(AnalyticsMetric.SUMMARY, 2026);
+
+        // Then
+        assertThat(loads).hasValue(5);
+    }
+
+    @Test
+    void onSaleClosed_shouldNotEvictOtherBusinesses() {
+        // Given
+        load(AnalyticsMetric.SUMMARY, 2025);
+
+        // When
+        analyticsCacheService.onSaleClosed(new SaleClosedEvent(UUID.randomUUID(), List.of(UUID.randomUUID()),
+                OffsetDateTime.of(2025, 6, 1, 12, 0, 0, 0, ZoneOffset.UTC), 1L));
+        load(AnalyticsMetric.SUMMARY, 2025);
+
+        // Then
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void get_shouldReloadCurrentYear_whenDataVersionAdvanced() {
+        // Given
+        int currentYear = BUSINESS_TIME.today().getYear();
+        when(dataVersionService.current(businessId)).thenReturn(3L);
+        load(AnalyticsMetric.SUMMARY, currentYear);
+        load(AnalyticsMetric.SUMMARY, currentYear);
+
+        // When: otra instancia cerró una venta
+        when(dataVersionService.current(businessId)).thenReturn(4L);
+        load(AnalyticsMetric.SUMMARY, currentYear);
+
+        // Then
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void get_shouldNotReadDataVersion_forYearsAlreadyOver() {
+        // When
+        load(AnalyticsMetric.SUMMARY, BUSINESS_TIME.today().getYear() - 1);
+
+        // Then
+        verifyNoInteractions(dataVersionService);
+    }
+
+    private void load(AnalyticsMetric metric, int year) {
+        analyticsCacheService.get(businessId, metric, year, () -> {
+            loads.incrementAndGet();
+            return List.of();
+        });
+    }
+}
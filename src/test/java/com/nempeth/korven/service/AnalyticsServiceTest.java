@@ -1,17 +1,30 @@
 package com.nempeth.korven.service;
 
+import com.nempeth.korven.constants.AnalyticsMetric;
 import com.nempeth.korven.constants.MembershipRole;
 import com.nempeth.korven.constants.MembershipStatus;
+import com.nempeth.korven.constants.ProductRankingMetric;
 import com.nempeth.korven.persistence.entity.Business;
 import com.nempeth.korven.persistence.entity.BusinessMembership;
 import com.nempeth.korven.persistence.entity.User;
 import com.nempeth.korven.persistence.repository.BusinessMembershipRepository;
+import com.nempeth.korven.persistence.repository.SaleDailyRollupRepository;
+import com.nempeth.korven.persistence.repository.SaleHourlyRollupRepository;
 import com.nempeth.korven.persistence.repository.SaleRepository;
 import com.nempeth.korven.persistence.repository.UserRepository;
+import com.nempeth.korven.rest.dto.AnalyticsSummaryResponse;
 import com.nempeth.korven.rest.dto.MonthlyCategoryProfitResponse;
 import com.nempeth.korven.rest.dto.MonthlyCategoryRevenueResponse;
 import com.nempeth.korven.rest.dto.MonthlyProfitResponse;
 import com.nempeth.korven.rest.dto.MonthlyRevenueResponse;
+import com.nempeth.korven.rest.dto.RevenueHeatmapResponse;
+import com.nempeth.korven.rest.dto.TicketSizeDistributionResponse;
+import com.nempeth.korven.rest.dto.TopProductResponse;
+import com.nempeth.korven.rest.dto.TopProductsResponse;
+import com.nempeth.korven.utils.BusinessTime;
+import com.nempeth.korven.utils.LogLinearHistogram;
+import com.nempeth.korven.utils.ReportVersion;
+import com.nempeth.korven.utils.SpaceSavingSketch;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -20,9 +33,12 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.support.NoOpCacheManager;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.time.YearMonth;
 import java.util.List;
@@ -31,9 +47,14 @@ import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -49,6 +70,34 @@ class AnalyticsServiceTest {
     @Mock
     private BusinessMembershipRepository membershipRepository;
 
+    @Mock
+    private SaleDailyRollupRepository rollupRepository;
+
+    @Mock
+    private SaleDailyRollupService rollupService;
+
+    @Mock
+    private SaleHourlyRollupRepository hourlyRollupRepository;
+
+    @Mock
+    private SaleHourlyRollupService hourlyRollupService;
+
+    @Spy
+    private BusinessTime businessTime = new BusinessTime("America/Argentina/Buenos_Aires");
+
+    @Spy
+    private AnalyticsCacheService analyticsCacheService = new AnalyticsCacheService(
+            new NoOpCacheManager(), businessTime, mock(BusinessDataVersionService.class));
+
+    @Mock
+    private BusinessDataVersionService dataVersionService;
+
+    @Mock
+    private ProductSalesSketchService productSalesSketchService;
+
+    @Mock
+    private TicketSizeHistogramService ticketSizeHistogramService;
+
     @InjectMocks
     private AnalyticsService analyticsService;
 
@@ -105,7 +154,7 @@ class AnalyticsServiceTest {
                 new Object[]{2025, 2, "Electronics", new BigDecimal("18000.00")}
         );
 
-        when(saleRepository.findMonthlyRevenueByCategory(eq(businessId), any(OffsetDateTime.class), any(OffsetDateTime.class)))
+        when(saleRepository.findMonthlyRevenueByCategory(eq(businessId), any(OffsetDateTime.class), any(OffsetDateTime.class), anyString()))
                 .thenReturn(mockResults);
 
         // When
@@ -127,7 +176,7 @@ class AnalyticsServiceTest {
         assertThat(results.get(2).categoryName()).isEqualTo("Electronics");
         assertThat(results.get(2).revenue()).isEqualByComparingTo(new BigDecimal("18000.00"));
 
-        verify(saleRepository).findMonthlyRevenueByCategory(eq(businessId), any(OffsetDateTime.class), any(OffsetDateTime.class));
+        verify(saleRepository).findMonthlyRevenueByCategory(eq(businessId), any(OffsetDateTime.class), any(OffsetDateTime.class), anyString());
     }
 
     @Test
@@ -138,7 +187,7 @@ class AnalyticsServiceTest {
                 .thenReturn(Optional.of(testUser));
         when(membershipRepository.findByBusinessIdAndUserId(businessId, testUser.getId()))
                 .thenReturn(Optional.of(activeMembership));
-        when(saleRepository.findMonthlyRevenueByCategory(eq(businessId), any(OffsetDateTime.class), any(OffsetDateTime.class)))
+        when(saleRepository.findMonthlyRevenueByCategory(eq(businessId), any(OffsetDateTime.class), any(OffsetDateTime.class), anyString()))
                 .thenReturn(List.of());
 
         // When
@@ -164,7 +213,7 @@ class AnalyticsServiceTest {
                 new Object[]{2025, 3, "Clothing", new BigDecimal("2500.00")}
         );
 
-        when(saleRepository.findMonthlyProfitByCategory(eq(businessId), any(OffsetDateTime.class), any(OffsetDateTime.class)))
+        when(saleRepository.findMonthlyProfitByCategory(eq(businessId), any(OffsetDateTime.class), any(OffsetDateTime.class), anyString()))
                 .thenReturn(mockResults);
 
         // When
@@ -182,7 +231,7 @@ class AnalyticsServiceTest {
         assertThat(results.get(1).categoryName()).isEqualTo("Electronics");
         assertThat(results.get(1).profit()).isEqualByComparingTo(new BigDecimal("6000.00"));
 
-        verify(saleRepository).findMonthlyProfitByCategory(eq(businessId), any(OffsetDateTime.class), any(OffsetDateTime.class));
+        verify(saleRepository).findMonthlyProfitByCategory(eq(businessId), any(OffsetDateTime.class), any(OffsetDateTime.class), anyString());
     }
 
     @Test
@@ -200,7 +249,7 @@ class AnalyticsServiceTest {
                 new Object[]{2025, 3, new BigDecimal("25000.00")}
         );
 
-        when(saleRepository.findMonthlyTotalRevenue(eq(businessId), any(OffsetDateTime.class), any(OffsetDateTime.class)))
+        when(saleRepository.findMonthlyTotalRevenue(eq(businessId), any(OffsetDateTime.class), any(OffsetDateTime.class), anyString()))
                 .thenReturn(mockResults);
 
         // When
@@ -219,7 +268,7 @@ class AnalyticsServiceTest {
         assertThat(results.get(2).month()).isEqualTo(YearMonth.of(2025, 3));
         assertThat(results.get(2).revenue()).isEqualByComparingTo(new BigDecimal("25000.00"));
 
-        verify(saleRepository).findMonthlyTotalRevenue(eq(businessId), any(OffsetDateTime.class), any(OffsetDateTime.class));
+        verify(saleRepository).findMonthlyTotalRevenue(eq(businessId), any(OffsetDateTime.class), any(OffsetDateTime.class), anyString());
     }
 
     @Test
@@ -237,7 +286,7 @@ class AnalyticsServiceTest {
                 new Object[]{2025, 3, new BigDecimal("7200.00")}
         );
 
-        when(saleRepository.findMonthlyTotalProfit(eq(businessId), any(OffsetDateTime.class), any(OffsetDateTime.class)))
+        when(saleRepository.findMonthlyTotalProfit(eq(businessId), any(OffsetDateTime.class), any(OffsetDateTime.class), anyString()))
                 .thenReturn(mockResults);
 
         // When
@@ -256,7 +305,7 @@ class AnalyticsServiceTest {
         assertThat(results.get(2).month()).isEqualTo(YearMonth.of(2025, 3));
         assertThat(results.get(2).profit()).isEqualByComparingTo(new BigDecimal("7200.00"));
 
-        verify(saleRepository).findMonthlyTotalProfit(eq(businessId), any(OffsetDateTime.class), any(OffsetDateTime.class));
+        verify(saleRepository).findMonthlyTotalProfit(eq(businessId), any(OffsetDateTime.class), any(OffsetDateTime.class), anyString());
     }
 
     @Test
@@ -377,14 +426,14 @@ class AnalyticsServiceTest {
                 .thenReturn(Optional.of(testUser));
         when(membershipRepository.findByBusinessIdAndUserId(businessId, testUser.getId()))
                 .thenReturn(Optional.of(activeMembership));
-        when(saleRepository.findMonthlyTotalRevenue(eq(businessId), any(OffsetDateTime.class), any(OffsetDateTime.class)))
+        when(saleRepository.findMonthlyTotalRevenue(eq(businessId), any(OffsetDateTime.class), any(OffsetDateTime.class), anyString()))
                 .thenReturn(List.of());
 
         // When
         analyticsService.getMonthlyTotalRevenue(userEmail, businessId, 2024);
 
         // Then
-        verify(saleRepository).findMonthlyTotalRevenue(eq(businessId), dateCaptor.capture(), dateCaptor.capture());
+        verify(saleRepository).findMonthlyTotalRevenue(eq(businessId), dateCaptor.capture(), dateCaptor.capture(), anyString());
         
         List<OffsetDateTime> capturedDates = dateCaptor.getAllValues();
         OffsetDateTime startDate = capturedDates.get(0);
@@ -398,13 +447,14 @@ class AnalyticsServiceTest {
         assertThat(startDate.getMinute()).isEqualTo(0);
         assertThat(startDate.getSecond()).isEqualTo(0);
 
-        // Verify end of year
-        assertThat(endDate.getYear()).isEqualTo(2024);
-        assertThat(endDate.getMonthValue()).isEqualTo(12);
-        assertThat(endDate.getDayOfMonth()).isEqualTo(31);
-        assertThat(endDate.getHour()).isEqualTo(23);
-        assertThat(endDate.getMinute()).isEqualTo(59);
-        assertThat(endDate.getSecond()).isEqualTo(59);
+        // Verify end of year: exclusive, at the start of the next one
+        assertThat(endDate.getYear()).isEqualTo(2025);
+        assertThat(endDate.getMonthValue()).isEqualTo(1);
+        assertThat(endDate.getDayOfMonth()).isEqualTo(1);
+        assertThat(endDate.getHour()).isEqualTo(0);
+        assertThat(endDate.getMinute()).isEqualTo(0);
+        assertThat(endDate.getSecond()).isEqualTo(0);
+        assertThat(endDate.getOffset()).isEqualTo(startDate.getOffset());
     }
 
     @Test
@@ -423,7 +473,7 @@ class AnalyticsServiceTest {
                 new Object[]{2025, 3, "Books", new BigDecimal("2000.00")}
         );
 
-        when(saleRepository.findMonthlyRevenueByCategory(eq(businessId), any(OffsetDateTime.class), any(OffsetDateTime.class)))
+        when(saleRepository.findMonthlyRevenueByCategory(eq(businessId), any(OffsetDateTime.class), any(OffsetDateTime.class), anyString()))
                 .thenReturn(mockResults);
 
         // When
@@ -452,7 +502,7 @@ class AnalyticsServiceTest {
                 new Object[]{2025, 3, new BigDecimal("3000.00")}
         );
 
-        when(saleRepository.findMonthlyTotalProfit(eq(businessId), any(OffsetDateTime.class), any(OffsetDateTime.class)))
+        when(saleRepository.findMonthlyTotalProfit(eq(businessId), any(OffsetDateTime.class), any(OffsetDateTime.class), anyString()))
                 .thenReturn(mockResults);
 
         // When
@@ -479,7 +529,7 @@ class AnalyticsServiceTest {
                 new Object[]{2025, 3, new BigDecimal("0.00")}
         );
 
-        when(saleRepository.findMonthlyTotalRevenue(eq(businessId), any(OffsetDateTime.class), any(OffsetDateTime.class)))
+        when(saleRepository.findMonthlyTotalRevenue(eq(businessId), any(OffsetDateTime.class), any(OffsetDateTime.class), anyString()))
                 .thenReturn(mockResults);
 
         // When
@@ -500,17 +550,337 @@ class AnalyticsServiceTest {
                 .thenReturn(Optional.of(testUser));
         when(membershipRepository.findByBusinessIdAndUserId(businessId, testUser.getId()))
                 .thenReturn(Optional.of(activeMembership));
-        when(saleRepository.findMonthlyTotalRevenue(eq(businessId), any(OffsetDateTime.class), any(OffsetDateTime.class)))
+        when(saleRepository.findMonthlyTotalRevenue(eq(businessId), any(OffsetDateTime.class), any(OffsetDateTime.class), anyString()))
                 .thenReturn(List.of());
 
         // When
         analyticsService.getMonthlyTotalRevenue(userEmail, businessId, 2023);
 
         // Then
-        verify(saleRepository).findMonthlyTotalRevenue(eq(businessId), dateCaptor.capture(), dateCaptor.capture());
+        verify(saleRepository).findMonthlyTotalRevenue(eq(businessId), dateCaptor.capture(), dateCaptor.capture(), anyString());
         
         List<OffsetDateTime> capturedDates = dateCaptor.getAllValues();
         assertThat(capturedDates.get(0).getYear()).isEqualTo(2023);
-        assertThat(capturedDates.get(1).getYear()).isEqualTo(2023);
+        assertThat(capturedDates.get(1).getYear()).isEqualTo(2024);
+    }
+
+    @Test
+    @DisplayName("Should read monthly totals from the daily rollup once its backfill is complete")
+    void shouldReadFromRollupWhenBackfillComplete() {
+        // Given
+        when(userRepository.findByEmailIgnoreCase(userEmail))
+                .thenReturn(Optional.of(testUser));
+        when(membershipRepository.findByBusinessIdAndUserId(businessId, testUser.getId()))
+                .thenReturn(Optional.of(activeMembership));
+        when(rollupService.isBackfillComplete()).thenReturn(true);
+
+        List<Object[]> mockResults = List.<Object[]>of(
+                new Object[]{2025, 3, new BigDecimal("4200.00")}
+        );
+        when(rollupRepository.findMonthlyTotalRevenue(businessId, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31)))
+                .thenReturn(mockResults);
+
+        // When
+        List<MonthlyRevenueResponse> results = analyticsService.getMonthlyTotalRevenue(userEmail, businessId, testYear);
+
+        // Then
+        assertThat(results).hasSize(1);
+        assertThat(results.get(0).month()).isEqualTo(YearMonth.of(2025, 3));
+        assertThat(results.get(0).revenue()).isEqualByComparingTo(new BigDecimal("4200.00"));
+
+        verify(saleRepository, never()).findMonthlyTotalRevenue(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should split the grouped summary into per-category and total series")
+    void shouldSplitSummaryIntoFourSeries() {
+        // Given
+        when(userRepository.findByEmailIgnoreCase(userEmail))
+                .thenReturn(Optional.of(testUser));
+        when(membershipRepository.findByBusinessIdAndUserId(businessId, testUser.getId()))
+                .thenReturn(Optional.of(activeMembership));
+
+        List<Object[]> mockResults = List.of(
+                new Object[]{2025, 1, null, new BigDecimal("300.00"), new BigDecimal("120.00")},
+                new Object[]{2025, 1, "Bebidas", new BigDecimal("100.00"), new BigDecimal("60.00")},
+                new Object[]{2025, 1, "Comidas", new BigDecimal("200.00"), new BigDecimal("60.00")},
+                new Object[]{2025, 2, null, new BigDecimal("50.00"), new BigDecimal("-5.00")},
+                new Object[]{2025, 2, "Comidas", new BigDecimal("50.00"), new BigDecimal("-5.00")}
+        );
+        when(saleRepository.findMonthlySummary(eq(businessId), any(OffsetDateTime.class), any(OffsetDateTime.class), anyString()))
+                .thenReturn(mockResults);
+
+        // When
+        AnalyticsSummaryResponse summary = analyticsService.getSummary(userEmail, businessId, testYear);
+
+        // Then
+        assertThat(summary.revenueByCategory()).hasSize(3);
+        assertThat(summary.profitByCategory()).hasSize(3);
+        assertThat(summary.revenueByCategory().get(1).categoryName()).isEqualTo("Comidas");
+        assertThat(summary.profitByCategory().get(2).profit()).isEqualByComparingTo(new BigDecimal("-5.00"));
+
+        assertThat(summary.totalRevenue()).extracting(MonthlyRevenueResponse::month)
+                .containsExactly(YearMonth.of(2025, 1), YearMonth.of(2025, 2));
+        assertThat(summary.totalRevenue().get(0).revenue()).isEqualByComparingTo(new BigDecimal("300.00"));
+        assertThat(summary.totalProfit().get(1).profit()).isEqualByComparingTo(new BigDecimal("-5.00"));
+
+        verify(saleRepository, never()).findMonthlyRevenueByCategory(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should version elapsed years without reading the data version or sales")
+    void shouldReturnClosedReportVersionForElapsedYear() {
+        // Given
+        when(userRepository.findByEmailIgnoreCase(userEmail))
+                .thenReturn(Optional.of(testUser));
+        when(membershipRepository.findByBusinessIdAndUserId(businessId, testUser.getId()))
+                .thenReturn(Optional.of(activeMembership));
+        int lastYear = businessTime.today().getYear() - 1;
+
+        // When
+        ReportVersion version = analyticsService.getReportVersion(userEmail, businessId, AnalyticsMetric.SUMMARY, lastYear);
+
+        // Then
+        assertThat(version.closed()).isTrue();
+        verifyNoInteractions(dataVersionService, saleRepository, rollupRepository);
+    }
+
+    @Test
+    @DisplayName("Should change the current year version when the business data version changes")
+    void shouldReturnOpenReportVersionForCurrentYear() {
+        // Given
+        when(userRepository.findByEmailIgnoreCase(userEmail))
+                .thenReturn(Optional.of(testUser));
+        when(membershipRepository.findByBusinessIdAndUserId(businessId, testUser.getId()))
+                .thenReturn(Optional.of(activeMembership));
+        when(dataVersionService.current(businessId)).thenReturn(7L, 8L);
+        int currentYear = businessTime.today().getYear();
+
+        // When
+        ReportVersion before = analyticsService.getReportVersion(userEmail, businessId, AnalyticsMetric.SUMMARY, currentYear);
+        ReportVersion after = analyticsService.getReportVersion(userEmail, businessId, AnalyticsMetric.SUMMARY, currentYear);
+
+        // Then
+        assertThat(before.closed()).isFalse();
+        assertThat(before.etag()).isNotEqualTo(after.etag());
+        verifyNoInteractions(saleRepository, rollupRepository);
+    }
+
+    @Test
+    @DisplayName("Should sum hourly rollup rows into the weekday by hour matrix")
+    void shouldSumHourlyRollupIntoHeatmap() {
+        // Given
+        when(userRepository.findByEmailIgnoreCase(userEmail))
+                .thenReturn(Optional.of(testUser));
+        when(membershipRepository.findByBusinessIdAndUserId(businessId, testUser.getId()))
+                .thenReturn(Optional.of(activeMembership));
+        when(hourlyRollupService.isBackfillComplete()).thenReturn(true);
+        LocalDate from = LocalDate.of(2025, 3, 1);
+        LocalDate to = LocalDate.of(2025, 3, 31);
+
+        // Dos lunes a las 20 hs y un domingo a las 0 hs
+        List<Object[]> mockResults = List.of(
+                new Object[]{1, 20, new BigDecimal("100.50"), 3L},
+                new Object[]{1, 20, new BigDecimal("49.50"), 2L},
+                new Object[]{7, 0, new BigDecimal("10.00"), 1L}
+        );
+        when(hourlyRollupRepository.findHourlyTotals(businessId, from, to)).thenReturn(mockResults);
+
+        // When
+        RevenueHeatmapResponse heatmap = analyticsService.getRevenueHeatmap(userEmail, businessId, from, to);
+
+        // Then
+        assertThat(heatmap.revenue()).hasDimensions(7, 24);
+        assertThat(heatmap.revenue()[0][20]).isEqualByComparingTo(new BigDecimal("150.00"));
+        assertThat(heatmap.ticketCount()[0][20]).isEqualTo(5L);
+        assertThat(heatmap.revenue()[6][0]).isEqualByComparingTo(new BigDecimal("10.00"));
+        assertThat(heatmap.revenue()[3][12]).isEqualByComparingTo(BigDecimal.ZERO);
+
+        verify(saleRepository, never()).findHourlyTotals(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should read sales with half-open bounds while the hourly rollup is loading")
+    void shouldFallBackToSalesForHeatmapWhileBackfilling() {
+        // Given
+        when(userRepository.findByEmailIgnoreCase(userEmail))
+                .thenReturn(Optional.of(testUser));
+        when(membershipRepository.findByBusinessIdAndUserId(businessId, testUser.getId()))
+                .thenReturn(Optional.of(activeMembership));
+        when(hourlyRollupService.isBackfillComplete()).thenReturn(false);
+        LocalDate day = LocalDate.of(2025, 3, 3);
+        when(saleRepository.findHourlyTotals(eq(businessId), any(OffsetDateTime.class), any(OffsetDateTime.class), anyString()))
+                .thenReturn(List.<Object[]>of(new Object[]{1, 9, new BigDecimal("25.00"), 1L}));
+
+        // When
+        RevenueHeatmapResponse heatmap = analyticsService.getRevenueHeatmap(userEmail, businessId, day, day);
+
+        // Then
+        assertThat(heatmap.ticketCount()[0][9]).isEqualTo(1L);
+        verify(saleRepository).findHourlyTotals(businessId, businessTime.startOf(day), businessTime.startOf(day.plusDays(1)),
+                "America/Argentina/Buenos_Aires");
+        verifyNoInteractions(hourlyRollupRepository);
+    }
+
+    @Test
+    @DisplayName("Should reject a heatmap range that ends before it starts")
+    void shouldRejectInvertedHeatmapRange() {
+        // Given
+        when(userRepository.findByEmailIgnoreCase(userEmail))
+                .thenReturn(Optional.of(testUser));
+        when(membershipRepository.findByBusinessIdAndUserId(businessId, testUser.getId()))
+                .thenReturn(Optional.of(activeMembership));
+
+        // When & Then
+        assertThatThrownBy(() -> analyticsService.getRevenueHeatmap(userEmail, businessId,
+                LocalDate.of(2025, 3, 2), LocalDate.of(2025, 3, 1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("La fecha de inicio debe ser anterior a la fecha de fin");
+    }
+
+    @Test
+    @DisplayName("Should rank products exactly from sales for a short range")
+    void shouldRankTopProductsExactlyForShortRange() {
+        // Given
+        when(userRepository.findByEmailIgnoreCase(userEmail))
+                .thenReturn(Optional.of(testUser));
+        when(membershipRepository.findByBusinessIdAndUserId(businessId, testUser.getId()))
+                .thenReturn(Optional.of(activeMembership));
+        LocalDate from = LocalDate.of(2025, 3, 1);
+        LocalDate to = LocalDate.of(2025, 3, 31);
+        when(saleRepository.findProductTotals(businessId, businessTime.startOf(from), businessTime.endOf(to)))
+                .thenReturn(List.of(
+                        new Object[]{"Agua", 30L, new BigDecimal("60.00")},
+                        new Object[]{"Pizza", 5L, new BigDecimal("500.00")},
+                        new Object[]{"Café", 12L, new BigDecimal("96.00")}
+                ));
+
+        // When
+        TopProductsResponse top = analyticsService.getTopProducts(userEmail, businessId, from, to, 2);
+
+        // Then
+        assertThat(top.approximate()).isFalse();
+        assertThat(top.byUnits()).extracting(TopProductResponse::productName).containsExactly("Agua", "Café");
+        assertThat(top.byRevenue()).extracting(TopProductResponse::productName).containsExactly("Pizza", "Café");
+        assertThat(top.byRevenue().get(0).amount()).isEqualByComparingTo(new BigDecimal("500.00"));
+        assertThat(top.byRevenue().get(0).maxError()).isEqualByComparingTo(BigDecimal.ZERO);
+        verifyNoInteractions(productSalesSketchService);
+    }
+
+    @Test
+    @DisplayName("Should combine monthly sketches for a long range")
+    void shouldRankTopProductsFromSketchesForLongRange() {
+        // Given
+        when(userRepository.findByEmailIgnoreCase(userEmail))
+                .thenReturn(Optional.of(testUser));
+        when(membershipRepository.findByBusinessIdAndUserId(businessId, testUser.getId()))
+                .thenReturn(Optional.of(activeMembership));
+        when(productSalesSketchService.isBackfillComplete()).thenReturn(true);
+        YearMonth fromMonth = YearMonth.of(2025, 1);
+        YearMonth toMonth = YearMonth.of(2025, 6);
+        when(productSalesSketchService.top(businessId, fromMonth, toMonth, ProductRankingMetric.UNITS, 10))
+                .thenReturn(List.of(new SpaceSavingSketch.Entry("Agua", 300, 4)));
+        when(productSalesSketchService.top(businessId, fromMonth, toMonth, ProductRankingMetric.REVENUE, 10))
+                .thenReturn(List.of(new SpaceSavingSketch.Entry("Pizza", 1250050, 100)));
+
+        // When
+        TopProductsResponse top = analyticsService.getTopProducts(userEmail, businessId,
+                LocalDate.of(2025, 1, 15), LocalDate.of(2025, 6, 10), 10);
+
+        // Then: se informa el período de meses completos realmente cubierto
+        assertThat(top.approximate()).isTrue();
+        assertThat(top.from()).isEqualTo(LocalDate.of(2025, 1, 1));
+        assertThat(top.to()).isEqualTo(LocalDate.of(2025, 6, 30));
+        assertThat(top.byUnits().get(0).amount()).isEqualByComparingTo(new BigDecimal("300"));
+        assertThat(top.byUnits().get(0).maxError()).isEqualByComparingTo(new BigDecimal("4"));
+        assertThat(top.byRevenue().get(0).amount()).isEqualByComparingTo(new BigDecimal("12500.50"));
+        assertThat(top.byRevenue().get(0).maxError()).isEqualByComparingTo(new BigDecimal("1.00"));
+        verify(saleRepository, never()).findProductTotals(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should reject a top products limit out of range")
+    void shouldRejectInvalidTopProductsLimit() {
+        // Given
+        when(userRepository.findByEmailIgnoreCase(userEmail))
+                .thenReturn(Optional.of(testUser));
+        when(membershipRepository.findByBusinessIdAndUserId(businessId, testUser.getId()))
+                .thenReturn(Optional.of(activeMembership));
+
+        // When & Then
+        assertThatThrownBy(() -> analyticsService.getTopProducts(userEmail, businessId,
+                LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 2), 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("El límite debe estar entre 1 y 100");
+    }
+
+    @Test
+    @DisplayName("Should answer ticket size percentiles from the monthly histograms")
+    void shouldReturnTicketSizeDistributionFromHistograms() {
+        // Given
+        when(userRepository.findByEmailIgnoreCase(userEmail))
+                .thenReturn(Optional.of(testUser));
+        when(membershipRepository.findByBusinessIdAndUserId(businessId, testUser.getId()))
+                .thenReturn(Optional.of(activeMembership));
+        when(ticketSizeHistogramService.isBackfillComplete()).thenReturn(true);
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        histogram.record(1_000, 98);
+        histogram.record(50_000, 2);
+        when(ticketSizeHistogramService.getHistogram(businessId, YearMonth.of(2025, 1), YearMonth.of(2025, 3)))
+                .thenReturn(histogram);
+
+        // When
+        TicketSizeDistributionResponse distribution = analyticsService.getTicketSizeDistribution(userEmail, businessId,
+                YearMonth.of(2025, 1), YearMonth.of(2025, 3), 4);
+
+        // Then
+        assertThat(distribution.ticketCount()).isEqualTo(100);
+        assertThat(distribution.average()).isEqualByComparingTo(new BigDecimal("19.80"));
+        // Percentiles con error relativo menor al 1%
+        assertThat(distribution.p50()).isCloseTo(new BigDecimal("10.00"), within(new BigDecimal("0.10")));
+        assertThat(distribution.p99()).isCloseTo(new BigDecimal("500.00"), within(new BigDecimal("5.00")));
+        assertThat(distribution.max()).isEqualByComparingTo(new BigDecimal("500.00"));
+        assertThat(distribution.histogram()).hasSize(4);
+        assertThat(distribution.histogram().get(0).ticketCount()).isEqualTo(98);
+        verifyNoInteractions(saleRepository);
+    }
+
+    @Test
+    @DisplayName("Should build the ticket size histogram from sales while the monthly histograms are loading")
+    void shouldFallBackToSalesForTicketSizesWhileBackfilling() {
+        // Given
+        when(userRepository.findByEmailIgnoreCase(userEmail))
+                .thenReturn(Optional.of(testUser));
+        when(membershipRepository.findByBusinessIdAndUserId(businessId, testUser.getId()))
+                .thenReturn(Optional.of(activeMembership));
+        when(ticketSizeHistogramService.isBackfillComplete()).thenReturn(false);
+        YearMonth month = YearMonth.of(2025, 3);
+        when(saleRepository.findTicketAmounts(businessId, businessTime.startOf(month), businessTime.endOf(month)))
+                .thenReturn(List.<Object[]>of(new Object[]{2_500L, 4L}));
+
+        // When
+        TicketSizeDistributionResponse distribution = analyticsService.getTicketSizeDistribution(userEmail, businessId,
+                month, month, 20);
+
+        // Then
+        assertThat(distribution.ticketCount()).isEqualTo(4);
+        assertThat(distribution.p90()).isEqualByComparingTo(new BigDecimal("25.00"));
+        verify(ticketSizeHistogramService, never()).getHistogram(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should reject a ticket size month range that ends before it starts")
+    void shouldRejectInvertedTicketSizeRange() {
+        // Given
+        when(userRepository.findByEmailIgnoreCase(userEmail))
+                .thenReturn(Optional.of(testUser));
+        when(membershipRepository.findByBusinessIdAndUserId(businessId, testUser.getId()))
+                .thenReturn(Optional.of(activeMembership));
+
+        // When & Then
+        assertThatThrownBy(() -> analyticsService.getTicketSizeDistribution(userEmail, businessId,
+                YearMonth.of(2025, 3), YearMonth.of(2025, 1), 20))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("El mes de inicio debe ser anterior al mes de fin");
     }
 }
@@ -0,0 +1,303 @@
+package com.nempeth.korven.service;
+
+import com.nempeth.korven.persistence.entity.Business;
+import com.nempeth.korven.persistence.entity.BusinessRankingSnapshot;
+import com.nempeth.korven.persistence.repository.BusinessRankingSnapshotRepository;
+import com.nempeth.korven.persistence.repository.SaleRepository;
+import com.nempeth.korven.utils.BusinessTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BusinessRankingSnapshotServiceTest {
+
+    private static final BusinessTime BUSINESS_TIME = new BusinessTime("America/Argentina/Buenos_Aires");
+
+    @Mock
+    private SaleRepository saleRepository;
+
+    @Mock
+    private BusinessRankingSnapshotRepository snapshotRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final List<Runnable> scheduledRefreshes = new ArrayList<>();
+    private BusinessRankingSnapshotService snapshotService;
+    private YearMonth currentMonth;
+
+    @BeforeEach
+    void setUp() {
+        snapshotService = new BusinessRankingSnapshotService(saleRepository, snapshotRepository, BUSINESS_TIME,
+                transactionManager, 300, 1, 10, scheduledRefreshes::add);
+        currentMonth = BUSINESS_TIME.currentMonth();
+    }
+
+    @Test
+    void compute_shouldRankBusinessesByCompositeScore() {
+        // Given
+        UUID top = UUID.randomUUID();
+        UUID mid = UUID.randomUUID();
+        UUID low = UUID.randomUUID();
+        when(saleRepository.findBusinessScoreMetrics(any(), any(), any(), anyInt(), anyInt())).thenReturn(rows(
+                scoreMetricsRow(low, "Low Business", 3, "150000", 2, "100000"),
+                scoreMetricsRow(top, "Top Business", 10, "500000", 8, "400000"),
+                scoreMetricsRow(mid, "Mid Business", 7, "350000", 6, "300000")));
+
+        // When
+        BusinessRankingSnapshotService.Leaderboard leaderboard = snapshotService.compute(currentMonth);
+
+        // Then
+        assertThat(leaderboard.month()).isEqualTo(currentMonth);
+        assertThat(leaderboard.entries())
+                .extracting(BusinessRankingSnapshotService.Entry::businessId)
+                .containsExactly(top, mid, low);
+        assertThat(leaderboard.entries())
+                .extracting(BusinessRankingSnapshotService.Entry::position)
+                .containsExactly(1, 2, 3);
+        assertThat(leaderboard.entries().get(0).compositeScore())
+                .isGreaterThanOrEqualTo(leaderboard.entries().get(1).compositeScore());
+        verify(saleRepository).findBusinessScoreMetrics(BUSINESS_TIME.startOf(currentMonth.minusMonths(1)),
+                BUSINESS_TIME.startOf(currentMonth), BUSINESS_TIME.endOf(currentMonth), 1, 0);
+    }
+
+    @Test
+    void compute_shouldGiveZeroScoreToBusinessesWithoutSales() {
+        // Given
+        UUID active = UUID.randomUUID();
+        UUID inactive = UUID.randomUUID();
+        when(saleRepository.findBusinessScoreMetrics(any(), any(), any(), anyInt(), anyInt())).thenReturn(rows(
+                scoreMetricsRow(inactive, "Inactive Business", 0, "0", 0, "0"),
+                scoreMetricsRow(active, "Active Business", 5, "250000", 0, "0")));
+
+        // When
+        BusinessRankingSnapshotService.Leaderboard leaderboard = snapshotService.compute(currentMonth);
+
+        // Then
+        assertThat(leaderboard.entries().get(0).businessName()).isEqualTo("Active Business");
+        assertThat(leaderboard.entries().get(0).compositeScore()).isGreaterThan(BigDecimal.ZERO);
+        assertThat(leaderboard.entries().get(1).businessName()).isEqualTo("Inactive Business");
+        assertThat(leaderboard.entries().get(1).compositeScore()).isEqualTo(BigDecimal.ZERO);
+    }
+
+    @Test
+    void compute_shouldMergeEveryPartitionIntoOneRanking() {
+        // Given
+        BusinessRankingSnapshotService partitioned = new BusinessRankingSnapshotService(saleRepository,
+                snapshotRepository, BUSINESS_TIME, transactionManager, 300, 3, 10, scheduledRefreshes::add);
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        when(saleRepository.findBusinessScoreMetrics(any(), any(), any(), eq(3), eq(0))).thenReturn(rows(
+                scoreMetricsRow(third, "Third Business", 3, "150000", 2, "100000")));
+        when(saleRepository.findBusinessScoreMetrics(any(), any(), any(), eq(3), eq(1))).thenReturn(rows());
+        when(saleRepository.findBusinessScoreMetrics(any(), any(), any(), eq(3), eq(2))).thenReturn(rows(
+                scoreMetricsRow(first, "First Business", 10, "500000", 8, "400000"),
+                scoreMetricsRow(second, "Second Business", 7, "350000", 6, "300000")));
+
+        // When
+        BusinessRankingSnapshotService.Leaderboard leaderboard = partitioned.compute(currentMonth);
+
+        // Then
+        assertThat(leaderboard.entries())
+                .extracting(BusinessRankingSnapshotService.Entry::businessId)
+                .containsExactly(first, second, third);
+        verify(saleRepository, times(3)).findBusinessScoreMetrics(any(), any(), any(), eq(3), anyInt());
+        partitioned.shutdown();
+    }
+
+    @Test
+    void compute_shouldLeaveAConnectionFree_whenParallelismReachesThePoolSize() {
+        // Given
+        BusinessRankingSnapshotService partitioned = new BusinessRankingSnapshotService(saleRepository,
+                snapshotRepository, BUSINESS_TIME, transactionManager, 300, 10, 4, scheduledRefreshes::add);
+        when(saleRepository.findBusinessScoreMetrics(any(), any(), any(), anyInt(), anyInt())).thenReturn(rows());
+
+        // When
+        partitioned.compute(currentMonth);
+
+        // Then
+        verify(saleRepository, times(3)).findBusinessScoreMetrics(any(), any(), any(), eq(3), anyInt());
+        partitioned.shutdown();
+    }
+
+    @Test
+    void constructor_shouldRejectParallelismBelowOne() {
+        assertThatThrownBy(() -> new BusinessRankingSnapshotService(saleRepository, snapshotRepository,
+                BUSINESS_TIME, transactionManager, 300, 0, 10, scheduledRefreshes::add))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("El paralelismo del ranking debe ser de al menos una consulta");
+    }
+
+    @Test
+    void current_shouldComputeAndStoreWhenNothingWasStoredYet() {
+        // Given
+        UUID businessId = UUID.randomUUID();
+        when(snapshotRepository.findByPeriodMonth(currentMonth.atDay(1))).thenReturn(List.of());
+        when(saleRepository.findBusinessScoreMetrics(any(), any(), any(), anyInt(), anyInt())).thenReturn(rows(
+                scoreMetricsRow(businessId, "Business", 2, "300", 0, "0")));
+
+        // When
+        BusinessRankingSnapshotService.Leaderboard leaderboard = snapshotService.current();
+
+        // Then
+        assertThat(leaderboard.entries()).hasSize(1);
+        verify(snapshotRepository).upsert(eq(currentMonth.atDay(1)), eq(businessId), eq("Business"),
+                any(), eq(1), eq(leaderboard.computedAt()));
+        verify(snapshotRepository).deleteComputedBefore(currentMonth.atDay(1), leaderboard.computedAt());
+        assertThat(scheduledRefreshes).isEmpty();
+    }
+
+    @Test
+    void current_shouldComputeOnce_whenSeveralRequestsFindNothingStored() throws Exception {
+        // Given
+        when(snapshotRepository.findByPeriodMonth(currentMonth.atDay(1))).thenReturn(List.of());
+        CountDownLatch computing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(saleRepository.findBusinessScoreMetrics(any(), any(), any(), anyInt(), anyInt())).thenAnswer(invocation -> {
+            computing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return rows(scoreMetricsRow(UUID.randomUUID(), "Business", 2, "300", 0, "0"));
+        });
+
+        // When
+        ExecutorService requests = Executors.newFixedThreadPool(2);
+        try {
+            Future<BusinessRankingSnapshotService.Leaderboard> first = requests.submit(snapshotService::current);
+            assertThat(computing.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<BusinessRankingSnapshotService.Leaderboard> second = requests.submit(snapshotService::current);
+            release.countDown();
+
+            // Then
+            assertThat(second.get(5, TimeUnit.SECONDS)).isSameAs(first.get(5, TimeUnit.SECONDS));
+        } finally {
+            requests.shutdownNow();
+        }
+        verify(saleRepository, times(1)).findBusinessScoreMetrics(any(), any(), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void current_shouldServeStaleSnapshotAndRefreshInBackground() {
+        // Given
+        UUID businessId = UUID.randomUUID();
+        OffsetDateTime computedAt = OffsetDateTime.now().minusHours(1);
+        when(snapshotRepository.findByPeriodMonth(currentMonth.atDay(1))).thenReturn(List.of(
+                storedRow(businessId, "Business", 1, computedAt)));
+
+        // When
+        BusinessRankingSnapshotService.Leaderboard first = snapshotService.current();
+        BusinessRankingSnapshotService.Leaderboard second = snapshotService.current();
+
+        // Then
+        assertThat(first.computedAt()).isEqualTo(computedAt);
+        assertThat(second).isSameAs(first);
+        assertThat(scheduledRefreshes).hasSize(1);
+        verify(saleRepository, never()).findBusinessScoreMetrics(any(), any(), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void current_shouldNotRefreshFreshSnapshot() {
+        // Given
+        when(saleRepository.findBusinessScoreMetrics(any(), any(), any(), anyInt(), anyInt())).thenReturn(rows(
+                scoreMetricsRow(UUID.randomUUID(), "Business", 1, "100", 0, "0")));
+        BusinessRankingSnapshotService.Leaderboard refreshed = snapshotService.refresh();
+
+        // When
+        BusinessRankingSnapshotService.Leaderboard served = snapshotService.current();
+
+        // Then
+        assertThat(served).isSameAs(refreshed);
+        assertThat(scheduledRefreshes).isEmpty();
+        verify(snapshotRepository, never()).findByPeriodMonth(any());
+    }
+
+    @Test
+    void refresh_shouldPublishTheNewSnapshotOnceTheBackgroundRefreshRuns() {
+        // Given
+        UUID businessId = UUID.randomUUID();
+        when(snapshotRepository.findByPeriodMonth(currentMonth.atDay(1))).thenReturn(List.of(
+                storedRow(businessId, "Old Name", 1, OffsetDateTime.now().minusHours(1))));
+        when(saleRepository.findBusinessScoreMetrics(any(), any(), any(), anyInt(), anyInt())).thenReturn(rows(
+                scoreMetricsRow(businessId, "New Name", 1, "100", 0, "0")));
+        snapshotService.current();
+
+        // When
+        scheduledRefreshes.get(0).run();
+
+        // Then
+        assertThat(snapshotService.current().entries().get(0).businessName()).isEqualTo("New Name");
+        assertThat(scheduledRefreshes).hasSize(1);
+    }
+
+    @Test
+    void refresh_shouldRecomputePreviousMonthStoredBeforeItClosed() {
+        // Given
+        YearMonth previousMonth = currentMonth.minusMonths(1);
+        when(saleRepository.findBusinessScoreMetrics(any(), any(), any(), anyInt(), anyInt())).thenReturn(rows(
+                scoreMetricsRow(UUID.randomUUID(), "Business", 1, "100", 0, "0")));
+        when(snapshotRepository.findComputedAt(previousMonth.atDay(1)))
+                .thenReturn(BUSINESS_TIME.endOf(previousMonth).minusMinutes(3));
+
+        // When
+        snapshotService.refresh();
+
+        // Then
+        verify(saleRepository).findBusinessScoreMetrics(BUSINESS_TIME.startOf(previousMonth.minusMonths(1)),
+                BUSINESS_TIME.startOf(previousMonth), BUSINESS_TIME.endOf(previousMonth), 1, 0);
+        verify(snapshotRepository).upsert(eq(previousMonth.atDay(1)), any(), any(), any(), anyInt(), any());
+    }
+
+    @Test
+    void getStored_shouldReturnEmptyForMonthsNeverComputed() {
+        // Given
+        YearMonth month = currentMonth.minusMonths(6);
+        when(snapshotRepository.findByPeriodMonth(month.atDay(1))).thenReturn(List.of());
+
+        // When & Then
+        assertThat(snapshotService.getStored(month)).isEmpty();
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return List.of(rows);
+    }
+
+    private static Object[] scoreMetricsRow(UUID businessId, String name, long count, String revenue,
+                                            long previousCount, String previousRevenue) {
+        return new Object[]{businessId, name, count, new BigDecimal(revenue), BigDecimal.ZERO,
+                previousCount, new BigDecimal(previousRevenue)};
+    }
+
+    private static BusinessRankingSnapshot storedRow(UUID businessId, String name, int position,
+                                                     OffsetDateTime computedAt) {
+        return BusinessRankingSnapshot.builder()
+                .business(Business.builder().id(businessId).build())
+                .businessName(name)
+                .compositeScore(new BigDecimal("50.00"))
+                .rankingPosition(position)
+                .computedAt(computedAt)
+                .build();
+    }
+}
@@ -18,6 +18,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -50,6 +51,15 @@ class CategoryServiceTest {
     @Mock
     private GoalCategoryTargetRepository goalCategoryTargetRepository;
 
+    @Mock
+    private ProductSnapshotCacheService productSnapshotCacheService;
+
+    @Mock
+    private BusinessDataVersionService dataVersionService;
+
+    @Mock
+    private GoalProgressService goalProgressService;
+
     @InjectMocks
     private CategoryService categoryService;
 
@@ -226,6 +236,7 @@ class CategoryServiceTest {
         categoryService.deleteCustomCategory(userEmail, businessId, categoryId);
 
         verify(categoryRepository).delete(customCategory);
+        verify(productSnapshotCacheService).evict(businessId);
     }
 
     @Test
@@ -281,12 +292,18 @@ class CategoryServiceTest {
         when(categoryRepository.existsByBusinessIdAndNameIgnoreCase(businessId, request.name()))
                 .thenReturn(false);
         when(categoryRepository.save(any(Category.class))).thenReturn(customCategory);
+        List<UUID> goalIds = List.of(UUID.randomUUID());
+        when(goalCategoryTargetRepository.findGoalIdsByCategoryId(categoryId)).thenReturn(goalIds);
 
         CategoryResponse response = categoryService.updateCustomCategory(userEmail, businessId, categoryId, request);
 
         assertThat(response).isNotNull();
         verify(categoryRepository).save(any(Category.class));
-        verify(goalCategoryTargetRepository).updateCategoryNameByCategoryId(categoryId, request.name());
+        InOrder inOrder = inOrder(goalCategoryTargetRepository, goalProgressService);
+        inOrder.verify(goalCategoryTargetRepository).updateCategoryNameByCategoryId(categoryId, request.name());
+        inOrder.verify(goalProgressService).reconcile(goalIds);
+        verify(productSnapshotCacheService).evict(businessId);
+        verify(dataVersionService).increment(businessId);
     }
 
     @Test
@@ -353,6 +370,7 @@ class CategoryServiceTest {
         assertThat(response).isNotNull();
         verify(categoryRepository).save(any(Category.class));
         verify(goalCategoryTargetRepository).updateCategoryNameByCategoryId(categoryId, request.name());
+        verify(productSnapshotCacheService).evict(businessId);
     }
 
     @Test
@@ -375,6 +393,7 @@ class CategoryServiceTest {
         assertThat(response).isNotNull();
         verify(categoryRepository).save(any(Category.class));
         verify(goalCategoryTargetRepository, never()).updateCategoryNameByCategoryId(any(), any());
+        verifyNoInteractions(dataVersionService, goalProgressService);
     }
 
     @Test
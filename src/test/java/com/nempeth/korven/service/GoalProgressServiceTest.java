@@ -0,0 +1,101 @@
+package com.nempeth.korven.service;
+
+import com.nempeth.korven.event.SaleClosedEvent;
+import com.nempeth.korven.persistence.repository.GoalCategoryTargetRepository;
+import com.nempeth.korven.utils.BusinessTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GoalProgressServiceTest {
+
+    private static final BusinessTime BUSINESS_TIME = new BusinessTime("America/Argentina/Buenos_Aires");
+
+    @Mock
+    private GoalCategoryTargetRepository targetRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private GoalProgressService goalProgressService;
+
+    @BeforeEach
+    void setUp() {
+        goalProgressService = new GoalProgressService(targetRepository, BUSINESS_TIME, transactionManager, 2);
+    }
+
+    @Test
+    void onSaleClosed_shouldAddClosedSalesToGoalTargets() {
+        // Given
+        List<UUID> saleIds = List.of(UUID.randomUUID(), UUID.randomUUID());
+
+        // When
+        goalProgressService.onSaleClosed(new SaleClosedEvent(UUID.randomUUID(), saleIds, OffsetDateTime.now(), 4));
+
+        // Then
+        verify(targetRepository).addClosedSales(saleIds, "America/Argentina/Buenos_Aires");
+    }
+
+    @Test
+    void onSaleClosed_shouldSkipEventsWithoutSales() {
+        // When
+        goalProgressService.onSaleClosed(new SaleClosedEvent(UUID.randomUUID(), List.of(), OffsetDateTime.now(), 4));
+
+        // Then
+        verifyNoInteractions(targetRepository);
+    }
+
+    @Test
+    void reconcile_shouldLockTargetsBeforeRecounting() {
+        // Given
+        List<UUID> goalIds = List.of(UUID.randomUUID());
+
+        // When
+        goalProgressService.reconcile(goalIds);
+
+        // Then
+        InOrder inOrder = inOrder(targetRepository);
+        inOrder.verify(targetRepository).lockByGoalIds(goalIds);
+        inOrder.verify(targetRepository).recountActualRevenue(goalIds, "America/Argentina/Buenos_Aires");
+    }
+
+    @Test
+    void reconcileOpenGoals_shouldRecountInBatches() {
+        // Given
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        when(targetRepository.findGoalIdsToReconcile(BUSINESS_TIME.today().minusDays(1)))
+                .thenReturn(List.of(first, second, third));
+
+        // When
+        int reconciled = goalProgressService.reconcileOpenGoals();
+
+        // Then
+        assertThat(reconciled).isEqualTo(3);
+        verify(targetRepository).recountActualRevenue(List.of(first, second), "America/Argentina/Buenos_Aires");
+        verify(targetRepository).recountActualRevenue(List.of(third), "America/Argentina/Buenos_Aires");
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void constructor_shouldRejectEmptyBatches() {
+        assertThatThrownBy(() -> new GoalProgressService(targetRepository, BUSINESS_TIME, transactionManager, 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("El lote de conciliación de metas debe tener al menos una meta");
+    }
+}
@@ -4,11 +4,14 @@ import com.nempeth.korven.constants.MembershipStatus;
 import com.nempeth.korven.persistence.entity.*;
 import com.nempeth.korven.persistence.repository.*;
 import com.nempeth.korven.rest.dto.*;
+import com.nempeth.korven.utils.BusinessTime;
+import com.nempeth.korven.utils.ReportVersion;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
@@ -40,6 +43,21 @@ class GoalServiceTest {
     @Mock
     private SaleRepository saleRepository;
 
+    @Spy
+    private BusinessTime businessTime = new BusinessTime("America/Argentina/Buenos_Aires");
+
+    @Mock
+    private BusinessDataVersionService dataVersionService;
+
+    @Mock
+    private SaleDailyRollupRepository rollupRepository;
+
+    @Mock
+    private SaleDailyRollupService rollupService;
+
+    @Mock
+    private GoalProgressService goalProgressService;
+
     @InjectMocks
     private GoalService goalService;
 
@@ -124,8 +142,10 @@ class GoalServiceTest {
                 .thenReturn(Optional.of(activeMembership));
         when(goalRepository.findByBusinessIdOrderByPeriodStartDesc(testBusiness.getId()))
                 .thenReturn(List.of(testGoal));
-        when(saleRepository.calculateRevenueByCategoryAndDateRange(any(), any(), any(), any()))
-                .thenReturn(Optional.of(new BigDecimal("15000.00")));
+        when(saleRepository.findGoalRevenueByCategory(any(), any()))
+                .thenReturn(List.of(
+                        revenueRow(testGoal, "Electrónica", "15000.00"),
+                        revenueRow(testGoal, "Ropa", "15000.00")));
 
         List<GoalResponse> result = goalService.getAllGoalsByBusiness("test@example.com", testBusiness.getId());
 
@@ -180,8 +200,10 @@ class GoalServiceTest {
                 .thenReturn(Optional.of(activeMembership));
         when(goalRepository.findByIdAndBusinessId(testGoal.getId(), testBusiness.getId()))
                 .thenReturn(Optional.of(testGoal));
-        when(saleRepository.calculateRevenueByCategoryAndDateRange(any(), any(), any(), any()))
-                .thenReturn(Optional.of(new BigDecimal("15000.00")));
+        when(saleRepository.findGoalRevenueByCategory(any(), any()))
+                .thenReturn(List.of(
+                        revenueRow(testGoal, "Electrónica", "15000.00"),
+                        revenueRow(testGoal, "Ropa", "15000.00")));
 
         GoalResponse result = goalService.getGoalById("test@example.com", testBusiness.getId(), testGoal.getId());
 
@@ -242,8 +264,10 @@ class GoalServiceTest {
                 .thenReturn(Optional.of(activeMembership));
         when(goalRepository.findByBusinessIdOrderByPeriodStartDesc(testBusiness.getId()))
                 .thenReturn(List.of(testGoal));
-        when(saleRepository.calculateRevenueByCategoryAndDateRange(any(), any(), any(), any()))
-                .thenReturn(Optional.of(new BigDecimal("15000.00")));
+        when(saleRepository.findGoalRevenueByCategory(any(), any()))
+                .thenReturn(List.of(
+                        revenueRow(testGoal, "Electrónica", "15000.00"),
+                        revenueRow(testGoal, "Ropa", "15000.00")));
 
         List<ActiveGoalSummaryResponse> result = goalService.getGoalsSummary("test@example.com", testBusiness.getId());
 
@@ -314,8 +338,10 @@ class GoalServiceTest {
                 .thenReturn(Optional.of(activeMembership));
         when(goalRepository.findByIdAndBusinessId(testGoal.getId(), testBusiness.getId()))
                 .thenReturn(Optional.of(testGoal));
-        when(saleRepository.calculateRevenueByCategoryAndDateRange(any(), any(), any(), any()))
-                .thenReturn(Optional.of(new BigDecimal("15000.00")));
+        when(saleRepository.findGoalRevenueByCategory(any(), any()))
+                .thenReturn(List.of(
+                        revenueRow(testGoal, "Electrónica", "15000.00"),
+                        revenueRow(testGoal, "Ropa", "15000.00")));
 
         GoalReportResponse result = goalService.getGoalReport("test@example.com", testBusiness.getId(), testGoal.getId());
 
@@ -326,6 +352,63 @@ class GoalServiceTest {
         verify(goalRepository).findByIdAndBusinessId(testGoal.getId(), testBusiness.getId());
     }
 
+    @Test
+    void shouldChangeReportVersionOfFinishedGoalWithDataVersion() {
+        Goal finishedGoal = Goal.builder()
+                .id(UUID.randomUUID())
+                .business(testBusiness)
+                .name("Finished Goal")
+                .periodStart(businessTime.today().minusMonths(2))
+                .periodEnd(businessTime.today().minusDays(1))
+                .totalRevenueGoal(new BigDecimal("50000.00"))
+                .isLocked(true)
+                .build();
+
+        when(userRepository.findByEmailIgnoreCase("test@example.com"))
+                .thenReturn(Optional.of(testUser));
+        when(membershipRepository.findByBusinessIdAndUserId(testBusiness.getId(), testUser.getId()))
+                .thenReturn(Optional.of(activeMembership));
+        when(goalRepository.findByIdAndBusinessId(finishedGoal.getId(), testBusiness.getId()))
+                .thenReturn(Optional.of(finishedGoal));
+        when(dataVersionService.current(testBusiness.getId())).thenReturn(7L, 8L);
+
+        // Renombrar una categoría recuenta también las metas terminadas
+        ReportVersion before = goalService.getGoalReportVersion("test@example.com", testBusiness.getId(), finishedGoal.getId());
+        ReportVersion after = goalService.getGoalReportVersion("test@example.com", testBusiness.getId(), finishedGoal.getId());
+
+        assertThat(before.closed()).isFalse();
+        assertThat(before.etag()).isNotEqualTo(after.etag());
+        verifyNoInteractions(saleRepository);
+    }
+
+    @Test
+    void shouldChangeReportVersionOfActiveGoalWithDataVersion() {
+        Goal activeGoal = Goal.builder()
+                .id(UUID.randomUUID())
+                .business(testBusiness)
+                .name("Active Goal")
+                .periodStart(businessTime.today().minusDays(1))
+                .periodEnd(businessTime.today().plusMonths(1))
+                .totalRevenueGoal(new BigDecimal("50000.00"))
+                .isLocked(false)
+                .build();
+
+        when(userRepository.findByEmailIgnoreCase("test@example.com"))
+                .thenReturn(Optional.of(testUser));
+        when(membershipRepository.findByBusinessIdAndUserId(testBusiness.getId(), testUser.getId()))
+                .thenReturn(Optional.of(activeMembership));
+        when(goalRepository.findByIdAndBusinessId(activeGoal.getId(), testBusiness.getId()))
+                .thenReturn(Optional.of(activeGoal));
+        when(dataVersionService.current(testBusiness.getId())).thenReturn(4L, 5L);
+
+        ReportVersion before = goalService.getGoalReportVersion("test@example.com", testBusiness.getId(), activeGoal.getId());
+        ReportVersion after = goalService.getGoalReportVersion("test@example.com", testBusiness.getId(), activeGoal.getId());
+
+        assertThat(before.closed()).isFalse();
+        assertThat(before.etag()).isNotEqualTo(after.etag());
+        verifyNoInteractions(saleRepository);
+    }
+
     @Test
     void shouldCalculateAchievementPercentageCorrectly() {
         when(userRepository.findByEmailIgnoreCase("test@example.com"))
@@ -335,10 +418,10 @@ class GoalServiceTest {
         when(goalRepository.findByIdAndBusinessId(testGoal.getId(), testBusiness.getId()))
                 .thenReturn(Optional.of(testGoal));
         // 15000 actual / 30000 target = 50%
-        when(saleRepository.calculateRevenueByCategoryAndDateRange(any(), eq("Electrónica"), any(), any()))
-                .thenReturn(Optional.of(new BigDecimal("15000.00")));
-        when(saleRepository.calculateRevenueByCategoryAndDateRange(any(), eq("Ropa"), any(), any()))
-                .thenReturn(Optional.of(new BigDecimal("10000.00")));
+        when(saleRepository.findGoalRevenueByCategory(any(), any()))
+                .thenReturn(List.of(
+                        revenueRow(testGoal, "Electrónica", "15000.00"),
+                        revenueRow(testGoal, "Ropa", "10000.00")));
 
         GoalReportResponse result = goalService.getGoalReport("test@example.com", testBusiness.getId(), testGoal.getId());
 
@@ -378,15 +461,21 @@ class GoalServiceTest {
         when(categoryRepository.findAllById(any()))
                 .thenReturn(List.of(category1, category2));
         when(goalRepository.save(any(Goal.class)))
-                .thenAnswer(invocation -> invocation.getArgument(0));
-        when(saleRepository.calculateRevenueByCategoryAndDateRange(any(), any(), any(), any()))
-                .thenReturn(Optional.of(BigDecimal.ZERO));
+                .thenAnswer(invocation -> {
+                    Goal saved = invocation.getArgument(0);
+                    saved.prePersist();
+                    return saved;
+                });
+        when(saleRepository.findGoalRevenueByCategory(any(), any()))
+                .thenReturn(List.of());
 
         GoalResponse result = goalService.createGoal("test@example.com", testBusiness.getId(), request);
 
         assertThat(result.name()).isEqualTo("Meta Q2 2026");
         assertThat(result.categoryTargets()).hasSize(2);
         verify(goalRepository, times(2)).save(any(Goal.class));
+        verify(goalProgressService).reconcile(List.of(result.id()));
+        verify(dataVersionService).increment(testBusiness.getId());
     }
 
     @Test
@@ -571,8 +660,8 @@ class GoalServiceTest {
                 .thenAnswer(invocation -> invocation.getArgument(0));
         when(goalRepository.saveAndFlush(any(Goal.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
-        when(saleRepository.calculateRevenueByCategoryAndDateRange(any(), any(), any(), any()))
-                .thenReturn(Optional.of(BigDecimal.ZERO));
+        when(saleRepository.findGoalRevenueByCategory(any(), any()))
+                .thenReturn(List.of());
 
         GoalResponse result = goalService.updateGoal("test@example.com", testBusiness.getId(), testGoal.getId(), request);
 
@@ -671,8 +760,8 @@ class GoalServiceTest {
                 .thenAnswer(invocation -> invocation.getArgument(0));
         when(goalRepository.saveAndFlush(any(Goal.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
-        when(saleRepository.calculateRevenueByCategoryAndDateRange(any(), any(), any(), any()))
-                .thenReturn(Optional.of(BigDecimal.ZERO));
+        when(saleRepository.findGoalRevenueByCategory(any(), any()))
+                .thenReturn(List.of());
 
         GoalResponse result = goalService.updateGoal("test@example.com", testBusiness.getId(), testGoal.getId(), request);
 
@@ -694,6 +783,7 @@ class GoalServiceTest {
         goalService.deleteGoal("test@example.com", testBusiness.getId(), testGoal.getId());
 
         verify(goalRepository).delete(testGoal);
+        verify(dataVersionService).increment(testBusiness.getId());
     }
 
     @Test
@@ -744,8 +834,8 @@ class GoalServiceTest {
                 .thenReturn(Optional.of(activeMembership));
         when(goalRepository.findByIdAndBusinessId(testGoal.getId(), testBusiness.getId()))
                 .thenReturn(Optional.of(testGoal));
-        when(saleRepository.calculateRevenueByCategoryAndDateRange(any(), any(), any(), any()))
-                .thenReturn(Optional.of(BigDecimal.ZERO));
+        when(saleRepository.findGoalRevenueByCategory(any(), any()))
+                .thenReturn(List.of());
 
         GoalReportResponse result = goalService.getGoalReport("test@example.com", testBusiness.getId(), testGoal.getId());
 
@@ -761,10 +851,10 @@ class GoalServiceTest {
         when(goalRepository.findByIdAndBusinessId(testGoal.getId(), testBusiness.getId()))
                 .thenReturn(Optional.of(testGoal));
         // Actual revenue exceeds target
-        when(saleRepository.calculateRevenueByCategoryAndDateRange(any(), eq("Electrónica"), any(), any()))
-                .thenReturn(Optional.of(new BigDecimal("45000.00"))); // 150% of 30000
-        when(saleRepository.calculateRevenueByCategoryAndDateRange(any(), eq("Ropa"), any(), any()))
-                .thenReturn(Optional.of(new BigDecimal("30000.00"))); // 150% of 20000
+        when(saleRepository.findGoalRevenueByCategory(any(), any()))
+                .thenReturn(List.of(
+                        revenueRow(testGoal, "Electrónica", "45000.00"), // 150% of 30000
+                        revenueRow(testGoal, "Ropa", "30000.00"))); // 150% of 20000
 
         GoalReportResponse result = goalService.getGoalReport("test@example.com", testBusiness.getId(), testGoal.getId());
 
@@ -796,4 +886,108 @@ class GoalServiceTest {
         // Achievement should be zero when target is zero
         assertThat(result.totalAchievement()).isEqualByComparingTo(BigDecimal.ZERO);
     }
+
+    // ==================== Revenue Loading Tests ====================
+
+    @Test
+    void shouldLoadRevenueOfAllGoalsWithOneQuery() {
+        Goal secondGoal = Goal.builder()
+                .id(UUID.randomUUID())
+                .business(testBusiness)
+                .name("Meta Q2 2026")
+                .periodStart(LocalDate.of(2026, 4, 1))
+                .periodEnd(LocalDate.of(2026, 6, 30))
+                .totalRevenueGoal(new BigDecimal("10000.00"))
+                .isLocked(false)
+                .build();
+        secondGoal.addCategoryTarget(GoalCategoryTarget.builder()
+                .id(UUID.randomUUID())
+                .categoryId(category1.getId())
+                .categoryName("Electrónica")
+                .revenueTarget(new BigDecimal("10000.00"))
+                .build());
+
+        when(userRepository.findByEmailIgnoreCase("test@example.com"))
+                .thenReturn(Optional.of(testUser));
+        when(membershipRepository.findByBusinessIdAndUserId(testBusiness.getId(), testUser.getId()))
+                .thenReturn(Optional.of(activeMembership));
+        when(goalRepository.findByBusinessIdOrderByPeriodStartDesc(testBusiness.getId()))
+                .thenReturn(List.of(secondGoal, testGoal));
+        when(saleRepository.findGoalRevenueByCategory(any(), any()))
+                .thenReturn(List.of(
+                        revenueRow(testGoal, "Electrónica", "30000.00"),
+                        revenueRow(secondGoal, "Electrónica", "2500.00")));
+
+        List<ActiveGoalSummaryResponse> result = goalService.getGoalsSummary("test@example.com", testBusiness.getId());
+
+        assertThat(result.get(0).totalActual()).isEqualByComparingTo("2500.00");
+        assertThat(result.get(1).totalActual()).isEqualByComparingTo("30000.00");
+        assertThat(result.get(1).categoriesCompleted()).isEqualTo(1);
+        verify(saleRepository).findGoalRevenueByCategory(
+                List.of(secondGoal.getId(), testGoal.getId()), "America/Argentina/Buenos_Aires");
+    }
+
+    @Test
+    void shouldServeGoalsSummaryFromCountedRevenueWithoutQueryingSales() {
+        testGoal.getCategoryTargets().forEach(target -> target.setActualRevenue(
+                target.getCategoryName().equals("Electrónica") ? new BigDecimal("30000.00") : new BigDecimal("1000.00")));
+
+        when(userRepository.findByEmailIgnoreCase("test@example.com"))
+                .thenReturn(Optional.of(testUser));
+        when(membershipRepository.findByBusinessIdAndUserId(testBusiness.getId(), testUser.getId()))
+                .thenReturn(Optional.of(activeMembership));
+        when(goalRepository.findByBusinessIdOrderByPeriodStartDesc(testBusiness.getId()))
+                .thenReturn(List.of(testGoal));
+
+        List<ActiveGoalSummaryResponse> result = goalService.getGoalsSummary("test@example.com", testBusiness.getId());
+
+        assertThat(result.get(0).totalActual()).isEqualByComparingTo("31000.00");
+        assertThat(result.get(0).categoriesCompleted()).isEqualTo(1);
+        verifyNoInteractions(saleRepository, rollupRepository);
+    }
+
+    @Test
+    void shouldReadGoalRevenueFromDailyRollupWhenBackfillIsComplete() {
+        when(userRepository.findByEmailIgnoreCase("test@example.com"))
+                .thenReturn(Optional.of(testUser));
+        when(membershipRepository.findByBusinessIdAndUserId(testBusiness.getId(), testUser.getId()))
+                .thenReturn(Optional.of(activeMembership));
+        when(goalRepository.findByIdAndBusinessId(testGoal.getId(), testBusiness.getId()))
+                .thenReturn(Optional.of(testGoal));
+        when(rollupService.isBackfillComplete()).thenReturn(true);
+        when(rollupRepository.findGoalRevenueByCategory(List.of(testGoal.getId())))
+                .thenReturn(List.<Object[]>of(revenueRow(testGoal, "Ropa", "5000.00")));
+
+        GoalReportResponse result = goalService.getGoalReport("test@example.com", testBusiness.getId(), testGoal.getId());
+
+        assertThat(result.totalActualRevenue()).isEqualByComparingTo("5000.00");
+        verifyNoInteractions(saleRepository);
+    }
+
+    @Test
+    void shouldNotQueryRevenueForGoalsWithoutTargets() {
+        Goal emptyGoal = Goal.builder()
+                .id(UUID.randomUUID())
+                .business(testBusiness)
+                .name("Meta vacía")
+                .periodStart(LocalDate.of(2025, 1, 1))
+                .periodEnd(LocalDate.of(2025, 3, 31))
+                .build();
+
+        when(userRepository.findByEmailIgnoreCase("test@example.com"))
+                .thenReturn(Optional.of(testUser));
+        when(membershipRepository.findByBusinessIdAndUserId(testBusiness.getId(), testUser.getId()))
+                .thenReturn(Optional.of(activeMembership));
+        when(goalRepository.findHistoricalGoals(eq(testBusiness.getId()), any(LocalDate.class)))
+                .thenReturn(List.of(emptyGoal));
+
+        List<GoalReportResponse> result = goalService.getHistoricalReport("test@example.com", testBusiness.getId());
+
+        assertThat(result.get(0).totalActualRevenue()).isEqualByComparingTo(BigDecimal.ZERO);
+        verifyNoInteractions(saleRepository, rollupRepository);
+    }
+
+    private static Object[] revenueRow(Goal goal, String categoryName, String revenue) {
+        return new Object[]{goal.getId(), categoryName, new BigDecimal(revenue)};
+    }
 }
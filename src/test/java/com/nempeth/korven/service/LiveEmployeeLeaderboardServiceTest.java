@@ -0,0 +1,213 @@
+package com.nempeth.korven.service;
+
+import com.nempeth.korven.event.SaleClosedEvent;
+import com.nempeth.korven.persistence.entity.User;
+import com.nempeth.korven.persistence.projection.EmployeeSalesTotals;
+import com.nempeth.korven.persistence.repository.BusinessMembershipRepository;
+import com.nempeth.korven.persistence.repository.SaleRepository;
+import com.nempeth.korven.persistence.repository.UserRepository;
+import com.nempeth.korven.rest.dto.LiveEmployeeLeaderboardResponse;
+import com.nempeth.korven.utils.BusinessTime;
+import com.nempeth.korven.utils.SalesLeaderboard;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LiveEmployeeLeaderboardServiceTest {
+
+    private static final BusinessTime BUSINESS_TIME = new BusinessTime("America/Argentina/Buenos_Aires");
+
+    @Mock
+    private SaleRepository saleRepository;
+
+    @Mock
+    private BusinessDataVersionService dataVersionService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private BusinessMembershipRepository membershipRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private Cache cache;
+    private LiveEmployeeLeaderboardService leaderboardService;
+    private UUID businessId;
+    private UUID ana;
+    private UUID beto;
+
+    @BeforeEach
+    void setUp() {
+        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(LiveEmployeeLeaderboardService.CACHE_NAME);
+        cache = cacheManager.getCache(LiveEmployeeLeaderboardService.CACHE_NAME);
+        leaderboardService = new LiveEmployeeLeaderboardService(cacheManager, saleRepository, dataVersionService,
+                userRepository, membershipRepository, BUSINESS_TIME, transactionManager);
+        businessId = UUID.randomUUID();
+        ana = UUID.randomUUID();
+        beto = UUID.randomUUID();
+    }
+
+    @Test
+    void getLeaderboard_shouldLoadTheMonthAndReturnTopAndOwnPosition() {
+        // Given
+        User user = User.builder().id(beto).email("beto@example.com").build();
+        when(userRepository.findByEmailIgnoreCase("beto@example.com")).thenReturn(Optional.of(user));
+        when(membershipRepository.existsByBusinessIdAndUserId(businessId, beto)).thenReturn(true);
+        when(dataVersionService.current(businessId)).thenReturn(3L);
+        when(saleRepository.findEmployeeSalesTotals(any(), any(), any())).thenReturn(List.of(
+                new EmployeeSalesTotals(ana, "Ana", "Pérez", 4L, new BigDecimal("400.00")),
+                new EmployeeSalesTotals(beto, "Beto", null, 1L, new BigDecimal("50.00"))));
+
+        // When
+        LiveEmployeeLeaderboardResponse response = leaderboardService.getLeaderboard("beto@example.com", businessId, 1);
+
+        // Then
+        assertThat(response.month()).isEqualTo(BUSINESS_TIME.currentMonth());
+        assertThat(response.employeeCount()).isEqualTo(2);
+        assertThat(response.top()).hasSize(1);
+        assertThat(response.top().get(0).name()).isEqualTo("Ana");
+        assertThat(response.top().get(0).revenue()).isEqualByComparingTo("400.00");
+        assertThat(response.top().get(0).currentUser()).isFalse();
+        assertThat(response.currentUser().position()).isEqualTo(2);
+        assertThat(response.currentUser().lastName()).isEmpty();
+        assertThat(response.currentUser().currentUser()).isTrue();
+        assertThat(cache.get(businessId, SalesLeaderboard.class).dataVersion()).isEqualTo(3);
+    }
+
+    @Test
+    void getLeaderboard_shouldRejectUsersOutsideTheBusiness() {
+        // Given
+        User user = User.builder().id(ana).email("ana@example.com").build();
+        when(userRepository.findByEmailIgnoreCase("ana@example.com")).thenReturn(Optional.of(user));
+        when(membershipRepository.existsByBusinessIdAndUserId(businessId, ana)).thenReturn(false);
+
+        // When & Then
+        assertThatThrownBy(() -> leaderboardService.getLeaderboard("ana@example.com", businessId, 10))
+                .isInstanceOf(AccessDeniedException.class);
+        verifyNoInteractions(saleRepository);
+    }
+
+    @Test
+    void getLeaderboard_shouldRejectLimitsOutOfRange() {
+        assertThatThrownBy(() -> leaderboardService.getLeaderboard("ana@example.com", businessId, 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("El límite debe estar entre 1 y 100");
+    }
+
+    @Test
+    void onSaleClosed_shouldAddSalesOfTheNextVersion() {
+        // Given
+        SalesLeaderboard board = new SalesLeaderboard(BUSINESS_TIME.currentMonth(), 4);
+        board.add(ana, "Ana", "Pérez", 1, 10_000);
+        board.add(beto, "Beto", "Gómez", 1, 5_000);
+        cache.put(businessId, board);
+        List<UUID> saleIds = List.of(UUID.randomUUID(), UUID.randomUUID());
+        when(saleRepository.findEmployeeSalesTotalsBySaleIds(saleIds)).thenReturn(List.of(
+                new EmployeeSalesTotals(beto, "Beto", "Gómez", 2L, new BigDecimal("60.00"))));
+
+        // When
+        leaderboardService.onSaleClosed(new SaleClosedEvent(businessId, saleIds, OffsetDateTime.now(), 5));
+
+        // Then
+        assertThat(board.dataVersion()).isEqualTo(5);
+        assertThat(board.standingOf(beto).position()).isEqualTo(1);
+        assertThat(board.standingOf(beto).revenueCents()).isEqualTo(11_000);
+        assertThat(board.standingOf(beto).salesCount()).isEqualTo(3);
+        assertThat(cache.get(businessId, SalesLeaderboard.class)).isSameAs(board);
+    }
+
+    @Test
+    void onSaleClosed_shouldEvictBoard_whenAVersionWasSkipped() {
+        // Given
+        cache.put(businessId, new SalesLeaderboard(BUSINESS_TIME.currentMonth(), 4));
+
+        // When
+        leaderboardService.onSaleClosed(new SaleClosedEvent(businessId, List.of(UUID.randomUUID()), OffsetDateTime.now(), 6));
+
+        // Then: se recarga en la próxima consulta
+        assertThat(cache.get(businessId)).isNull();
+        verifyNoInteractions(saleRepository);
+    }
+
+    @Test
+    void onSaleClosed_shouldIgnoreVersionsAlreadyLoaded() {
+        // Given
+        SalesLeaderboard board = new SalesLeaderboard(BUSINESS_TIME.currentMonth(), 6);
+        cache.put(businessId, board);
+
+        // When
+        leaderboardService.onSaleClosed(new SaleClosedEvent(businessId, List.of(UUID.randomUUID()), OffsetDateTime.now(), 6));
+
+        // Then
+        assertThat(cache.get(businessId, SalesLeaderboard.class)).isSameAs(board);
+        verifyNoInteractions(saleRepository);
+    }
+
+    @Test
+    void getBoard_shouldReloadWhenTheMonthChanged() {
+        // Given
+        YearMonth lastMonth = BUSINESS_TIME.currentMonth().minusMonths(1);
+        cache.put(businessId, new SalesLeaderboard(lastMonth, 9));
+        when(dataVersionService.current(businessId)).thenReturn(9L);
+        when(saleRepository.findEmployeeSalesTotals(any(), any(), any())).thenReturn(List.of());
+
+        // When
+        SalesLeaderboard board = leaderboardService.getBoard(businessId);
+
+        // Then
+        assertThat(board.month()).isEqualTo(BUSINESS_TIME.currentMonth());
+        assertThat(board.size()).isZero();
+        verify(saleRepository).findEmployeeSalesTotals(businessId,
+                BUSINESS_TIME.startOf(BUSINESS_TIME.currentMonth()), BUSINESS_TIME.endOf(BUSINESS_TIME.currentMonth()));
+    }
+
+    @Test
+    void getBoard_shouldKeepCachedBoard_whenItIsAtTheCurrentVersion() {
+        // Given
+        SalesLeaderboard board = new SalesLeaderboard(BUSINESS_TIME.currentMonth(), 9);
+        cache.put(businessId, board);
+        when(dataVersionService.current(businessId)).thenReturn(9L);
+
+        // When & Then
+        assertThat(leaderboardService.getBoard(businessId)).isSameAs(board);
+        verifyNoInteractions(saleRepository);
+    }
+
+    @Test
+    void getBoard_shouldReload_whenAnotherInstanceClosedSales() {
+        // Given
+        cache.put(businessId, new SalesLeaderboard(BUSINESS_TIME.currentMonth(), 9));
+        when(dataVersionService.current(businessId)).thenReturn(10L);
+        when(saleRepository.findEmployeeSalesTotals(any(), any(), any())).thenReturn(List.of(
+                new EmployeeSalesTotals(ana, "Ana", "Pérez", 1L, new BigDecimal("30.00"))));
+
+        // When
+        SalesLeaderboard board = leaderboardService.getBoard(businessId);
+
+        // Then
+        assertThat(board.dataVersion()).isEqualTo(10);
+        assertThat(board.standingOf(ana).revenueCents()).isEqualTo(3_000);
+        assertThat(cache.get(businessId, SalesLeaderboard.class)).isSameAs(board);
+    }
+}
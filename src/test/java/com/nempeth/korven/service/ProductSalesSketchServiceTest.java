@@ -0,0 +1,128 @@
+package com.nempeth.korven.service;
+
+import com.nempeth.korven.constants.ProductRankingMetric;
+import com.nempeth.korven.event.SaleClosedEvent;
+import com.nempeth.korven.persistence.entity.ProductSalesSketch;
+import com.nempeth.korven.persistence.projection.SaleCubeFact;
+import com.nempeth.korven.persistence.repository.ProductSalesSketchRepository;
+import com.nempeth.korven.persistence.repository.SaleItemRepository;
+import com.nempeth.korven.utils.BusinessTime;
+import com.nempeth.korven.utils.SpaceSavingSketch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductSalesSketchServiceTest {
+
+    private static final BusinessTime BUSINESS_TIME = new BusinessTime("America/Argentina/Buenos_Aires");
+
+    @Mock
+    private ProductSalesSketchRepository sketchRepository;
+
+    @Mock
+    private SaleItemRepository saleItemRepository;
+
+    @Mock
+    private RollupBackfillService backfillService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ProductSalesSketchService sketchService;
+    private UUID businessId;
+    private List<UUID> saleIds;
+
+    @BeforeEach
+    void setUp() {
+        sketchService = new ProductSalesSketchService(sketchRepository, saleItemRepository, backfillService,
+                BUSINESS_TIME, transactionManager);
+        businessId = UUID.randomUUID();
+        saleIds = List.of(UUID.randomUUID());
+        // 1 de abril 01:00 UTC todavía es 31 de marzo en Buenos Aires
+        when(saleItemRepository.findCubeFactsBySaleIds(saleIds)).thenReturn(List.of(
+                new SaleCubeFact("Bebidas", "Agua", "Ana", null, OffsetDateTime.of(2025, 4, 1, 1, 0, 0, 0, ZoneOffset.UTC),
+                        new BigDecimal("30.00"), new BigDecimal("10.00"), 3),
+                new SaleCubeFact("Comidas", "Pizza", "Ana", null, OffsetDateTime.of(2025, 4, 1, 1, 0, 0, 0, ZoneOffset.UTC),
+                        new BigDecimal("120.50"), new BigDecimal("40.00"), 1)));
+    }
+
+    @Test
+    void top_shouldIncludeSalesNotFlushedYet() {
+        // Given
+        SpaceSavingSketch stored = new SpaceSavingSketch(ProductSalesSketchService.SKETCH_CAPACITY);
+        stored.offer("Pizza", 4);
+        when(sketchRepository.findByBusinessAndMonths(businessId, ProductRankingMetric.UNITS,
+                LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 1)))
+                .thenReturn(List.of(ProductSalesSketch.builder().sketch(stored.toBytes()).build()));
+
+        // When
+        sketchService.onSaleClosed(new SaleClosedEvent(businessId, saleIds, OffsetDateTime.now(), 1));
+        List<SpaceSavingSketch.Entry> top = sketchService.top(businessId, YearMonth.of(2025, 3), YearMonth.of(2025, 3),
+                ProductRankingMetric.UNITS, 10);
+
+        // Then
+        assertThat(top).containsExactly(
+                new SpaceSavingSketch.Entry("Pizza", 5, 0),
+                new SpaceSavingSketch.Entry("Agua", 3, 0));
+    }
+
+    @Test
+    void flush_shouldMergePendingSketchesIntoStoredRows() {
+        // Given
+        sketchService.onSaleClosed(new SaleClosedEvent(businessId, saleIds, OffsetDateTime.now(), 1));
+        ProductSalesSketch revenueRow = ProductSalesSketch.builder()
+                .sketch(new SpaceSavingSketch(ProductSalesSketchService.SKETCH_CAPACITY).toBytes())
+                .build();
+        ProductSalesSketch unitsRow = ProductSalesSketch.builder()
+                .sketch(new SpaceSavingSketch(ProductSalesSketchService.SKETCH_CAPACITY).toBytes())
+                .build();
+        LocalDate march = LocalDate.of(2025, 3, 1);
+        when(sketchRepository.findForUpdate(businessId, march, ProductRankingMetric.REVENUE)).thenReturn(Optional.of(revenueRow));
+        when(sketchRepository.findForUpdate(businessId, march, ProductRankingMetric.UNITS)).thenReturn(Optional.of(unitsRow));
+
+        // When
+        int flushed = sketchService.flush();
+
+        // Then: ingresos en centavos
+        assertThat(flushed).isEqualTo(2);
+        assertThat(SpaceSavingSketch.fromBytes(revenueRow.getSketch()).top(1))
+                .containsExactly(new SpaceSavingSketch.Entry("Pizza", 12050, 0));
+        verify(sketchRepository).insertIfMissing(eq(businessId), eq(march), eq("UNITS"), any());
+        assertThat(sketchService.flush()).isZero();
+    }
+
+    @Test
+    void flush_shouldKeepPendingSketch_whenSavingFails() {
+        // Given
+        sketchService.onSaleClosed(new SaleClosedEvent(businessId, saleIds, OffsetDateTime.now(), 1));
+        when(sketchRepository.findForUpdate(any(), any(), any())).thenThrow(new QueryTimeoutException("timeout"));
+
+        // When
+        assertThatThrownBy(() -> sketchService.flush()).isInstanceOf(QueryTimeoutException.class);
+
+        // Then: sigue disponible para consultas y para el próximo intento
+        List<SpaceSavingSketch.Entry> top = sketchService.top(businessId, YearMonth.of(2025, 3), YearMonth.of(2025, 3),
+                ProductRankingMetric.UNITS, 10);
+        assertThat(top).extracting(SpaceSavingSketch.Entry::item).containsExactly("Agua", "Pizza");
+    }
+}
@@ -43,6 +43,9 @@ class ProductServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private ProductSnapshotCacheService productSnapshotCacheService;
+
     @InjectMocks
     private ProductService productService;
 
@@ -134,6 +137,7 @@ class ProductServiceTest {
         assertThat(createdId).isNotNull();
         assertThat(createdId).isEqualTo(productId);
         verify(productRepository).save(any(Product.class));
+        verify(productSnapshotCacheService).evict(businessId);
     }
 
     @Test
@@ -298,6 +302,7 @@ class ProductServiceTest {
 
         // Then
         verify(productRepository).save(any(Product.class));
+        verify(productSnapshotCacheService).evict(businessId);
     }
 
     @Test
@@ -333,6 +338,7 @@ class ProductServiceTest {
 
         // Then
         verify(productRepository).delete(testProduct);
+        verify(productSnapshotCacheService).evict(businessId);
     }
 
     @Test
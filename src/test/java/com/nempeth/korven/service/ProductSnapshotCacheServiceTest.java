@@ -0,0 +1,132 @@
+package com.nempeth.korven.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nempeth.korven.persistence.projection.ProductSnapshot;
+import com.nempeth.korven.persistence.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ProductSnapshotCacheService Tests")
+class ProductSnapshotCacheServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private BusinessDataVersionService dataVersionService;
+
+    private ProductSnapshotCacheService cacheService;
+
+    private UUID businessId;
+    private ProductSnapshot beer;
+    private ProductSnapshot fries;
+
+    @BeforeEach
+    void setUp() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(ProductSnapshotCacheService.CACHE_NAME, Caffeine.newBuilder().build());
+        cacheService = new ProductSnapshotCacheService(cacheManager, productRepository, dataVersionService);
+
+        businessId = UUID.randomUUID();
+        beer = new ProductSnapshot(UUID.randomUUID(), "Cerveza", "Bebidas", new BigDecimal("10.00"), new BigDecimal("4.00"));
+        fries = new ProductSnapshot(UUID.randomUUID(), "Papas", "Comidas", new BigDecimal("8.00"), new BigDecimal("2.00"));
+    }
+
+    @Test
+    @DisplayName("Should load the business products once and serve later lookups from memory")
+    void shouldServeRepeatedLookupsFromCache() {
+        // Given
+        when(productRepository.findSnapshotsByBusinessId(businessId)).thenReturn(List.of(beer, fries));
+
+        // When
+        cacheService.find(businessId, beer.id());
+        cacheService.find(businessId, fries.id());
+        cacheService.findAll(businessId, List.of(beer.id(), fries.id()));
+
+        // Then
+        verify(productRepository, times(1)).findSnapshotsByBusinessId(businessId);
+        verify(productRepository, never()).findSnapshotsByBusinessIdAndIdIn(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should reload the business products after eviction")
+    void shouldReloadAfterEvict() {
+        // Given
+        ProductSnapshot repriced = new ProductSnapshot(beer.id(), "Cerveza", "Bebidas", new BigDecimal("12.00"), new BigDecimal("4.00"));
+        when(productRepository.findSnapshotsByBusinessId(businessId))
+                .thenReturn(List.of(beer))
+                .thenReturn(List.of(repriced));
+
+        // When
+        ProductSnapshot before = cacheService.find(businessId, beer.id()).orElseThrow();
+        cacheService.evict(businessId);
+        ProductSnapshot after = cacheService.find(businessId, beer.id()).orElseThrow();
+
+        // Then
+        assertThat(before.price()).isEqualByComparingTo("10.00");
+        assertThat(after.price()).isEqualByComparingTo("12.00");
+        verify(dataVersionService).incrementCatalog(businessId);
+    }
+
+    @Test
+    @DisplayName("Should reload the business products when another instance bumped the catalog version")
+    void shouldReloadWhenCatalogVersionAdvances() {
+        // Given
+        ProductSnapshot repriced = new ProductSnapshot(beer.id(), "Cerveza", "Bebidas", new BigDecimal("12.00"), new BigDecimal("4.00"));
+        when(dataVersionService.catalogVersion(businessId)).thenReturn(3L, 3L, 4L);
+        when(productRepository.findSnapshotsByBusinessId(businessId))
+                .thenReturn(List.of(beer))
+                .thenReturn(List.of(repriced));
+
+        // When
+        cacheService.find(businessId, beer.id());
+        ProductSnapshot sameVersion = cacheService.find(businessId, beer.id()).orElseThrow();
+        ProductSnapshot newVersion = cacheService.find(businessId, beer.id()).orElseThrow();
+
+        // Then
+        assertThat(sameVersion.price()).isEqualByComparingTo("10.00");
+        assertThat(newVersion.price()).isEqualByComparingTo("12.00");
+        verify(productRepository, times(2)).findSnapshotsByBusinessId(businessId);
+        verify(dataVersionService, never()).incrementCatalog(any());
+    }
+
+    @Test
+    @DisplayName("Should fall back to the database for products missing from the cached snapshot")
+    void shouldFallBackToDatabaseForMissingProducts() {
+        // Given
+        when(productRepository.findSnapshotsByBusinessId(businessId)).thenReturn(List.of(beer));
+        when(productRepository.findSnapshotsByBusinessIdAndIdIn(businessId, List.of(fries.id()))).thenReturn(List.of(fries));
+
+        // When
+        Map<UUID, ProductSnapshot> result = cacheService.findAll(businessId, List.of(beer.id(), fries.id()));
+
+        // Then
+        assertThat(result).containsOnlyKeys(beer.id(), fries.id());
+    }
+
+    @Test
+    @DisplayName("Should return empty for products that do not belong to the business")
+    void shouldReturnEmptyForUnknownProduct() {
+        // Given
+        UUID unknownId = UUID.randomUUID();
+        when(productRepository.findSnapshotsByBusinessId(businessId)).thenReturn(List.of(beer));
+        when(productRepository.findSnapshotsByBusinessIdAndIdIn(businessId, List.of(unknownId))).thenReturn(List.of());
+
+        // When & Then
+        assertThat(cacheService.find(businessId, unknownId)).isEmpty();
+    }
+}
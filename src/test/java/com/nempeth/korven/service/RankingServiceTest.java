@@ -4,27 +4,29 @@ import com.nempeth.korven.constants.MembershipRole;
 import com.nempeth.korven.constants.MembershipStatus;
 import com.nempeth.korven.persistence.entity.Business;
 import com.nempeth.korven.persistence.entity.BusinessMembership;
-import com.nempeth.korven.persistence.entity.Sale;
 import com.nempeth.korven.persistence.entity.User;
+import com.nempeth.korven.persistence.projection.EmployeeSalesTotals;
 import com.nempeth.korven.persistence.repository.BusinessMembershipRepository;
 import com.nempeth.korven.persistence.repository.BusinessRepository;
 import com.nempeth.korven.persistence.repository.SaleRepository;
 import com.nempeth.korven.persistence.repository.UserRepository;
 import com.nempeth.korven.rest.dto.BusinessRankingResponse;
 import com.nempeth.korven.rest.dto.EmployeeRankingResponse;
+import com.nempeth.korven.utils.BusinessTime;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.access.AccessDeniedException;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.OffsetDateTime;
-import java.util.ArrayList;
+import java.time.YearMonth;
+import java.time.ZoneId;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -51,6 +53,12 @@ class RankingServiceTest {
     @Mock
     private SaleRepository saleRepository;
 
+    @Mock
+    private BusinessRankingSnapshotService businessRankingSnapshotService;
+
+    @Spy
+    private BusinessTime businessTime = new BusinessTime("America/Argentina/Buenos_Aires");
+
     @InjectMocks
     private RankingService rankingService;
 
@@ -131,21 +139,12 @@ class RankingServiceTest {
                 .thenReturn(Optional.of(testBusiness));
         when(businessMembershipRepository.existsByBusinessIdAndUserId(businessId, testUser1.getId()))
                 .thenReturn(true);
-        when(businessMembershipRepository.findByBusinessId(businessId))
-                .thenReturn(List.of(membership1, membership2, membership3));
-
-        // Create mock sales for current month
-        List<Sale> salesUser1 = createMockSales(5, new BigDecimal("156000"));
-        List<Sale> salesUser2 = createMockSales(4, new BigDecimal("142000"));
-        List<Sale> salesUser3 = createMockSales(3, new BigDecimal("128000"));
-
-        // Mock the repository method with any date range (current month)
-        when(saleRepository.findByBusinessIdAndCreatedByUserIdAndOccurredAtBetweenOrderByOccurredAtDesc(
-                eq(businessId), eq(testUser1.getId()), any(), any())).thenReturn(salesUser1);
-        when(saleRepository.findByBusinessIdAndCreatedByUserIdAndOccurredAtBetweenOrderByOccurredAtDesc(
-                eq(businessId), eq(testUser2.getId()), any(), any())).thenReturn(salesUser2);
-        when(saleRepository.findByBusinessIdAndCreatedByUserIdAndOccurredAtBetweenOrderByOccurredAtDesc(
-                eq(businessId), eq(testUser3.getId()), any(), any())).thenReturn(salesUser3);
+        // One grouped row per member, in no particular order
+        when(saleRepository.findEmployeeSalesTotals(eq(businessId), any(), any())).thenReturn(List.of(
+                new EmployeeSalesTotals(testUser3.getId(), testUser3.getName(), testUser3.getLastName(), 3L, new BigDecimal("128000")),
+                new EmployeeSalesTotals(testUser1.getId(), testUser1.getName(), testUser1.getLastName(), 5L, new BigDecimal("156000")),
+                new EmployeeSalesTotals(testUser2.getId(), testUser2.getName(), testUser2.getLastName(), 4L, new BigDecimal("142000"))
+        ));
 
         // When
         List<EmployeeRankingResponse> rankings = rankingService.getEmployeeRankings(userEmail, businessId);
@@ -236,11 +235,10 @@ class RankingServiceTest {
                 .thenReturn(Optional.of(testBusiness));
         when(businessMembershipRepository.existsByBusinessIdAndUserId(businessId, testUser1.getId()))
                 .thenReturn(true);
-        when(businessMembershipRepository.findByBusinessId(businessId))
-                .thenReturn(List.of(membership1));
-
-        when(saleRepository.findByBusinessIdAndCreatedByUserIdAndOccurredAtBetweenOrderByOccurredAtDesc(
-                eq(businessId), eq(testUser1.getId()), any(), any())).thenReturn(List.of());
+        // Members without sales come back from the LEFT JOIN with count 0 and a null sum
+        when(saleRepository.findEmployeeSalesTotals(eq(businessId), any(), any())).thenReturn(List.of(
+                new EmployeeSalesTotals(testUser1.getId(), testUser1.getName(), testUser1.getLastName(), 0L, null)
+        ));
 
         // When
         List<EmployeeRankingResponse> rankings = rankingService.getEmployeeRankings(userEmail, businessId);
@@ -253,32 +251,15 @@ class RankingServiceTest {
     }
 
     @Test
-    @DisplayName("Should return business rankings sorted by composite score")
-    void shouldReturnBusinessRankingsSortedByCompositeScore() {
+    @DisplayName("Should serve business rankings from the snapshot in order")
+    void shouldServeBusinessRankingsFromSnapshot() {
         // Given
         String userEmail = "user1@example.com";
-        
-        Business business1 = Business.builder()
-                .id(UUID.randomUUID())
-                .name("Top Business")
-                .joinCode("CODE1")
-                .build();
-        
-        Business business2 = Business.builder()
-                .id(UUID.randomUUID())
-                .name("Mid Business")
-                .joinCode("CODE2")
-                .build();
-        
-        Business business3 = Business.builder()
-                .id(UUID.randomUUID())
-                .name("Low Business")
-                .joinCode("CODE3")
-                .build();
+        UUID topBusinessId = UUID.randomUUID();
 
         BusinessMembership userMembership = BusinessMembership.builder()
                 .id(UUID.randomUUID())
-                .business(business1)
+                .business(Business.builder().id(topBusinessId).name("Top Business").joinCode("CODE1").build())
                 .user(testUser1)
                 .role(MembershipRole.OWNER)
                 .status(MembershipStatus.ACTIVE)
@@ -288,52 +269,32 @@ class RankingServiceTest {
                 .thenReturn(Optional.of(testUser1));
         when(businessMembershipRepository.findByUserId(testUser1.getId()))
                 .thenReturn(List.of(userMembership));
-        when(businessRepository.findAll())
-                .thenReturn(List.of(business1, business2, business3));
-
-        // Mock sales for current and previous month
-        List<Sale> currentSalesB1 = createMockSalesWithTimestamp(10, new BigDecimal("500000"), OffsetDateTime.now());
-        List<Sale> previousSalesB1 = createMockSalesWithTimestamp(8, new BigDecimal("400000"), OffsetDateTime.now().minusMonths(1));
-        
-        List<Sale> currentSalesB2 = createMockSalesWithTimestamp(7, new BigDecimal("350000"), OffsetDateTime.now());
-        List<Sale> previousSalesB2 = createMockSalesWithTimestamp(6, new BigDecimal("300000"), OffsetDateTime.now().minusMonths(1));
-        
-        List<Sale> currentSalesB3 = createMockSalesWithTimestamp(3, new BigDecimal("150000"), OffsetDateTime.now());
-        List<Sale> previousSalesB3 = createMockSalesWithTimestamp(2, new BigDecimal("100000"), OffsetDateTime.now().minusMonths(1));
-
-        // Mock current month sales
-        when(saleRepository.findByBusinessIdAndOccurredAtBetweenOrderByOccurredAtDesc(
-                eq(business1.getId()), any(), any())).thenReturn(currentSalesB1, previousSalesB1);
-        when(saleRepository.findByBusinessIdAndOccurredAtBetweenOrderByOccurredAtDesc(
-                eq(business2.getId()), any(), any())).thenReturn(currentSalesB2, previousSalesB2);
-        when(saleRepository.findByBusinessIdAndOccurredAtBetweenOrderByOccurredAtDesc(
-                eq(business3.getId()), any(), any())).thenReturn(currentSalesB3, previousSalesB3);
+        when(businessRankingSnapshotService.current()).thenReturn(leaderboard(
+                new BusinessRankingSnapshotService.Entry(topBusinessId, "Top Business", new BigDecimal("80.50"), 1),
+                new BusinessRankingSnapshotService.Entry(UUID.randomUUID(), "Mid Business", new BigDecimal("55.00"), 2),
+                new BusinessRankingSnapshotService.Entry(UUID.randomUUID(), "Low Business", new BigDecimal("20.25"), 3)
+        ));
 
         // When
         List<BusinessRankingResponse> rankings = rankingService.getBusinessRankings(userEmail);
 
         // Then
         assertThat(rankings).hasSize(3);
-        
-        // Verify rankings are sorted by composite score (descending)
+
         assertThat(rankings.get(0).businessName()).isEqualTo("Top Business");
         assertThat(rankings.get(0).position()).isEqualTo(1);
         assertThat(rankings.get(0).isOwnBusiness()).isTrue();
-        assertThat(rankings.get(0).compositeScore()).isGreaterThan(BigDecimal.ZERO);
-        
+        assertThat(rankings.get(0).compositeScore()).isEqualByComparingTo("80.50");
+
         assertThat(rankings.get(1).businessName()).isEqualTo("Mid Business");
         assertThat(rankings.get(1).position()).isEqualTo(2);
         assertThat(rankings.get(1).isOwnBusiness()).isFalse();
-        
+
         assertThat(rankings.get(2).businessName()).isEqualTo("Low Business");
         assertThat(rankings.get(2).position()).isEqualTo(3);
         assertThat(rankings.get(2).isOwnBusiness()).isFalse();
-        
-        // Verify scores are in descending order
-        assertThat(rankings.get(0).compositeScore())
-                .isGreaterThanOrEqualTo(rankings.get(1).compositeScore());
-        assertThat(rankings.get(1).compositeScore())
-                .isGreaterThanOrEqualTo(rankings.get(2).compositeScore());
+
+        verifyNoInteractions(saleRepository);
     }
 
     @Test
@@ -352,7 +313,7 @@ class RankingServiceTest {
 
         // Then
         assertThat(rankings).isEmpty();
-        verify(businessRepository, never()).findAll();
+        verify(businessRankingSnapshotService, never()).current();
     }
 
     @Test
@@ -370,61 +331,6 @@ class RankingServiceTest {
                 .hasMessage("Usuario no encontrado");
     }
 
-    @Test
-    @DisplayName("Should handle businesses with zero sales")
-    void shouldHandleBusinessesWithZeroSales() {
-        // Given
-        String userEmail = "user1@example.com";
-        
-        Business businessWithSales = Business.builder()
-                .id(UUID.randomUUID())
-                .name("Active Business")
-                .joinCode("ACTIVE")
-                .build();
-        
-        Business businessWithoutSales = Business.builder()
-                .id(UUID.randomUUID())
-                .name("Inactive Business")
-                .joinCode("INACTIVE")
-                .build();
-
-        BusinessMembership membership = BusinessMembership.builder()
-                .id(UUID.randomUUID())
-                .business(businessWithSales)
-                .user(testUser1)
-                .role(MembershipRole.OWNER)
-                .status(MembershipStatus.ACTIVE)
-                .build();
-
-        when(userRepository.findByEmailIgnoreCase(userEmail))
-                .thenReturn(Optional.of(testUser1));
-        when(businessMembershipRepository.findByUserId(testUser1.getId()))
-                .thenReturn(List.of(membership));
-        when(businessRepository.findAll())
-                .thenReturn(List.of(businessWithSales, businessWithoutSales));
-
-        List<Sale> sales = createMockSalesWithTimestamp(5, new BigDecimal("250000"), OffsetDateTime.now());
-        
-        when(saleRepository.findByBusinessIdAndOccurredAtBetweenOrderByOccurredAtDesc(
-                eq(businessWithSales.getId()), any(), any())).thenReturn(sales, List.of());
-        when(saleRepository.findByBusinessIdAndOccurredAtBetweenOrderByOccurredAtDesc(
-                eq(businessWithoutSales.getId()), any(), any())).thenReturn(List.of(), List.of());
-
-        // When
-        List<BusinessRankingResponse> rankings = rankingService.getBusinessRankings(userEmail);
-
-        // Then
-        assertThat(rankings).hasSize(2);
-        
-        // Business with sales should be first
-        assertThat(rankings.get(0).businessName()).isEqualTo("Active Business");
-        assertThat(rankings.get(0).compositeScore()).isGreaterThan(BigDecimal.ZERO);
-        
-        // Business without sales should be last with zero score
-        assertThat(rankings.get(1).businessName()).isEqualTo("Inactive Business");
-        assertThat(rankings.get(1).compositeScore()).isEqualTo(BigDecimal.ZERO);
-    }
-
     @Test
     @DisplayName("Should correctly identify own vs other businesses")
     void shouldCorrectlyIdentifyOwnBusinesses() {
@@ -469,12 +375,11 @@ class RankingServiceTest {
                 .thenReturn(Optional.of(testUser1));
         when(businessMembershipRepository.findByUserId(testUser1.getId()))
                 .thenReturn(List.of(membership1, membership2));
-        when(businessRepository.findAll())
-                .thenReturn(List.of(ownBusiness1, ownBusiness2, otherBusiness));
-
-        // Mock empty sales for all businesses
-        when(saleRepository.findByBusinessIdAndOccurredAtBetweenOrderByOccurredAtDesc(
-                any(), any(), any())).thenReturn(List.of());
+        when(businessRankingSnapshotService.current()).thenReturn(leaderboard(
+                entry(ownBusiness1, 1),
+                entry(otherBusiness, 2),
+                entry(ownBusiness2, 3)
+        ));
 
         // When
         List<BusinessRankingResponse> rankings = rankingService.getBusinessRankings(userEmail);
@@ -509,23 +414,15 @@ class RankingServiceTest {
     }
 
     @Test
-    @DisplayName("Should assign sequential positions starting from 1")
-    void shouldAssignSequentialPositions() {
+    @DisplayName("Should read past months from the stored snapshot history")
+    void shouldReadPastMonthsFromSnapshotHistory() {
         // Given
         String userEmail = "user1@example.com";
-        
-        List<Business> businesses = new ArrayList<>();
-        for (int i = 0; i < 5; i++) {
-            businesses.add(Business.builder()
-                    .id(UUID.randomUUID())
-                    .name("Business " + (i + 1))
-                    .joinCode("CODE" + i)
-                    .build());
-        }
+        YearMonth lastMonth = businessTime.currentMonth().minusMonths(1);
 
         BusinessMembership membership = BusinessMembership.builder()
                 .id(UUID.randomUUID())
-                .business(businesses.get(0))
+                .business(testBusiness)
                 .user(testUser1)
                 .role(MembershipRole.OWNER)
                 .status(MembershipStatus.ACTIVE)
@@ -535,57 +432,49 @@ class RankingServiceTest {
                 .thenReturn(Optional.of(testUser1));
         when(businessMembershipRepository.findByUserId(testUser1.getId()))
                 .thenReturn(List.of(membership));
-        when(businessRepository.findAll())
-                .thenReturn(businesses);
-        when(saleRepository.findByBusinessIdAndOccurredAtBetweenOrderByOccurredAtDesc(
-                any(), any(), any())).thenReturn(List.of());
+        when(businessRankingSnapshotService.getStored(lastMonth))
+                .thenReturn(List.of(entry(testBusiness, 1)));
 
         // When
-        List<BusinessRankingResponse> rankings = rankingService.getBusinessRankings(userEmail);
+        List<BusinessRankingResponse> rankings = rankingService.getBusinessRankingHistory(userEmail, lastMonth);
 
         // Then
-        assertThat(rankings).hasSize(5);
-        
-        for (int i = 0; i < 5; i++) {
-            assertThat(rankings.get(i).position()).isEqualTo(i + 1);
-        }
+        assertThat(rankings).hasSize(1);
+        assertThat(rankings.get(0).businessId()).isEqualTo(testBusiness.getId());
+        assertThat(rankings.get(0).isOwnBusiness()).isTrue();
+        verify(businessRankingSnapshotService, never()).current();
+    }
+
+    @Test
+    @DisplayName("Should reject business ranking history for future months")
+    void shouldRejectFutureMonthHistory() {
+        // Given
+        String userEmail = "user1@example.com";
+        YearMonth nextMonth = businessTime.currentMonth().plusMonths(1);
+
+        when(userRepository.findByEmailIgnoreCase(userEmail))
+                .thenReturn(Optional.of(testUser1));
+
+        // When & Then
+        assertThatThrownBy(() -> rankingService.getBusinessRankingHistory(userEmail, nextMonth))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("El mes no puede ser posterior al actual");
     }
 
     /**
-     * Helper method to create mock sales
+     * Helper method to build a snapshot entry for a business
      */
-    private List<Sale> createMockSales(int count, BigDecimal totalRevenue) {
-        List<Sale> sales = new ArrayList<>();
-        BigDecimal revenuePerSale = totalRevenue.divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP);
-        
-        for (int i = 0; i < count; i++) {
-            Sale sale = Sale.builder()
-                    .id(UUID.randomUUID())
-                    .totalAmount(revenuePerSale)
-                    .business(testBusiness)
-                    .build();
-            sales.add(sale);
-        }
-        
-        return sales;
+    private BusinessRankingSnapshotService.Entry entry(Business business, int position) {
+        return new BusinessRankingSnapshotService.Entry(
+                business.getId(), business.getName(), BigDecimal.valueOf(100 - position * 10L), position);
     }
 
     /**
-     * Helper method to create mock sales with timestamp
+     * Helper method to build a current month leaderboard.
+     * Reads the month without the spy: it is called while stubbing the snapshot service.
      */
-    private List<Sale> createMockSalesWithTimestamp(int count, BigDecimal totalRevenue, OffsetDateTime timestamp) {
-        List<Sale> sales = new ArrayList<>();
-        BigDecimal revenuePerSale = totalRevenue.divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP);
-        
-        for (int i = 0; i < count; i++) {
-            Sale sale = Sale.builder()
-                    .id(UUID.randomUUID())
-                    .totalAmount(revenuePerSale)
-                    .occurredAt(timestamp)
-                    .build();
-            sales.add(sale);
-        }
-        
-        return sales;
+    private BusinessRankingSnapshotService.Leaderboard leaderboard(BusinessRankingSnapshotService.Entry... entries) {
+        return new BusinessRankingSnapshotService.Leaderboard(
+                YearMonth.now(ZoneId.of("America/Argentina/Buenos_Aires")), OffsetDateTime.now(), List.of(entries));
     }
 }
@@ -0,0 +1,150 @@
+package com.nempeth.korven.service;
+
+import com.nempeth.korven.persistence.entity.RollupBackfillCheckpoint;
+import com.nempeth.korven.persistence.repository.RollupBackfillCheckpointRepository;
+import com.nempeth.korven.persistence.repository.SaleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RollupBackfillServiceTest {
+
+    private static final String JOB = "sale_daily_rollup";
+    private static final OffsetDateTime CUTOFF = OffsetDateTime.of(2025, 6, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    @Mock
+    private RollupBackfillCheckpointRepository checkpointRepository;
+
+    @Mock
+    private SaleRepository saleRepository;
+
+    @Mock
+    private RollupBackfillJob job;
+
+    private RollupBackfillService backfillService;
+
+    @BeforeEach
+    void setUp() {
+        backfillService = new RollupBackfillService(checkpointRepository, saleRepository, 7);
+    }
+
+    @Test
+    void constructor_shouldRejectNonPositiveChunk() {
+        assertThatThrownBy(() -> new RollupBackfillService(checkpointRepository, saleRepository, 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("El tramo de carga de agregados debe ser de al menos un día");
+    }
+
+    @Test
+    void backfillNextChunk_shouldLoadChunkStartingAtNextSaleAndAdvanceCheckpoint() {
+        // Given: el historial arranca varios meses después del último avance guardado
+        RollupBackfillCheckpoint checkpoint = checkpoint(CUTOFF.minusYears(1));
+        OffsetDateTime firstSale = CUTOFF.minusDays(30);
+        when(job.backfillJobName()).thenReturn(JOB);
+        when(checkpointRepository.findByJobNameForUpdate(JOB)).thenReturn(Optional.of(checkpoint));
+        when(saleRepository.findFirstOccurredAtBetween(checkpoint.getProcessedUntil(), CUTOFF)).thenReturn(firstSale);
+
+        // When
+        boolean more = backfillService.backfillNextChunk(job);
+
+        // Then
+        assertThat(more).isTrue();
+        verify(job).backfillChunk(firstSale, firstSale.plusDays(7));
+        assertThat(checkpoint.getProcessedUntil()).isEqualTo(firstSale.plusDays(7));
+        assertThat(checkpoint.getCompletedAt()).isNull();
+    }
+
+    @Test
+    void backfillNextChunk_shouldNotGoPastCutoff() {
+        // Given
+        OffsetDateTime lastSale = CUTOFF.minusDays(2);
+        RollupBackfillCheckpoint checkpoint = checkpoint(lastSale);
+        when(job.backfillJobName()).thenReturn(JOB);
+        when(checkpointRepository.findByJobNameForUpdate(JOB)).thenReturn(Optional.of(checkpoint));
+        when(saleRepository.findFirstOccurredAtBetween(lastSale, CUTOFF)).thenReturn(lastSale);
+
+        // When
+        backfillService.backfillNextChunk(job);
+
+        // Then: las ventas posteriores al corte ya las sumó el cierre
+        verify(job).backfillChunk(lastSale, CUTOFF);
+        assertThat(checkpoint.getProcessedUntil()).isEqualTo(CUTOFF);
+    }
+
+    @Test
+    void backfillNextChunk_shouldMarkCompleted_whenNoSalesLeftBeforeCutoff() {
+        // Given
+        RollupBackfillCheckpoint checkpoint = checkpoint(CUTOFF.minusDays(3));
+        when(job.backfillJobName()).thenReturn(JOB);
+        when(checkpointRepository.findByJobNameForUpdate(JOB)).thenReturn(Optional.of(checkpoint));
+        when(saleRepository.findFirstOccurredAtBetween(any(), any())).thenReturn(null);
+
+        // When
+        boolean more = backfillService.backfillNextChunk(job);
+
+        // Then
+        assertThat(more).isFalse();
+        assertThat(checkpoint.getProcessedUntil()).isEqualTo(CUTOFF);
+        assertThat(checkpoint.getCompletedAt()).isNotNull();
+        verify(job, never()).backfillChunk(any(), any());
+    }
+
+    @Test
+    void backfillNextChunk_shouldSkipJobsWithoutCheckpoint() {
+        // Given
+        when(job.backfillJobName()).thenReturn(JOB);
+        when(checkpointRepository.findByJobNameForUpdate(JOB)).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThat(backfillService.backfillNextChunk(job)).isFalse();
+        verifyNoInteractions(saleRepository);
+    }
+
+    @Test
+    void isComplete_shouldStopQueryingOnceCompleted() {
+        // Given
+        when(checkpointRepository.existsByJobNameAndCompletedAtIsNotNull(JOB)).thenReturn(false, true);
+
+        // When
+        boolean first = backfillService.isComplete(JOB);
+        boolean second = backfillService.isComplete(JOB);
+        boolean third = backfillService.isComplete(JOB);
+
+        // Then
+        assertThat(first).isFalse();
+        assertThat(second).isTrue();
+        assertThat(third).isTrue();
+        verify(checkpointRepository, times(2)).existsByJobNameAndCompletedAtIsNotNull(JOB);
+    }
+
+    @Test
+    void isComplete_shouldTrackEachJobSeparately() {
+        // Given
+        when(checkpointRepository.existsByJobNameAndCompletedAtIsNotNull(JOB)).thenReturn(true);
+        when(checkpointRepository.existsByJobNameAndCompletedAtIsNotNull("sale_hourly_rollup")).thenReturn(false);
+
+        // When & Then
+        assertThat(backfillService.isComplete(JOB)).isTrue();
+        assertThat(backfillService.isComplete("sale_hourly_rollup")).isFalse();
+    }
+
+    private RollupBackfillCheckpoint checkpoint(OffsetDateTime processedUntil) {
+        return RollupBackfillCheckpoint.builder()
+                .jobName(JOB)
+                .cutoff(CUTOFF)
+                .processedUntil(processedUntil)
+                .build();
+    }
+}
@@ -0,0 +1,131 @@
+package com.nempeth.korven.service;
+
+import com.nempeth.korven.persistence.repository.SaleCodeCounterRepository;
+import com.nempeth.korven.utils.BusinessTime;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SaleCodeAllocatorTest {
+
+    private static final BusinessTime BUSINESS_TIME = new BusinessTime("America/Argentina/Buenos_Aires");
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 14);
+
+    @Mock
+    private SaleCodeCounterRepository counterRepository;
+
+    @Test
+    void nextCode_shouldServeCodesFromReservedBlock() {
+        // Given
+        when(counterRepository.reserveBlock(DAY, 3)).thenReturn(4L);
+        SaleCodeAllocator allocator = new SaleCodeAllocator(counterRepository, BUSINESS_TIME, 3);
+
+        // When
+        List<String> codes = List.of(allocator.nextCode(DAY), allocator.nextCode(DAY), allocator.nextCode(DAY));
+
+        // Then
+        assertThat(codes).containsExactly("250314-1", "250314-2", "250314-3");
+        verify(counterRepository, times(1)).reserveBlock(DAY, 3);
+    }
+
+    @Test
+    void nextCode_shouldReserveNewBlock_whenCurrentBlockIsExhausted() {
+        // Given
+        when(counterRepository.reserveBlock(DAY, 2)).thenReturn(3L, 9L);
+        SaleCodeAllocator allocator = new SaleCodeAllocator(counterRepository, BUSINESS_TIME, 2);
+
+        // When
+        allocator.nextCode(DAY);
+        allocator.nextCode(DAY);
+        String third = allocator.nextCode(DAY);
+
+        // Then: otra instancia se quedó con el bloque [3, 7)
+        assertThat(third).isEqualTo("250314-7");
+        verify(counterRepository, times(2)).reserveBlock(DAY, 2);
+    }
+
+    @Test
+    void nextCode_shouldReserveNewBlock_whenDayChanges() {
+        // Given
+        LocalDate nextDay = DAY.plusDays(1);
+        when(counterRepository.reserveBlock(DAY, 10)).thenReturn(11L);
+        when(counterRepository.reserveBlock(nextDay, 10)).thenReturn(11L);
+        SaleCodeAllocator allocator = new SaleCodeAllocator(counterRepository, BUSINESS_TIME, 10);
+
+        // When
+        String today = allocator.nextCode(DAY);
+        String tomorrow = allocator.nextCode(nextDay);
+
+        // Then
+        assertThat(today).isEqualTo("250314-1");
+        assertThat(tomorrow).isEqualTo("250315-1");
+    }
+
+    @Test
+    void nextCode_shouldNotRepeatCodes_underConcurrentCalls() throws Exception {
+        // Given: contador compartido que simula el upsert atómico de la base
+        AtomicLong counter = new AtomicLong(1);
+        when(counterRepository.reserveBlock(eq(DAY), anyInt()))
+                .thenAnswer(invocation -> counter.addAndGet(invocation.<Integer>getArgument(1)));
+        SaleCodeAllocator first = new SaleCodeAllocator(counterRepository, BUSINESS_TIME, 5);
+        SaleCodeAllocator second = new SaleCodeAllocator(counterRepository, BUSINESS_TIME, 5);
+
+        Set<String> codes = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // When
+        for (int i = 0; i < 400; i++) {
+            SaleCodeAllocator allocator = i % 2 == 0 ? first : second;
+            futures.add(executor.submit(() -> codes.add(allocator.nextCode(DAY))));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // Then
+        assertThat(codes).hasSize(400);
+    }
+
+    @Test
+    void nextCode_shouldUseTheBusinessDay() {
+        // Given
+        LocalDate today = BUSINESS_TIME.today();
+        when(counterRepository.reserveBlock(today, 10)).thenReturn(11L);
+        SaleCodeAllocator allocator = new SaleCodeAllocator(counterRepository, BUSINESS_TIME, 10);
+
+        // When
+        String code = allocator.nextCode();
+
+        // Then
+        assertThat(code).isEqualTo(today.format(DateTimeFormatter.ofPattern("yyMMdd")) + "-1");
+    }
+
+    @Test
+    void constructor_shouldRejectNonPositiveBlockSize() {
+        assertThatThrownBy(() -> new SaleCodeAllocator(counterRepository, BUSINESS_TIME, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(counterRepository, never()).reserveBlock(any(), anyInt());
+    }
+}
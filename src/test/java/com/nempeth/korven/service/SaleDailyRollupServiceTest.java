@@ -0,0 +1,80 @@
+package com.nempeth.korven.service;
+
+import com.nempeth.korven.event.SaleClosedEvent;
+import com.nempeth.korven.persistence.repository.SaleDailyRollupRepository;
+import com.nempeth.korven.utils.BusinessTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SaleDailyRollupServiceTest {
+
+    private static final String ZONE = "America/Argentina/Buenos_Aires";
+
+    @Mock
+    private SaleDailyRollupRepository rollupRepository;
+
+    @Mock
+    private RollupBackfillService backfillService;
+
+    private SaleDailyRollupService rollupService;
+
+    @BeforeEach
+    void setUp() {
+        rollupService = new SaleDailyRollupService(rollupRepository, backfillService, new BusinessTime(ZONE));
+    }
+
+    @Test
+    void onSaleClosed_shouldAddClosedSalesToRollup() {
+        // Given
+        List<UUID> saleIds = List.of(UUID.randomUUID(), UUID.randomUUID());
+
+        // When
+        rollupService.onSaleClosed(new SaleClosedEvent(UUID.randomUUID(), saleIds, OffsetDateTime.now(), 1L));
+
+        // Then
+        verify(rollupRepository).addClosedSales(saleIds, ZONE);
+    }
+
+    @Test
+    void onSaleClosed_shouldSkipEventsWithoutSales() {
+        // When
+        rollupService.onSaleClosed(new SaleClosedEvent(UUID.randomUUID(), List.of(), OffsetDateTime.now(), 1L));
+
+        // Then
+        verifyNoInteractions(rollupRepository);
+    }
+
+    @Test
+    void backfillChunk_shouldAddSalesClosedInTheChunk() {
+        // Given
+        OffsetDateTime from = OffsetDateTime.of(2025, 5, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+        // When
+        rollupService.backfillChunk(from, from.plusDays(7));
+
+        // Then
+        verify(rollupRepository).addSalesClosedBetween(from, from.plusDays(7), ZONE);
+    }
+
+    @Test
+    void isBackfillComplete_shouldAskForItsOwnJob() {
+        // Given
+        when(backfillService.isComplete(SaleDailyRollupService.BACKFILL_JOB)).thenReturn(true);
+
+        // When & Then
+        assertThat(rollupService.isBackfillComplete()).isTrue();
+        assertThat(rollupService.backfillJobName()).isEqualTo(SaleDailyRollupService.BACKFILL_JOB);
+    }
+}
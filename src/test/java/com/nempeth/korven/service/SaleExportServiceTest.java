@@ -0,0 +1,278 @@
+package com.nempeth.korven.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nempeth.korven.constants.CategoryType;
+import com.nempeth.korven.constants.MembershipRole;
+import com.nempeth.korven.constants.MembershipStatus;
+import com.nempeth.korven.constants.SaleExportFormat;
+import com.nempeth.korven.persistence.entity.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import(SaleExportService.class)
+@DisplayName("SaleExportService Tests")
+class SaleExportServiceTest {
+
+    private static final String OWNER_EMAIL = "owner@example.com";
+    private static final String EMPLOYEE_EMAIL = "employee@example.com";
+
+    @Autowired
+    private SaleExportService saleExportService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Business business;
+    private User owner;
+    private User employee;
+    private Product beer;
+    private Product fries;
+    private TableEntity table;
+    private OffsetDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        now = OffsetDateTime.now();
+
+        business = Business.builder()
+                .id(UUID.randomUUID())
+                .name("Bar")
+                .joinCode("BAR123")
+                .build();
+        entityManager.persist(business);
+
+        owner = persistMember(OWNER_EMAIL, "Owner", MembershipRole.OWNER);
+        employee = persistMember(EMPLOYEE_EMAIL, "Empleado", MembershipRole.EMPLOYEE);
+
+        Category category = Category.builder()
+                .business(business)
+                .name("Bebidas")
+                .type(CategoryType.CUSTOM)
+                .build();
+        entityManager.persist(category);
+
+        beer = persistProduct(category, "Cerveza", "10.00");
+        fries = persistProduct(category, "Papas, grandes", "8.50");
+
+        table = TableEntity.builder()
+                .business(business)
+                .tableCode("M1")
+                .capacity(4)
+                .sector("Salón")
+                .build();
+        entityManager.persist(table);
+        entityManager.flush();
+    }
+
+    @Test
+    @DisplayName("CSV export should write one row per item with header and escaped values")
+    void exportSales_shouldWriteCsvRowsPerItem() throws IOException {
+        // Given
+        Sale sale = persistClosedSale(owner, now.minusHours(1), "A-1");
+        persistItem(sale, beer, 2);
+        persistItem(sale, fries, 1);
+        persistClosedSale(owner, now.minusHours(2), "A-2");
+
+        // When
+        List<String> lines = export(OWNER_EMAIL, SaleExportFormat.CSV).lines().toList();
+
+        // Then
+        assertThat(lines).hasSize(4);
+        assertThat(lines.get(0)).isEqualTo(SaleExportService.CSV_HEADER);
+        assertThat(lines.subList(1, 3)).allSatisfy(line -> assertThat(line).contains(",A-1,").contains(",M1,"));
+        assertThat(lines.subList(1, 3)).anySatisfy(line -> assertThat(line).contains("\"Papas, grandes\""));
+        assertThat(lines.get(3)).contains(",A-2,").endsWith(",,,,,,");
+    }
+
+    @Test
+    @DisplayName("CSV export should neutralize text cells that a spreadsheet would run as formulas")
+    void exportSales_shouldNeutralizeFormulaCells() throws IOException {
+        // Given
+        Category category = Category.builder()
+                .business(business)
+                .name("Varios")
+                .type(CategoryType.CUSTOM)
+                .build();
+        entityManager.persist(category);
+        Product formula = persistProduct(category, "=HYPERLINK(\"http://x\",\"y\")", "5.00");
+        Product atSign = persistProduct(category, "@SUM(A1)", "5.00");
+        Sale sale = persistClosedSale(owner, now.minusHours(1), "A-1");
+        persistItem(sale, formula, 1);
+        persistItem(sale, atSign, 1);
+
+        // When
+        List<String> lines = export(OWNER_EMAIL, SaleExportFormat.CSV).lines().toList();
+
+        // Then
+        assertThat(lines.subList(1, 3)).anySatisfy(line -> assertThat(line).contains(",\"'=HYPERLINK(\"\"http://x\"\",\"\"y\"\")\","));
+        assertThat(lines.subList(1, 3)).anySatisfy(line -> assertThat(line).contains(",'@SUM(A1),"));
+        assertThat(lines).noneMatch(line -> line.contains(",=") || line.contains(",@"));
+    }
+
+    @Test
+    @DisplayName("NDJSON export should write one line per sale with nested items")
+    void exportSales_shouldWriteOneJsonLinePerSale() throws IOException {
+        // Given
+        Sale first = persistClosedSale(owner, now.minusHours(1), "A-1");
+        persistItem(first, beer, 2);
+        persistItem(first, fries, 1);
+        Sale second = persistClosedSale(owner, now.minusHours(2), "A-2");
+        persistItem(second, beer, 1);
+
+        // When
+        List<String> lines = export(OWNER_EMAIL, SaleExportFormat.NDJSON).lines().toList();
+
+        // Then
+        assertThat(lines).hasSize(2);
+        JsonNode firstLine = objectMapper.readTree(lines.get(0));
+        assertThat(firstLine.get("code").asText()).isEqualTo("A-1");
+        assertThat(firstLine.get("tableCode").asText()).isEqualTo("M1");
+        assertThat(firstLine.get("items")).hasSize(2);
+        JsonNode secondLine = objectMapper.readTree(lines.get(1));
+        assertThat(secondLine.get("code").asText()).isEqualTo("A-2");
+        assertThat(secondLine.get("items")).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Export should skip open sales and sales outside the range")
+    void exportSales_shouldOnlyIncludeClosedSalesInRange() throws IOException {
+        // Given
+        persistClosedSale(owner, now.minusHours(1), "IN");
+        persistClosedSale(owner, now.minusDays(10), "OUT");
+        persistClosedSale(owner, null, "OPEN");
+
+        // When
+        String output = export(OWNER_EMAIL, SaleExportFormat.CSV);
+
+        // Then
+        assertThat(output).contains(",IN,").doesNotContain(",OUT,").doesNotContain(",OPEN,");
+    }
+
+    @Test
+    @DisplayName("Employees should only export their own sales")
+    void exportSales_shouldRestrictEmployeesToOwnSales() throws IOException {
+        // Given
+        persistClosedSale(owner, now.minusHours(1), "OWNER-SALE");
+        persistClosedSale(employee, now.minusHours(1), "EMPLOYEE-SALE");
+
+        // When
+        String output = export(EMPLOYEE_EMAIL, SaleExportFormat.CSV);
+
+        // Then
+        assertThat(output).contains(",EMPLOYEE-SALE,").doesNotContain(",OWNER-SALE,");
+    }
+
+    @Test
+    @DisplayName("Export should fail before streaming when the user has no access")
+    void exportSales_shouldValidateAccessUpFront() {
+        assertThatThrownBy(() -> saleExportService.exportSales("nobody@example.com", business.getId(),
+                now.minusDays(1), now, SaleExportFormat.CSV))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Usuario no encontrado");
+    }
+
+    @Test
+    @DisplayName("Export should reject an inverted date range")
+    void exportSales_shouldRejectInvertedRange() {
+        assertThatThrownBy(() -> saleExportService.exportSales(OWNER_EMAIL, business.getId(),
+                now, now.minusDays(1), SaleExportFormat.CSV))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("La fecha de inicio no puede ser posterior a la fecha de fin");
+    }
+
+    private String export(String email, SaleExportFormat format) throws IOException {
+        entityManager.flush();
+        entityManager.clear();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        saleExportService.exportSales(email, business.getId(), now.minusDays(1), now.plusMinutes(1), format)
+                .writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private User persistMember(String email, String name, MembershipRole role) {
+        User user = User.builder()
+                .id(UUID.randomUUID())
+                .email(email)
+                .name(name)
+                .lastName("Test")
+                .passwordHash("hash")
+                .build();
+        entityManager.persist(user);
+        entityManager.persist(BusinessMembership.builder()
+                .business(business)
+                .user(user)
+                .role(role)
+                .status(MembershipStatus.ACTIVE)
+                .build());
+        return user;
+    }
+
+    private Product persistProduct(Category category, String name, String price) {
+        Product product = Product.builder()
+                .business(business)
+                .category(category)
+                .name(name)
+                .price(new BigDecimal(price))
+                .cost(new BigDecimal("3.00"))
+                .build();
+        entityManager.persist(product);
+        return product;
+    }
+
+    private Sale persistClosedSale(User user, OffsetDateTime occurredAt, String code) {
+        Sale sale = Sale.builder()
+                .business(business)
+                .createdByUser(user)
+                .createdByUserName(user.getName() + " Test")
+                .table(table)
+                .occurredAt(occurredAt)
+                .totalAmount(BigDecimal.ZERO)
+                .code(code)
+                .build();
+        entityManager.persist(sale);
+        return sale;
+    }
+
+    private void persistItem(Sale sale, Product product, int quantity) {
+        BigDecimal lineTotal = product.getPrice().multiply(BigDecimal.valueOf(quantity));
+        entityManager.persist(SaleItem.builder()
+                .sale(sale)
+                .product(product)
+                .productNameAtSale(product.getName())
+                .categoryName("Bebidas")
+                .unitPrice(product.getPrice())
+                .unitCost(product.getCost())
+                .quantity(quantity)
+                .lineTotal(lineTotal)
+                .build());
+        sale.setTotalAmount(sale.getTotalAmount().add(lineTotal));
+    }
+}
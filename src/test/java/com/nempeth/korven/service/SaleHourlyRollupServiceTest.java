@@ -0,0 +1,64 @@
+package com.nempeth.korven.service;
+
+import com.nempeth.korven.event.SaleClosedEvent;
+import com.nempeth.korven.persistence.repository.SaleHourlyRollupRepository;
+import com.nempeth.korven.utils.BusinessTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SaleHourlyRollupServiceTest {
+
+    private static final String ZONE = "America/Argentina/Buenos_Aires";
+
+    @Mock
+    private SaleHourlyRollupRepository rollupRepository;
+
+    @Mock
+    private RollupBackfillService backfillService;
+
+    private SaleHourlyRollupService rollupService;
+
+    @BeforeEach
+    void setUp() {
+        rollupService = new SaleHourlyRollupService(rollupRepository, backfillService, new BusinessTime(ZONE));
+    }
+
+    @Test
+    void onSaleClosed_shouldAddClosedSalesToRollup() {
+        // Given
+        List<UUID> saleIds = List.of(UUID.randomUUID());
+
+        // When
+        rollupService.onSaleClosed(new SaleClosedEvent(UUID.randomUUID(), saleIds, OffsetDateTime.now(), 1L));
+
+        // Then
+        verify(rollupRepository).addClosedSales(saleIds, ZONE);
+    }
+
+    @Test
+    void backfillChunk_shouldUseItsOwnCheckpointAndTable() {
+        // Given
+        OffsetDateTime from = OffsetDateTime.of(2025, 5, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+        // When
+        rollupService.backfillChunk(from, from.plusDays(7));
+
+        // Then
+        verify(rollupRepository).addSalesClosedBetween(from, from.plusDays(7), ZONE);
+        assertThat(rollupService.backfillJobName())
+                .isEqualTo(SaleHourlyRollupService.BACKFILL_JOB)
+                .isNotEqualTo(SaleDailyRollupService.BACKFILL_JOB);
+    }
+}
@@ -0,0 +1,156 @@
+package com.nempeth.korven.service;
+
+import com.nempeth.korven.config.CacheConfig;
+import com.nempeth.korven.constants.CategoryType;
+import com.nempeth.korven.constants.MembershipRole;
+import com.nempeth.korven.constants.MembershipStatus;
+import com.nempeth.korven.persistence.entity.*;
+import com.nempeth.korven.rest.dto.CreateSaleItemRequest;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({SaleItemService.class, ProductSnapshotCacheService.class, BusinessDataVersionService.class, CacheConfig.class})
+@DisplayName("SaleItemService batch Tests")
+class SaleItemServiceBatchTest {
+
+    private static final String OWNER_EMAIL = "owner@example.com";
+
+    @Autowired
+    private SaleItemService saleItemService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Business business;
+    private User owner;
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        business = Business.builder()
+                .id(UUID.randomUUID())
+                .name("Bar")
+                .joinCode("BAR123")
+                .build();
+        entityManager.persist(business);
+
+        owner = User.builder()
+                .id(UUID.randomUUID())
+                .email(OWNER_EMAIL)
+                .name("Owner")
+                .lastName("Test")
+                .passwordHash("hash")
+                .build();
+        entityManager.persist(owner);
+
+        entityManager.persist(BusinessMembership.builder()
+                .business(business)
+                .user(owner)
+                .role(MembershipRole.OWNER)
+                .status(MembershipStatus.ACTIVE)
+                .build());
+
+        category = Category.builder()
+                .business(business)
+                .name("Bebidas")
+                .type(CategoryType.CUSTOM)
+                .build();
+        entityManager.persist(category);
+        entityManager.flush();
+    }
+
+    @Test
+    @DisplayName("A batch should issue the same number of statements regardless of the number of items")
+    void addItemsToSale_shouldKeepStatementCountFlat_whenItemsGrow() {
+        long fewItems = countStatements(openSale(), products(3));
+        long manyItems = countStatements(openSale(), products(15));
+
+        assertThat(manyItems).isEqualTo(fewItems);
+    }
+
+    @Test
+    @DisplayName("A batch should persist every item and keep the sale total up to date")
+    void addItemsToSale_shouldPersistItemsAndTotal() {
+        // Given
+        Sale sale = openSale();
+        List<Product> products = products(4);
+        List<CreateSaleItemRequest> requests = products.stream()
+                .map(product -> new CreateSaleItemRequest(product.getId(), 2))
+                .toList();
+
+        // When
+        List<UUID> itemIds = saleItemService.addItemsToSale(OWNER_EMAIL, business.getId(), sale.getId(), requests);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Then: 4 productos de 10 a 13 por 2 unidades cada uno
+        assertThat(itemIds).hasSize(4).doesNotHaveDuplicates();
+        Sale reloaded = entityManager.find(Sale.class, sale.getId());
+        assertThat(reloaded.getTotalAmount()).isEqualByComparingTo("92.00");
+    }
+
+    private long countStatements(Sale sale, List<Product> products) {
+        List<CreateSaleItemRequest> requests = products.stream()
+                .map(product -> new CreateSaleItemRequest(product.getId(), 1))
+                .toList();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        saleItemService.addItemsToSale(OWNER_EMAIL, business.getId(), sale.getId(), requests);
+        entityManager.flush();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Sale openSale() {
+        Sale sale = Sale.builder()
+                .business(business)
+                .createdByUser(owner)
+                .createdByUserName("Owner Test")
+                .totalAmount(BigDecimal.ZERO)
+                .code("O" + UUID.randomUUID().toString().substring(0, 12))
+                .build();
+        entityManager.persist(sale);
+        entityManager.flush();
+        return sale;
+    }
+
+    private List<Product> products(int count) {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Product product = Product.builder()
+                    .business(business)
+                    .category(category)
+                    .name("Producto " + UUID.randomUUID())
+                    .price(new BigDecimal(10 + i))
+                    .cost(new BigDecimal("1.00"))
+                    .build();
+            entityManager.persist(product);
+            products.add(product);
+        }
+        entityManager.flush();
+        return products;
+    }
+}
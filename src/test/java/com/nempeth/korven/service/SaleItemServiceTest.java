@@ -0,0 +1,306 @@
+package com.nempeth.korven.service;
+
+import com.nempeth.korven.constants.MembershipRole;
+import com.nempeth.korven.constants.MembershipStatus;
+import com.nempeth.korven.persistence.entity.*;
+import com.nempeth.korven.persistence.projection.ProductSnapshot;
+import com.nempeth.korven.persistence.repository.*;
+import com.nempeth.korven.rest.dto.CreateSaleItemRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SaleItemServiceTest {
+
+    @Mock
+    private SaleItemRepository saleItemRepository;
+
+    @Mock
+    private SaleRepository saleRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private BusinessMembershipRepository membershipRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ProductSnapshotCacheService productSnapshotCacheService;
+
+    @InjectMocks
+    private SaleItemService saleItemService;
+
+    private String userEmail;
+    private UUID businessId;
+    private UUID saleId;
+    private UUID productId;
+    private User testUser;
+    private Sale openSale;
+    private Product testProduct;
+
+    @BeforeEach
+    void setUp() {
+        userEmail = "test@example.com";
+        businessId = UUID.randomUUID();
+        saleId = UUID.randomUUID();
+        productId = UUID.randomUUID();
+
+        testUser = User.builder()
+                .id(UUID.randomUUID())
+                .email(userEmail)
+                .name("John")
+                .lastName("Doe")
+                .build();
+
+        Business testBusiness = Business.builder()
+                .id(businessId)
+                .name("Test Business")
+                .build();
+
+        openSale = Sale.builder()
+                .id(saleId)
+                .business(testBusiness)
+                .createdByUser(testUser)
+                .totalAmount(BigDecimal.ZERO)
+                .build();
+
+        Category category = Category.builder()
+                .id(UUID.randomUUID())
+                .name("Bebidas")
+                .business(testBusiness)
+                .build();
+
+        testProduct = Product.builder()
+                .id(productId)
+                .name("Cerveza")
+                .price(new BigDecimal("10.00"))
+                .cost(new BigDecimal("4.00"))
+                .category(category)
+                .business(testBusiness)
+                .build();
+
+        BusinessMembership membership = BusinessMembership.builder()
+                .id(UUID.randomUUID())
+                .user(testUser)
+                .business(testBusiness)
+                .role(MembershipRole.OWNER)
+                .status(MembershipStatus.ACTIVE)
+                .build();
+
+        when(userRepository.findByEmailIgnoreCase(userEmail)).thenReturn(Optional.of(testUser));
+        when(membershipRepository.findByBusinessIdAndUserId(businessId, testUser.getId()))
+                .thenReturn(Optional.of(membership));
+        when(saleRepository.findByIdForUpdate(saleId)).thenReturn(Optional.of(openSale));
+    }
+
+    @Test
+    void addItemToSale_shouldUpsertItemWithLineTotal() {
+        // Given
+        UUID itemId = UUID.randomUUID();
+        when(productSnapshotCacheService.find(businessId, productId)).thenReturn(Optional.of(snapshot(testProduct)));
+        when(saleItemRepository.upsertItem(any(UUID.class), eq(saleId), eq(productId), eq("Cerveza"), eq("Bebidas"),
+                eq(new BigDecimal("10.00")), eq(new BigDecimal("4.00")), eq(3), eq(new BigDecimal("30.00"))))
+                .thenReturn(itemId);
+
+        // When
+        UUID result = saleItemService.addItemToSale(userEmail, businessId, saleId, new CreateSaleItemRequest(productId, 3));
+
+        // Then
+        assertThat(result).isEqualTo(itemId);
+        verify(saleRepository).findByIdForUpdate(saleId);
+        verify(saleItemRepository, never()).findBySaleIdAndProductId(any(), any());
+        verify(saleItemRepository, never()).save(any());
+    }
+
+    @Test
+    void addItemToSale_shouldDeleteItem_whenQuantityIsZero() {
+        // Given
+        UUID itemId = UUID.randomUUID();
+        when(productSnapshotCacheService.find(businessId, productId)).thenReturn(Optional.of(snapshot(testProduct)));
+        when(saleItemRepository.deleteItemReturningId(saleId, productId)).thenReturn(Optional.of(itemId));
+
+        // When
+        UUID result = saleItemService.addItemToSale(userEmail, businessId, saleId, new CreateSaleItemRequest(productId, 0));
+
+        // Then
+        assertThat(result).isEqualTo(itemId);
+        verify(saleItemRepository, never()).upsertItem(any(), any(), any(), any(), any(), any(), any(), anyInt(), any());
+    }
+
+    @Test
+    void addItemToSale_shouldThrowException_whenRemovingMissingItem() {
+        // Given
+        when(productSnapshotCacheService.find(businessId, productId)).thenReturn(Optional.of(snapshot(testProduct)));
+        when(saleItemRepository.deleteItemReturningId(saleId, productId)).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThatThrownBy(() -> saleItemService.addItemToSale(userEmail, businessId, saleId,
+                new CreateSaleItemRequest(productId, 0)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("No se puede establecer cantidad 0 para un producto que no está en la venta");
+    }
+
+    @Test
+    void addItemToSale_shouldThrowException_whenSaleBelongsToOtherBusiness() {
+        // Given
+        openSale.setBusiness(Business.builder().id(UUID.randomUUID()).build());
+
+        // When & Then
+        assertThatThrownBy(() -> saleItemService.addItemToSale(userEmail, businessId, saleId,
+                new CreateSaleItemRequest(productId, 1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("La venta no pertenece a este negocio");
+        verifyNoInteractions(saleItemRepository);
+    }
+
+    @Test
+    void addItemToSale_shouldThrowException_whenSaleIsClosed() {
+        // Given
+        openSale.setOccurredAt(OffsetDateTime.now());
+
+        // When & Then
+        assertThatThrownBy(() -> saleItemService.addItemToSale(userEmail, businessId, saleId,
+                new CreateSaleItemRequest(productId, 1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("La venta ya está cerrada");
+        verifyNoInteractions(saleItemRepository);
+    }
+
+    @Test
+    void addItemsToSale_shouldThrowException_whenSaleIsClosed() {
+        // Given
+        openSale.setOccurredAt(OffsetDateTime.now());
+
+        // When & Then
+        assertThatThrownBy(() -> saleItemService.addItemsToSale(userEmail, businessId, saleId,
+                List.of(new CreateSaleItemRequest(productId, 2))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("La venta ya está cerrada");
+        verifyNoInteractions(saleItemRepository);
+        verify(saleRepository, never()).incrementTotalAmount(any(), any());
+    }
+
+    @Test
+    void addItemsToSale_shouldInsertUpdateAndDeleteWithSingleTotalUpdate() {
+        // Given
+        Product fries = Product.builder()
+                .id(UUID.randomUUID())
+                .name("Papas")
+                .price(new BigDecimal("8.00"))
+                .cost(new BigDecimal("2.00"))
+                .category(testProduct.getCategory())
+                .business(testProduct.getBusiness())
+                .build();
+        Product water = Product.builder()
+                .id(UUID.randomUUID())
+                .name("Agua")
+                .price(new BigDecimal("3.00"))
+                .cost(new BigDecimal("1.00"))
+                .category(testProduct.getCategory())
+                .business(testProduct.getBusiness())
+                .build();
+        SaleItem existingBeer = saleItem(testProduct, 2);
+        SaleItem existingWater = saleItem(water, 1);
+
+        when(productSnapshotCacheService.findAll(eq(businessId), anyCollection())).thenReturn(Map.of(
+                productId, snapshot(testProduct),
+                fries.getId(), snapshot(fries),
+                water.getId(), snapshot(water)));
+        when(productRepository.getReferenceById(fries.getId())).thenReturn(fries);
+        when(saleItemRepository.findBySaleId(saleId)).thenReturn(List.of(existingBeer, existingWater));
+
+        List<CreateSaleItemRequest> requests = List.of(
+                new CreateSaleItemRequest(productId, 5),        // 20 -> 50
+                new CreateSaleItemRequest(fries.getId(), 2),    // nuevo: 16
+                new CreateSaleItemRequest(water.getId(), 0));   // elimina: -3
+
+        // When
+        List<UUID> itemIds = saleItemService.addItemsToSale(userEmail, businessId, saleId, requests);
+
+        // Then
+        assertThat(itemIds).hasSize(3);
+        assertThat(itemIds.get(0)).isEqualTo(existingBeer.getId());
+        assertThat(itemIds.get(2)).isEqualTo(existingWater.getId());
+        assertThat(existingBeer.getQuantity()).isEqualTo(5);
+        assertThat(existingBeer.getLineTotal()).isEqualByComparingTo("50.00");
+        verify(saleItemRepository).deleteAll(List.of(existingWater));
+        verify(saleItemRepository).saveAll(argThat(items -> {
+            List<SaleItem> inserted = new ArrayList<>();
+            items.forEach(inserted::add);
+            return inserted.size() == 1 && inserted.get(0).getProduct() == fries;
+        }));
+        verify(saleRepository).incrementTotalAmount(saleId, new BigDecimal("43.00"));
+        verify(saleRepository, times(1)).findByIdForUpdate(saleId);
+        verify(userRepository, times(1)).findByEmailIgnoreCase(userEmail);
+    }
+
+    @Test
+    void addItemsToSale_shouldRejectRepeatedProducts() {
+        // Given
+        List<CreateSaleItemRequest> requests = List.of(
+                new CreateSaleItemRequest(productId, 1),
+                new CreateSaleItemRequest(productId, 2));
+
+        // When & Then
+        assertThatThrownBy(() -> saleItemService.addItemsToSale(userEmail, businessId, saleId, requests))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("repetido");
+        verifyNoInteractions(productSnapshotCacheService, saleItemRepository);
+    }
+
+    @Test
+    void addItemsToSale_shouldRejectProductsFromOtherBusiness() {
+        // Given
+        UUID foreignProductId = UUID.randomUUID();
+        when(productSnapshotCacheService.findAll(eq(businessId), anyCollection()))
+                .thenReturn(Map.of(productId, snapshot(testProduct)));
+
+        // When & Then
+        assertThatThrownBy(() -> saleItemService.addItemsToSale(userEmail, businessId, saleId, List.of(
+                new CreateSaleItemRequest(productId, 1),
+                new CreateSaleItemRequest(foreignProductId, 1))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Producto no encontrado en este negocio");
+        verifyNoInteractions(saleItemRepository);
+        verify(saleRepository, never()).incrementTotalAmount(any(), any());
+    }
+
+    private ProductSnapshot snapshot(Product product) {
+        return new ProductSnapshot(product.getId(), product.getName(), product.getCategory().getName(),
+                product.getPrice(), product.getCost());
+    }
+
+    private SaleItem saleItem(Product product, int quantity) {
+        return SaleItem.builder()
+                .id(UUID.randomUUID())
+                .sale(openSale)
+                .product(product)
+                .productNameAtSale(product.getName())
+                .categoryName("Bebidas")
+                .unitPrice(product.getPrice())
+                .unitCost(product.getCost())
+                .quantity(quantity)
+                .lineTotal(product.getPrice().multiply(BigDecimal.valueOf(quantity)))
+                .build();
+    }
+}
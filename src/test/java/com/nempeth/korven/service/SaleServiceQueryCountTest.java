@@ -0,0 +1,248 @@
+package com.nempeth.korven.service;
+
+import com.nempeth.korven.constants.CategoryType;
+import com.nempeth.korven.constants.MembershipRole;
+import com.nempeth.korven.constants.MembershipStatus;
+import com.nempeth.korven.persistence.entity.*;
+import com.nempeth.korven.rest.dto.SalePageResponse;
+import com.nempeth.korven.rest.dto.SaleResponse;
+import com.nempeth.korven.utils.BusinessTime;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({SaleService.class, SaleCodeAllocator.class, BusinessDataVersionService.class, BusinessTime.class})
+@DisplayName("SaleService query count Tests")
+class SaleServiceQueryCountTest {
+
+    private static final String OWNER_EMAIL = "owner@example.com";
+
+    @Autowired
+    private SaleService saleService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Business business;
+    private User owner;
+    private Product product;
+    private TableEntity table;
+
+    @BeforeEach
+    void setUp() {
+        business = Business.builder()
+                .id(UUID.randomUUID())
+                .name("Bar")
+                .joinCode("BAR123")
+                .build();
+        entityManager.persist(business);
+
+        owner = User.builder()
+                .id(UUID.randomUUID())
+                .email(OWNER_EMAIL)
+                .name("Owner")
+                .lastName("Test")
+                .passwordHash("hash")
+                .build();
+        entityManager.persist(owner);
+
+        entityManager.persist(BusinessMembership.builder()
+                .business(business)
+                .user(owner)
+                .role(MembershipRole.OWNER)
+                .status(MembershipStatus.ACTIVE)
+                .build());
+
+        Category category = Category.builder()
+                .business(business)
+                .name("Bebidas")
+                .type(CategoryType.CUSTOM)
+                .build();
+        entityManager.persist(category);
+
+        product = Product.builder()
+                .business(business)
+                .category(category)
+                .name("Cerveza")
+                .price(new BigDecimal("10.00"))
+                .cost(new BigDecimal("4.00"))
+                .build();
+        entityManager.persist(product);
+
+        table = TableEntity.builder()
+                .business(business)
+                .tableCode("M1")
+                .capacity(4)
+                .sector("Salón")
+                .build();
+        entityManager.persist(table);
+        entityManager.flush();
+    }
+
+    @Test
+    @DisplayName("Listing sales should issue the same number of queries regardless of the number of sales")
+    void getSalesByBusiness_shouldKeepQueryCountFlat_whenSalesGrow() {
+        persistSales(2);
+        long queriesWithFewSales = countQueries(() -> saleService.getSalesByBusiness(OWNER_EMAIL, business.getId(), null));
+
+        persistSales(20);
+        long queriesWithManySales = countQueries(() -> saleService.getSalesByBusiness(OWNER_EMAIL, business.getId(), null));
+
+        assertThat(queriesWithManySales).isEqualTo(queriesWithFewSales);
+    }
+
+    @Test
+    @DisplayName("Listing sales by date range should issue the same number of queries regardless of the number of sales")
+    void getSalesByBusinessAndDateRange_shouldKeepQueryCountFlat_whenSalesGrow() {
+        OffsetDateTime start = OffsetDateTime.now().minusDays(1);
+        OffsetDateTime end = OffsetDateTime.now().plusDays(1);
+
+        persistSales(2);
+        long queriesWithFewSales = countQueries(() ->
+                saleService.getSalesByBusinessAndDateRange(OWNER_EMAIL, business.getId(), start, end));
+
+        persistSales(20);
+        long queriesWithManySales = countQueries(() ->
+                saleService.getSalesByBusinessAndDateRange(OWNER_EMAIL, business.getId(), start, end));
+
+        assertThat(queriesWithManySales).isEqualTo(queriesWithFewSales);
+    }
+
+    @Test
+    @DisplayName("Listing sales should still map items and table of every sale")
+    void getSalesByBusiness_shouldMapItemsAndTable() {
+        persistSales(3);
+        entityManager.clear();
+
+        List<SaleResponse> sales = saleService.getSalesByBusiness(OWNER_EMAIL, business.getId(), null);
+
+        assertThat(sales).hasSize(3);
+        assertThat(sales).allSatisfy(sale -> {
+            assertThat(sale.items()).hasSize(1);
+            assertThat(sale.items().get(0).productName()).isEqualTo("Cerveza");
+            assertThat(sale.table()).isNotNull();
+            assertThat(sale.table().tableCode()).isEqualTo("M1");
+        });
+    }
+
+    @Test
+    @DisplayName("Walking the paginated history should return every sale once, open orders first")
+    void getSalesPage_shouldWalkAllSalesInKeysetOrder() {
+        persistOpenSales(3);
+        persistSales(7);
+        entityManager.clear();
+
+        List<SaleResponse> walked = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            SalePageResponse page = saleService.getSalesPage(OWNER_EMAIL, business.getId(), null, 4, cursor);
+            walked.addAll(page.items());
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(walked).hasSize(10);
+        Set<UUID> ids = new HashSet<>(walked.stream().map(SaleResponse::id).toList());
+        assertThat(ids).hasSize(10);
+        assertThat(walked.subList(0, 3)).allSatisfy(sale -> assertThat(sale.occurredAt()).isNull());
+        assertThat(walked.subList(3, 10)).allSatisfy(sale -> assertThat(sale.occurredAt()).isNotNull());
+        for (int i = 4; i < walked.size(); i++) {
+            assertThat(walked.get(i).occurredAt()).isBeforeOrEqualTo(walked.get(i - 1).occurredAt());
+        }
+    }
+
+    @Test
+    @DisplayName("Deep pages should cost the same number of queries as the first page")
+    void getSalesPage_shouldKeepQueryCountFlat_forDeepPages() {
+        persistSales(12);
+
+        long firstPageQueries = countQueries(() -> saleService.getSalesPage(OWNER_EMAIL, business.getId(), false, 3, null));
+
+        entityManager.clear();
+        String cursor = null;
+        for (int i = 0; i < 3; i++) {
+            cursor = saleService.getSalesPage(OWNER_EMAIL, business.getId(), false, 3, cursor).nextCursor();
+        }
+        String deepCursor = cursor;
+        long deepPageQueries = countQueries(() -> saleService.getSalesPage(OWNER_EMAIL, business.getId(), false, 3, deepCursor));
+
+        assertThat(deepPageQueries).isEqualTo(firstPageQueries);
+    }
+
+    private void persistOpenSales(int count) {
+        for (int i = 0; i < count; i++) {
+            entityManager.persist(Sale.builder()
+                    .business(business)
+                    .createdByUser(owner)
+                    .createdByUserName("Owner Test")
+                    .occurredAt(null)
+                    .totalAmount(BigDecimal.ZERO)
+                    .code("O" + UUID.randomUUID().toString().substring(0, 12))
+                    .build());
+        }
+        entityManager.flush();
+    }
+
+    private void persistSales(int count) {
+        OffsetDateTime base = OffsetDateTime.now();
+        for (int i = 0; i < count; i++) {
+            Sale sale = Sale.builder()
+                    .business(business)
+                    .createdByUser(owner)
+                    .createdByUserName("Owner Test")
+                    .table(table)
+                    .occurredAt(base.minusMinutes(i % 4))
+                    .totalAmount(new BigDecimal("20.00"))
+                    .code("T" + UUID.randomUUID().toString().substring(0, 12))
+                    .build();
+            entityManager.persist(sale);
+
+            entityManager.persist(SaleItem.builder()
+                    .sale(sale)
+                    .product(product)
+                    .productNameAtSale(product.getName())
+                    .categoryName("Bebidas")
+                    .unitPrice(product.getPrice())
+                    .unitCost(product.getCost())
+                    .quantity(2)
+                    .lineTotal(new BigDecimal("20.00"))
+                    .build());
+        }
+        entityManager.flush();
+    }
+
+    private long countQueries(Runnable action) {
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -2,6 +2,7 @@ package com.nempeth.korven.service;
 
 import com.nempeth.korven.constants.MembershipRole;
 import com.nempeth.korven.constants.MembershipStatus;
+import com.nempeth.korven.event.SaleClosedEvent;
 import com.nempeth.korven.persistence.entity.*;
 import com.nempeth.korven.persistence.repository.*;
 import com.nempeth.korven.rest.dto.*;
@@ -12,9 +13,11 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -44,6 +47,18 @@ class SaleServiceTest {
     @Mock
     private UserRepository userRepository;
     
+    @Mock
+    private TableRepository tableRepository;
+    
+    @Mock
+    private SaleCodeAllocator saleCodeAllocator;
+    
+    @Mock
+    private BusinessDataVersionService dataVersionService;
+    
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    
     @InjectMocks
     private SaleService saleService;
     
@@ -137,6 +152,25 @@ class SaleServiceTest {
         assertThat(capturedSale.getTotalAmount()).isEqualByComparingTo(BigDecimal.ZERO);
     }
     
+    @Test
+    void createSale_shouldUseCodeFromAllocator() {
+        // Given
+        when(userRepository.findByEmailIgnoreCase(userEmail)).thenReturn(Optional.of(testUser));
+        when(membershipRepository.findByBusinessIdAndUserId(businessId, userId))
+                .thenReturn(Optional.of(activeMembership));
+        when(businessRepository.findById(businessId)).thenReturn(Optional.of(testBusiness));
+        when(saleCodeAllocator.nextCode()).thenReturn("250314-42");
+        when(saleRepository.save(any(Sale.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        // When
+        saleService.createSale(userEmail, businessId);
+        
+        // Then
+        ArgumentCaptor<Sale> saleCaptor = ArgumentCaptor.forClass(Sale.class);
+        verify(saleRepository).save(saleCaptor.capture());
+        assertThat(saleCaptor.getValue().getCode()).isEqualTo("250314-42");
+    }
+    
     @Test
     void createSale_shouldUseEmailAsFallback_whenUserNameIsEmpty() {
         // Given
@@ -580,7 +614,7 @@ class SaleServiceTest {
                 .thenReturn(Optional.of(activeMembership));
         when(saleRepository.findByBusinessIdAndOccurredAtBetweenOrderByOccurredAtDesc(businessId, startDate, endDate))
                 .thenReturn(List.of(sale1));
-        when(saleItemRepository.findBySaleId(any())).thenReturn(List.of());
+        when(saleItemRepository.findBySaleIdIn(any())).thenReturn(List.of());
         
         // When
         List<SaleResponse> sales = saleService.getSalesByBusinessAndDateRange(userEmail, businessId, startDate, endDate);
@@ -605,7 +639,7 @@ class SaleServiceTest {
         when(saleRepository.findByBusinessIdAndCreatedByUserIdAndOccurredAtBetweenOrderByOccurredAtDesc(
                 businessId, userId, startDate, endDate))
                 .thenReturn(List.of(sale1));
-        when(saleItemRepository.findBySaleId(any())).thenReturn(List.of());
+        when(saleItemRepository.findBySaleIdIn(any())).thenReturn(List.of());
         
         // When
         List<SaleResponse> sales = saleService.getSalesByBusinessAndDateRange(userEmail, businessId, startDate, endDate);
@@ -616,6 +650,31 @@ class SaleServiceTest {
                 businessId, userId, startDate, endDate);
     }
     
+    @Test
+    void getSalesByBusinessAndDateRange_shouldLoadItemsInBatches_whenRangeHasManySales() {
+        // Given
+        OffsetDateTime startDate = OffsetDateTime.now().minusYears(1);
+        OffsetDateTime endDate = OffsetDateTime.now();
+        List<Sale> rangeSales = new ArrayList<>();
+        for (int i = 0; i <= SaleService.ITEM_LOOKUP_BATCH_SIZE; i++) {
+            rangeSales.add(createTestSale(UUID.randomUUID(), new BigDecimal("100.00")));
+        }
+        
+        when(userRepository.findByEmailIgnoreCase(userEmail)).thenReturn(Optional.of(testUser));
+        when(membershipRepository.findByBusinessIdAndUserId(businessId, userId))
+                .thenReturn(Optional.of(activeMembership));
+        when(saleRepository.findByBusinessIdAndOccurredAtBetweenOrderByOccurredAtDesc(businessId, startDate, endDate))
+                .thenReturn(rangeSales);
+        when(saleItemRepository.findBySaleIdIn(any())).thenReturn(List.of());
+        
+        // When
+        List<SaleResponse> sales = saleService.getSalesByBusinessAndDateRange(userEmail, businessId, startDate, endDate);
+        
+        // Then
+        assertThat(sales).hasSize(SaleService.ITEM_LOOKUP_BATCH_SIZE + 1);
+        verify(saleItemRepository, times(2)).findBySaleIdIn(any());
+    }
+    
     @Test
     void getSalesByBusinessAndDateRange_shouldReturnEmptyList_whenNoSalesInRange() {
         // Given
@@ -850,6 +909,134 @@ class SaleServiceTest {
         assertThat(response.createdByUserName()).isEqualTo("Sistema");
     }
     
+    // ==================== CREATE SALE FOR TABLE TESTS ====================
+    
+    @Test
+    void createSaleForTable_shouldReturnIdFromAtomicUpsert() {
+        // Given
+        UUID tableId = UUID.randomUUID();
+        UUID existingSaleId = UUID.randomUUID();
+        TableEntity table = TableEntity.builder()
+                .id(tableId)
+                .business(testBusiness)
+                .tableCode("M1")
+                .build();
+        
+        when(tableRepository.findById(tableId)).thenReturn(Optional.of(table));
+        when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
+        when(saleCodeAllocator.nextCode()).thenReturn("250314-7");
+        when(saleRepository.insertOpenSaleForTableOrGetExisting(any(UUID.class), eq(businessId), eq(tableId),
+                eq(userId), eq("John Doe"), eq("250314-7")))
+                .thenReturn(existingSaleId);
+        
+        // When
+        UUID result = saleService.createSaleForTable(tableId, businessId, userId, "John Doe");
+        
+        // Then
+        assertThat(result).isEqualTo(existingSaleId);
+        verify(saleRepository, never()).findByBusinessIdAndTableIdAndOccurredAtIsNull(any(), any());
+        verify(saleRepository, never()).save(any());
+    }
+    
+    @Test
+    void createSaleForTable_shouldThrowException_whenTableBelongsToOtherBusiness() {
+        // Given
+        UUID tableId = UUID.randomUUID();
+        TableEntity table = TableEntity.builder()
+                .id(tableId)
+                .business(Business.builder().id(UUID.randomUUID()).build())
+                .build();
+        when(tableRepository.findById(tableId)).thenReturn(Optional.of(table));
+        
+        // When & Then
+        assertThatThrownBy(() -> saleService.createSaleForTable(tableId, businessId, userId, "John Doe"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("La mesa no pertenece a este negocio");
+        verifyNoInteractions(saleCodeAllocator);
+    }
+    
+    // ==================== CLOSE SALE TESTS ====================
+    
+    @Test
+    void closeSale_shouldOnlyMarkOccurredAt_withoutReloadingItems() {
+        // Given
+        UUID saleId = UUID.randomUUID();
+        Sale sale = createTestSale(saleId, new BigDecimal("250.00"));
+        sale.setOccurredAt(null);
+        
+        when(userRepository.findByEmailIgnoreCase(userEmail)).thenReturn(Optional.of(testUser));
+        when(membershipRepository.findByBusinessIdAndUserId(businessId, userId))
+                .thenReturn(Optional.of(activeMembership));
+        when(saleRepository.findById(saleId)).thenReturn(Optional.of(sale));
+        when(saleRepository.closeOpenSale(eq(saleId), any(OffsetDateTime.class))).thenReturn(1);
+        
+        // When
+        saleService.closeSale(userEmail, businessId, saleId);
+        
+        // Then
+        verify(saleRepository).closeOpenSale(eq(saleId), any(OffsetDateTime.class));
+        verifyNoInteractions(saleItemRepository);
+        verify(saleRepository, never()).save(any());
+        verify(eventPublisher).publishEvent(any(SaleClosedEvent.class));
+    }
+    
+    @Test
+    void closeSale_shouldThrowException_whenClosedConcurrently() {
+        // Given
+        UUID saleId = UUID.randomUUID();
+        Sale sale = createTestSale(saleId, new BigDecimal("250.00"));
+        sale.setOccurredAt(null);
+        
+        when(userRepository.findByEmailIgnoreCase(userEmail)).thenReturn(Optional.of(testUser));
+        when(membershipRepository.findByBusinessIdAndUserId(businessId, userId))
+                .thenReturn(Optional.of(activeMembership));
+        when(saleRepository.findById(saleId)).thenReturn(Optional.of(sale));
+        when(saleRepository.closeOpenSale(eq(saleId), any(OffsetDateTime.class))).thenReturn(0);
+        
+        // When & Then
+        assertThatThrownBy(() -> saleService.closeSale(userEmail, businessId, saleId))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("La venta ya está cerrada");
+        verifyNoInteractions(eventPublisher, dataVersionService);
+    }
+    
+    @Test
+    void closeSalesByTable_shouldCloseOpenSalesWithSingleUpdate() {
+        // Given
+        UUID tableId = UUID.randomUUID();
+        UUID saleId = UUID.randomUUID();
+        when(saleRepository.closeOpenSalesByTable(eq(businessId), eq(tableId), any(OffsetDateTime.class)))
+                .thenReturn(List.of(saleId));
+        when(dataVersionService.increment(businessId)).thenReturn(8L);
+        
+        // When
+        saleService.closeSalesByTable(businessId, tableId);
+        
+        // Then
+        verify(saleRepository).closeOpenSalesByTable(eq(businessId), eq(tableId), any(OffsetDateTime.class));
+        verifyNoInteractions(saleItemRepository);
+        
+        ArgumentCaptor<SaleClosedEvent> eventCaptor = ArgumentCaptor.forClass(SaleClosedEvent.class);
+        verify(eventPublisher).publishEvent(eventCaptor.capture());
+        assertThat(eventCaptor.getValue().businessId()).isEqualTo(businessId);
+        assertThat(eventCaptor.getValue().saleIds()).containsExactly(saleId);
+        assertThat(eventCaptor.getValue().dataVersion()).isEqualTo(8L);
+    }
+    
+    @Test
+    void closeSalesByTable_shouldNotPublishEvent_whenNoOpenSale() {
+        // Given
+        UUID tableId = UUID.randomUUID();
+        when(saleRepository.closeOpenSalesByTable(eq(businessId), eq(tableId), any(OffsetDateTime.class)))
+                .thenReturn(List.of());
+        
+        // When
+        saleService.closeSalesByTable(businessId, tableId);
+        
+        // Then
+        verifyNoInteractions(eventPublisher, dataVersionService);
+    }
+    
     // ==================== HELPER METHODS ====================
     
     private Sale createTestSale(UUID saleId, BigDecimal totalAmount) {
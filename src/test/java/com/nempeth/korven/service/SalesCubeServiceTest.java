@@ -0,0 +1,147 @@
+package com.nempeth.korven.service;
+
+import com.nempeth.korven.event.SaleClosedEvent;
+import com.nempeth.korven.persistence.projection.SaleCubeFact;
+import com.nempeth.korven.persistence.repository.BusinessMembershipRepository;
+import com.nempeth.korven.persistence.repository.SaleItemRepository;
+import com.nempeth.korven.persistence.repository.UserRepository;
+import com.nempeth.korven.utils.BusinessTime;
+import com.nempeth.korven.utils.SalesCube;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SalesCubeServiceTest {
+
+    private static final BusinessTime BUSINESS_TIME = new BusinessTime("America/Argentina/Buenos_Aires");
+
+    @Mock
+    private SaleItemRepository saleItemRepository;
+
+    @Mock
+    private BusinessDataVersionService dataVersionService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private BusinessMembershipRepository membershipRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private Cache cache;
+    private SalesCubeService salesCubeService;
+    private UUID businessId;
+
+    @BeforeEach
+    void setUp() {
+        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(SalesCubeService.CACHE_NAME);
+        cache = cacheManager.getCache(SalesCubeService.CACHE_NAME);
+        salesCubeService = new SalesCubeService(cacheManager, saleItemRepository, dataVersionService,
+                userRepository, membershipRepository, BUSINESS_TIME, transactionManager);
+        businessId = UUID.randomUUID();
+    }
+
+    @Test
+    void onSaleClosed_shouldAppendItemsOfTheNextVersion() {
+        // Given
+        SalesCube cube = new SalesCube(BUSINESS_TIME.zone(), 4);
+        cache.put(businessId, cube);
+        List<UUID> saleIds = List.of(UUID.randomUUID());
+        when(saleItemRepository.findCubeFactsBySaleIds(saleIds)).thenReturn(List.of(
+                new SaleCubeFact("Bebidas", "Agua", "Ana", null, OffsetDateTime.now(),
+                        new BigDecimal("10.00"), new BigDecimal("4.00"), 2)));
+
+        // When
+        salesCubeService.onSaleClosed(new SaleClosedEvent(businessId, saleIds, OffsetDateTime.now(), 5));
+
+        // Then
+        assertThat(cube.size()).isEqualTo(1);
+        assertThat(cube.dataVersion()).isEqualTo(5);
+        assertThat(cache.get(businessId, SalesCube.class)).isSameAs(cube);
+    }
+
+    @Test
+    void onSaleClosed_shouldEvictCube_whenAVersionWasSkipped() {
+        // Given
+        cache.put(businessId, new SalesCube(BUSINESS_TIME.zone(), 4));
+
+        // When
+        salesCubeService.onSaleClosed(new SaleClosedEvent(businessId, List.of(UUID.randomUUID()), OffsetDateTime.now(), 6));
+
+        // Then: se recarga en la próxima consulta
+        assertThat(cache.get(businessId)).isNull();
+        verifyNoInteractions(saleItemRepository);
+    }
+
+    @Test
+    void onSaleClosed_shouldIgnoreVersionsAlreadyLoaded() {
+        // Given
+        SalesCube cube = new SalesCube(BUSINESS_TIME.zone(), 6);
+        cache.put(businessId, cube);
+
+        // When
+        salesCubeService.onSaleClosed(new SaleClosedEvent(businessId, List.of(UUID.randomUUID()), OffsetDateTime.now(), 6));
+
+        // Then
+        assertThat(cache.get(businessId, SalesCube.class)).isSameAs(cube);
+        verifyNoInteractions(saleItemRepository);
+    }
+
+    @Test
+    void onSaleClosed_shouldNotLoadCube_whenNotCached() {
+        // When
+        salesCubeService.onSaleClosed(new SaleClosedEvent(businessId, List.of(UUID.randomUUID()), OffsetDateTime.now(), 1));
+
+        // Then
+        assertThat(cache.get(businessId)).isNull();
+        verify(saleItemRepository, never()).findCubeFactsBySaleIds(any());
+    }
+
+    @Test
+    void getCube_shouldKeepCachedCube_whenItIsAtTheCurrentVersion() {
+        // Given
+        SalesCube cube = new SalesCube(BUSINESS_TIME.zone(), 7);
+        cache.put(businessId, cube);
+        when(dataVersionService.current(businessId)).thenReturn(7L);
+
+        // When & Then
+        assertThat(salesCubeService.getCube(businessId)).isSameAs(cube);
+        verifyNoInteractions(saleItemRepository);
+    }
+
+    @Test
+    void getCube_shouldReload_whenAnotherInstanceClosedSales() {
+        // Given
+        cache.put(businessId, new SalesCube(BUSINESS_TIME.zone(), 7));
+        when(dataVersionService.current(businessId)).thenReturn(8L);
+        when(saleItemRepository.streamCubeFactsByBusinessId(businessId)).thenReturn(Stream.of(
+                new SaleCubeFact("Bebidas", "Agua", "Ana", null, OffsetDateTime.now(),
+                        new BigDecimal("10.00"), new BigDecimal("4.00"), 2)));
+
+        // When
+        SalesCube cube = salesCubeService.getCube(businessId);
+
+        // Then
+        assertThat(cube.dataVersion()).isEqualTo(8);
+        assertThat(cube.size()).isEqualTo(1);
+        assertThat(cache.get(businessId, SalesCube.class)).isSameAs(cube);
+    }
+}
@@ -0,0 +1,105 @@
+package com.nempeth.korven.service;
+
+import com.nempeth.korven.event.SaleClosedEvent;
+import com.nempeth.korven.persistence.entity.TicketSizeHistogram;
+import com.nempeth.korven.persistence.repository.TicketSizeHistogramRepository;
+import com.nempeth.korven.utils.BusinessTime;
+import com.nempeth.korven.utils.LogLinearHistogram;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TicketSizeHistogramServiceTest {
+
+    private static final String ZONE = "America/Argentina/Buenos_Aires";
+
+    @Mock
+    private TicketSizeHistogramRepository histogramRepository;
+
+    @Mock
+    private RollupBackfillService backfillService;
+
+    private TicketSizeHistogramService histogramService;
+    private UUID businessId;
+
+    @BeforeEach
+    void setUp() {
+        histogramService = new TicketSizeHistogramService(histogramRepository, backfillService, new BusinessTime(ZONE));
+        businessId = UUID.randomUUID();
+    }
+
+    @Test
+    void onSaleClosed_shouldAddTicketsToTheStoredHistogramOfTheirMonth() {
+        // Given
+        List<UUID> saleIds = List.of(UUID.randomUUID(), UUID.randomUUID());
+        when(histogramRepository.findTicketAmounts(saleIds, ZONE)).thenReturn(List.<Object[]>of(
+                new Object[]{businessId, 2025, 3, 1_500L, 2L}));
+        LogLinearHistogram previous = new LogLinearHistogram();
+        previous.record(9_000);
+        TicketSizeHistogram stored = TicketSizeHistogram.builder().histogram(previous.toBytes()).build();
+        when(histogramRepository.findForUpdate(businessId, LocalDate.of(2025, 3, 1))).thenReturn(Optional.of(stored));
+
+        // When
+        histogramService.onSaleClosed(new SaleClosedEvent(businessId, saleIds, OffsetDateTime.now(), 1L));
+
+        // Then
+        verify(histogramRepository).insertIfMissing(eq(businessId), eq(LocalDate.of(2025, 3, 1)), any());
+        LogLinearHistogram updated = LogLinearHistogram.fromBytes(stored.getHistogram());
+        assertThat(updated.totalCount()).isEqualTo(3);
+        assertThat(updated.minCents()).isEqualTo(1_500);
+        assertThat(updated.maxCents()).isEqualTo(9_000);
+    }
+
+    @Test
+    void getHistogram_shouldMergeMonthsOfTheRange() {
+        // Given
+        LogLinearHistogram january = new LogLinearHistogram();
+        january.record(1_000, 3);
+        LogLinearHistogram february = new LogLinearHistogram();
+        february.record(5_000);
+        when(histogramRepository.findByBusinessAndMonths(businessId, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 2, 1)))
+                .thenReturn(List.of(
+                        TicketSizeHistogram.builder().histogram(january.toBytes()).build(),
+                        TicketSizeHistogram.builder().histogram(february.toBytes()).build()));
+
+        // When
+        LogLinearHistogram histogram = histogramService.getHistogram(businessId, YearMonth.of(2025, 1), YearMonth.of(2025, 2));
+
+        // Then
+        assertThat(histogram.totalCount()).isEqualTo(4);
+        assertThat(histogram.sumCents()).isEqualTo(8_000);
+    }
+
+    @Test
+    void backfillChunk_shouldAddTicketsClosedInTheChunk() {
+        // Given
+        OffsetDateTime from = OffsetDateTime.of(2025, 5, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        when(histogramRepository.findTicketAmountsClosedBetween(from, from.plusDays(7), ZONE)).thenReturn(List.<Object[]>of(
+                new Object[]{businessId, 2025, 5, 2_000L, 1L}));
+        TicketSizeHistogram stored = TicketSizeHistogram.builder().histogram(new LogLinearHistogram().toBytes()).build();
+        when(histogramRepository.findForUpdate(businessId, LocalDate.of(2025, 5, 1))).thenReturn(Optional.of(stored));
+
+        // When
+        histogramService.backfillChunk(from, from.plusDays(7));
+
+        // Then
+        assertThat(LogLinearHistogram.fromBytes(stored.getHistogram()).totalCount()).isEqualTo(1);
+        assertThat(histogramService.backfillJobName()).isEqualTo(TicketSizeHistogramService.BACKFILL_JOB);
+    }
+}
@@ -0,0 +1,55 @@
+package com.nempeth.korven.utils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BusinessTimeTest {
+
+    @Test
+    @DisplayName("Should build half-open year bounds in the configured zone")
+    void shouldBuildHalfOpenYearBounds() {
+        // Given
+        BusinessTime businessTime = new BusinessTime("America/Argentina/Buenos_Aires");
+
+        // When
+        OffsetDateTime start = businessTime.startOfYear(2025);
+        OffsetDateTime end = businessTime.endOfYear(2025);
+
+        // Then
+        assertThat(start).isEqualTo(OffsetDateTime.of(2025, 1, 1, 0, 0, 0, 0, ZoneOffset.ofHours(-3)));
+        assertThat(end).isEqualTo(OffsetDateTime.of(2026, 1, 1, 0, 0, 0, 0, ZoneOffset.ofHours(-3)));
+    }
+
+    @Test
+    @DisplayName("Should follow daylight saving changes inside a period")
+    void shouldFollowDaylightSavingChanges() {
+        // Given: en Madrid marzo arranca en +01:00 y abril en +02:00
+        BusinessTime businessTime = new BusinessTime("Europe/Madrid");
+
+        // When
+        OffsetDateTime start = businessTime.startOf(YearMonth.of(2025, 3));
+        OffsetDateTime end = businessTime.endOf(YearMonth.of(2025, 3));
+
+        // Then
+        assertThat(start.getOffset()).isEqualTo(ZoneOffset.ofHours(1));
+        assertThat(end).isEqualTo(OffsetDateTime.of(2025, 4, 1, 0, 0, 0, 0, ZoneOffset.ofHours(2)));
+    }
+
+    @Test
+    @DisplayName("Should end a day at the start of the next one")
+    void shouldEndDayAtStartOfNextDay() {
+        // Given
+        BusinessTime businessTime = new BusinessTime("America/Argentina/Buenos_Aires");
+        LocalDate day = LocalDate.of(2025, 2, 28);
+
+        // When & Then
+        assertThat(businessTime.endOf(day)).isEqualTo(businessTime.startOf(LocalDate.of(2025, 3, 1)));
+    }
+}
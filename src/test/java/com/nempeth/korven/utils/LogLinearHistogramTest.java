@@ -0,0 +1,113 @@
+package com.nempeth.korven.utils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class LogLinearHistogramTest {
+
+    @Test
+    @DisplayName("Should place every value inside its own bucket bounds")
+    void shouldMapValuesToContiguousBuckets() {
+        for (long cents : new long[]{0, 1, 127, 128, 255, 256, 1_000, 99_999, 12_345_678, Long.MAX_VALUE / 4}) {
+            int index = LogLinearHistogram.bucketIndex(cents);
+            assertThat(LogLinearHistogram.lowerBound(index)).isLessThanOrEqualTo(cents);
+            assertThat(LogLinearHistogram.upperBound(index)).isGreaterThanOrEqualTo(cents);
+        }
+        for (int index = 1; index < 2_000; index++) {
+            assertThat(LogLinearHistogram.lowerBound(index)).isEqualTo(LogLinearHistogram.upperBound(index - 1) + 1);
+        }
+    }
+
+    @Test
+    @DisplayName("Should answer percentiles within one percent")
+    void shouldAnswerPercentilesWithinOnePercent() {
+        // Given: tickets de $1 a $1000
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        for (long pesos = 1; pesos <= 1000; pesos++) {
+            histogram.record(pesos * 100);
+        }
+
+        // Then
+        assertThat(histogram.totalCount()).isEqualTo(1000);
+        assertThat((double) histogram.valueAtQuantile(0.50)).isCloseTo(50_000, within(500.0));
+        assertThat((double) histogram.valueAtQuantile(0.90)).isCloseTo(90_000, within(900.0));
+        assertThat((double) histogram.valueAtQuantile(0.99)).isCloseTo(99_000, within(990.0));
+        assertThat(histogram.valueAtQuantile(1)).isEqualTo(100_000);
+        assertThat(histogram.minCents()).isEqualTo(100);
+        assertThat(histogram.sumCents()).isEqualTo(50_050_000);
+    }
+
+    @Test
+    @DisplayName("Should give the same result merging monthly histograms as recording everything together")
+    void shouldMergeWithoutLosingPrecision() {
+        // Given
+        LogLinearHistogram january = new LogLinearHistogram();
+        LogLinearHistogram february = new LogLinearHistogram();
+        LogLinearHistogram together = new LogLinearHistogram();
+        for (long cents = 50; cents < 500_000; cents = cents * 3 / 2) {
+            january.record(cents);
+            together.record(cents);
+        }
+        for (long cents = 7_000; cents < 80_000; cents += 700) {
+            february.record(cents, 2);
+            together.record(cents, 2);
+        }
+
+        // When
+        january.add(february);
+
+        // Then
+        assertThat(january.toBytes()).isEqualTo(together.toBytes());
+        assertThat(january.valueAtQuantile(0.9)).isEqualTo(together.valueAtQuantile(0.9));
+    }
+
+    @Test
+    @DisplayName("Should restore the same histogram after serialization")
+    void shouldRoundTripBytes() {
+        // Given
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        histogram.record(1_250);
+        histogram.record(3_000, 5);
+        histogram.record(1_000_000);
+
+        // When
+        LogLinearHistogram restored = LogLinearHistogram.fromBytes(histogram.toBytes());
+
+        // Then
+        assertThat(restored.totalCount()).isEqualTo(7);
+        assertThat(restored.minCents()).isEqualTo(1_250);
+        assertThat(restored.maxCents()).isEqualTo(1_000_000);
+        assertThat(restored.valueAtQuantile(0.5)).isEqualTo(histogram.valueAtQuantile(0.5));
+        assertThat(LogLinearHistogram.fromBytes(new LogLinearHistogram().toBytes()).totalCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should split tickets into equal width bins between min and max")
+    void shouldSplitIntoBins() {
+        // Given
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        histogram.record(0, 3);
+        histogram.record(50, 2);
+        histogram.record(99);
+
+        // When
+        LogLinearHistogram.Bin[] bins = histogram.bins(2);
+
+        // Then
+        assertThat(bins).containsExactly(
+                new LogLinearHistogram.Bin(0, 49, 3),
+                new LogLinearHistogram.Bin(50, 99, 3));
+    }
+
+    @Test
+    @DisplayName("Should reject negative amounts")
+    void shouldRejectNegativeAmounts() {
+        assertThatThrownBy(() -> new LogLinearHistogram().record(-1))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("El monto de un ticket no puede ser negativo");
+    }
+}
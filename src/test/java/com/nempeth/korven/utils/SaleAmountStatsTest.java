@@ -0,0 +1,83 @@
+package com.nempeth.korven.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class SaleAmountStatsTest {
+
+    @Test
+    void of_shouldAccumulateCountSumMeanAndVariance() {
+        // Given
+        long[] cents = {10000, 20000, 30000, 40000};
+
+        // When
+        SaleAmountStats stats = SaleAmountStats.of(cents);
+
+        // Then
+        assertThat(stats.count()).isEqualTo(4);
+        assertThat(stats.sumCents()).isEqualTo(100000);
+        assertThat(stats.meanCents()).isEqualTo(25000.0);
+        assertThat(stats.populationVarianceCents()).isCloseTo(125_000_000.0, within(1e-6));
+    }
+
+    @Test
+    void of_shouldMatchTwoPassVarianceOnLargeAmounts() {
+        // Given
+        Random random = new Random(42);
+        long[] cents = new long[100_000];
+        for (int i = 0; i < cents.length; i++) {
+            cents[i] = 1_000_000_000L + random.nextInt(500_000);
+        }
+
+        // When
+        SaleAmountStats stats = SaleAmountStats.of(cents);
+
+        // Then
+        double mean = 0;
+        for (long value : cents) {
+            mean += value;
+        }
+        mean /= cents.length;
+        double variance = 0;
+        for (long value : cents) {
+            variance += (value - mean) * (value - mean);
+        }
+        variance /= cents.length;
+        assertThat(stats.populationVarianceCents()).isCloseTo(variance, within(variance * 1e-9));
+    }
+
+    @Test
+    void ofSummary_shouldRebuildStatsFromAggregates() {
+        // Given
+        SaleAmountStats exact = SaleAmountStats.of(new long[]{100, 200, 600});
+
+        // When
+        SaleAmountStats summary = SaleAmountStats.ofSummary(3, 900, Math.sqrt(exact.populationVarianceCents()));
+
+        // Then
+        assertThat(summary.count()).isEqualTo(3);
+        assertThat(summary.sumCents()).isEqualTo(900);
+        assertThat(summary.meanCents()).isEqualTo(300.0);
+        assertThat(summary.populationVarianceCents()).isCloseTo(exact.populationVarianceCents(), within(1e-6));
+    }
+
+    @Test
+    void ofSummary_shouldBeEmptyWithoutSales() {
+        SaleAmountStats stats = SaleAmountStats.ofSummary(0, 0, 0);
+
+        assertThat(stats.count()).isZero();
+        assertThat(stats.populationVarianceCents()).isZero();
+    }
+
+    @Test
+    void ofSummary_shouldRejectNegativeCount() {
+        assertThatThrownBy(() -> SaleAmountStats.ofSummary(-1, 0, 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("La cantidad de ventas no puede ser negativa");
+    }
+}
@@ -0,0 +1,65 @@
+package com.nempeth.korven.utils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SaleCursorTest {
+
+    @Test
+    @DisplayName("Should round-trip a cursor for a closed sale")
+    void shouldRoundTripClosedSaleCursor() {
+        // Given
+        UUID id = UUID.randomUUID();
+        OffsetDateTime occurredAt = OffsetDateTime.of(2025, 3, 14, 21, 30, 15, 123456000, ZoneOffset.ofHours(-3));
+
+        // When
+        SaleCursor decoded = SaleCursor.decode(new SaleCursor(occurredAt, id).encode());
+
+        // Then
+        assertThat(decoded.isOpen()).isFalse();
+        assertThat(decoded.id()).isEqualTo(id);
+        assertThat(decoded.occurredAt().toInstant()).isEqualTo(occurredAt.toInstant());
+    }
+
+    @Test
+    @DisplayName("Should round-trip a cursor for an open sale")
+    void shouldRoundTripOpenSaleCursor() {
+        // Given
+        UUID id = UUID.randomUUID();
+
+        // When
+        SaleCursor decoded = SaleCursor.decode(new SaleCursor(null, id).encode());
+
+        // Then
+        assertThat(decoded.isOpen()).isTrue();
+        assertThat(decoded.id()).isEqualTo(id);
+    }
+
+    @Test
+    @DisplayName("Should produce URL-safe tokens")
+    void shouldProduceUrlSafeTokens() {
+        // When
+        String token = new SaleCursor(OffsetDateTime.now(), UUID.randomUUID()).encode();
+
+        // Then
+        assertThat(token).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    @DisplayName("Should reject malformed cursors")
+    void shouldRejectMalformedCursors() {
+        assertThatThrownBy(() -> SaleCursor.decode("not-a-cursor"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cursor inválido");
+        assertThatThrownBy(() -> SaleCursor.decode("%%%"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cursor inválido");
+    }
+}
@@ -0,0 +1,135 @@
+package com.nempeth.korven.utils;
+
+import com.nempeth.korven.constants.CubeDimension;
+import com.nempeth.korven.persistence.projection.SaleCubeFact;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SalesCubeTest {
+
+    private static final ZoneId ZONE = ZoneId.of("America/Argentina/Buenos_Aires");
+
+    private SalesCube cube;
+
+    @BeforeEach
+    void setUp() {
+        cube = new SalesCube(ZONE, 3);
+        // Lunes 3 de marzo de 2025, 20 hs en Buenos Aires (23 hs UTC)
+        cube.add(fact("Bebidas", "Agua", "Ana", "M1", OffsetDateTime.of(2025, 3, 3, 23, 0, 0, 0, ZoneOffset.UTC), "10.00", "4.00", 2));
+        cube.add(fact("Bebidas", "Gaseosa", "Beto", null, OffsetDateTime.of(2025, 3, 3, 23, 30, 0, 0, ZoneOffset.UTC), "15.50", "5.00", 1));
+        // 02:00 UTC del martes todavía es lunes 23 hs en Buenos Aires
+        cube.add(fact("Comidas", "Pizza", "Ana", "M1", OffsetDateTime.of(2025, 3, 4, 2, 0, 0, 0, ZoneOffset.UTC), "100.00", "40.00", 1));
+        cube.add(fact("Comidas", "Pizza", "Ana", "M2", OffsetDateTime.of(2025, 3, 9, 15, 0, 0, 0, ZoneOffset.UTC), "200.00", "40.00", 2));
+    }
+
+    @Test
+    @DisplayName("Should group by category with revenue, cost and units in cents")
+    void shouldGroupByCategory() {
+        // When
+        List<SalesCube.Row> rows = cube.query(new SalesCube.Query(List.of(CubeDimension.CATEGORY), Map.of(), null, null));
+
+        // Then: ordenado por ingresos
+        assertThat(rows).extracting(SalesCube.Row::key)
+                .containsExactly(List.of("Comidas"), List.of("Bebidas"));
+        assertThat(rows.get(0).revenueCents()).isEqualTo(30000);
+        assertThat(rows.get(0).costCents()).isEqualTo(12000);
+        assertThat(rows.get(0).units()).isEqualTo(3);
+        assertThat(rows.get(1).revenueCents()).isEqualTo(2550);
+        assertThat(rows.get(1).costCents()).isEqualTo(1300);
+    }
+
+    @Test
+    @DisplayName("Should take hour, weekday and date in the business zone")
+    void shouldUseBusinessZoneForTimeDimensions() {
+        // When
+        List<SalesCube.Row> rows = cube.query(new SalesCube.Query(
+                List.of(CubeDimension.DATE, CubeDimension.WEEKDAY, CubeDimension.HOUR), Map.of(), null, null));
+
+        // Then
+        assertThat(rows).extracting(SalesCube.Row::key).containsExactlyInAnyOrder(
+                List.of("2025-03-03", "MONDAY", "20"),
+                List.of("2025-03-03", "MONDAY", "23"),
+                List.of("2025-03-09", "SUNDAY", "12"));
+    }
+
+    @Test
+    @DisplayName("Should combine filters, date range and several group dimensions")
+    void shouldFilterAndGroupByEmployeeAndTable() {
+        // When
+        List<SalesCube.Row> rows = cube.query(new SalesCube.Query(
+                List.of(CubeDimension.EMPLOYEE, CubeDimension.TABLE),
+                Map.of(CubeDimension.WEEKDAY, List.of("monday"), CubeDimension.CATEGORY, List.of("Bebidas", "Comidas")),
+                LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 5)));
+
+        // Then: la venta sin mesa queda como grupo propio
+        assertThat(rows).hasSize(2);
+        assertThat(rows.get(0).key()).containsExactly("Ana", "M1");
+        assertThat(rows.get(0).revenueCents()).isEqualTo(11000);
+        assertThat(rows.get(1).key()).containsExactly("Beto", null);
+    }
+
+    @Test
+    @DisplayName("Should return a single total row when nothing is grouped")
+    void shouldReturnTotalWithoutGroupBy() {
+        // When
+        List<SalesCube.Row> rows = cube.query(new SalesCube.Query(List.of(), Map.of(), null, null));
+
+        // Then
+        assertThat(rows).hasSize(1);
+        assertThat(rows.get(0).key()).isEmpty();
+        assertThat(rows.get(0).revenueCents()).isEqualTo(32550);
+    }
+
+    @Test
+    @DisplayName("Should match nothing for unknown filter values")
+    void shouldMatchNothingForUnknownValues() {
+        // When
+        List<SalesCube.Row> rows = cube.query(new SalesCube.Query(
+                List.of(CubeDimension.PRODUCT), Map.of(CubeDimension.PRODUCT, List.of("Helado")), null, null));
+
+        // Then
+        assertThat(rows).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should reject invalid hour filters")
+    void shouldRejectInvalidHour() {
+        assertThatThrownBy(() -> cube.query(new SalesCube.Query(
+                List.of(), Map.of(CubeDimension.HOUR, List.of("24")), null, null)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Hora inválida: 24");
+    }
+
+    @Test
+    @DisplayName("Should append only the next data version")
+    void shouldAppendOnlyNextVersion() {
+        // Given
+        SaleCubeFact late = fact("Postres", "Flan", "Ana", null, OffsetDateTime.of(2025, 3, 10, 15, 0, 0, 0, ZoneOffset.UTC), "8.00", "2.00", 1);
+
+        // When & Then
+        assertThat(cube.append(3, List.of(late))).isTrue();
+        assertThat(cube.size()).isEqualTo(4);
+        assertThat(cube.append(5, List.of(late))).isFalse();
+        assertThat(cube.append(4, List.of(late))).isTrue();
+        assertThat(cube.size()).isEqualTo(5);
+        assertThat(cube.dataVersion()).isEqualTo(4);
+    }
+
+    private static SaleCubeFact fact(String category, String product, String employee, String table,
+                                     OffsetDateTime occurredAt, String lineTotal, String unitCost, int quantity) {
+        return new SaleCubeFact(category, product, employee, table, occurredAt,
+                new BigDecimal(lineTotal), new BigDecimal(unitCost), quantity);
+    }
+}
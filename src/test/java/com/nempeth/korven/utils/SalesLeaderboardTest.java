@@ -0,0 +1,120 @@
+package com.nempeth.korven.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SalesLeaderboardTest {
+
+    private static final YearMonth MONTH = YearMonth.of(2025, 3);
+
+    @Test
+    void add_shouldOrderByRevenueThenSalesCount() {
+        // Given
+        SalesLeaderboard board = new SalesLeaderboard(MONTH, 1);
+        UUID ana = UUID.randomUUID();
+        UUID beto = UUID.randomUUID();
+        UUID carla = UUID.randomUUID();
+
+        // When
+        board.add(ana, "Ana", "Pérez", 2, 10_000);
+        board.add(beto, "Beto", "Gómez", 5, 10_000);
+        board.add(carla, "Carla", "Ruiz", 1, 25_000);
+
+        // Then
+        assertThat(board.top(10))
+                .extracting(SalesLeaderboard.Standing::userId)
+                .containsExactly(carla, beto, ana);
+        assertThat(board.standingOf(ana).position()).isEqualTo(3);
+    }
+
+    @Test
+    void add_shouldAccumulateAndMoveTheEmployeeUp() {
+        // Given
+        SalesLeaderboard board = new SalesLeaderboard(MONTH, 1);
+        UUID ana = UUID.randomUUID();
+        UUID beto = UUID.randomUUID();
+        board.add(ana, "Ana", "Pérez", 1, 5_000);
+        board.add(beto, "Beto", "Gómez", 1, 8_000);
+
+        // When
+        board.add(ana, "Ana", "Pérez", 2, 4_000);
+
+        // Then
+        SalesLeaderboard.Standing standing = board.standingOf(ana);
+        assertThat(standing.position()).isEqualTo(1);
+        assertThat(standing.salesCount()).isEqualTo(3);
+        assertThat(standing.revenueCents()).isEqualTo(9_000);
+        assertThat(board.size()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldMatchASortedListAfterManyRandomUpdates() {
+        // Given
+        Random random = new Random(11);
+        SalesLeaderboard board = new SalesLeaderboard(MONTH, 1);
+        List<UUID> employees = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            employees.add(UUID.randomUUID());
+        }
+        Map<UUID, long[]> expected = new HashMap<>();
+
+        // When
+        for (int i = 0; i < 20_000; i++) {
+            UUID employee = employees.get(random.nextInt(employees.size()));
+            long revenue = random.nextInt(50) * 100L;
+            board.add(employee, "N", "L", 1, revenue);
+            long[] totals = expected.computeIfAbsent(employee, key -> new long[2]);
+            totals[0] += 1;
+            totals[1] += revenue;
+        }
+
+        // Then
+        List<UUID> sorted = new ArrayList<>(expected.keySet());
+        sorted.sort(Comparator
+                .comparingLong((UUID id) -> -expected.get(id)[1])
+                .thenComparingLong(id -> -expected.get(id)[0])
+                .thenComparing(Comparator.naturalOrder()));
+        assertThat(board.top(sorted.size()))
+                .extracting(SalesLeaderboard.Standing::userId)
+                .containsExactlyElementsOf(sorted);
+        for (int i = 0; i < sorted.size(); i++) {
+            assertThat(board.standingOf(sorted.get(i)).position()).isEqualTo(i + 1);
+        }
+    }
+
+    @Test
+    void top_shouldReturnAtMostLimitEntries() {
+        SalesLeaderboard board = new SalesLeaderboard(MONTH, 1);
+        for (int i = 0; i < 5; i++) {
+            board.add(UUID.randomUUID(), "N", "L", 1, i * 100L);
+        }
+
+        assertThat(board.top(3)).hasSize(3);
+        assertThat(board.top(3)).extracting(SalesLeaderboard.Standing::position).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void standingOf_shouldReturnNullForUnknownEmployees() {
+        assertThat(new SalesLeaderboard(MONTH, 1).standingOf(UUID.randomUUID())).isNull();
+    }
+
+    @Test
+    void advanceTo_shouldRejectOlderVersions() {
+        SalesLeaderboard board = new SalesLeaderboard(MONTH, 5);
+
+        assertThatThrownBy(() -> board.advanceTo(4))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("La versión de datos no puede retroceder");
+    }
+}
@@ -1,6 +1,7 @@
 package com.nempeth.korven.utils;
 
 import com.nempeth.korven.persistence.entity.Sale;
+import com.nempeth.korven.persistence.projection.BusinessScoreMetrics;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
@@ -8,6 +9,7 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -16,36 +18,6 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 @DisplayName("ScoreCalculator Tests")
 class ScoreCalculatorTest {
 
-    @Test
-    @DisplayName("Should calculate total revenue correctly")
-    void shouldCalculateTotalRevenue() {
-        // Given
-        List<Sale> sales = List.of(
-                createSale(new BigDecimal("100.00")),
-                createSale(new BigDecimal("250.50")),
-                createSale(new BigDecimal("75.25"))
-        );
-
-        // When
-        BigDecimal totalRevenue = ScoreCalculator.calculateTotalRevenue(sales);
-
-        // Then
-        assertThat(totalRevenue).isEqualByComparingTo(new BigDecimal("425.75"));
-    }
-
-    @Test
-    @DisplayName("Should return zero for empty sales list")
-    void shouldReturnZeroForEmptySalesList() {
-        // Given
-        List<Sale> sales = List.of();
-
-        // When
-        BigDecimal totalRevenue = ScoreCalculator.calculateTotalRevenue(sales);
-
-        // Then
-        assertThat(totalRevenue).isEqualByComparingTo(BigDecimal.ZERO);
-    }
-
     @Test
     @DisplayName("Should calculate average ticket correctly")
     void shouldCalculateAverageTicket() {
@@ -92,12 +64,7 @@ class ScoreCalculatorTest {
     @DisplayName("Should calculate consistency score for uniform sales")
     void shouldCalculateConsistencyScoreForUniformSales() {
         // Given - All sales have the same amount
-        List<Sale> sales = List.of(
-                createSale(new BigDecimal("100.00")),
-                createSale(new BigDecimal("100.00")),
-                createSale(new BigDecimal("100.00")),
-                createSale(new BigDecimal("100.00"))
-        );
+        SaleAmountStats sales = SaleAmountStats.of(new long[]{10000, 10000, 10000, 10000});
         BigDecimal avgTicket = new BigDecimal("100.00");
 
         // When
@@ -112,12 +79,7 @@ class ScoreCalculatorTest {
     @DisplayName("Should calculate consistency score for varied sales")
     void shouldCalculateConsistencyScoreForVariedSales() {
         // Given - Sales with variation
-        List<Sale> sales = List.of(
-                createSale(new BigDecimal("50.00")),
-                createSale(new BigDecimal("100.00")),
-                createSale(new BigDecimal("150.00")),
-                createSale(new BigDecimal("200.00"))
-        );
+        SaleAmountStats sales = SaleAmountStats.of(new long[]{5000, 10000, 15000, 20000});
         BigDecimal avgTicket = new BigDecimal("125.00");
 
         // When
@@ -133,7 +95,7 @@ class ScoreCalculatorTest {
     @DisplayName("Should return maximum consistency for single sale")
     void shouldReturnMaxConsistencyForSingleSale() {
         // Given
-        List<Sale> sales = List.of(createSale(new BigDecimal("100.00")));
+        SaleAmountStats sales = SaleAmountStats.of(new long[]{10000});
         BigDecimal avgTicket = new BigDecimal("100.00");
 
         // When
@@ -147,17 +109,12 @@ class ScoreCalculatorTest {
     @DisplayName("Should calculate growth score with positive growth")
     void shouldCalculateGrowthScoreWithPositiveGrowth() {
         // Given
-        List<Sale> currentSales = List.of(
-                createSale(new BigDecimal("150.00")),
-                createSale(new BigDecimal("150.00"))
-        );
-        List<Sale> previousSales = List.of(
-                createSale(new BigDecimal("100.00")),
-                createSale(new BigDecimal("100.00"))
-        );
+        // Two sales of 150.00 this month, two of 100.00 the previous one
+        BigDecimal currentRevenue = new BigDecimal("300.00");
+        BigDecimal previousRevenue = new BigDecimal("200.00");
 
         // When
-        BigDecimal growthScore = ScoreCalculator.calculateGrowthScore(currentSales, previousSales);
+        BigDecimal growthScore = ScoreCalculator.calculateGrowthScore(currentRevenue, 2, previousRevenue);
 
         // Then
         // 50% growth: (300 - 200) / 200 = 0.5 = 50%
@@ -169,15 +126,11 @@ class ScoreCalculatorTest {
     @DisplayName("Should calculate growth score with negative growth")
     void shouldCalculateGrowthScoreWithNegativeGrowth() {
         // Given
-        List<Sale> currentSales = List.of(
-                createSale(new BigDecimal("75.00"))
-        );
-        List<Sale> previousSales = List.of(
-                createSale(new BigDecimal("100.00"))
-        );
+        BigDecimal currentRevenue = new BigDecimal("75.00");
+        BigDecimal previousRevenue = new BigDecimal("100.00");
 
         // When
-        BigDecimal growthScore = ScoreCalculator.calculateGrowthScore(currentSales, previousSales);
+        BigDecimal growthScore = ScoreCalculator.calculateGrowthScore(currentRevenue, 1, previousRevenue);
 
         // Then
         // -25% growth: (75 - 100) / 100 = -0.25 = -25%
@@ -189,11 +142,10 @@ class ScoreCalculatorTest {
     @DisplayName("Should return neutral score when no previous sales")
     void shouldReturnNeutralScoreWhenNoPreviousSales() {
         // Given
-        List<Sale> currentSales = List.of(createSale(new BigDecimal("100.00")));
-        List<Sale> previousSales = List.of();
+        BigDecimal currentRevenue = new BigDecimal("100.00");
 
         // When
-        BigDecimal growthScore = ScoreCalculator.calculateGrowthScore(currentSales, previousSales);
+        BigDecimal growthScore = ScoreCalculator.calculateGrowthScore(currentRevenue, 0, BigDecimal.ZERO);
 
         // Then
         assertThat(growthScore).isEqualByComparingTo(new BigDecimal("50.00"));
@@ -203,11 +155,11 @@ class ScoreCalculatorTest {
     @DisplayName("Should return maximum growth score when growing from zero")
     void shouldReturnMaxGrowthScoreWhenGrowingFromZero() {
         // Given
-        List<Sale> currentSales = List.of(createSale(new BigDecimal("100.00")));
-        List<Sale> previousSales = List.of(createSale(BigDecimal.ZERO));
+        // One previous sale of 0.00
+        BigDecimal currentRevenue = new BigDecimal("100.00");
 
         // When
-        BigDecimal growthScore = ScoreCalculator.calculateGrowthScore(currentSales, previousSales);
+        BigDecimal growthScore = ScoreCalculator.calculateGrowthScore(currentRevenue, 1, BigDecimal.ZERO);
 
         // Then
         assertThat(growthScore).isEqualByComparingTo(new BigDecimal("100.00"));
@@ -217,15 +169,11 @@ class ScoreCalculatorTest {
     @DisplayName("Should clamp growth score to maximum of 100")
     void shouldClampGrowthScoreToMaximum() {
         // Given - 200% growth
-        List<Sale> currentSales = List.of(
-                createSale(new BigDecimal("300.00"))
-        );
-        List<Sale> previousSales = List.of(
-                createSale(new BigDecimal("100.00"))
-        );
+        BigDecimal currentRevenue = new BigDecimal("300.00");
+        BigDecimal previousRevenue = new BigDecimal("100.00");
 
         // When
-        BigDecimal growthScore = ScoreCalculator.calculateGrowthScore(currentSales, previousSales);
+        BigDecimal growthScore = ScoreCalculator.calculateGrowthScore(currentRevenue, 1, previousRevenue);
 
         // Then
         // 200% growth should be clamped to 100
@@ -236,15 +184,11 @@ class ScoreCalculatorTest {
     @DisplayName("Should clamp growth score to minimum of 0")
     void shouldClampGrowthScoreToMinimum() {
         // Given - -60% growth
-        List<Sale> currentSales = List.of(
-                createSale(new BigDecimal("40.00"))
-        );
-        List<Sale> previousSales = List.of(
-                createSale(new BigDecimal("100.00"))
-        );
+        BigDecimal currentRevenue = new BigDecimal("40.00");
+        BigDecimal previousRevenue = new BigDecimal("100.00");
 
         // When
-        BigDecimal growthScore = ScoreCalculator.calculateGrowthScore(currentSales, previousSales);
+        BigDecimal growthScore = ScoreCalculator.calculateGrowthScore(currentRevenue, 1, previousRevenue);
 
         // Then
         // -60% growth: score = 50 + (-60) = -10, clamped to 0
@@ -452,6 +396,77 @@ class ScoreCalculatorTest {
         assertThat(compositeScore).isLessThanOrEqualTo(new BigDecimal("100.00"));
     }
 
+    @Test
+    @DisplayName("Should match list-based composite score when given aggregated metrics")
+    void shouldMatchListBasedCompositeScoreForAggregatedMetrics() {
+        // Given
+        List<Sale> currentSales = List.of(
+                createSale(new BigDecimal("100.00")),
+                createSale(new BigDecimal("200.00")),
+                createSale(new BigDecimal("300.00"))
+        );
+        List<Sale> previousSales = List.of(createSale(new BigDecimal("450.00")));
+        // Population standard deviation of 100, 200 and 300
+        BusinessScoreMetrics metrics = new BusinessScoreMetrics(
+                UUID.randomUUID(), "Business", 3, new BigDecimal("600.00"), Math.sqrt(20000.0 / 3),
+                1, new BigDecimal("450.00"));
+
+        // When
+        BigDecimal fromSales = ScoreCalculator.calculateCompositeScore(
+                currentSales, previousSales, 1000.0, 400.0, 10.0);
+        BigDecimal fromMetrics = ScoreCalculator.calculateCompositeScore(
+                metrics, 1000.0, 400.0, 10.0);
+
+        // Then
+        assertThat(fromMetrics).isEqualByComparingTo(fromSales);
+    }
+
+    @Test
+    @DisplayName("Should give the same composite score for sale lists and cent statistics")
+    void shouldMatchListBasedCompositeScoreForCentArrays() {
+        // Given
+        Random random = new Random(7);
+        List<Sale> currentSales = new ArrayList<>();
+        List<Sale> previousSales = new ArrayList<>();
+        long[] currentCents = new long[500];
+        long[] previousCents = new long[300];
+        for (int i = 0; i < currentCents.length; i++) {
+            currentCents[i] = 500 + random.nextInt(2_000_000);
+            currentSales.add(createSale(BigDecimal.valueOf(currentCents[i], 2)));
+        }
+        for (int i = 0; i < previousCents.length; i++) {
+            previousCents[i] = 500 + random.nextInt(2_000_000);
+            previousSales.add(createSale(BigDecimal.valueOf(previousCents[i], 2)));
+        }
+
+        // When
+        BigDecimal fromSales = ScoreCalculator.calculateCompositeScore(
+                currentSales, previousSales, 6_000_000.0, 12_000.0, 600.0);
+        BigDecimal fromCents = ScoreCalculator.calculateCompositeScore(
+                SaleAmountStats.of(currentCents), SaleAmountStats.of(previousCents), 6_000_000.0, 12_000.0, 600.0);
+
+        // Then
+        assertThat(fromCents).isEqualByComparingTo(fromSales);
+        assertThat(fromCents).isGreaterThan(BigDecimal.ZERO);
+    }
+
+    @Test
+    @DisplayName("Should measure consistency around the rounded average ticket")
+    void shouldMeasureConsistencyAroundRoundedAverageTicket() {
+        // Given
+        // 10.00, 10.00 and 10.01: the average ticket rounds to 10.00
+        SaleAmountStats stats = SaleAmountStats.of(new long[]{1000, 1000, 1001});
+        BigDecimal avgTicket = ScoreCalculator.calculateAverageTicket(new BigDecimal("30.01"), 3);
+        double expectedStdDev = Math.sqrt((0 + 0 + 0.01 * 0.01) / 3);
+
+        // When
+        BigDecimal consistencyScore = ScoreCalculator.calculateConsistencyScore(stats, avgTicket);
+
+        // Then
+        assertThat(consistencyScore).isEqualByComparingTo(
+                ScoreCalculator.calculateConsistencyScore(3, expectedStdDev, avgTicket));
+    }
+
     /**
      * Helper method to create a mock sale with specified amount
      */
@@ -0,0 +1,137 @@
+package com.nempeth.korven.utils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SpaceSavingSketchTest {
+
+    @Test
+    @DisplayName("Should count exactly while there are free counters")
+    void shouldCountExactlyBelowCapacity() {
+        // Given
+        SpaceSavingSketch sketch = new SpaceSavingSketch(4);
+
+        // When
+        sketch.offer("Pizza", 3);
+        sketch.offer("Agua", 1);
+        sketch.offer("Pizza", 2);
+
+        // Then
+        assertThat(sketch.top(10)).containsExactly(
+                new SpaceSavingSketch.Entry("Pizza", 5, 0),
+                new SpaceSavingSketch.Entry("Agua", 1, 0));
+        assertThat(sketch.minCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should replace the minimum counter and keep heavy hitters when full")
+    void shouldKeepHeavyHittersWhenFull() {
+        // Given
+        SpaceSavingSketch sketch = new SpaceSavingSketch(2);
+        sketch.offer("Pizza", 100);
+        sketch.offer("Agua", 2);
+
+        // When: Café ocupa el lugar de Agua y hereda su total como error
+        sketch.offer("Café", 1);
+
+        // Then
+        List<SpaceSavingSketch.Entry> top = sketch.top(2);
+        assertThat(top.get(0)).isEqualTo(new SpaceSavingSketch.Entry("Pizza", 100, 0));
+        assertThat(top.get(1)).isEqualTo(new SpaceSavingSketch.Entry("Café", 3, 2));
+    }
+
+    @Test
+    @DisplayName("Should never underestimate a product total over a skewed stream")
+    void shouldOverestimateWithinError() {
+        // Given
+        SpaceSavingSketch sketch = new SpaceSavingSketch(8);
+        long[] totals = new long[50];
+
+        // When: pocos productos concentran la mayoría de las ventas
+        for (int i = 0; i < 5000; i++) {
+            int product = i % 10 == 0 ? 10 + (i / 10) % 40 : i % 3;
+            sketch.offer("P" + product, 1);
+            totals[product]++;
+        }
+
+        // Then
+        assertThat(sketch.top(3)).extracting(SpaceSavingSketch.Entry::item)
+                .containsExactlyInAnyOrder("P0", "P1", "P2");
+        for (SpaceSavingSketch.Entry entry : sketch.top(8)) {
+            long real = totals[Integer.parseInt(entry.item().substring(1))];
+            assertThat(entry.count()).isGreaterThanOrEqualTo(real);
+            assertThat(entry.count() - entry.error()).isLessThanOrEqualTo(real);
+        }
+    }
+
+    @Test
+    @DisplayName("Should merge sketches adding counts of shared items")
+    void shouldMergeSketches() {
+        // Given
+        SpaceSavingSketch january = new SpaceSavingSketch(4);
+        january.offer("Pizza", 10);
+        january.offer("Agua", 4);
+        SpaceSavingSketch february = new SpaceSavingSketch(4);
+        february.offer("Pizza", 5);
+        february.offer("Café", 7);
+
+        // When
+        SpaceSavingSketch merged = SpaceSavingSketch.merge(january, february);
+
+        // Then
+        assertThat(merged.top(3)).containsExactly(
+                new SpaceSavingSketch.Entry("Pizza", 15, 0),
+                new SpaceSavingSketch.Entry("Café", 7, 0),
+                new SpaceSavingSketch.Entry("Agua", 4, 0));
+    }
+
+    @Test
+    @DisplayName("Should add the minimum of a full sketch to items missing from it")
+    void shouldAddMinimumOfFullSketchWhenMerging() {
+        // Given
+        SpaceSavingSketch full = new SpaceSavingSketch(2);
+        full.offer("Pizza", 10);
+        full.offer("Agua", 3);
+        SpaceSavingSketch other = new SpaceSavingSketch(2);
+        other.offer("Café", 8);
+
+        // When
+        SpaceSavingSketch merged = SpaceSavingSketch.merge(full, other);
+
+        // Then: Café pudo haber vendido hasta 3 en el resumen lleno sin figurar
+        assertThat(merged.top(2)).containsExactly(
+                new SpaceSavingSketch.Entry("Café", 11, 3),
+                new SpaceSavingSketch.Entry("Pizza", 10, 0));
+    }
+
+    @Test
+    @DisplayName("Should restore the same counters after serialization")
+    void shouldRoundTripBytes() {
+        // Given
+        SpaceSavingSketch sketch = new SpaceSavingSketch(2);
+        sketch.offer("Pizza", 10);
+        sketch.offer("Agua", 3);
+        sketch.offer("Café", 1);
+
+        // When
+        SpaceSavingSketch restored = SpaceSavingSketch.fromBytes(sketch.toBytes());
+
+        // Then
+        assertThat(restored.capacity()).isEqualTo(2);
+        assertThat(restored.top(2)).isEqualTo(sketch.top(2));
+        assertThat(restored.minCount()).isEqualTo(sketch.minCount());
+    }
+
+    @Test
+    @DisplayName("Should reject a sketch without counters")
+    void shouldRejectZeroCapacity() {
+        assertThatThrownBy(() -> new SpaceSavingSketch(0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("La capacidad del resumen debe ser de al menos un contador");
+    }
+}